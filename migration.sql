@@ -55,3 +55,76 @@ CREATE INDEX idx_offline_messages_user_id_status ON offline_messages(user_id, st
 CREATE INDEX idx_offline_messages_expire_at ON offline_messages(expire_at);
 CREATE INDEX idx_offline_messages_created_at ON offline_messages(created_at);
 CREATE INDEX idx_offline_messages_message_type ON offline_messages(message_type);
+
+-- 8. 时间线收件箱重建：按作者取最近动态
+-- 执行时间：2025-10-18
+CREATE INDEX idx_posts_user_status_created ON posts(user_id, status, created_at);
+
+-- 9. 游标分页：(created_at, id) 倒序扫描所需索引
+-- 执行时间：2025-10-18
+CREATE INDEX idx_posts_status_created_id ON posts(status, created_at, id);
+CREATE INDEX idx_comments_item_parent_created_id ON comments(item_id, item_type, parent_id, created_at, id);
+CREATE INDEX idx_notifications_user_created_id ON notifications(user_id, created_at, id);
+
+-- 10. 校区动态流：按校区、状态、可见范围倒序扫描的覆盖索引
+-- 执行时间：2025-10-18
+CREATE INDEX idx_posts_campus_status_vis_created ON posts(campus_id, status, visibility, created_at, id);
+
+-- 11. 图片多尺寸版本：上传后异步生成信息流、大图版本并记录原图尺寸
+-- 执行时间：2025-10-18
+ALTER TABLE files
+    ADD COLUMN feed_url VARCHAR(255) NULL COMMENT '信息流尺寸图片地址' AFTER thumb_url,
+    ADD COLUMN full_url VARCHAR(255) NULL COMMENT '大图尺寸图片地址' AFTER feed_url,
+    ADD COLUMN width INT NULL COMMENT '图片宽度（像素）' AFTER full_url,
+    ADD COLUMN height INT NULL COMMENT '图片高度（像素）' AFTER width;
+
+-- 12. 上传内容去重：按 SHA-256 记录存储对象与引用计数
+-- 执行时间：2025-10-18
+CREATE TABLE file_blobs (
+                            sha256      CHAR(64) NOT NULL PRIMARY KEY COMMENT '内容 SHA-256',
+                            object_name VARCHAR(255) NOT NULL COMMENT '存储对象名称',
+                            file_url    VARCHAR(255) NOT NULL COMMENT '访问地址',
+                            size        BIGINT NOT NULL COMMENT '内容大小（字节）',
+                            ref_count   INT NOT NULL DEFAULT 1 COMMENT '引用该内容的文件记录数',
+                            created_at  DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='文件内容表';
+ALTER TABLE files ADD COLUMN content_hash CHAR(64) NULL COMMENT '内容 SHA-256' AFTER height;
+CREATE INDEX idx_files_content_hash ON files(content_hash);
+
+-- 13. 评论统计：点赞数、回复数，用于评论热门排序
+-- 执行时间：2025-10-18
+CREATE TABLE comment_stats (
+                               comment_id BIGINT NOT NULL PRIMARY KEY COMMENT '评论 ID',
+                               like_cnt   INT NOT NULL DEFAULT 0 COMMENT '点赞数',
+                               reply_cnt  INT NOT NULL DEFAULT 0 COMMENT '回复数',
+                               updated_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='评论统计表';
+INSERT INTO comment_stats (comment_id, like_cnt, reply_cnt)
+SELECT c.id,
+       (SELECT COUNT(*) FROM likes l WHERE l.item_type = 'COMMENT' AND l.item_id = c.id),
+       (SELECT COUNT(*) FROM comments r WHERE r.parent_id = c.id)
+FROM comments c;
+
+-- 14. 二级回复按根评论分页：回复预览与回复游标分页走该索引
+-- 执行时间：2025-10-18
+CREATE INDEX idx_comments_parent_created_id ON comments(parent_id, created_at, id);
+
+-- 15. 通知合并：点赞/收藏通知按窗口合并，记录合并的互动人数
+-- 执行时间：2025-10-18
+ALTER TABLE notifications
+    ADD COLUMN actor_count INT NOT NULL DEFAULT 1 COMMENT '合并的互动人数' AFTER ref_type;
+
+-- 16. 未读通知数：Redis 计数载入与校正按用户统计未读
+-- 执行时间：2025-10-18
+CREATE INDEX idx_notifications_user_status ON notifications(user_id, status);
+
+-- 17. 动态发布后置处理待办：与动态同一事务写入，进程崩溃或步骤失败时由定时任务补偿
+-- 执行时间：2025-10-18
+CREATE TABLE post_publish_outbox (
+                                     post_id     BIGINT NOT NULL PRIMARY KEY COMMENT '动态 ID',
+                                     topic_names VARCHAR(1000) NULL COMMENT '话题名称（JSON 数组）',
+                                     attempts    INT NOT NULL DEFAULT 0 COMMENT '补偿执行次数',
+                                     created_at  DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+                                     updated_at  DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '最近一次提交处理的时间',
+                                     INDEX idx_post_publish_outbox_updated (updated_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='动态发布后置处理待办表';
@@ -0,0 +1,22 @@
+package com.xiaoyua.common.enums;
+
+/**
+ * 动态统计计数字段，对应 post_stats 表的各计数列。
+ */
+public enum PostStatField {
+    VIEW("view_cnt"),
+    LIKE("like_cnt"),
+    FAV("fav_cnt"),
+    COMMENT("comment_cnt"),
+    SHARE("share_cnt");
+
+    private final String column;
+
+    PostStatField(String column) {
+        this.column = column;
+    }
+
+    public String column() {
+        return column;
+    }
+}
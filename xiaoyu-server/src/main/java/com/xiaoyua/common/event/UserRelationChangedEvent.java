@@ -0,0 +1,52 @@
+package com.xiaoyua.common.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 用户关系变更事件
+ * <p>
+ * 好友关系通过/解除、拉黑/取消拉黑、用户校区变更后发布，
+ * 可见性缓存、好友关系索引等监听该事件刷新各自的数据。
+ * </p>
+ *
+ * @author xiaoyu
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class UserRelationChangedEvent {
+
+    public enum Type {
+        /**
+         * 好友关系变化
+         */
+        FRIEND,
+        /**
+         * 黑名单变化
+         */
+        BLACKLIST,
+        /**
+         * 用户校区变化（targetId 为空）
+         */
+        CAMPUS
+    }
+
+    private final Type type;
+
+    /**
+     * 发起变更的用户ID
+     */
+    private final Long userId;
+
+    /**
+     * 关系另一方的用户ID，校区变更时为空
+     */
+    private final Long targetId;
+
+    /**
+     * 关系是否成立（新增好友/拉黑为 true，解除为 false；校区变更无意义）
+     */
+    private final boolean linked;
+}
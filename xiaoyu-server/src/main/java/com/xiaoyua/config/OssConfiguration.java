@@ -1,16 +1,27 @@
 package com.xiaoyua.config;
 
+import com.aliyun.oss.ClientBuilderConfiguration;
+import com.aliyun.oss.ClientErrorCode;
+import com.aliyun.oss.ClientException;
+import com.aliyun.oss.common.comm.RequestMessage;
+import com.aliyun.oss.common.comm.ResponseMessage;
+import com.aliyun.oss.common.comm.RetryStrategy;
 import com.xiaoyua.properties.AliOssProperties;
+import com.xiaoyua.properties.FileProperties;
 import com.xiaoyua.utils.OssUtil;
+import com.xiaoyua.utils.StorageMetrics;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
 /**
  * OSS配置类
- * 
+ *
  * @author xiaoyu
  */
 @Configuration
@@ -19,12 +30,72 @@ import org.springframework.context.annotation.Configuration;
 public class OssConfiguration {
 
     @Bean
+    public StorageMetrics storageMetrics() {
+        return new StorageMetrics();
+    }
+
+    @Bean(destroyMethod = "shutdown")
     @ConditionalOnMissingBean
-    public OssUtil aliOssUtil(AliOssProperties aliOssProperties){
+    public OssUtil aliOssUtil(AliOssProperties aliOssProperties, FileProperties fileProperties,
+                              StorageMetrics storageMetrics){
         log.info("开始创建阿里云文件上传工具类对象：{}",aliOssProperties);
         return new OssUtil(aliOssProperties.getEndpoint(),
                 aliOssProperties.getAccessKeyId(),
                 aliOssProperties.getAccessKeySecret(),
-                aliOssProperties.getBucketName());
+                aliOssProperties.getBucketName(),
+                fileProperties.getUpload().getMultipartThresholdBytes(),
+                fileProperties.getUpload().getPartSizeBytes(),
+                clientConfiguration(fileProperties.getOssClient()),
+                storageMetrics);
+    }
+
+    private ClientBuilderConfiguration clientConfiguration(FileProperties.OssClient config) {
+        ClientBuilderConfiguration conf = new ClientBuilderConfiguration();
+        conf.setMaxConnections(config.getMaxConnections());
+        conf.setConnectionTimeout(config.getConnectionTimeoutMs());
+        conf.setSocketTimeout(config.getSocketTimeoutMs());
+        conf.setConnectionRequestTimeout(config.getConnectionRequestTimeoutMs());
+        conf.setIdleConnectionTime(config.getIdleConnectionTimeMs());
+        conf.setMaxErrorRetry(config.getMaxRetries());
+        conf.setRetryStrategy(new BackoffRetryStrategy(config.getRetryBaseDelayMs(), config.getRetryMaxDelayMs()));
+        return conf;
+    }
+
+    /**
+     * 指数退避重试：只重试网络错误与服务端 5xx/429，退避时间加随机抖动避免同时重试。
+     * 上传的请求体都是可重放的 ByteArrayInputStream，上传、下载、删除都按该策略重试。
+     */
+    static class BackoffRetryStrategy extends RetryStrategy {
+
+        private static final Set<String> RETRYABLE_CLIENT_ERRORS = Set.of(
+                ClientErrorCode.CONNECTION_TIMEOUT, ClientErrorCode.SOCKET_TIMEOUT,
+                ClientErrorCode.SOCKET_EXCEPTION, ClientErrorCode.CONNECTION_REFUSED,
+                ClientErrorCode.UNKNOWN_HOST, ClientErrorCode.SSL_EXCEPTION);
+
+        private final long baseDelayMs;
+        private final long maxDelayMs;
+
+        BackoffRetryStrategy(long baseDelayMs, long maxDelayMs) {
+            this.baseDelayMs = baseDelayMs;
+            this.maxDelayMs = maxDelayMs;
+        }
+
+        @Override
+        public boolean shouldRetry(Exception ex, RequestMessage request, ResponseMessage response, int retries) {
+            if (ex instanceof ClientException ce && RETRYABLE_CLIENT_ERRORS.contains(ce.getErrorCode())) {
+                return true;
+            }
+            if (response != null) {
+                int status = response.getStatusCode();
+                return status == 429 || status >= 500;
+            }
+            return false;
+        }
+
+        @Override
+        public long getPauseDelay(int retries) {
+            long delay = Math.min(maxDelayMs, baseDelayMs << Math.min(retries, 16));
+            return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+        }
     }
-}
\ No newline at end of file
+}
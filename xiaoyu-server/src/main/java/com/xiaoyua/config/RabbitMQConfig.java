@@ -1,5 +1,6 @@
 package com.xiaoyua.config;
 
+import com.xiaoyua.properties.NotificationProperties;
 import org.springframework.amqp.core.*;
 import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
@@ -37,6 +38,27 @@ public class RabbitMQConfig {
         factory.setMessageConverter(messageConverter());
         return factory;
     }
+    
+    /**
+     * 通知推送队列的批量消费容器：凑满 batch-size 条或等待 receive-timeout-ms 后整批交给监听器，
+     * 手动确认，由监听器按批确认并单独处理失败的消息
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory notificationBatchListenerFactory(ConnectionFactory connectionFactory,
+                                                                                NotificationProperties notificationProperties) {
+        NotificationProperties.Consumer config = notificationProperties.getConsumer();
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setMessageConverter(messageConverter());
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(config.getBatchSize());
+        factory.setReceiveTimeout(config.getReceiveTimeoutMs());
+        factory.setPrefetchCount(Math.max(config.getPrefetch(), config.getBatchSize()));
+        factory.setConcurrentConsumers(config.getConcurrency());
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        return factory;
+    }
 
     // ==================== 交换机 ====================
     
@@ -0,0 +1,37 @@
+package com.xiaoyua.controller;
+
+import com.xiaoyua.service.storage.LocalStorageBackend;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 本地存储文件下载控制器，仅在使用本地磁盘存储时启用
+ *
+ * @author xiaoyu
+ */
+@RestController
+@ConditionalOnProperty(prefix = "xiaoyu.file.storage", name = "type", havingValue = "local")
+@Tag(name = "文件管理", description = "文件上传、下载、删除等操作")
+public class LocalFileController {
+
+    @Autowired
+    private LocalStorageBackend localStorageBackend;
+
+    @GetMapping(LocalStorageBackend.RAW_PATH + "**")
+    @Operation(summary = "下载文件", description = "读取本地存储的文件内容，支持 Range 断点续传")
+    public void download(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String objectName = URLDecoder.decode(path.substring(LocalStorageBackend.RAW_PATH.length()), StandardCharsets.UTF_8);
+        localStorageBackend.serve(objectName, request, response);
+    }
+}
@@ -7,6 +7,7 @@ import com.xiaoyua.result.Result;
 import com.xiaoyua.service.CommentService;
 import com.xiaoyua.service.LikeService;
 import com.xiaoyua.vo.comment.CommentVO;
+import com.xiaoyua.vo.common.PageResult;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -51,16 +52,33 @@ public class CommentController {
 
     @GetMapping
     @Operation(summary = "获取动态评论列表", description = "获取指定动态的评论列表")
-    public Result<IPage<CommentVO>> getCommentsByPostId(
+    public Result<?> getCommentsByPostId(
             @Parameter(description = "动态ID") @RequestParam("post_id") Long postId,
             @Parameter(description = "页码") @RequestParam(defaultValue = "1") @Min(1) Integer page,
             @Parameter(description = "每页数量") @RequestParam(defaultValue = "20") @Min(1) Integer size,
-            @Parameter(description = "排序方式") @RequestParam(defaultValue = "latest") String sort) {
-        log.info("getCommentsByPostId postId={}, page={}, size={}, sort={}", postId, page, size, sort);
+            @Parameter(description = "排序方式") @RequestParam(defaultValue = "latest") String sort,
+            @Parameter(description = "分页游标，传入（首页传空串）即使用游标分页，忽略 page；sort=hot 时按热度分页") @RequestParam(required = false) String cursor) {
+        log.info("getCommentsByPostId postId={}, page={}, size={}, sort={}, cursor={}", postId, page, size, sort, cursor);
+        if (cursor != null) {
+            if ("hot".equals(sort)) {
+                return Result.success(commentService.getHotCommentsByCursor(postId, cursor, size));
+            }
+            return Result.success(commentService.getCommentsByCursor(postId, cursor, size));
+        }
         IPage<CommentVO> comments = commentService.getComments(postId, page, size, sort);
         return Result.success(comments);
     }
 
+    @GetMapping("/{comment_id}/replies")
+    @Operation(summary = "获取评论回复列表", description = "游标分页获取根评论下的回复，最新在前")
+    public Result<PageResult<CommentVO>> getReplies(
+            @Parameter(description = "评论ID") @PathVariable("comment_id") Long commentId,
+            @Parameter(description = "分页游标，首页传空串或不传") @RequestParam(defaultValue = "") String cursor,
+            @Parameter(description = "每页数量") @RequestParam(defaultValue = "20") @Min(1) Integer size) {
+        log.info("getReplies commentId={}, cursor={}, size={}", commentId, cursor, size);
+        return Result.success(commentService.getReplies(commentId, cursor, size));
+    }
+
     @PostMapping("/{comment_id}/like")
     @Operation(summary = "点赞评论", description = "对评论进行点赞")
     public Result likeComment(
@@ -10,6 +10,8 @@ import com.xiaoyua.service.LikeService;
 import com.xiaoyua.service.FavService;
 import com.xiaoyua.service.ShareService;
 import com.xiaoyua.service.FileService;
+import com.xiaoyua.service.PostCounterService;
+import com.xiaoyua.service.cache.PostDetailCache;
 import com.xiaoyua.vo.post.PostVO;
 import com.xiaoyua.result.Result;
 import lombok.extern.slf4j.Slf4j;
@@ -24,6 +26,7 @@ import java.util.Map;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.xiaoyua.common.enums.PostStatField;
 import com.xiaoyua.common.enums.TargetType;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -53,6 +56,12 @@ public class PostController {
     @Autowired
     private FileService fileService;
 
+    @Autowired
+    private PostDetailCache postDetailCache;
+
+    @Autowired
+    private PostCounterService postCounterService;
+
 
     @PostMapping(value = "/posts", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @Operation(summary = "发布动态（@ModelAttribute 混合表单：表单字段 + files）")
@@ -69,12 +78,11 @@ public class PostController {
         dto.setPoiLng(form.getPoiLng());
         dto.setPoiName(form.getPoiName());
 
-        // 处理文件
+        // 处理文件：并发上传，耗时取决于最慢的文件；任一失败时已上传的文件会被回滚
         List<MultipartFile> files = form.getFiles();
+        List<Long> fileIds = new ArrayList<>();
         if (files != null && !files.isEmpty()) {
-            List<Long> fileIds = new ArrayList<>();
-            for (MultipartFile file : files) {
-                var fileVO = fileService.uploadFile(file, "POST", userId);
+            for (var fileVO : fileService.uploadFiles(files, "POST", userId)) {
                 if (fileVO != null && fileVO.getId() != null) {
                     fileIds.add(fileVO.getId());
                 }
@@ -82,7 +90,14 @@ public class PostController {
             dto.setFileIds(fileIds);
         }
 
-        PostVO postVO = postService.createPost(dto, userId);
+        PostVO postVO;
+        try {
+            postVO = postService.createPost(dto, userId);
+        } catch (RuntimeException e) {
+            // 动态发布失败时删除本次上传的文件，避免留下无主文件
+            fileService.discardFiles(fileIds, userId);
+            throw e;
+        }
         return Result.success("发布成功", postVO);
     }
 
@@ -92,8 +107,8 @@ public class PostController {
         log.info("addLike postId={}", postId);
         Long userId = BaseContext.getCurrentId();
         likeService.addLike(postId, userId, TargetType.POST);
-        // 返回最新的点赞数量
-        long likeCount = likeService.getLikeCount(postId, TargetType.POST);
+        // 返回最新的点赞数量（读取 Redis 计数，不统计点赞表）
+        long likeCount = postCounterService.getCount(postId, PostStatField.LIKE);
         return Result.success("点赞成功", Map.of("like_cnt", likeCount));
     }
 
@@ -104,8 +119,8 @@ public class PostController {
         Long userId = BaseContext.getCurrentId();
         likeService.deleteLike(postId, userId, TargetType.POST);
         
-        // 返回最新的点赞数量
-        long likeCount = likeService.getLikeCount(postId, TargetType.POST);
+        // 返回最新的点赞数量（读取 Redis 计数，不统计点赞表）
+        long likeCount = postCounterService.getCount(postId, PostStatField.LIKE);
         return Result.success("取消点赞成功", Map.of("like_cnt", likeCount));
     }
 
@@ -115,7 +130,7 @@ public class PostController {
         log.info("addFav postId={}", postId);
         Long userId = BaseContext.getCurrentId();
         favService.addFavorite(postId, userId, TargetType.POST);
-        long favCount = favService.getFavoriteCount(postId, TargetType.POST);
+        long favCount = postCounterService.getCount(postId, PostStatField.FAV);
         return Result.success("收藏成功", Map.of("fav_cnt", favCount));
     }
     
@@ -125,7 +140,7 @@ public class PostController {
         log.info("deleteFav postId={}", postId);
         Long userId = BaseContext.getCurrentId();
         favService.deleteFavorite(postId, userId, TargetType.POST);
-        long favCount = favService.getFavoriteCount(postId, TargetType.POST);
+        long favCount = postCounterService.getCount(postId, PostStatField.FAV);
         return Result.success("取消收藏成功", Map.of("fav_cnt", favCount));
     }
 
@@ -138,20 +153,39 @@ public class PostController {
     }
 
     @GetMapping("/hot")
-    @Operation(summary = "获取热门动态（按浏览数倒序，默认前10条）")
+    @Operation(summary = "获取热门动态（按时间衰减热度倒序，默认前10条）")
     public Result<List<PostVO>> getHotPosts(@RequestParam(value = "limit", required = false) Integer limit) {
         log.info("listHot limit={}", limit);
         var list = postService.listHot(limit);
         return Result.success("success", list);
     }
 
+    @GetMapping("/timeline")
+    @Operation(summary = "获取首页时间线（好友与同校区动态）")
+    public Result getTimeline(@RequestParam(value = "page", required = false) Integer page,
+                              @RequestParam(value = "size", required = false) Integer size) {
+        log.info("getTimeline page={}, size={}", page, size);
+        var pageResult = postService.getTimeline(page, size);
+        return Result.success("success", pageResult);
+    }
+
+    @GetMapping("/cache/stats")
+    @Operation(summary = "获取动态详情缓存命中统计")
+    public Result<Map<String, Object>> getDetailCacheStats() {
+        return Result.success("success", postDetailCache.stats());
+    }
+
     @GetMapping
     @Operation(summary = "获取全部动态列表")
     public Result getAllPosts(@RequestParam(value = "page", required = false) Integer page,
                               @RequestParam(value = "size", required = false) Integer size,
-                              @RequestParam(value = "sort", required = false) String sort) {
-        log.info("listAll page={}, size={}, sort={}", page, size, sort);
-        var pageResult = postService.listAll(page, size, sort);
+                              @RequestParam(value = "sort", required = false) String sort,
+                              @RequestParam(value = "cursor", required = false) String cursor) {
+        log.info("listAll page={}, size={}, sort={}, cursor={}", page, size, sort, cursor);
+        // 传入 cursor（首页传空串）即切换为游标分页
+        var pageResult = cursor != null
+                ? postService.listAllByCursor(cursor, size)
+                : postService.listAll(page, size, sort);
         return Result.success("success", pageResult);
     }
 
@@ -160,9 +194,12 @@ public class PostController {
     public Result getPostsByUser(@PathVariable("user_id") @Min(1) Long userId,
                                  @RequestParam(value = "page", required = false) Integer page,
                                  @RequestParam(value = "size", required = false) Integer size,
-                                 @RequestParam(value = "sort", required = false) String sort) {
-        log.info("listByUser userId={}, page={}, size={}, sort={}", userId, page, size, sort);
-        var pageResult = postService.listByUser(userId, page, size, sort);
+                                 @RequestParam(value = "sort", required = false) String sort,
+                                 @RequestParam(value = "cursor", required = false) String cursor) {
+        log.info("listByUser userId={}, page={}, size={}, sort={}, cursor={}", userId, page, size, sort, cursor);
+        var pageResult = cursor != null
+                ? postService.listByUserByCursor(userId, cursor, size)
+                : postService.listByUser(userId, page, size, sort);
         return Result.success("success", pageResult);
     }
 
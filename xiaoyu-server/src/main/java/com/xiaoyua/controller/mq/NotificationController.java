@@ -31,7 +31,7 @@ public class NotificationController {
 
     @GetMapping
     @Operation(summary = "获取通知列表", description = "获取当前登录用户的通知列表")
-    public Result<IPage<NotificationVO>> getNotifications(
+    public Result<?> getNotifications(
             @Parameter(description = "通知类型：LIKE/FAVORITE/COMMENT/SHARE/TASK_ORDER/SYSTEM/VIOLATION") 
             @RequestParam(required = false) String type,
             @Parameter(description = "阅读状态：UNREAD/read，默认UNREAD") 
@@ -39,12 +39,17 @@ public class NotificationController {
             @Parameter(description = "页码，默认1") 
             @RequestParam(defaultValue = "1") Integer page,
             @Parameter(description = "每页数量，默认20") 
-            @RequestParam(defaultValue = "20") Integer size) {
+            @RequestParam(defaultValue = "20") Integer size,
+            @Parameter(description = "分页游标，传入（首页传空串）即使用游标分页，忽略 page") 
+            @RequestParam(required = false) String cursor) {
         
         Long userId = BaseContext.getCurrentId();
-        log.info("获取通知列表: userId={}, type={}, status={}, page={}, size={}", 
-                userId, type, status, page, size);
+        log.info("获取通知列表: userId={}, type={}, status={}, page={}, size={}, cursor={}", 
+                userId, type, status, page, size, cursor);
         
+        if (cursor != null) {
+            return Result.success(notificationService.getNotificationsByCursor(userId, type, status, cursor, size));
+        }
         IPage<NotificationVO> notifications = notificationService.getNotifications(userId, type, status, page, size);
         return Result.success(notifications);
     }
@@ -82,7 +87,7 @@ public class NotificationController {
     @Operation(summary = "获取未读通知数量", description = "获取当前登录用户的未读通知数量")
     public Result<Map<String, Object>> getUnreadCount() {
         Long userId = BaseContext.getCurrentId();
-        log.info("获取未读通知数量: userId={}", userId);
+        log.debug("获取未读通知数量: userId={}", userId);
         
         long count = notificationService.getUnreadCount(userId);
         
@@ -34,6 +34,11 @@ public class PostQueryDTO extends PageDTO {
      */
     @Pattern(regexp = "^(hot|latest)$", message = "排序方式值不正确")
     private String sort = "latest";
+
+    /**
+     * 分页游标：不为 null 时使用游标模式（空字符串表示第一页），忽略 page 与 sort
+     */
+    private String cursor;
     
 //    public PostQueryDTO() {}
 //
@@ -0,0 +1,26 @@
+package com.xiaoyua.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * 评论统计表
+ */
+@Data
+@TableName("comment_stats")
+public class CommentStatPO {
+
+    /** 评论 ID */
+    @TableId
+    private Long commentId;
+
+    /** 点赞数 */
+    private Integer likeCnt;
+
+    /** 回复数 */
+    private Integer replyCnt;
+
+    /** 更新时间 */
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,32 @@
+package com.xiaoyua.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * 文件内容表：按内容 SHA-256 去重后的存储对象及其引用计数
+ */
+@Data
+@TableName("file_blobs")
+public class FileBlobPO {
+
+    /** 内容 SHA-256（小写十六进制） */
+    @TableId(type = IdType.INPUT)
+    private String sha256;
+
+    /** 存储对象名称 */
+    private String objectName;
+
+    /** 访问地址 */
+    private String fileUrl;
+
+    /** 内容大小（字节） */
+    private Long size;
+
+    /** 引用该内容的文件记录数 */
+    private Integer refCount;
+
+    /** 创建时间 */
+    private LocalDateTime createdAt;
+}
@@ -28,6 +28,21 @@ public class FilePO {
     /** CDN 缩略图地址 */
     private String thumbUrl;
 
+    /** 信息流尺寸图片地址 */
+    private String feedUrl;
+
+    /** 大图尺寸图片地址 */
+    private String fullUrl;
+
+    /** 图片宽度（像素） */
+    private Integer width;
+
+    /** 图片高度（像素） */
+    private Integer height;
+
+    /** 内容 SHA-256，对应 file_blobs，去重之前上传的文件为空 */
+    private String contentHash;
+
     /** 文件大小（字节） */
     private Integer size;
 
@@ -35,6 +35,9 @@ public class NotificationPO {
     @EnumValue
     private RefType refType;
 
+    /** 合并的互动人数 */
+    private Integer actorCount;
+
     /** 阅读状态 */
     @EnumValue
     private Status status;
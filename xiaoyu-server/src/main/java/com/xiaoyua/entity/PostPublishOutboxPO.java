@@ -0,0 +1,29 @@
+package com.xiaoyua.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * 动态发布后置处理待办表：与动态在同一事务写入，后置处理全部成功后删除
+ */
+@Data
+@TableName("post_publish_outbox")
+public class PostPublishOutboxPO {
+
+    /** 动态ID */
+    @TableId(type = IdType.INPUT)
+    private Long postId;
+
+    /** 话题名称（JSON 数组，#名称# 形式） */
+    private String topicNames;
+
+    /** 补偿执行次数 */
+    private Integer attempts;
+
+    /** 创建时间 */
+    private LocalDateTime createdAt;
+
+    /** 最近一次提交处理的时间 */
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,14 @@
+package com.xiaoyua.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.xiaoyua.entity.BlacklistPO;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * 黑名单Mapper接口
+ *
+ * @author xiaoyu
+ */
+@Mapper
+public interface BlacklistMapper extends BaseMapper<BlacklistPO> {
+}
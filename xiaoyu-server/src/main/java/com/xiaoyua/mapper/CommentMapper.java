@@ -3,7 +3,29 @@ package com.xiaoyua.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.xiaoyua.entity.CommentPO;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
 
 @Mapper
 public interface CommentMapper extends BaseMapper<CommentPO> {
+
+    /**
+     * 批量取每条根评论最新的 limit 条回复
+     * <p>
+     * 每条根评论一个带 LIMIT 的子查询走 (parent_id, created_at, id) 索引，
+     * 扫描行数为 根评论数 × limit，与楼层深度无关。
+     * </p>
+     *
+     * @param rootIds 根评论ID
+     * @param limit   每条根评论的回复数
+     * @return 回复，按根评论分组、组内按时间倒序
+     */
+    @Select("<script>" +
+            "<foreach collection='rootIds' item='rootId' separator=' UNION ALL '>" +
+            "(SELECT * FROM comments WHERE parent_id = #{rootId} ORDER BY created_at DESC, id DESC LIMIT #{limit})" +
+            "</foreach>" +
+            "</script>")
+    List<CommentPO> selectLatestReplies(@Param("rootIds") List<Long> rootIds, @Param("limit") int limit);
 }
@@ -0,0 +1,21 @@
+package com.xiaoyua.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.xiaoyua.entity.CommentStatPO;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+
+@Mapper
+public interface CommentStatMapper extends BaseMapper<CommentStatPO> {
+
+    /**
+     * 累加点赞数与回复数增量（增量可为负，结果不小于 0），统计行不存在时创建
+     */
+    @Update("INSERT INTO comment_stats (comment_id, like_cnt, reply_cnt) " +
+            "VALUES (#{commentId}, GREATEST(#{likeDelta}, 0), GREATEST(#{replyDelta}, 0)) " +
+            "ON DUPLICATE KEY UPDATE like_cnt = GREATEST(like_cnt + #{likeDelta}, 0), " +
+            "reply_cnt = GREATEST(reply_cnt + #{replyDelta}, 0)")
+    int increment(@Param("commentId") Long commentId, @Param("likeDelta") int likeDelta,
+                  @Param("replyDelta") int replyDelta);
+}
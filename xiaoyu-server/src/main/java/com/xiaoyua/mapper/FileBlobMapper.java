@@ -0,0 +1,33 @@
+package com.xiaoyua.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.xiaoyua.entity.FileBlobPO;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+@Mapper
+public interface FileBlobMapper extends BaseMapper<FileBlobPO> {
+
+    /**
+     * 已有内容引用数加一，内容不存在时返回 0
+     */
+    @Update("UPDATE file_blobs SET ref_count = ref_count + 1 WHERE sha256 = #{sha256}")
+    int incrementRef(@Param("sha256") String sha256);
+
+    /**
+     * 登记新写入的内容；并发上传相同内容时已有记录胜出，只增加引用数
+     */
+    @Insert("INSERT INTO file_blobs (sha256, object_name, file_url, size, ref_count, created_at) " +
+            "VALUES (#{sha256}, #{objectName}, #{fileUrl}, #{size}, 1, NOW()) " +
+            "ON DUPLICATE KEY UPDATE ref_count = ref_count + 1")
+    int insertOrIncrementRef(FileBlobPO blob);
+
+    @Select("SELECT * FROM file_blobs WHERE sha256 = #{sha256} FOR UPDATE")
+    FileBlobPO selectForUpdate(@Param("sha256") String sha256);
+
+    @Update("UPDATE file_blobs SET ref_count = ref_count - 1 WHERE sha256 = #{sha256}")
+    int decrementRef(@Param("sha256") String sha256);
+}
@@ -3,7 +3,15 @@ package com.xiaoyua.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.xiaoyua.entity.FilePO;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Update;
 
 @Mapper
 public interface FileMapper extends BaseMapper<FilePO> {
+
+    /**
+     * 回填同一内容所有文件记录的图片版本
+     */
+    @Update("UPDATE files SET thumb_url = #{thumbUrl}, feed_url = #{feedUrl}, full_url = #{fullUrl}, " +
+            "width = #{width}, height = #{height} WHERE content_hash = #{contentHash}")
+    int updateVariantsByContentHash(FilePO file);
 }
@@ -3,6 +3,11 @@ package com.xiaoyua.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.xiaoyua.entity.FriendPO;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Collection;
+import java.util.List;
 
 /**
  * 好友关系Mapper接口
@@ -11,4 +16,24 @@ import org.apache.ibatis.annotations.Mapper;
  */
 @Mapper
 public interface FriendMapper extends BaseMapper<FriendPO> {
+
+    /**
+     * 查询用户的全部好友ID（双向，已通过的好友关系）
+     */
+    @Select("SELECT friend_id FROM friends WHERE user_id = #{userId} AND status = 'ACCEPTED' AND deleted = 0 " +
+            "UNION " +
+            "SELECT user_id FROM friends WHERE friend_id = #{userId} AND status = 'ACCEPTED' AND deleted = 0")
+    List<Long> selectFriendIds(@Param("userId") Long userId);
+
+    /**
+     * 批量查询多个用户的好友关系（双向展开），每行的 userId 为查询的用户、friendId 为其好友
+     */
+    @Select("<script>" +
+            "SELECT user_id, friend_id FROM friends WHERE status = 'ACCEPTED' AND deleted = 0 AND user_id IN " +
+            "<foreach collection='userIds' item='id' open='(' separator=',' close=')'>#{id}</foreach> " +
+            "UNION " +
+            "SELECT friend_id AS user_id, user_id AS friend_id FROM friends WHERE status = 'ACCEPTED' AND deleted = 0 AND friend_id IN " +
+            "<foreach collection='userIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    List<FriendPO> selectFriendEdges(@Param("userIds") Collection<? extends Long> userIds);
 }
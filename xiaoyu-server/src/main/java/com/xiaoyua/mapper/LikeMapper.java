@@ -2,8 +2,43 @@ package com.xiaoyua.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.xiaoyua.entity.LikePO;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Collection;
+import java.util.List;
 
 @Mapper
 public interface LikeMapper extends BaseMapper<LikePO> {
+
+    /**
+     * 点赞（已存在则忽略），一次往返完成
+     *
+     * @return 1 表示新增，0 表示已点赞
+     */
+    @Insert("INSERT IGNORE INTO likes (user_id, item_id, item_type, created_at) " +
+            "VALUES (#{userId}, #{itemId}, #{itemType}, NOW())")
+    int insertIgnore(@Param("userId") Long userId, @Param("itemId") Long itemId, @Param("itemType") String itemType);
+
+    /**
+     * 查询一批内容的全部点赞用户
+     */
+    @Select("<script>" +
+            "SELECT user_id, item_id FROM likes WHERE item_type = #{itemType} AND item_id IN " +
+            "<foreach collection='itemIds' item='id' open='(' separator=',' close=')'>" +
+            "#{id}" +
+            "</foreach>" +
+            "</script>")
+    List<LikePO> selectByItems(@Param("itemType") String itemType, @Param("itemIds") Collection<Long> itemIds);
+
+    /**
+     * 按主键顺序分批扫描点赞记录（用于重建布隆过滤器）
+     */
+    @Select("SELECT user_id, item_id, item_type FROM likes " +
+            "WHERE (user_id, item_id, item_type) > (#{userId}, #{itemId}, #{itemType}) " +
+            "ORDER BY user_id, item_id, item_type LIMIT #{limit}")
+    List<LikePO> scanAfter(@Param("userId") Long userId, @Param("itemId") Long itemId,
+                           @Param("itemType") String itemType, @Param("limit") int limit);
 }
@@ -2,7 +2,15 @@ package com.xiaoyua.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.xiaoyua.entity.NotificationPO;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 /**
  * 通知数据访问层
@@ -11,4 +19,30 @@ import org.apache.ibatis.annotations.Mapper;
  */
 @Mapper
 public interface NotificationMapper extends BaseMapper<NotificationPO> {
+
+    /**
+     * 一条多行 INSERT 写入一批通知，自增ID按顺序回填到每条记录
+     */
+    @Insert("<script>" +
+            "INSERT INTO notifications (user_id, type, title, content, ref_id, ref_type, actor_count, status, created_at) VALUES " +
+            "<foreach collection='rows' item='n' separator=','>" +
+            "(#{n.userId}, #{n.type}, #{n.title}, #{n.content}, #{n.refId}, #{n.refType}, #{n.actorCount}, #{n.status}, #{n.createdAt})" +
+            "</foreach>" +
+            "</script>")
+    @Options(useGeneratedKeys = true, keyProperty = "rows.id", keyColumn = "id")
+    int insertBatch(@Param("rows") List<NotificationPO> rows);
+
+    /**
+     * 批量统计用户未读通知数，没有未读通知的用户不返回
+     *
+     * @param userIds 用户ID
+     * @return 每行包含 user_id、cnt
+     */
+    @Select("<script>" +
+            "SELECT user_id, COUNT(*) AS cnt FROM notifications " +
+            "WHERE status = 'UNREAD' AND user_id IN " +
+            "<foreach collection='userIds' item='id' open='(' separator=',' close=')'>#{id}</foreach> " +
+            "GROUP BY user_id" +
+            "</script>")
+    List<Map<String, Object>> countUnreadByUsers(@Param("userIds") Collection<Long> userIds);
 }
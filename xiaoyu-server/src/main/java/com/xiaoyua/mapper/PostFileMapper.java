@@ -2,8 +2,23 @@ package com.xiaoyua.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.xiaoyua.entity.PostFilePO;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 
 @Mapper
 public interface PostFileMapper extends BaseMapper<PostFilePO> {
+
+    /**
+     * 一条多行 INSERT 写入动态的全部文件关联，sort 为文件在列表中的下标
+     */
+    @Insert("<script>" +
+            "INSERT INTO post_files (post_id, file_id, sort) VALUES " +
+            "<foreach collection='fileIds' item='fileId' index='i' separator=','>" +
+            "(#{postId}, #{fileId}, #{i})" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("postId") Long postId, @Param("fileIds") List<Long> fileIds);
 }
@@ -6,18 +6,45 @@ import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Mapper
 public interface PostMapper extends BaseMapper<PostPO>{
     /**
-     * 查询热门动态（按点赞数倒序）
-     * 说明：依赖 post_stats.like_cnt 字段
+     * 查询用户时间线的种子数据（收件箱重建用）：
+     * 自己与好友的公开/好友可见动态，以及同校区作者的校园可见动态
      */
-    @Select("SELECT p.* FROM posts p " +
-            "LEFT JOIN post_stats s ON s.post_id = p.id " +
-            "WHERE p.status = 'PUBLISHED' AND p.visibility = 'PUBLIC' " +
-            "ORDER BY s.view_cnt DESC, p.created_at DESC " +
+    @Select("SELECT p.id, p.created_at FROM posts p " +
+            "WHERE p.status = 'PUBLISHED' AND (" +
+            "  (p.visibility IN ('PUBLIC', 'FRIEND') AND (p.user_id = #{userId} " +
+            "     OR p.user_id IN (SELECT f.friend_id FROM friends f WHERE f.user_id = #{userId} AND f.status = 'ACCEPTED' AND f.deleted = 0) " +
+            "     OR p.user_id IN (SELECT f.user_id FROM friends f WHERE f.friend_id = #{userId} AND f.status = 'ACCEPTED' AND f.deleted = 0))) " +
+            "  OR (p.visibility = 'CAMPUS' AND p.user_id IN (SELECT u.id FROM users u WHERE u.campus_id = #{campusId}))" +
+            ") " +
+            "ORDER BY p.created_at DESC " +
             "LIMIT #{limit}")
-    List<PostPO> selectHotPosts(@Param("limit") int limit);
+    List<PostPO> selectTimelineSeed(@Param("userId") Long userId, @Param("campusId") Long campusId, @Param("limit") int limit);
+
+    /**
+     * 查询校区最近的公开/校园可见动态（校区动态环构建用）：
+     * 两种可见范围分别沿 (campus_id, status, visibility, created_at, id) 索引倒序取前 N 条，再合并取前 N 条
+     */
+    @Select("SELECT id, created_at FROM (" +
+            "  (SELECT id, created_at FROM posts WHERE campus_id = #{campusId} AND status = 'PUBLISHED' AND visibility = 'PUBLIC' " +
+            "   ORDER BY created_at DESC, id DESC LIMIT #{limit}) " +
+            "  UNION ALL " +
+            "  (SELECT id, created_at FROM posts WHERE campus_id = #{campusId} AND status = 'PUBLISHED' AND visibility = 'CAMPUS' " +
+            "   ORDER BY created_at DESC, id DESC LIMIT #{limit})" +
+            ") t ORDER BY created_at DESC, id DESC LIMIT #{limit}")
+    List<PostPO> selectCampusRecent(@Param("campusId") Long campusId, @Param("limit") int limit);
+
+    /**
+     * 查询校区自某一时间起发布的公开/校园可见动态（校区动态环构建后补齐构建期间发布的动态）
+     */
+    @Select("SELECT id, created_at FROM posts WHERE campus_id = #{campusId} AND status = 'PUBLISHED' " +
+            "AND visibility IN ('PUBLIC', 'CAMPUS') AND created_at >= #{since} " +
+            "ORDER BY created_at DESC, id DESC LIMIT #{limit}")
+    List<PostPO> selectCampusSince(@Param("campusId") Long campusId, @Param("since") LocalDateTime since,
+                                   @Param("limit") int limit);
 }
@@ -0,0 +1,27 @@
+package com.xiaoyua.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.xiaoyua.entity.PostPublishOutboxPO;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Mapper
+public interface PostPublishOutboxMapper extends BaseMapper<PostPublishOutboxPO> {
+
+    /**
+     * 最近一次提交早于 before 仍未完成的待办（进程崩溃、重启或某一步失败遗留）
+     */
+    @Select("SELECT * FROM post_publish_outbox WHERE updated_at < #{before} ORDER BY updated_at LIMIT #{limit}")
+    List<PostPublishOutboxPO> selectStale(@Param("before") LocalDateTime before, @Param("limit") int limit);
+
+    /**
+     * 登记一次补偿提交，次数加一并刷新提交时间
+     */
+    @Update("UPDATE post_publish_outbox SET attempts = attempts + 1, updated_at = NOW() WHERE post_id = #{postId}")
+    int markRetry(@Param("postId") Long postId);
+}
@@ -7,6 +7,8 @@ import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Update;
 
+import java.util.List;
+
 @Mapper
 public interface PostStatMapper extends BaseMapper<PostStatPO> {
 
@@ -14,32 +16,31 @@ public interface PostStatMapper extends BaseMapper<PostStatPO> {
             "ON DUPLICATE KEY UPDATE post_id = post_id")
     int initIfAbsent(@Param("postId") Long postId);
 
-    @Update("INSERT INTO post_stats (post_id, view_cnt, like_cnt, fav_cnt, comment_cnt, share_cnt) VALUES (#{postId}, 1, 0, 0, 0, 0) " +
-            "ON DUPLICATE KEY UPDATE view_cnt = view_cnt + 1")
-    int incView(@Param("postId") Long postId);
-
-    @Update("INSERT INTO post_stats (post_id, view_cnt, like_cnt, fav_cnt, comment_cnt, share_cnt) VALUES (#{postId}, 0, 1, 0, 0, 0) " +
-            "ON DUPLICATE KEY UPDATE like_cnt = like_cnt + 1")
-    int incLike(@Param("postId") Long postId);
-
-    @Update("UPDATE post_stats SET like_cnt = CASE WHEN like_cnt > 0 THEN like_cnt - 1 ELSE 0 END WHERE post_id = #{postId}")
-    int decLike(@Param("postId") Long postId);
-
-    @Update("INSERT INTO post_stats (post_id, view_cnt, like_cnt, fav_cnt, comment_cnt, share_cnt) VALUES (#{postId}, 0, 0, 0, 1, 0) " +
-            "ON DUPLICATE KEY UPDATE comment_cnt = comment_cnt + 1")
-    int incComment(@Param("postId") Long postId);
-
-    @Update("UPDATE post_stats SET comment_cnt = CASE WHEN comment_cnt > 0 THEN comment_cnt - 1 ELSE 0 END WHERE post_id = #{postId}")
-    int decComment(@Param("postId") Long postId);
-
-    @Update("INSERT INTO post_stats (post_id, view_cnt, like_cnt, fav_cnt, comment_cnt, share_cnt) VALUES (#{postId}, 0, 0, 0, 0, 1) " +
-            "ON DUPLICATE KEY UPDATE share_cnt = share_cnt + 1")
-    int incShare(@Param("postId") Long postId);
-
-    @Update("INSERT INTO post_stats (post_id, view_cnt, like_cnt, fav_cnt, comment_cnt, share_cnt) VALUES (#{postId}, 0, 0, 1, 0, 0) " +
-            "ON DUPLICATE KEY UPDATE fav_cnt = fav_cnt + 1")
-    int incFav(@Param("postId") Long postId);
-
-    @Update("UPDATE post_stats SET fav_cnt = CASE WHEN fav_cnt > 0 THEN fav_cnt - 1 ELSE 0 END WHERE post_id = #{postId}")
-    int decFav(@Param("postId") Long postId);
+    /**
+     * 批量累加浏览数（多行 UPSERT），调用方应按 post_id 排序以固定加锁顺序
+     */
+    @Update("<script>" +
+            "INSERT INTO post_stats (post_id, view_cnt, like_cnt, fav_cnt, comment_cnt, share_cnt) VALUES " +
+            "<foreach collection='rows' item='row' separator=','>" +
+            "(#{row.postId}, #{row.viewCnt}, 0, 0, 0, 0)" +
+            "</foreach>" +
+            " ON DUPLICATE KEY UPDATE view_cnt = view_cnt + VALUES(view_cnt)" +
+            "</script>")
+    int batchIncView(@Param("rows") List<PostStatPO> rows);
+
+    /**
+     * 批量累加互动计数增量（多行 UPSERT，增量可为负，结果不小于 0），调用方应按 post_id 排序
+     */
+    @Update("<script>" +
+            "INSERT INTO post_stats (post_id, view_cnt, like_cnt, fav_cnt, comment_cnt, share_cnt) VALUES " +
+            "<foreach collection='rows' item='row' separator=','>" +
+            "(#{row.postId}, 0, #{row.likeCnt}, #{row.favCnt}, #{row.commentCnt}, #{row.shareCnt})" +
+            "</foreach>" +
+            " ON DUPLICATE KEY UPDATE " +
+            "like_cnt = GREATEST(like_cnt + VALUES(like_cnt), 0), " +
+            "fav_cnt = GREATEST(fav_cnt + VALUES(fav_cnt), 0), " +
+            "comment_cnt = GREATEST(comment_cnt + VALUES(comment_cnt), 0), " +
+            "share_cnt = GREATEST(share_cnt + VALUES(share_cnt), 0)" +
+            "</script>")
+    int batchAddCounters(@Param("rows") List<PostStatPO> rows);
 }
@@ -2,11 +2,36 @@ package com.xiaoyua.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.xiaoyua.entity.TopicPO;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.Collection;
 
 /**
  * 话题数据访问层
  */
 @Mapper
 public interface TopicMapper extends BaseMapper<TopicPO> {
+
+    /**
+     * 批量创建话题，同名话题已存在时忽略（name 唯一）
+     */
+    @Insert("<script>" +
+            "INSERT IGNORE INTO topics (name, post_cnt, created_at, updated_at) VALUES " +
+            "<foreach collection='names' item='name' separator=','>" +
+            "(#{name}, 0, NOW(), NOW())" +
+            "</foreach>" +
+            "</script>")
+    int insertIgnoreNames(@Param("names") Collection<String> names);
+
+    /**
+     * 批量累加话题的关联动态数
+     */
+    @Update("<script>" +
+            "UPDATE topics SET post_cnt = post_cnt + 1 WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int incrementPostCnt(@Param("ids") Collection<Long> ids);
 }
@@ -2,11 +2,28 @@ package com.xiaoyua.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.xiaoyua.entity.TopicPostPO;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
 
 /**
  * 话题-动态关联表数据访问层
  */
 @Mapper
 public interface TopicPostMapper extends BaseMapper<TopicPostPO> {
+
+    /**
+     * 批量关联动态与话题，已存在的关联忽略（uk_topic_post）
+     *
+     * @return 新增的关联数
+     */
+    @Insert("<script>" +
+            "INSERT IGNORE INTO topic_posts (topic_id, post_id) VALUES " +
+            "<foreach collection='topicIds' item='topicId' separator=','>" +
+            "(#{topicId}, #{postId})" +
+            "</foreach>" +
+            "</script>")
+    int insertIgnoreBatch(@Param("postId") Long postId, @Param("topicIds") Collection<Long> topicIds);
 }
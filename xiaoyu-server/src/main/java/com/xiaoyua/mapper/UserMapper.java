@@ -3,7 +3,42 @@ package com.xiaoyua.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.xiaoyua.entity.UserPO;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 @Mapper
 public interface UserMapper extends BaseMapper<UserPO> {
+
+    /**
+     * 查询同校区的用户ID
+     */
+    @Select("SELECT id FROM users WHERE campus_id = #{campusId}")
+    List<Long> selectIdsByCampusId(@Param("campusId") Long campusId);
+
+    /**
+     * 统计同校区的用户数
+     */
+    @Select("SELECT COUNT(*) FROM users WHERE campus_id = #{campusId}")
+    long countByCampusId(@Param("campusId") Long campusId);
+
+    /**
+     * 一次查询查看者与一批作者之间的关系：作者校区、查看者校区、是否存在任一方向的拉黑
+     * <p>返回列：author_id、author_campus、viewer_campus、blocked(0/1)；好友关系由好友关系图判断</p>
+     */
+    @Select("<script>" +
+            "SELECT u.id AS author_id, u.campus_id AS author_campus, " +
+            "(SELECT v.campus_id FROM users v WHERE v.id = #{viewerId}) AS viewer_campus, " +
+            "EXISTS(SELECT 1 FROM blacklists b WHERE " +
+            "(b.owner_id = u.id AND b.target_id = #{viewerId}) OR (b.owner_id = #{viewerId} AND b.target_id = u.id)) AS blocked " +
+            "FROM users u WHERE u.id IN " +
+            "<foreach collection='authorIds' item='id' open='(' separator=',' close=')'>" +
+            "#{id}" +
+            "</foreach>" +
+            "</script>")
+    List<Map<String, Object>> selectRelations(@Param("viewerId") Long viewerId,
+                                              @Param("authorIds") Collection<Long> authorIds);
 }
@@ -9,7 +9,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
-import org.springframework.web.socket.WebSocketSession;
 
 import java.util.Map;
 
@@ -117,17 +116,7 @@ public class MessageConsumer {
                 "timestamp", System.currentTimeMillis()
             );
             
-            WebSocketSession session = webSocketHandler.getUserSession(message.getToUserId());
-            boolean sent = false;
-            if (session != null && session.isOpen()) {
-                try {
-                    String messageJson = new com.fasterxml.jackson.databind.ObjectMapper().writeValueAsString(wsMessage);
-                    session.sendMessage(new org.springframework.web.socket.TextMessage(messageJson));
-                    sent = true;
-                } catch (Exception e) {
-                    log.error("WebSocket发送失败: {}", e.getMessage());
-                }
-            }
+            boolean sent = webSocketHandler.sendMessageToUser(message.getToUserId(), wsMessage);
             
             if (!sent) {
                 log.warn("WebSocket推送失败，用户可能已离线: toUserId={}, messageId={}", 
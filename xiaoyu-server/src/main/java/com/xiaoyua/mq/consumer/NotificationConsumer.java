@@ -1,23 +1,38 @@
 package com.xiaoyua.mq.consumer;
 
+import com.rabbitmq.client.Channel;
 import com.xiaoyua.config.MessageQueueConstants;
 import com.xiaoyua.entity.NotificationPO;
 import com.xiaoyua.mapper.NotificationMapper;
 import com.xiaoyua.mq.message.NotificationMessage;
+import com.xiaoyua.service.NotificationUnreadService;
 import com.xiaoyua.service.OfflineMessageService;
 import com.xiaoyua.websocket.UnifiedWebSocketHandler;
-import org.springframework.web.socket.WebSocketSession;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * 通知消息消费者
+ * <p>
+ * 批量消费：容器凑满一批或等待超时后整批交付，一条多行 INSERT 入库，未读数按用户合并累加，
+ * 在线状态一次管道请求批量判断，同一用户的多条通知在同一会话上依次推送。
+ * 整批入库失败时逐条重试定位坏消息；入库失败的消息首次投递时重新入队，重复投递仍失败则进入死信队列，
+ * 无法解析的消息直接进入死信队列，其余消息整批确认。
+ * </p>
  * 
  * @author xiaoyu
  */
@@ -25,6 +40,8 @@ import java.util.Map;
 @Slf4j
 public class NotificationConsumer {
     
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    
     @Autowired
     private NotificationMapper notificationMapper;
     
@@ -34,57 +51,122 @@ public class NotificationConsumer {
     @Autowired
     private OfflineMessageService offlineMessageService;
     
+    @Autowired
+    private NotificationUnreadService notificationUnreadService;
+    
+    @Autowired
+    private Jackson2JsonMessageConverter messageConverter;
+    
+    /**
+     * 一条待处理的通知
+     */
+    private record Pending(long deliveryTag, boolean redelivered, NotificationMessage message, NotificationPO notification) {
+    }
+    
+    /**
+     * 批量处理通知推送消息
+     */
+    @RabbitListener(queues = MessageQueueConstants.NOTIFICATION_PUSH_QUEUE,
+            containerFactory = "notificationBatchListenerFactory")
+    public void handleNotificationPushBatch(List<Message> messages, Channel channel) throws IOException {
+        List<Pending> pending = new ArrayList<>(messages.size());
+        for (Message raw : messages) {
+            long tag = raw.getMessageProperties().getDeliveryTag();
+            try {
+                NotificationMessage message = (NotificationMessage) messageConverter.fromMessage(raw);
+                pending.add(new Pending(tag, Boolean.TRUE.equals(raw.getMessageProperties().isRedelivered()),
+                        message, convertToNotificationPO(message)));
+            } catch (Exception e) {
+                log.error("通知消息无法解析，转入死信队列: deliveryTag={}, error={}", tag, e.getMessage());
+                channel.basicNack(tag, false, false);
+            }
+        }
+        
+        List<Pending> saved = save(pending, channel);
+        if (saved.isEmpty()) {
+            return;
+        }
+        
+        // 通知已入库，后续未读数与推送失败不影响确认
+        try {
+            incrementUnread(saved);
+            deliver(saved);
+        } catch (Exception e) {
+            log.error("通知推送处理异常: 数量={}, error={}", saved.size(), e.getMessage(), e);
+        }
+        
+        // 失败的消息已单独拒绝，剩余未确认的都已入库，按最大投递标签整批确认
+        long maxTag = saved.stream().mapToLong(Pending::deliveryTag).max().getAsLong();
+        channel.basicAck(maxTag, true);
+        log.info("通知批量处理完成: 收到={}, 入库={}", messages.size(), saved.size());
+    }
+    
     /**
-     * 处理通知推送消息
+     * 整批入库，失败时逐条入库并拒绝失败的消息
+     * 
+     * @return 入库成功的通知
      */
-    @RabbitListener(queues = MessageQueueConstants.NOTIFICATION_PUSH_QUEUE)
-    public void handleNotificationPush(NotificationMessage message) {
+    private List<Pending> save(List<Pending> pending, Channel channel) throws IOException {
+        if (pending.isEmpty()) {
+            return pending;
+        }
         try {
-            log.info("处理通知推送消息: messageId={}, userId={}, type={}", 
-                    message.getMessageId(), message.getUserId(), message.getType());
-            
-            // 1. 保存通知到数据库
-            NotificationPO notification = convertToNotificationPO(message);
-            int result = notificationMapper.insert(notification);
-            
-            if (result <= 0) {
-                log.error("保存通知到数据库失败: messageId={}", message.getMessageId());
-                throw new RuntimeException("保存通知失败");
+            notificationMapper.insertBatch(pending.stream().map(Pending::notification).toList());
+            return pending;
+        } catch (Exception e) {
+            log.warn("通知批量入库失败，改为逐条入库: 数量={}, error={}", pending.size(), e.getMessage());
+        }
+        List<Pending> saved = new ArrayList<>(pending.size());
+        for (Pending p : pending) {
+            try {
+                if (notificationMapper.insert(p.notification()) > 0) {
+                    saved.add(p);
+                    continue;
+                }
+                log.error("保存通知到数据库失败: messageId={}", p.message().getMessageId());
+            } catch (Exception e) {
+                log.error("保存通知到数据库失败: messageId={}, error={}", p.message().getMessageId(), e.getMessage());
             }
-            
-            // 2. 检查用户是否在线，如果在线则实时推送
-            if (webSocketHandler.isUserOnline(message.getUserId())) {
-                pushToWebSocket(message, notification.getId());
-            } else {
-                // 用户离线，存储到离线消息表
-                log.info("用户离线，存储离线通知: userId={}, messageId={}", 
-                        message.getUserId(), message.getMessageId());
-                
-                boolean stored = offlineMessageService.storeOfflineNotification(message, notification.getId());
-                if (!stored) {
-                    log.error("存储离线通知消息失败: messageId={}, userId={}", 
-                            message.getMessageId(), message.getUserId());
+            // 首次失败重新入队重试一次，重复投递仍失败则进入死信队列
+            channel.basicNack(p.deliveryTag(), false, !p.redelivered());
+        }
+        return saved;
+    }
+    
+    private void incrementUnread(List<Pending> saved) {
+        Map<Long, Long> perUser = new HashMap<>();
+        for (Pending p : saved) {
+            perUser.merge(p.notification().getUserId(), 1L, Long::sum);
+        }
+        perUser.forEach(notificationUnreadService::increment);
+    }
+    
+    /**
+     * 按用户分组推送：在线用户在其会话上依次推送，离线或推送失败的存为离线通知
+     */
+    private void deliver(List<Pending> saved) {
+        Map<Long, List<Pending>> byUser = new LinkedHashMap<>();
+        for (Pending p : saved) {
+            byUser.computeIfAbsent(p.message().getUserId(), k -> new ArrayList<>()).add(p);
+        }
+        Set<Long> online = webSocketHandler.filterOnline(byUser.keySet());
+        
+        byUser.forEach((userId, items) -> {
+            int sent = 0;
+            if (online.contains(userId)) {
+                List<Map<String, Object>> payloads = new ArrayList<>(items.size());
+                for (Pending p : items) {
+                    payloads.add(toWebSocketPayload(p.message(), p.notification().getId()));
                 }
+                sent = webSocketHandler.sendToUser(userId, payloads);
             }
-            
-            log.info("通知推送处理完成: messageId={}", message.getMessageId());
-            
-        } catch (Exception e) {
-            log.error("处理通知推送消息失败: messageId={}, error={}", 
-                    message.getMessageId(), e.getMessage(), e);
-            
-            // 增加重试次数
-            message.incrementRetry();
-            if (!message.isMaxRetryExceeded()) {
-                // 可以选择重新入队或者其他重试机制
-                log.warn("通知消息将重试: messageId={}, retryCount={}", 
-                        message.getMessageId(), message.getRetryCount());
-            } else {
-                log.error("通知消息超过最大重试次数，放弃处理: messageId={}", 
-                        message.getMessageId());
+            for (Pending p : items.subList(sent, items.size())) {
+                if (!offlineMessageService.storeOfflineNotification(p.message(), p.notification().getId())) {
+                    log.error("存储离线通知消息失败: messageId={}, userId={}", 
+                            p.message().getMessageId(), userId);
+                }
             }
-            throw e;
-        }
+        });
     }
     
     /**
@@ -103,6 +185,7 @@ public class NotificationConsumer {
             notification.setRefType(NotificationPO.RefType.valueOf(message.getRefType()));
         }
         
+        notification.setActorCount(message.getCount() != null ? message.getCount() : 1);
         notification.setStatus(NotificationPO.Status.UNREAD);
         notification.setCreatedAt(message.getCreatedAt() != null ? 
                 message.getCreatedAt() : LocalDateTime.now());
@@ -111,47 +194,24 @@ public class NotificationConsumer {
     }
     
     /**
-     * 推送到WebSocket
+     * 构建WebSocket推送内容
      */
-    private void pushToWebSocket(NotificationMessage message, Long notificationId) {
-        try {
-            Map<String, Object> wsMessage = new HashMap<>();
-            wsMessage.put("type", "notification");
-            wsMessage.put("id", notificationId);
-            wsMessage.put("notification_type", message.getType());
-            wsMessage.put("title", message.getTitle());
-            wsMessage.put("content", message.getContent());
-            wsMessage.put("ref_id", message.getRefId() != null ? message.getRefId() : 0L);
-            wsMessage.put("ref_type", message.getRefType() != null ? message.getRefType() : "");
-            wsMessage.put("from_user_id", message.getFromUserId() != null ? message.getFromUserId() : 0L);
-            wsMessage.put("from_user_nickname", message.getFromUserNickname() != null ? message.getFromUserNickname() : "");
-            wsMessage.put("from_user_avatar", message.getFromUserAvatar() != null ? message.getFromUserAvatar() : "");
-            wsMessage.put("created_at", message.getCreatedAt().format(java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
-            wsMessage.put("timestamp", System.currentTimeMillis());
-            
-            WebSocketSession session = webSocketHandler.getUserSession(message.getUserId());
-            boolean sent = false;
-            if (session != null && session.isOpen()) {
-                try {
-                    String messageJson = new com.fasterxml.jackson.databind.ObjectMapper().writeValueAsString(wsMessage);
-                    session.sendMessage(new org.springframework.web.socket.TextMessage(messageJson));
-                    sent = true;
-                } catch (Exception e) {
-                    log.error("WebSocket发送失败: {}", e.getMessage());
-                }
-            }
-            
-            if (sent) {
-                log.info("WebSocket推送成功: userId={}, messageId={}", 
-                        message.getUserId(), message.getMessageId());
-            } else {
-                log.warn("WebSocket推送失败，用户可能已离线: userId={}, messageId={}", 
-                        message.getUserId(), message.getMessageId());
-            }
-            
-        } catch (Exception e) {
-            log.error("WebSocket推送异常: userId={}, messageId={}, error={}", 
-                    message.getUserId(), message.getMessageId(), e.getMessage(), e);
-        }
+    private Map<String, Object> toWebSocketPayload(NotificationMessage message, Long notificationId) {
+        Map<String, Object> wsMessage = new HashMap<>();
+        wsMessage.put("type", "notification");
+        wsMessage.put("id", notificationId);
+        wsMessage.put("notification_type", message.getType());
+        wsMessage.put("title", message.getTitle());
+        wsMessage.put("content", message.getContent());
+        wsMessage.put("ref_id", message.getRefId() != null ? message.getRefId() : 0L);
+        wsMessage.put("ref_type", message.getRefType() != null ? message.getRefType() : "");
+        wsMessage.put("from_user_id", message.getFromUserId() != null ? message.getFromUserId() : 0L);
+        wsMessage.put("from_user_nickname", message.getFromUserNickname() != null ? message.getFromUserNickname() : "");
+        wsMessage.put("from_user_avatar", message.getFromUserAvatar() != null ? message.getFromUserAvatar() : "");
+        wsMessage.put("count", message.getCount() != null ? message.getCount() : 1);
+        wsMessage.put("created_at", (message.getCreatedAt() != null ? message.getCreatedAt() : LocalDateTime.now())
+                .format(DATE_TIME_FORMATTER));
+        wsMessage.put("timestamp", System.currentTimeMillis());
+        return wsMessage;
     }
 }
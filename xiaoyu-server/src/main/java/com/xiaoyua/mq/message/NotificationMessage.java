@@ -53,6 +53,9 @@ public class NotificationMessage implements Serializable {
     /** 创建时间 */
     private LocalDateTime createdAt;
     
+    /** 合并的互动人数（合并通知时大于1） */
+    private Integer count = 1;
+    
     /** 重试次数 */
     private Integer retryCount = 0;
     
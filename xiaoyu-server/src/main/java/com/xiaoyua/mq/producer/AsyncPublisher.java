@@ -0,0 +1,320 @@
+package com.xiaoyua.mq.producer;
+
+import com.xiaoyua.properties.MqProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * RabbitMQ 异步发送器
+ * <p>
+ * 生产者只把消息放入有界内存队列即返回，请求线程不等待 Broker。发送线程每次取出一批，
+ * 带 CorrelationData 连续发送后统一等待发布确认，一批消息只等待一次往返；
+ * 通道由 CachingConnectionFactory 的通道缓存复用。未确认、被拒绝或因连接/通道异常发送失败的消息
+ * 放入延迟队列，按退避时间到期后再由发送线程取出重发，发送线程本身不休眠；超过最大次数后记录错误丢弃。
+ * 消息转换失败等重发也无法成功的异常直接丢弃。重发可能导致消费端收到重复消息。
+ * 不保证发送顺序：即使只有一个发送线程，重发的消息也会排在之后提交的消息后面。
+ * 队列满时调用方最多等待 offer-timeout-ms，仍无空位则抛出异常，由调用方按发送失败处理。
+ * </p>
+ * <p>
+ * 发送线程在 Bean 初始化完成后启动。停机在 @PreDestroy 中进行：依赖本发送器的 Bean 先销毁，
+ * 它们停机时提交的消息仍会发出；之后最多等待 shutdown-timeout-ms 发完剩余消息，
+ * 超时则中断并等待发送线程退出后记录丢弃数量，不会在连接工厂关闭后继续发送。
+ * </p>
+ *
+ * @author xiaoyu
+ */
+@Component
+@Slf4j
+public class AsyncPublisher {
+
+    private final RabbitTemplate rabbitTemplate;
+    private final MqProperties.Publisher config;
+    private final BlockingQueue<Outgoing> queue;
+    private final DelayQueue<Retry> retries = new DelayQueue<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+    /**
+     * 停机等待超时后置位，发送线程不再发送剩余消息
+     */
+    private volatile boolean aborted;
+
+    /**
+     * 待发送的消息
+     */
+    private record Outgoing(String exchange, String routingKey, Object payload, String id, int attempt) {
+
+        private Outgoing retry() {
+            return new Outgoing(exchange, routingKey, payload, id, attempt + 1);
+        }
+    }
+
+    /**
+     * 等待退避到期的重发消息
+     */
+    private record Retry(Outgoing outgoing, long dueNanos) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+    }
+
+    @Autowired
+    public AsyncPublisher(RabbitTemplate rabbitTemplate, MqProperties mqProperties) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.config = mqProperties.getPublisher();
+        this.queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+    }
+
+    /**
+     * 启动发送线程
+     */
+    @PostConstruct
+    public synchronized void start() {
+        if (running || aborted) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < Math.max(1, config.getWorkers()); i++) {
+            Thread t = new Thread(this::runWorker, "mq-publisher-" + (i + 1));
+            t.setDaemon(true);
+            t.start();
+            workers.add(t);
+        }
+    }
+
+    /**
+     * 提交一条消息
+     *
+     * @param exchange   交换机
+     * @param routingKey 路由键
+     * @param payload    消息体
+     * @param id         消息ID，用于日志与确认关联
+     * @throws RuntimeException 发送器未启动或已关闭、队列已满
+     */
+    public void publish(String exchange, String routingKey, Object payload, String id) {
+        if (!running) {
+            throw new IllegalStateException("消息发送器未运行: " + id);
+        }
+        try {
+            if (!queue.offer(new Outgoing(exchange, routingKey, payload, id, 1),
+                    config.getOfferTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                throw new RuntimeException("消息发送队列已满: " + id);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("提交消息被中断: " + id, e);
+        }
+    }
+
+    /**
+     * 当前待发送的消息数（含等待重发的消息）
+     */
+    public int pendingSize() {
+        return queue.size() + retries.size();
+    }
+
+    private void runWorker() {
+        int batchSize = Math.max(1, config.getBatchSize());
+        List<Outgoing> batch = new ArrayList<>(batchSize);
+        while (!aborted && (running || !queue.isEmpty() || !retries.isEmpty())) {
+            try {
+                takeBatch(batch, batchSize);
+                if (batch.isEmpty()) {
+                    continue;
+                }
+                List<Outgoing> failed = publishBatch(batch);
+                batch.clear();
+                if (!failed.isEmpty()) {
+                    requeue(failed);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                dropped(batch);
+                return;
+            } catch (Exception e) {
+                if (aborted) {
+                    dropped(batch);
+                    return;
+                }
+                log.error("消息发送线程异常: error={}", e.getMessage(), e);
+                batch.clear();
+            }
+        }
+    }
+
+    private void dropped(List<Outgoing> batch) {
+        if (!batch.isEmpty()) {
+            log.warn("消息发送器停机，放弃发送中的消息: 数量={}", batch.size());
+            batch.clear();
+        }
+    }
+
+    /**
+     * 先取退避已到期的重发消息，再从待发送队列补满一批；停机时不再等待退避
+     */
+    private void takeBatch(List<Outgoing> batch, int batchSize) throws InterruptedException {
+        List<Retry> due = new ArrayList<>();
+        if (running) {
+            retries.drainTo(due, batchSize);
+        } else {
+            Retry r;
+            while (due.size() < batchSize && (r = retries.peek()) != null) {
+                if (retries.remove(r)) {
+                    due.add(r);
+                }
+            }
+        }
+        for (Retry r : due) {
+            batch.add(r.outgoing());
+        }
+        if (batch.isEmpty()) {
+            // 没有到期的重发时阻塞等待新消息，但不超过下一条重发的到期时间
+            Retry next = retries.peek();
+            long waitMs = next == null ? 100 : Math.min(100, Math.max(1, next.getDelay(TimeUnit.MILLISECONDS)));
+            Outgoing first = queue.poll(waitMs, TimeUnit.MILLISECONDS);
+            if (first == null) {
+                return;
+            }
+            batch.add(first);
+        }
+        queue.drainTo(batch, batchSize - batch.size());
+    }
+
+    /**
+     * 连续发送一批消息后统一等待确认
+     *
+     * @return 需要重发的消息
+     */
+    private List<Outgoing> publishBatch(List<Outgoing> batch) throws InterruptedException {
+        List<Outgoing> sent = new ArrayList<>(batch.size());
+        List<CorrelationData> correlations = new ArrayList<>(batch.size());
+        List<Outgoing> failed = new ArrayList<>();
+        for (Outgoing o : batch) {
+            CorrelationData correlation = new CorrelationData(o.id() + "#" + o.attempt());
+            try {
+                rabbitTemplate.convertAndSend(o.exchange(), o.routingKey(), o.payload(), correlation);
+                sent.add(o);
+                correlations.add(correlation);
+            } catch (Exception e) {
+                if (!isRetryable(e)) {
+                    log.error("发送消息失败且无法重发，放弃: id={}, exchange={}, routingKey={}, error={}",
+                            o.id(), o.exchange(), o.routingKey(), e.getMessage(), e);
+                    continue;
+                }
+                log.warn("发送消息失败: id={}, attempt={}, error={}", o.id(), o.attempt(), e.getMessage());
+                failed.add(o);
+            }
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getConfirmTimeoutMs());
+        for (int i = 0; i < sent.size(); i++) {
+            Outgoing o = sent.get(i);
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                CorrelationData.Confirm confirm = correlations.get(i).getFuture().get(remaining, TimeUnit.NANOSECONDS);
+                if (!confirm.isAck()) {
+                    log.warn("消息被 Broker 拒绝: id={}, attempt={}, reason={}", o.id(), o.attempt(), confirm.getReason());
+                    failed.add(o);
+                }
+            } catch (TimeoutException e) {
+                log.warn("等待消息确认超时: id={}, attempt={}", o.id(), o.attempt());
+                failed.add(o);
+            } catch (ExecutionException e) {
+                log.warn("等待消息确认失败: id={}, attempt={}, error={}", o.id(), o.attempt(), e.getMessage());
+                failed.add(o);
+            }
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("批量发送完成: 数量={}, 失败={}", batch.size(), failed.size());
+        }
+        return failed;
+    }
+
+    /**
+     * 连接、通道等 AMQP 异常可以重发；消息转换失败或参数错误重发也不会成功
+     */
+    static boolean isRetryable(Exception e) {
+        return e instanceof AmqpException && !(e instanceof MessageConversionException);
+    }
+
+    /**
+     * 未超过最大次数的消息按退避时间放入延迟队列，到期后由发送线程重发
+     */
+    private void requeue(List<Outgoing> failed) {
+        for (Outgoing o : failed) {
+            if (o.attempt() >= config.getMaxAttempts()) {
+                log.error("消息超过最大发送次数，放弃: id={}, exchange={}, routingKey={}",
+                        o.id(), o.exchange(), o.routingKey());
+                continue;
+            }
+            long delayMs = Math.min(config.getRetryMaxDelayMs(),
+                    config.getRetryBaseDelayMs() << Math.min(o.attempt() - 1, 20));
+            retries.put(new Retry(o.retry(), System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs)));
+        }
+    }
+
+    /**
+     * 停机时停止接收新消息，最多等待 shutdown-timeout-ms 发完剩余消息；
+     * 超时后中断发送线程并等待其退出，丢弃剩余消息
+     */
+    @PreDestroy
+    public synchronized void shutdown() {
+        running = false;
+        long deadline = System.currentTimeMillis() + config.getShutdownTimeoutMs();
+        boolean interrupted = false;
+        try {
+            for (Thread t : workers) {
+                t.join(Math.max(1, deadline - System.currentTimeMillis()));
+            }
+        } catch (InterruptedException e) {
+            interrupted = true;
+        }
+        if (workers.stream().anyMatch(Thread::isAlive)) {
+            aborted = true;
+            workers.forEach(Thread::interrupt);
+            for (Thread t : workers) {
+                try {
+                    // 中断后发送线程在当前调用返回时退出，最多再等一个确认超时
+                    t.join(config.getConfirmTimeoutMs());
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+                if (t.isAlive()) {
+                    log.error("消息发送线程未能在停机时退出: thread={}", t.getName());
+                }
+            }
+        }
+        aborted = true;
+        int pending = pendingSize();
+        queue.clear();
+        retries.clear();
+        if (pending > 0) {
+            log.warn("消息发送器停机超时，丢弃未发送消息: 数量={}", pending);
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -3,12 +3,12 @@ package com.xiaoyua.mq.producer;
 import com.xiaoyua.config.MessageQueueConstants;
 import com.xiaoyua.mq.message.PrivateMessage;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 /**
  * 私信消息生产者
+ * 消息交给 {@link AsyncPublisher} 异步发送并等待发布确认，调用方不等待 Broker
  * 
  * @author xiaoyu
  */
@@ -17,7 +17,7 @@ import org.springframework.stereotype.Component;
 public class MessageProducer {
     
     @Autowired
-    private RabbitTemplate rabbitTemplate;
+    private AsyncPublisher asyncPublisher;
     
     /**
      * 发送私信推送消息
@@ -26,17 +26,16 @@ public class MessageProducer {
      */
     public void sendMessagePush(PrivateMessage message) {
         try {
-            log.info("发送私信推送消息: messageId={}, fromUserId={}, toUserId={}", 
+            log.info("提交私信推送消息: messageId={}, fromUserId={}, toUserId={}", 
                     message.getMessageId(), message.getFromUserId(), message.getToUserId());
             
-            rabbitTemplate.convertAndSend(
+            asyncPublisher.publish(
                     MessageQueueConstants.MESSAGE_EXCHANGE,
                     MessageQueueConstants.MESSAGE_PUSH_ROUTING_KEY,
-                    message
+                    message,
+                    message.getMessageId()
             );
             
-            log.debug("私信推送消息发送成功: {}", message.getMessageId());
-            
         } catch (Exception e) {
             log.error("发送私信推送消息失败: messageId={}, error={}", 
                     message.getMessageId(), e.getMessage(), e);
@@ -57,14 +56,13 @@ public class MessageProducer {
             // 标记需要离线存储
             message.setNeedOfflineStorage(true);
             
-            rabbitTemplate.convertAndSend(
+            asyncPublisher.publish(
                     MessageQueueConstants.MESSAGE_EXCHANGE,
                     MessageQueueConstants.OFFLINE_MESSAGE_ROUTING_KEY,
-                    message
+                    message,
+                    message.getMessageId()
             );
             
-            log.debug("离线消息存储请求发送成功: {}", message.getMessageId());
-            
         } catch (Exception e) {
             log.error("发送离线消息存储请求失败: messageId={}, error={}", 
                     message.getMessageId(), e.getMessage(), e);
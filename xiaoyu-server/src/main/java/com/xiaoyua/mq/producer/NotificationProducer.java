@@ -3,12 +3,12 @@ package com.xiaoyua.mq.producer;
 import com.xiaoyua.config.MessageQueueConstants;
 import com.xiaoyua.mq.message.NotificationMessage;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 /**
  * 通知消息生产者
+ * 消息交给 {@link AsyncPublisher} 异步发送并等待发布确认，调用方不等待 Broker
  * 
  * @author xiaoyu
  */
@@ -17,7 +17,7 @@ import org.springframework.stereotype.Component;
 public class NotificationProducer {
     
     @Autowired
-    private RabbitTemplate rabbitTemplate;
+    private AsyncPublisher asyncPublisher;
     
     /**
      * 发送通知推送消息
@@ -26,17 +26,16 @@ public class NotificationProducer {
      */
     public void sendNotificationPush(NotificationMessage message) {
         try {
-            log.info("发送通知推送消息: messageId={}, userId={}, type={}", 
+            log.info("提交通知推送消息: messageId={}, userId={}, type={}", 
                     message.getMessageId(), message.getUserId(), message.getType());
             
-            rabbitTemplate.convertAndSend(
+            asyncPublisher.publish(
                     MessageQueueConstants.NOTIFICATION_EXCHANGE,
                     MessageQueueConstants.NOTIFICATION_PUSH_ROUTING_KEY,
-                    message
+                    message,
+                    message.getMessageId()
             );
             
-            log.debug("通知推送消息发送成功: {}", message.getMessageId());
-            
         } catch (Exception e) {
             log.error("发送通知推送消息失败: messageId={}, error={}", 
                     message.getMessageId(), e.getMessage(), e);
@@ -45,13 +44,27 @@ public class NotificationProducer {
     }
     
     /**
-     * 批量发送通知推送消息
+     * 批量发送通知推送消息，单条提交失败不影响其余消息
      * 
      * @param messages 通知消息列表
+     * @return 提交成功的条数
      */
-    public void sendNotificationPushBatch(NotificationMessage... messages) {
+    public int sendNotificationPushBatch(NotificationMessage... messages) {
+        int submitted = 0;
         for (NotificationMessage message : messages) {
-            sendNotificationPush(message);
+            try {
+                asyncPublisher.publish(
+                        MessageQueueConstants.NOTIFICATION_EXCHANGE,
+                        MessageQueueConstants.NOTIFICATION_PUSH_ROUTING_KEY,
+                        message,
+                        message.getMessageId()
+                );
+                submitted++;
+            } catch (Exception e) {
+                log.error("提交通知推送消息失败: messageId={}, error={}", message.getMessageId(), e.getMessage());
+            }
         }
+        log.info("批量提交通知推送消息: 总数={}, 成功={}", messages.length, submitted);
+        return submitted;
     }
 }
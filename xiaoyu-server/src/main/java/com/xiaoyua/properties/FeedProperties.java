@@ -0,0 +1,318 @@
+package com.xiaoyua.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 动态流相关配置
+ *
+ * @author xiaoyu
+ */
+@Component
+@ConfigurationProperties(prefix = "xiaoyu.feed")
+@Data
+public class FeedProperties {
+
+    /**
+     * 首页时间线（推拉结合）配置
+     */
+    private Timeline timeline = new Timeline();
+
+    /**
+     * 热门排行配置
+     */
+    private Hot hot = new Hot();
+
+    /**
+     * 动态详情两级缓存配置
+     */
+    private DetailCache detailCache = new DetailCache();
+
+    /**
+     * 浏览数写缓冲配置
+     */
+    private ViewBuffer viewBuffer = new ViewBuffer();
+
+    /**
+     * 互动计数（Redis 为准）配置
+     */
+    private Counter counter = new Counter();
+
+    /**
+     * 点赞/收藏关系缓存配置
+     */
+    private Membership membership = new Membership();
+
+    /**
+     * 动态可见性关系缓存配置
+     */
+    private Visibility visibility = new Visibility();
+
+    /**
+     * 好友关系图配置
+     */
+    private FriendGraph friendGraph = new FriendGraph();
+
+    /**
+     * 校区动态流配置
+     */
+    private Campus campus = new Campus();
+
+    /**
+     * 动态发布异步处理配置
+     */
+    private Publish publish = new Publish();
+
+    /**
+     * 评论热度排序配置
+     */
+    private CommentHot commentHot = new CommentHot();
+
+    /**
+     * 评论楼层（二级回复）配置
+     */
+    private CommentThread commentThread = new CommentThread();
+
+    @Data
+    public static class Timeline {
+
+        /**
+         * 每个用户收件箱保留的最大条数
+         */
+        private int inboxCapacity = 800;
+
+        /**
+         * 作者发件箱保留的最大条数（拉模式读取时合并）
+         */
+        private int outboxCapacity = 500;
+
+        /**
+         * 推送阈值：受众超过该数量的作者/校区改为读时拉取
+         */
+        private int pushThreshold = 2000;
+
+        /**
+         * 收件箱闲置过期天数，过期后下次读取时从数据库重建
+         */
+        private int inboxTtlDays = 14;
+    }
+
+    @Data
+    public static class Hot {
+
+        /**
+         * 热度每提升一个数量级所相当的发布时间差（秒），越小衰减越快
+         */
+        private long decaySeconds = 45000;
+
+        /**
+         * 全站/校区热榜保留的最大条数
+         */
+        private int capacity = 1000;
+
+        /**
+         * 热度元数据过期天数，过期后的动态按需从数据库重新载入
+         */
+        private int metaTtlDays = 7;
+
+        /**
+         * 冷启动重建时回溯的天数
+         */
+        private int rebuildDays = 7;
+
+        private double viewWeight = 0.1;
+        private double likeWeight = 1;
+        private double favWeight = 2;
+        private double commentWeight = 2;
+        private double shareWeight = 3;
+    }
+
+    @Data
+    public static class DetailCache {
+
+        /**
+         * 本地缓存总容量上限（按序列化后的字节数估算）
+         */
+        private long l1MaxWeightBytes = 32L * 1024 * 1024;
+
+        /**
+         * 本地缓存写入后过期秒数，也是跨节点失效通知丢失时的最长不一致时间
+         */
+        private int l1TtlSeconds = 60;
+
+        /**
+         * Redis 缓存过期秒数
+         */
+        private int l2TtlSeconds = 600;
+
+        /**
+         * 无法估算大小时使用的默认权重（字节）
+         */
+        private int defaultWeightBytes = 4096;
+    }
+
+    @Data
+    public static class ViewBuffer {
+
+        /**
+         * 刷写间隔毫秒，即进程异常退出时最多丢失的浏览数时间窗口
+         */
+        private long flushIntervalMs = 5000;
+
+        /**
+         * 单条 UPSERT 语句包含的最大行数
+         */
+        private int batchSize = 500;
+    }
+
+    @Data
+    public static class Counter {
+
+        /**
+         * 增量写回 post_stats 的间隔毫秒
+         */
+        private long flushIntervalMs = 2000;
+
+        /**
+         * 每轮写回的最大动态数量
+         */
+        private int batchSize = 500;
+
+        /**
+         * Redis 计数闲置过期天数，过期后按需从数据库重新载入
+         */
+        private int ttlDays = 7;
+    }
+
+    @Data
+    public static class Membership {
+
+        /**
+         * 布隆过滤器预期关系数量（每种关系各一个过滤器）
+         */
+        private long bloomExpectedInsertions = 2_000_000;
+
+        /**
+         * 布隆过滤器期望误判率
+         */
+        private double bloomFpp = 0.01;
+
+        /**
+         * Redis 按内容的用户集合过期小时数
+         */
+        private int setTtlHours = 24;
+    }
+
+    @Data
+    public static class Visibility {
+
+        /**
+         * 本地缓存的 (查看者, 作者) 关系数量上限
+         */
+        private long maxEntries = 200_000;
+
+        /**
+         * 关系缓存过期秒数（其它节点的关系变化依赖过期生效）
+         */
+        private int ttlSeconds = 300;
+    }
+
+    @Data
+    public static class FriendGraph {
+
+        /**
+         * 本地常驻的好友关系条数上限（按每个用户的好友数加权）
+         */
+        private long maxEdges = 5_000_000;
+
+        /**
+         * 好友集合写入后过期分钟数，兜底丢失的跨节点变化通知
+         */
+        private int ttlMinutes = 30;
+    }
+
+    @Data
+    public static class Campus {
+
+        /**
+         * 每个校区最近动态环保留的动态数量
+         */
+        private int ringCapacity = 1000;
+
+        /**
+         * 最近动态环闲置过期天数，过期后按需从数据库重新载入
+         */
+        private int ringTtlDays = 7;
+    }
+
+    @Data
+    public static class Publish {
+
+        /**
+         * 发布后置处理线程数
+         */
+        private int workers = 4;
+
+        /**
+         * 待处理队列容量，队列满时由发布线程直接执行
+         */
+        private int queueCapacity = 2000;
+
+        /**
+         * 待办提交后超过该秒数仍未完成即视为丢失，由补偿任务重新提交
+         */
+        private long outboxGraceSeconds = 300;
+
+        /**
+         * 补偿任务每次最多处理的待办数
+         */
+        private int outboxBatchSize = 100;
+
+        /**
+         * 单条待办最多补偿次数，超过后记录错误并放弃
+         */
+        private int outboxMaxAttempts = 5;
+
+        /**
+         * 补偿任务扫描间隔（毫秒）
+         */
+        private long outboxScanIntervalMs = 60000;
+    }
+
+    @Data
+    public static class CommentHot {
+
+        /**
+         * 热度每提升一个数量级所相当的评论时间差（秒），越小越偏向新评论
+         */
+        private long decaySeconds = 45000;
+
+        private double likeWeight = 1;
+        private double replyWeight = 2;
+
+        /**
+         * 构建索引时每个动态最多载入的根评论数（按时间倒序）
+         */
+        private int seedLimit = 5000;
+
+        /**
+         * 热度索引闲置过期天数，过期后按需从数据库重新载入
+         */
+        private int indexTtlDays = 3;
+    }
+
+    @Data
+    public static class CommentThread {
+
+        /**
+         * 评论列表中每条根评论预览的最新回复数，其余回复通过回复分页接口加载
+         */
+        private int replyPreviewSize = 3;
+
+        /**
+         * 回复分页接口单页最大条数
+         */
+        private int maxReplyPageSize = 50;
+    }
+}
@@ -0,0 +1,172 @@
+package com.xiaoyua.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 文件上传与存储相关配置
+ *
+ * @author xiaoyu
+ */
+@Component
+@ConfigurationProperties(prefix = "xiaoyu.file")
+@Data
+public class FileProperties {
+
+    /**
+     * 多文件并发上传配置
+     */
+    private Upload upload = new Upload();
+
+    /**
+     * OSS 客户端连接池、超时与重试配置
+     */
+    private OssClient ossClient = new OssClient();
+
+    /**
+     * 存储后端选择
+     */
+    private Storage storage = new Storage();
+
+    /**
+     * 图片多尺寸版本生成配置
+     */
+    private Image image = new Image();
+
+    @Data
+    public static class Upload {
+
+        /**
+         * 单次请求最多上传的文件数
+         */
+        private int maxFilesPerRequest = 9;
+
+        /**
+         * 单次请求内同时上传的文件数上限
+         */
+        private int perRequestConcurrency = 4;
+
+        /**
+         * 本节点同时进行的上传总数上限
+         */
+        private int maxConcurrentUploads = 64;
+
+        /**
+         * 单个文件大小上限（字节）
+         */
+        private long maxFileSizeBytes = 10L * 1024 * 1024;
+
+        /**
+         * 超过该大小（字节）改用分片上传
+         */
+        private long multipartThresholdBytes = 8L * 1024 * 1024;
+
+        /**
+         * 分片大小（字节），OSS 要求除最后一片外不小于 100KB
+         */
+        private long partSizeBytes = 4L * 1024 * 1024;
+    }
+
+    @Data
+    public static class Storage {
+
+        /**
+         * 存储后端：oss（阿里云 OSS）或 local（本地磁盘）
+         */
+        private String type = "oss";
+
+        /**
+         * 本地存储根目录
+         */
+        private String localBaseDir = "./data/files";
+
+        /**
+         * 本地存储文件访问地址的前缀（协议、主机与端口），为空时返回相对路径
+         */
+        private String localBaseUrl = "";
+    }
+
+    @Data
+    public static class Image {
+
+        /**
+         * 生成图片版本的工作线程数
+         */
+        private int workers = 2;
+
+        /**
+         * 等待处理的图片数上限，队列满时跳过该图片（客户端回退到原图）
+         */
+        private int queueCapacity = 200;
+
+        /**
+         * 缩略图边长（正方形居中裁剪）
+         */
+        private int thumbSize = 200;
+
+        /**
+         * 信息流版本长边上限
+         */
+        private int feedMaxEdge = 720;
+
+        /**
+         * 大图版本长边上限
+         */
+        private int fullMaxEdge = 1920;
+
+        /**
+         * 允许解码的最大像素数，超过时不生成版本，防止解压炸弹
+         */
+        private long maxPixels = 50_000_000L;
+
+        /**
+         * JPEG 压缩质量
+         */
+        private float jpegQuality = 0.82f;
+    }
+
+    @Data
+    public static class OssClient {
+
+        /**
+         * 连接池最大连接数
+         */
+        private int maxConnections = 128;
+
+        /**
+         * 建立连接超时（毫秒）
+         */
+        private int connectionTimeoutMs = 5000;
+
+        /**
+         * 读写超时（毫秒）
+         */
+        private int socketTimeoutMs = 30000;
+
+        /**
+         * 从连接池获取连接的超时（毫秒）
+         */
+        private int connectionRequestTimeoutMs = 2000;
+
+        /**
+         * 空闲连接保留时间（毫秒）
+         */
+        private long idleConnectionTimeMs = 60000;
+
+        /**
+         * 失败重试次数
+         */
+        private int maxRetries = 3;
+
+        /**
+         * 重试退避的基准间隔（毫秒），第 n 次重试等待 base * 2^n 加随机抖动
+         */
+        private long retryBaseDelayMs = 200;
+
+        /**
+         * 重试退避的最大间隔（毫秒）
+         */
+        private long retryMaxDelayMs = 5000;
+    }
+}
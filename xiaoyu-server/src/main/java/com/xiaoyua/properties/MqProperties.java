@@ -0,0 +1,70 @@
+package com.xiaoyua.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 消息队列相关配置
+ *
+ * @author xiaoyu
+ */
+@Component
+@ConfigurationProperties(prefix = "xiaoyu.mq")
+@Data
+public class MqProperties {
+
+    /**
+     * 异步发送配置
+     */
+    private Publisher publisher = new Publisher();
+
+    @Data
+    public static class Publisher {
+
+        /**
+         * 待发送队列容量，队列满时调用方短暂等待后失败
+         */
+        private int queueCapacity = 10000;
+
+        /**
+         * 队列满时调用方最多等待的毫秒数
+         */
+        private long offerTimeoutMs = 50;
+
+        /**
+         * 发送线程数；不保证发送顺序，重发的消息会排在之后提交的消息后面
+         */
+        private int workers = 1;
+
+        /**
+         * 每批连续发送、一起等待确认的消息数
+         */
+        private int batchSize = 100;
+
+        /**
+         * 等待一批消息确认的超时毫秒，超时未确认的消息重发
+         */
+        private long confirmTimeoutMs = 5000;
+
+        /**
+         * 单条消息最多发送次数（含首次）
+         */
+        private int maxAttempts = 5;
+
+        /**
+         * 重发退避基准毫秒，按次数翻倍
+         */
+        private long retryBaseDelayMs = 200;
+
+        /**
+         * 重发退避上限毫秒
+         */
+        private long retryMaxDelayMs = 5000;
+
+        /**
+         * 停机时等待发完剩余消息的最长毫秒，超时后丢弃
+         */
+        private long shutdownTimeoutMs = 10000;
+    }
+}
@@ -0,0 +1,108 @@
+package com.xiaoyua.properties;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 通知相关配置
+ *
+ * @author xiaoyu
+ */
+@Component
+@ConfigurationProperties(prefix = "xiaoyu.notification")
+@Data
+public class NotificationProperties {
+
+    /**
+     * 点赞/收藏通知合并配置
+     */
+    private Coalesce coalesce = new Coalesce();
+
+    /**
+     * 未读通知计数配置
+     */
+    private Unread unread = new Unread();
+
+    /**
+     * 通知推送队列批量消费配置
+     */
+    private Consumer consumer = new Consumer();
+
+    @Data
+    public static class Coalesce {
+
+        /**
+         * 是否合并点赞/收藏通知，关闭后每次互动单独发送
+         */
+        private boolean enabled = true;
+
+        /**
+         * 静默窗口毫秒：同一 (接收者, 类型, 对象) 超过该时间没有新的互动即发送合并通知
+         */
+        private long quietMs = 5000;
+
+        /**
+         * 最长等待毫秒：持续有互动时窗口最多保持这么久，保证通知不会无限延迟
+         */
+        private long maxDelayMs = 30000;
+
+        /**
+         * 检查到期窗口的间隔毫秒
+         */
+        private long flushIntervalMs = 1000;
+
+        /**
+         * 同时打开的窗口上限，超过后新的互动不合并直接发送
+         */
+        private int maxOpenWindows = 100000;
+
+        /**
+         * 每个窗口去重记录的互动用户上限，超过后只计数不去重
+         */
+        private int maxTrackedActors = 1000;
+    }
+
+    @Data
+    public static class Unread {
+
+        /**
+         * Redis 未读计数闲置过期天数，过期后按需从数据库重新载入
+         */
+        private int ttlDays = 7;
+
+        /**
+         * 校正未读计数的间隔毫秒
+         */
+        private long repairIntervalMs = 300000;
+
+        /**
+         * 每轮校正的最大用户数
+         */
+        private int repairBatchSize = 500;
+    }
+
+    @Data
+    public static class Consumer {
+
+        /**
+         * 每批最多消费的消息数
+         */
+        private int batchSize = 100;
+
+        /**
+         * 凑批等待毫秒，到时即使不满一批也开始处理
+         */
+        private long receiveTimeoutMs = 200;
+
+        /**
+         * 预取数量，不小于批大小
+         */
+        private int prefetch = 250;
+
+        /**
+         * 并发消费者数
+         */
+        private int concurrency = 2;
+    }
+}
@@ -0,0 +1,44 @@
+package com.xiaoyua.service;
+
+import com.xiaoyua.entity.PostPO;
+import com.xiaoyua.utils.CursorUtil;
+
+import java.util.List;
+
+/**
+ * 校区动态流服务
+ * <p>
+ * 按动态所属校区分区，每个校区在 Redis 中维护一个最近动态ID环（容量固定的 ZSET，分数为发布时间毫秒），
+ * 只收录公开与校园可见的已发布动态。校区列表的游标翻页优先从环中读取，只访问本校区的数据；
+ * 环覆盖不到的位置由调用方回退到数据库。校区热门排行由 {@link HotRankService} 维护。
+ * </p>
+ *
+ * @author xiaoyu
+ */
+public interface CampusFeedService {
+
+    /**
+     * 新动态加入所属校区的最近动态环（好友可见、未发布或没有校区的动态忽略）
+     *
+     * @param post 动态
+     */
+    void register(PostPO post);
+
+    /**
+     * 从校区最近动态环中移除动态
+     *
+     * @param postId   动态ID
+     * @param campusId 动态原所属校区ID
+     */
+    void remove(Long postId, Long campusId);
+
+    /**
+     * 按 (created_at, id) 倒序读取游标之后的动态位置
+     *
+     * @param campusId 校区ID
+     * @param after    上一页最后一条的位置，第一页为 null
+     * @param limit    最多返回条数
+     * @return 动态位置列表；环无法完整覆盖该区间时返回 null，调用方应回退数据库
+     */
+    List<CursorUtil.Cursor> range(Long campusId, CursorUtil.Cursor after, int limit);
+}
@@ -3,6 +3,7 @@ package com.xiaoyua.service;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.xiaoyua.dto.comment.CommentCreateDTO;
 import com.xiaoyua.vo.comment.CommentVO;
+import com.xiaoyua.vo.common.PageResult;
 
 public interface CommentService {
     public void addComment(CommentCreateDTO comment);
@@ -10,5 +11,20 @@ public interface CommentService {
     public void deleteComment(Long commentId);
 
     public IPage<CommentVO> getComments(Long postId, int page, int size, String sort);
+
+    /**
+     * 游标模式获取动态的根评论（含二级回复），cursor 为空串表示第一页
+     */
+    public PageResult<CommentVO> getCommentsByCursor(Long postId, String cursor, int size);
+
+    /**
+     * 游标模式按热度获取动态的根评论，热度索引不可用时回退到按时间的游标分页
+     */
+    public PageResult<CommentVO> getHotCommentsByCursor(Long postId, String cursor, int size);
+
+    /**
+     * 游标模式获取根评论的二级回复（最新在前），cursor 为空串表示第一页
+     */
+    public PageResult<CommentVO> getReplies(Long commentId, String cursor, int size);
     public long getCommentCount(Long postId, String type);
 }
@@ -0,0 +1,98 @@
+package com.xiaoyua.service;
+
+import com.xiaoyua.entity.CommentPO;
+import com.xiaoyua.entity.CommentStatPO;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 评论统计与热门排序服务
+ * <p>
+ * 点赞、取消点赞、回复时维护 comment_stats 计数，并更新该动态根评论热度索引中的分数，
+ * 热门排序直接按索引分页读取，不再对动态的全部评论排序。统计与索引更新失败只记录日志，不影响评论本身。
+ * </p>
+ *
+ * @author xiaoyu
+ */
+public interface CommentStatService {
+
+    /**
+     * 评论点赞数变化
+     *
+     * @param commentId 评论ID
+     * @param delta     增量（+1 / -1）
+     */
+    void onLike(Long commentId, int delta);
+
+    /**
+     * 评论回复数变化
+     *
+     * @param parentId 被回复的评论ID
+     * @param delta    增量（+1 / -1）
+     */
+    void onReply(Long parentId, int delta);
+
+    /**
+     * 新的根评论加入热度索引
+     */
+    void onRootCreated(CommentPO root);
+
+    /**
+     * 根评论删除后移出热度索引
+     */
+    void onRootDeleted(CommentPO root);
+
+    /**
+     * 批量获取评论统计
+     *
+     * @param commentIds 评论ID集合
+     * @return 评论ID -> 统计，没有统计行的评论不返回
+     */
+    Map<Long, CommentStatPO> getStats(Collection<Long> commentIds);
+
+    /**
+     * 按热度倒序分页读取根评论ID
+     *
+     * @param postId 动态ID
+     * @param offset 偏移量
+     * @param limit  条数
+     * @return 热门分页，索引不可用或超出索引范围时返回 null（调用方回退到数据库）
+     */
+    HotPage hotRootIds(Long postId, long offset, int limit);
+
+    /**
+     * 按热度游标分页读取根评论ID，游标为上一页最后一条的 (热度分, 评论ID)
+     *
+     * @param postId 动态ID
+     * @param cursor 热门游标，首页传空串
+     * @param limit  条数
+     * @return 热门游标分页，索引不可用或游标不是热门游标时返回 null（调用方回退到按时间的游标分页）
+     * @throws IllegalArgumentException 游标格式不正确
+     */
+    HotCursorPage hotRootIdsAfter(Long postId, String cursor, int limit);
+
+    /**
+     * 是否为 {@link #hotRootIdsAfter} 生成的热门游标
+     */
+    boolean isHotCursor(String cursor);
+
+    /**
+     * 热门根评论分页
+     *
+     * @param ids   根评论ID，按热度倒序
+     * @param total 根评论总数
+     */
+    record HotPage(List<Long> ids, long total) {
+    }
+
+    /**
+     * 热门根评论游标分页
+     *
+     * @param ids        根评论ID，按热度倒序
+     * @param nextCursor 下一页游标，没有下一页时为 null
+     */
+    record HotCursorPage(List<Long> ids, String nextCursor) {
+    }
+}
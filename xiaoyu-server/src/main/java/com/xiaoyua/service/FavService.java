@@ -2,6 +2,9 @@ package com.xiaoyua.service;
 
 import com.xiaoyua.common.enums.TargetType;
 
+import java.util.Collection;
+import java.util.Set;
+
 public interface FavService {
     /**
      * 添加收藏
@@ -55,6 +58,15 @@ public interface FavService {
         return isFavorited(itemId, userId, itemType.value());
     }
     
+    /**
+     * 批量查询用户已收藏的对象ID（用于列表页一次性填充收藏状态）
+     * @param userId 用户ID
+     * @param itemIds 业务对象ID集合
+     * @param itemType 业务类型
+     * @return 已收藏的对象ID集合
+     */
+    Set<Long> getFavoritedItemIds(Long userId, Collection<Long> itemIds, String itemType);
+
     /**
      * 获取收藏数量
      * @param itemId 业务对象ID
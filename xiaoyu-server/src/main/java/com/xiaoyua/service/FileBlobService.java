@@ -0,0 +1,50 @@
+package com.xiaoyua.service;
+
+import com.xiaoyua.entity.FileBlobPO;
+
+import java.util.Collection;
+
+/**
+ * 文件内容去重服务
+ * <p>
+ * 以内容 SHA-256 为键记录存储对象及引用计数。相同内容的上传直接引用已有对象，不再写存储；
+ * 文件记录删除时释放引用，最后一个引用释放时才删除存储对象。
+ * 内容记录只在对象完整写入后才登记，删除最后引用时持有行锁直到对象删除完成，
+ * 因此引用到的内容记录总是指向存在的对象。
+ * </p>
+ *
+ * @author xiaoyu
+ */
+public interface FileBlobService {
+
+    /**
+     * 引用已存在的内容
+     *
+     * @param sha256 内容 SHA-256
+     * @return 内容记录，不存在时返回 null（调用方需写入存储后调用 {@link #register}）
+     */
+    FileBlobPO acquire(String sha256);
+
+    /**
+     * 登记刚写入存储的内容并占用一个引用
+     * <p>
+     * 并发上传相同内容时先登记者胜出，返回的记录指向胜出的对象，调用方应删除自己写入的对象。
+     * </p>
+     *
+     * @param sha256     内容 SHA-256
+     * @param objectName 刚写入的对象名称
+     * @param fileUrl    刚写入的对象访问地址
+     * @param size       内容大小
+     * @return 实际使用的内容记录
+     */
+    FileBlobPO register(String sha256, String objectName, String fileUrl, long size);
+
+    /**
+     * 释放一个引用，最后一个引用释放时删除存储对象及其图片版本
+     *
+     * @param sha256      内容 SHA-256
+     * @param variantUrls 该内容生成的图片版本地址
+     * @return 是否删除了存储对象
+     */
+    boolean release(String sha256, Collection<String> variantUrls);
+}
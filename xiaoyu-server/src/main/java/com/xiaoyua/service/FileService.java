@@ -3,6 +3,9 @@ package com.xiaoyua.service;
 import com.xiaoyua.vo.file.FileVO;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  * 文件服务接口
  * 
@@ -19,6 +22,24 @@ public interface FileService {
      * @return 文件信息
      */
     FileVO uploadFile(MultipartFile file, String bizType, Long userId);
+
+    /**
+     * 并发上传多个文件，任一文件失败时删除本次已上传的其它文件后抛出异常
+     *
+     * @param files 文件列表
+     * @param bizType 业务类型
+     * @param userId 用户ID
+     * @return 文件信息，顺序与入参一致
+     */
+    List<FileVO> uploadFiles(List<MultipartFile> files, String bizType, Long userId);
+
+    /**
+     * 尽力删除一批文件（用于回滚），单个文件删除失败只记录日志
+     *
+     * @param fileIds 文件ID集合
+     * @param userId 用户ID（用于权限验证）
+     */
+    void discardFiles(Collection<Long> fileIds, Long userId);
     
     /**
      * 根据ID获取文件信息
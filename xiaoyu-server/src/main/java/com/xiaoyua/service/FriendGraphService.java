@@ -0,0 +1,58 @@
+package com.xiaoyua.service;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 好友关系图服务
+ * <p>
+ * 每个用户已通过的好友以升序 long[] 常驻本地内存，首次访问时从 friends 表加载，
+ * 好友关系变化时通过 {@link com.xiaoyua.common.event.UserRelationChangedEvent} 原地更新，
+ * 并通知其它节点重新加载。私信、动态可见性、时间线分发等热路径统一通过本服务判断好友关系。
+ * </p>
+ *
+ * @author xiaoyu
+ */
+public interface FriendGraphService {
+
+    /**
+     * 两个用户是否互为好友（任一方为 null 或为同一人时返回 false）
+     *
+     * @param userId   用户ID
+     * @param friendId 另一用户ID
+     * @return 是否好友
+     */
+    boolean isFriend(Long userId, Long friendId);
+
+    /**
+     * 用户的全部好友ID
+     *
+     * @param userId 用户ID
+     * @return 升序好友ID数组，调用方不得修改
+     */
+    long[] friendsOf(Long userId);
+
+    /**
+     * 批量获取多个用户的好友ID，未加载的用户一次查询补齐
+     *
+     * @param userIds 用户ID集合
+     * @return 用户ID -> 升序好友ID数组，调用方不得修改
+     */
+    Map<Long, long[]> friendsOf(Collection<Long> userIds);
+
+    /**
+     * 两个用户的共同好友
+     *
+     * @param userId  用户ID
+     * @param otherId 另一用户ID
+     * @return 升序共同好友ID数组
+     */
+    long[] mutualFriends(Long userId, Long otherId);
+
+    /**
+     * 丢弃某用户已加载的好友集合，下次访问时重新加载
+     *
+     * @param userId 用户ID
+     */
+    void invalidate(Long userId);
+}
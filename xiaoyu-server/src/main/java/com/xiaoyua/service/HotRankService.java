@@ -0,0 +1,73 @@
+package com.xiaoyua.service;
+
+import com.xiaoyua.common.enums.PostStatField;
+import com.xiaoyua.entity.PostPO;
+
+import java.util.List;
+
+/**
+ * 动态热度排行服务
+ * <p>
+ * 热度分 = sign(p) * log10(max(|p|, 1)) + 发布时间秒 / 衰减系数，其中 p 为各计数的加权和。
+ * 发布时间项让新动态天然排在旧动态之前，分数只在计数变化时增量更新，无需随时间重算。
+ * 热榜保存在 Redis ZSET 中：全站榜（仅公开动态）与按校区的校区榜。
+ * </p>
+ *
+ * @author xiaoyu
+ */
+public interface HotRankService {
+
+    /**
+     * 新发布动态加入热榜
+     *
+     * @param post 已保存的动态
+     */
+    void register(PostPO post);
+
+    /**
+     * 按最新互动计数重新登记已有动态（可见范围、校区变更后使用），保留已累计的热度
+     *
+     * @param post 已更新的动态
+     */
+    void rescore(PostPO post);
+
+    /**
+     * 动态统计计数变化后增量更新热度
+     *
+     * @param postId 动态ID
+     * @param field  变化的计数字段
+     * @param delta  变化量（可为负）
+     */
+    void onStatChanged(Long postId, PostStatField field, long delta);
+
+    /**
+     * 将动态移出热榜（隐藏、删除、可见范围变更等）
+     *
+     * @param postId 动态ID
+     */
+    void remove(Long postId);
+
+    /**
+     * 读取全站热榜动态ID
+     *
+     * @param offset 偏移量
+     * @param size   数量
+     * @return 按热度倒序的动态ID
+     */
+    List<Long> rangeGlobal(int offset, int size);
+
+    /**
+     * 读取校区热榜动态ID
+     */
+    List<Long> rangeCampus(Long campusId, int offset, int size);
+
+    /**
+     * 全站热榜条数
+     */
+    long countGlobal();
+
+    /**
+     * 校区热榜条数
+     */
+    long countCampus(Long campusId);
+}
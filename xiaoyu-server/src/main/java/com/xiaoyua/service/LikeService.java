@@ -2,6 +2,9 @@ package com.xiaoyua.service;
 
 import com.xiaoyua.common.enums.TargetType;
 
+import java.util.Collection;
+import java.util.Set;
+
 public interface LikeService {
     /**
      * 添加点赞
@@ -49,6 +52,15 @@ public interface LikeService {
         return isLiked(itemId, userId, itemType.value());
     }
     
+    /**
+     * 批量查询用户已点赞的对象ID（用于列表页一次性填充点赞状态）
+     * @param userId 用户ID
+     * @param itemIds 业务对象ID集合
+     * @param itemType 业务类型
+     * @return 已点赞的对象ID集合
+     */
+    Set<Long> getLikedItemIds(Long userId, Collection<Long> itemIds, String itemType);
+
     /**
      * 获取点赞数量
      * @param itemId 业务对象ID
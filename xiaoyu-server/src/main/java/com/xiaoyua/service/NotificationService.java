@@ -2,6 +2,7 @@ package com.xiaoyua.service;
 
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.xiaoyua.entity.NotificationPO;
+import com.xiaoyua.vo.common.PageResult;
 import com.xiaoyua.vo.notification.NotificationVO;
 
 /**
@@ -23,6 +24,18 @@ public interface NotificationService {
      */
     IPage<NotificationVO> getNotifications(Long userId, String type, String status, Integer page, Integer size);
 
+    /**
+     * 游标模式获取通知列表（按创建时间倒序，不统计总数）
+     * 
+     * @param userId 用户ID
+     * @param type 通知类型
+     * @param status 阅读状态
+     * @param cursor 上一页返回的游标，空字符串表示第一页
+     * @param size 每页数量
+     * @return 通知列表
+     */
+    PageResult<NotificationVO> getNotificationsByCursor(Long userId, String type, String status, String cursor, Integer size);
+
     /**
      * 标记通知为已读
      * 
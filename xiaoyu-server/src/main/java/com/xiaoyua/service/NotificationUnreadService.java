@@ -0,0 +1,44 @@
+package com.xiaoyua.service;
+
+/**
+ * 未读通知计数服务
+ * <p>
+ * 每个用户的未读数保存在 Redis 中，由通知入库、标记已读原子增减，角标轮询只读 Redis；
+ * 计数不存在时从数据库载入，变更过的用户由定时任务与数据库比对校正偏差。
+ * </p>
+ *
+ * @author xiaoyu
+ */
+public interface NotificationUnreadService {
+
+    /**
+     * 新增未读通知后累加
+     *
+     * @param userId 接收者ID
+     * @param delta  新增的未读通知数
+     */
+    void increment(Long userId, long delta);
+
+    /**
+     * 标记已读后扣减，结果不会小于 0
+     *
+     * @param userId 用户ID
+     * @param delta  本次由未读变为已读的通知数
+     */
+    void decrement(Long userId, long delta);
+
+    /**
+     * 获取未读通知数
+     *
+     * @param userId 用户ID
+     * @return 未读数，Redis 不可用时读取数据库
+     */
+    long getUnreadCount(Long userId);
+
+    /**
+     * 与数据库比对校正一批计数变更过的用户
+     *
+     * @return 本轮检查的用户数
+     */
+    int repairDirty();
+}
@@ -0,0 +1,62 @@
+package com.xiaoyua.service;
+
+import com.xiaoyua.common.enums.PostStatField;
+import com.xiaoyua.entity.PostStatPO;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 动态互动计数服务
+ * <p>
+ * 点赞、收藏、评论、转发计数以 Redis 为准：写操作直接 HINCRBY 并返回最新值，
+ * 同时把增量记入待刷写集合，由定时任务合并后批量写回 post_stats。
+ * 浏览数由浏览缓冲单独处理，不经过本服务。
+ * </p>
+ *
+ * @author xiaoyu
+ */
+public interface PostCounterService {
+
+    /**
+     * 累加计数，结果不会小于 0，并同步更新热榜分数
+     *
+     * @param postId 动态ID
+     * @param field  计数字段（不支持 VIEW）
+     * @param delta  增量（可为负）
+     * @return 累加后的计数
+     */
+    long increment(Long postId, PostStatField field, long delta);
+
+    /**
+     * 读取单个计数（写后立即可读）
+     *
+     * @param postId 动态ID
+     * @param field  计数字段（不支持 VIEW）
+     * @return 当前计数
+     */
+    long getCount(Long postId, PostStatField field);
+
+    /**
+     * 批量读取统计：以 post_stats 为基础，叠加 Redis 中的实时互动计数
+     *
+     * @param postIds 动态ID集合
+     * @return 动态ID -> 统计
+     */
+    Map<Long, PostStatPO> getStats(Collection<Long> postIds);
+
+    /**
+     * 只读取 Redis 中的实时互动计数，不访问数据库；Redis 中没有的动态不返回
+     *
+     * @param postIds 动态ID集合
+     * @return 动态ID -> (计数字段 -> 计数)
+     */
+    Map<Long, Map<PostStatField, Long>> getLiveCounts(Collection<Long> postIds);
+
+    /**
+     * 把待刷写的增量批量写回 post_stats（每次最多处理一批）
+     *
+     * @return 本次处理的动态数量，0 表示没有待写回的增量
+     */
+    int flushDeltas();
+}
@@ -15,6 +15,11 @@ public interface PostService {
      */
     PageResult<PostVO> getPosts(PostQueryDTO postQueryDTO);
     
+    /**
+     * 获取当前用户的首页时间线（好友与同校区动态，按发布时间倒序）
+     */
+    PageResult<PostVO> getTimeline(Integer page, Integer size);
+
     /**
      * 获取动态详情
      * @param postId 动态ID
@@ -45,13 +50,26 @@ public interface PostService {
      */
     PageResult<PostVO> listAll(Integer page, Integer size, String sort);
 
+    /**
+     * 游标模式获取全部动态列表（按发布时间倒序，不统计总数）
+     *
+     * @param cursor 上一页返回的游标，空字符串表示第一页
+     * @param size 每页数量
+     */
+    PageResult<PostVO> listAllByCursor(String cursor, Integer size);
+
     /**
      * 获取指定用户的动态列表（已发布，按可见范围过滤）
      */
     PageResult<PostVO> listByUser(Long userId, Integer page, Integer size, String sort);
 
     /**
-     * 获取热门动态（按点赞数倒序，默认前10条）
+     * 游标模式获取指定用户的动态列表（按发布时间倒序，不统计总数）
+     */
+    PageResult<PostVO> listByUserByCursor(Long userId, String cursor, Integer size);
+
+    /**
+     * 获取热门动态（按时间衰减热度倒序，默认前10条）
      */
     List<PostVO> listHot(Integer limit);
 }
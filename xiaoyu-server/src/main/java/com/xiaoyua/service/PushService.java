@@ -1,5 +1,9 @@
 package com.xiaoyua.service;
 
+import com.xiaoyua.service.pipeline.NotificationCoalescer;
+
+import java.util.List;
+
 /**
  * 独立推送服务接口
  * 负责统一处理所有推送逻辑，通过MQ实现解耦和可靠性
@@ -64,6 +68,13 @@ public interface PushService {
      */
     void pushFavoriteNotification(Long toUserId, Long fromUserId, Long itemId, String itemType);
     
+    /**
+     * 发送合并后的点赞/收藏通知
+     * 
+     * @param batches 到期的合并窗口
+     */
+    void pushCoalescedNotifications(List<NotificationCoalescer.Batch> batches);
+    
     /**
      * 推送评论通知
      * 
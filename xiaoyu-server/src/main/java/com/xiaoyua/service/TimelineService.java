@@ -0,0 +1,50 @@
+package com.xiaoyua.service;
+
+import com.xiaoyua.entity.PostPO;
+import com.xiaoyua.utils.CursorUtil;
+
+import java.util.List;
+
+/**
+ * 首页时间线服务（推拉结合）
+ * <p>
+ * 写扩散：发布动态时把动态ID推送到受众的收件箱（Redis ZSET，score 为发布时间）；
+ * 读扩散：受众过大的作者/校区不推送，读取时从其发件箱拉取并合并。
+ * </p>
+ *
+ * @author xiaoyu
+ */
+public interface TimelineService {
+
+    /**
+     * 发布动态后将其分发到受众收件箱
+     *
+     * @param post 已保存的动态
+     */
+    void fanOut(PostPO post);
+
+    /**
+     * 读取用户时间线中的动态ID（按发布时间倒序）
+     *
+     * @param userId 用户ID
+     * @param offset 偏移量
+     * @param size   数量
+     * @return 动态ID列表
+     */
+    List<Long> readTimeline(Long userId, int offset, int size);
+
+    /**
+     * 按游标读取用户时间线（按发布时间、动态ID倒序），游标为上一页最后一条的 (发布时间, 动态ID)
+     *
+     * @param userId 用户ID
+     * @param after  上一页最后一条的位置，第一页为 null
+     * @param limit  数量
+     * @return 动态位置列表
+     */
+    List<CursorUtil.Cursor> readTimelineAfter(Long userId, CursorUtil.Cursor after, int limit);
+
+    /**
+     * 用户时间线的条目数（收件箱大小，近似值）
+     */
+    long countTimeline(Long userId);
+}
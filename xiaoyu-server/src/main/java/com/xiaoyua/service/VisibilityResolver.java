@@ -0,0 +1,117 @@
+package com.xiaoyua.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 动态可见性判断
+ * <p>
+ * 把查看者与作者之间的关系压缩为一个位掩码（本人、好友、同校区、拉黑），按 (查看者, 作者) 缓存，
+ * 好友、黑名单、校区变化时失效。整页动态可一次查询完成判断。
+ * </p>
+ *
+ * @author xiaoyu
+ */
+public interface VisibilityResolver {
+
+    /**
+     * 查看者就是作者
+     */
+    int SELF = 1;
+
+    /**
+     * 互为好友
+     */
+    int FRIEND = 1 << 1;
+
+    /**
+     * 同一校区
+     */
+    int SAME_CAMPUS = 1 << 2;
+
+    /**
+     * 任一方拉黑了另一方
+     */
+    int BLOCKED = 1 << 3;
+
+    /**
+     * 查看者与作者的关系掩码
+     *
+     * @param viewerId 查看者ID，未登录为 null
+     * @param authorId 作者ID
+     * @return 关系掩码，未登录为 0
+     */
+    int relation(Long viewerId, Long authorId);
+
+    /**
+     * 批量获取查看者与多个作者的关系掩码，未缓存的作者一次查询补齐
+     *
+     * @param viewerId  查看者ID，未登录为 null
+     * @param authorIds 作者ID集合
+     * @return 作者ID -> 关系掩码
+     */
+    Map<Long, Integer> relations(Long viewerId, Collection<Long> authorIds);
+
+    /**
+     * 根据关系掩码判断某可见范围的内容是否可见
+     *
+     * @param mask       关系掩码
+     * @param visibility 可见范围：PUBLIC/FRIEND/CAMPUS
+     * @return 是否可见
+     */
+    static boolean canView(int mask, String visibility) {
+        if ((mask & SELF) != 0) {
+            return true;
+        }
+        if ((mask & BLOCKED) != 0) {
+            return false;
+        }
+        if ("PUBLIC".equals(visibility)) {
+            return true;
+        }
+        if ("FRIEND".equals(visibility)) {
+            return (mask & FRIEND) != 0;
+        }
+        if ("CAMPUS".equals(visibility)) {
+            return (mask & SAME_CAMPUS) != 0;
+        }
+        return false;
+    }
+
+    /**
+     * 判断查看者能否看到作者某可见范围的内容
+     */
+    default boolean canView(Long viewerId, Long authorId, String visibility) {
+        return canView(relation(viewerId, authorId), visibility);
+    }
+
+    /**
+     * 查看者对该作者可见的可见范围列表（用于拼接查询条件），被拉黑时为空
+     */
+    default List<String> visibleScopes(Long viewerId, Long authorId) {
+        int mask = relation(viewerId, authorId);
+        return List.of("PUBLIC", "FRIEND", "CAMPUS").stream()
+                .filter(v -> canView(mask, v))
+                .toList();
+    }
+
+    /**
+     * 过滤一页内容，只保留查看者可见的，保持原有顺序
+     *
+     * @param viewerId   查看者ID，未登录为 null
+     * @param items      内容列表
+     * @param author     作者ID取值函数
+     * @param visibility 可见范围取值函数
+     * @return 可见内容
+     */
+    <T> List<T> filterVisible(Long viewerId, List<T> items, Function<T, Long> author, Function<T, String> visibility);
+
+    /**
+     * 清除与某用户相关的全部关系缓存
+     *
+     * @param userId 用户ID
+     */
+    void invalidate(Long userId);
+}
@@ -0,0 +1,214 @@
+package com.xiaoyua.service.assembler;
+
+import cn.hutool.core.bean.BeanUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.json.JSONUtil;
+import com.xiaoyua.common.enums.TargetType;
+import com.xiaoyua.context.BaseContext;
+import com.xiaoyua.entity.CommentPO;
+import com.xiaoyua.entity.CommentStatPO;
+import com.xiaoyua.entity.UserPO;
+import com.xiaoyua.mapper.UserMapper;
+import com.xiaoyua.service.CommentStatService;
+import com.xiaoyua.service.LikeService;
+import com.xiaoyua.vo.comment.CommentVO;
+import com.xiaoyua.vo.user.UserSimpleVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 评论VO组装器
+ * <p>
+ * 一页根评论连同其回复一起组装：评论者与 @用户 合并为一次用户批量查询，
+ * 点赞数与回复数一次批量读取评论统计，当前用户的点赞状态一次批量判断，查询次数与评论条数无关。
+ * </p>
+ *
+ * @author xiaoyu
+ */
+@Component
+@Slf4j
+public class CommentVOAssembler {
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private LikeService likeService;
+
+    @Autowired
+    private CommentStatService commentStatService;
+
+    /**
+     * 组装根评论及其回复
+     *
+     * @param roots         根评论
+     * @param repliesByRoot 根评论ID -> 回复预览（已按展示顺序排列）
+     * @return 评论VO，顺序与 roots 一致；replyCount 为全部回复数而非预览条数
+     */
+    public List<CommentVO> assembleRoots(List<CommentPO> roots, Map<Long, List<CommentPO>> repliesByRoot) {
+        if (roots == null || roots.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<CommentPO> all = new ArrayList<>(roots);
+        repliesByRoot.values().forEach(all::addAll);
+        Hydration h = hydrate(all);
+
+        List<CommentVO> result = new ArrayList<>(roots.size());
+        for (CommentPO root : roots) {
+            CommentVO vo = toVO(root, h);
+            List<CommentPO> replies = repliesByRoot.getOrDefault(root.getId(), Collections.emptyList());
+            List<CommentVO> replyVos = new ArrayList<>(replies.size());
+            for (CommentPO reply : replies) {
+                replyVos.add(toVO(reply, h));
+            }
+            vo.setReplies(replyVos);
+            CommentStatPO stat = h.stats().get(root.getId());
+            // 统计行缺失（历史数据未回填）时至少不小于已展示的条数
+            vo.setReplyCount(Math.max(stat != null && stat.getReplyCnt() != null ? stat.getReplyCnt() : 0, replies.size()));
+            result.add(vo);
+        }
+        return result;
+    }
+
+    /**
+     * 组装一页二级回复
+     *
+     * @param replies 回复
+     * @return 评论VO，顺序与 replies 一致
+     */
+    public List<CommentVO> assembleReplies(List<CommentPO> replies) {
+        if (replies == null || replies.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Hydration h = hydrate(replies);
+        List<CommentVO> result = new ArrayList<>(replies.size());
+        for (CommentPO reply : replies) {
+            result.add(toVO(reply, h));
+        }
+        return result;
+    }
+
+    /**
+     * 一批评论共用的关联数据
+     */
+    private record Hydration(Map<Long, UserSimpleVO> users, Set<Long> liked, Map<Long, CommentStatPO> stats,
+                             Map<Long, List<Long>> mentionIds, Map<Long, List<UserSimpleVO>> inlineMentions) {
+    }
+
+    private Hydration hydrate(List<CommentPO> all) {
+        Map<Long, List<Long>> mentionIds = new HashMap<>();
+        Map<Long, List<UserSimpleVO>> inlineMentions = new HashMap<>();
+        Set<Long> userIds = new LinkedHashSet<>();
+        for (CommentPO comment : all) {
+            if (comment.getUserId() != null) {
+                userIds.add(comment.getUserId());
+            }
+            parseAtUsers(comment, mentionIds, inlineMentions);
+        }
+        mentionIds.values().forEach(userIds::addAll);
+
+        Map<Long, UserSimpleVO> users = loadUsers(userIds);
+        Set<Long> liked = loadLiked(all);
+        Map<Long, CommentStatPO> stats = commentStatService.getStats(all.stream().map(CommentPO::getId).toList());
+        return new Hydration(users, liked, stats, mentionIds, inlineMentions);
+    }
+
+    private CommentVO toVO(CommentPO comment, Hydration h) {
+        CommentVO vo = new CommentVO();
+        BeanUtil.copyProperties(comment, vo);
+        vo.setUser(h.users().get(comment.getUserId()));
+        List<UserSimpleVO> atUsers = h.inlineMentions().get(comment.getId());
+        if (atUsers == null) {
+            atUsers = new ArrayList<>();
+            for (Long id : h.mentionIds().getOrDefault(comment.getId(), Collections.emptyList())) {
+                UserSimpleVO user = h.users().get(id);
+                if (user != null) {
+                    atUsers.add(user);
+                }
+            }
+        }
+        vo.setAtUsers(atUsers);
+        vo.setIsLiked(h.liked().contains(comment.getId()));
+        CommentStatPO stat = h.stats().get(comment.getId());
+        vo.setLikeCnt(stat != null && stat.getLikeCnt() != null ? stat.getLikeCnt() : 0);
+        return vo;
+    }
+
+    /**
+     * 解析 @用户：兼容 JSON 数组（ID 列表或 UserSimpleVO 列表）与逗号分隔的 ID 字符串，
+     * ID 收集到 mentionIds 统一查询，直接存了用户信息的放入 inlineMentions
+     */
+    private void parseAtUsers(CommentPO comment, Map<Long, List<Long>> mentionIds,
+                              Map<Long, List<UserSimpleVO>> inlineMentions) {
+        String json = comment.getAtUsers();
+        if (StrUtil.isBlank(json)) {
+            return;
+        }
+        try {
+            if (StrUtil.startWith(json.trim(), "[")) {
+                try {
+                    // 优先解析为 Long 列表（ID 列表）
+                    mentionIds.put(comment.getId(), JSONUtil.toList(JSONUtil.parseArray(json), Long.class));
+                } catch (Exception ignore) {
+                    // 如果不是 ID 列表，则尝试直接解析为 UserSimpleVO 列表
+                    inlineMentions.put(comment.getId(), JSONUtil.toList(JSONUtil.parseArray(json), UserSimpleVO.class));
+                }
+                return;
+            }
+            List<Long> ids = new ArrayList<>();
+            for (String part : json.split(",")) {
+                if (StrUtil.isNotBlank(part)) {
+                    ids.add(Long.valueOf(part.trim()));
+                }
+            }
+            mentionIds.put(comment.getId(), ids);
+        } catch (Exception e) {
+            log.warn("解析@用户列表失败，原始值: {}，错误: {}", json, e.getMessage());
+        }
+    }
+
+    private Map<Long, UserSimpleVO> loadUsers(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        try {
+            Map<Long, UserSimpleVO> map = new HashMap<>();
+            for (UserPO u : userMapper.selectBatchIds(userIds)) {
+                map.put(u.getId(), new UserSimpleVO(u.getId(), u.getNickname(), u.getAvatarUrl(), u.getGender(),
+                        u.getCampusId(), u.getIsRealName(), u.getCreatedAt()));
+            }
+            return map;
+        } catch (Exception e) {
+            log.error("批量获取评论用户失败: userIds={}, error={}", userIds, e.getMessage());
+            return Collections.emptyMap();
+        }
+    }
+
+    private Set<Long> loadLiked(List<CommentPO> comments) {
+        Long viewerId = null;
+        try {
+            viewerId = BaseContext.getCurrentId();
+        } catch (Exception ignored) {
+        }
+        if (viewerId == null) {
+            return Collections.emptySet();
+        }
+        List<Long> ids = comments.stream().map(CommentPO::getId).distinct().toList();
+        try {
+            return likeService.getLikedItemIds(viewerId, ids, TargetType.COMMENT.value());
+        } catch (Exception e) {
+            log.error("批量获取评论点赞状态失败: userId={}, error={}", viewerId, e.getMessage());
+            return Collections.emptySet();
+        }
+    }
+}
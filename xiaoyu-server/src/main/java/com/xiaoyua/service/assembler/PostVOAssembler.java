@@ -0,0 +1,369 @@
+package com.xiaoyua.service.assembler;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.xiaoyua.common.enums.PostStatField;
+import com.xiaoyua.context.BaseContext;
+import com.xiaoyua.entity.FilePO;
+import com.xiaoyua.entity.PostFilePO;
+import com.xiaoyua.entity.PostPO;
+import com.xiaoyua.entity.PostStatPO;
+import com.xiaoyua.entity.TopicPO;
+import com.xiaoyua.entity.TopicPostPO;
+import com.xiaoyua.entity.UserPO;
+import com.xiaoyua.mapper.FileMapper;
+import com.xiaoyua.mapper.PostFileMapper;
+import com.xiaoyua.mapper.TopicMapper;
+import com.xiaoyua.mapper.TopicPostMapper;
+import com.xiaoyua.mapper.UserMapper;
+import com.xiaoyua.service.FavService;
+import com.xiaoyua.service.LikeService;
+import com.xiaoyua.service.PostCounterService;
+import com.xiaoyua.vo.file.FileSimpleVO;
+import com.xiaoyua.vo.post.PostStatsVO;
+import com.xiaoyua.vo.post.PostUserActionsVO;
+import com.xiaoyua.vo.post.PostVO;
+import com.xiaoyua.vo.topic.TopicSimpleVO;
+import com.xiaoyua.vo.user.UserSimpleVO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 动态VO批量组装器
+ * <p>
+ * 以"整页"为单位组装 PostVO：统计、作者、文件、话题、当前用户操作状态均通过 IN 查询一次取回，
+ * 每页的查询次数固定，与页大小无关。PostServiceImpl 与 TopicServiceImpl 共用。
+ * </p>
+ *
+ * @author xiaoyu
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class PostVOAssembler {
+
+    private static final String ITEM_TYPE_POST = "POST";
+
+    private static final Set<String> IMAGE_EXT = Set.of("jpg", "jpeg", "png", "gif", "bmp", "webp");
+    private static final Set<String> VIDEO_EXT = Set.of("mp4", "avi", "mov");
+    private static final Set<String> AUDIO_EXT = Set.of("mp3", "wav");
+
+    private final PostCounterService postCounterService;
+    private final UserMapper userMapper;
+    private final PostFileMapper postFileMapper;
+    private final FileMapper fileMapper;
+    private final TopicPostMapper topicPostMapper;
+    private final TopicMapper topicMapper;
+    private final LikeService likeService;
+    private final FavService favService;
+
+    /**
+     * 组装单条动态
+     */
+    public PostVO assemble(PostPO post) {
+        if (post == null) {
+            return null;
+        }
+        return assemble(List.of(post)).get(0);
+    }
+
+    /**
+     * 组装一页动态，返回顺序与入参一致
+     *
+     * @param posts 动态PO列表
+     * @return 动态VO列表
+     */
+    public List<PostVO> assemble(List<PostPO> posts) {
+        List<PostVO> result = assembleShared(posts);
+        overlayUserActions(result);
+        return result;
+    }
+
+    /**
+     * 组装与查看者无关的部分（不含 userActions），可安全缓存与共享
+     *
+     * @param posts 动态PO列表
+     * @return 动态VO列表
+     */
+    public List<PostVO> assembleShared(List<PostPO> posts) {
+        if (posts == null || posts.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> postIds = posts.stream().map(PostPO::getId).distinct().collect(Collectors.toList());
+
+        Map<Long, PostStatPO> statMap = loadStats(postIds);
+        Map<Long, UserSimpleVO> userMap = loadUsers(posts);
+        Map<Long, List<FileSimpleVO>> fileMap = loadFiles(postIds);
+        Map<Long, List<TopicSimpleVO>> topicMap = loadTopics(postIds);
+
+        List<PostVO> result = new ArrayList<>(posts.size());
+        for (PostPO post : posts) {
+            PostVO vo = toBaseVO(post);
+            vo.setUser(userMap.get(post.getUserId()));
+            vo.setStats(toStatsVO(statMap.get(post.getId())));
+            vo.setFiles(fileMap.getOrDefault(post.getId(), new ArrayList<>()));
+            vo.setTopics(topicMap.getOrDefault(post.getId(), new ArrayList<>()));
+            result.add(vo);
+        }
+        return result;
+    }
+
+    /**
+     * 由内存中刚发布的动态直接组装VO：统计全部为 0、话题稍后异步关联、当前用户未点赞/收藏，
+     * 只查询作者和文件，不回读动态本身
+     *
+     * @param post    刚插入的动态
+     * @param fileIds 按顺序关联的文件ID
+     * @return 动态VO
+     */
+    public PostVO assembleCreated(PostPO post, List<Long> fileIds) {
+        PostVO vo = toBaseVO(post);
+        vo.setUser(loadUsers(List.of(post)).get(post.getUserId()));
+        vo.setStats(toStatsVO(null));
+        List<FileSimpleVO> files = new ArrayList<>();
+        if (fileIds != null && !fileIds.isEmpty()) {
+            try {
+                Map<Long, FilePO> fileMap = fileMapper.selectBatchIds(fileIds).stream()
+                        .collect(Collectors.toMap(FilePO::getId, Function.identity(), (a, b) -> a));
+                for (Long fileId : fileIds) {
+                    FilePO file = fileMap.get(fileId);
+                    if (file != null) {
+                        files.add(toFileVO(file));
+                    }
+                }
+            } catch (Exception e) {
+                log.error("获取新动态文件失败: postId={}, error={}", post.getId(), e.getMessage());
+            }
+        }
+        vo.setFiles(files);
+        vo.setTopics(new ArrayList<>());
+        PostUserActionsVO actions = new PostUserActionsVO();
+        actions.setIsLiked(false);
+        actions.setIsFavorited(false);
+        vo.setUserActions(actions);
+        return vo;
+    }
+
+    /**
+     * 用 Redis 中的实时互动计数替换统计信息（用于缓存的详情），浏览数保持不变
+     * <p>统计对象会被替换为新实例，不修改原有对象。</p>
+     *
+     * @param vos 已组装的动态VO
+     */
+    public void overlayLiveCounts(List<PostVO> vos) {
+        if (vos == null || vos.isEmpty()) {
+            return;
+        }
+        List<Long> postIds = vos.stream().map(PostVO::getId).distinct().collect(Collectors.toList());
+        Map<Long, Map<PostStatField, Long>> live = postCounterService.getLiveCounts(postIds);
+        for (PostVO vo : vos) {
+            Map<PostStatField, Long> counts = live.get(vo.getId());
+            if (counts == null) {
+                continue;
+            }
+            PostStatsVO stats = new PostStatsVO();
+            if (vo.getStats() != null) {
+                BeanUtils.copyProperties(vo.getStats(), stats);
+            }
+            stats.setLikeCnt(counts.getOrDefault(PostStatField.LIKE, 0L).intValue());
+            stats.setFavCnt(counts.getOrDefault(PostStatField.FAV, 0L).intValue());
+            stats.setCommentCnt(counts.getOrDefault(PostStatField.COMMENT, 0L).intValue());
+            stats.setShareCnt(counts.getOrDefault(PostStatField.SHARE, 0L).intValue());
+            vo.setStats(stats);
+        }
+    }
+
+    /**
+     * 为当前登录用户填充点赞/收藏状态（未登录不填充）
+     *
+     * @param vos 已组装的动态VO
+     */
+    public void overlayUserActions(List<PostVO> vos) {
+        Long viewerId = BaseContext.getCurrentId();
+        if (viewerId == null || vos == null || vos.isEmpty()) {
+            return;
+        }
+        List<Long> postIds = vos.stream().map(PostVO::getId).distinct().collect(Collectors.toList());
+        Set<Long> liked = likeService.getLikedItemIds(viewerId, postIds, ITEM_TYPE_POST);
+        Set<Long> faved = favService.getFavoritedItemIds(viewerId, postIds, ITEM_TYPE_POST);
+        for (PostVO vo : vos) {
+            PostUserActionsVO actions = new PostUserActionsVO();
+            actions.setIsLiked(liked.contains(vo.getId()));
+            actions.setIsFavorited(faved.contains(vo.getId()));
+            vo.setUserActions(actions);
+        }
+    }
+
+    /**
+     * PO基础字段转换
+     */
+    private PostVO toBaseVO(PostPO postPO) {
+        PostVO vo = new PostVO();
+        vo.setId(postPO.getId());
+        vo.setTitle(postPO.getTitle());
+        vo.setContent(postPO.getContent());
+        vo.setCampusId(postPO.getCampusId());
+        vo.setVisibility(postPO.getVisibility() != null ? postPO.getVisibility().name() : null);
+        vo.setPoiName(postPO.getPoiName());
+        vo.setIsTop(postPO.getIsTop());
+        vo.setStatus(postPO.getStatus() != null ? postPO.getStatus().name() : null);
+        vo.setCreatedAt(postPO.getCreatedAt());
+        vo.setUpdatedAt(postPO.getUpdatedAt());
+        return vo;
+    }
+
+    /**
+     * 统计记录转换，缺失时全部为0
+     */
+    private PostStatsVO toStatsVO(PostStatPO statPO) {
+        PostStatsVO stats = new PostStatsVO();
+        stats.setViewCnt(statPO != null && statPO.getViewCnt() != null ? statPO.getViewCnt() : 0);
+        stats.setLikeCnt(statPO != null && statPO.getLikeCnt() != null ? statPO.getLikeCnt() : 0);
+        stats.setFavCnt(statPO != null && statPO.getFavCnt() != null ? statPO.getFavCnt() : 0);
+        stats.setCommentCnt(statPO != null && statPO.getCommentCnt() != null ? statPO.getCommentCnt() : 0);
+        stats.setShareCnt(statPO != null && statPO.getShareCnt() != null ? statPO.getShareCnt() : 0);
+        return stats;
+    }
+
+    private Map<Long, PostStatPO> loadStats(Collection<Long> postIds) {
+        try {
+            return postCounterService.getStats(postIds);
+        } catch (Exception e) {
+            log.error("批量获取动态统计失败: postIds={}, error={}", postIds, e.getMessage());
+            return Collections.emptyMap();
+        }
+    }
+
+    private Map<Long, UserSimpleVO> loadUsers(List<PostPO> posts) {
+        List<Long> userIds = posts.stream().map(PostPO::getUserId)
+                .filter(id -> id != null).distinct().collect(Collectors.toList());
+        if (userIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        try {
+            Map<Long, UserSimpleVO> map = new HashMap<>();
+            for (UserPO u : userMapper.selectBatchIds(userIds)) {
+                map.put(u.getId(), new UserSimpleVO(u.getId(), u.getNickname(), u.getAvatarUrl(), u.getGender(),
+                        u.getCampusId(), u.getIsRealName(), u.getCreatedAt()));
+            }
+            return map;
+        } catch (Exception e) {
+            log.error("批量获取动态作者失败: userIds={}, error={}", userIds, e.getMessage());
+            return Collections.emptyMap();
+        }
+    }
+
+    private Map<Long, List<FileSimpleVO>> loadFiles(Collection<Long> postIds) {
+        try {
+            List<PostFilePO> rels = postFileMapper.selectList(
+                    new QueryWrapper<PostFilePO>().in("post_id", postIds));
+            if (rels.isEmpty()) {
+                return Collections.emptyMap();
+            }
+            List<Long> fileIds = rels.stream().map(PostFilePO::getFileId).distinct().collect(Collectors.toList());
+            Map<Long, FilePO> files = fileMapper.selectBatchIds(fileIds).stream()
+                    .collect(Collectors.toMap(FilePO::getId, Function.identity(), (a, b) -> a));
+
+            Map<Long, List<FileSimpleVO>> result = new LinkedHashMap<>();
+            rels.stream()
+                    .sorted(Comparator.comparing(r -> r.getSort() == null ? 0 : r.getSort()))
+                    .forEach(rel -> {
+                        FilePO file = files.get(rel.getFileId());
+                        if (file != null) {
+                            result.computeIfAbsent(rel.getPostId(), k -> new ArrayList<>()).add(toFileVO(file));
+                        }
+                    });
+            return result;
+        } catch (Exception e) {
+            log.error("批量获取动态文件失败: postIds={}, error={}", postIds, e.getMessage());
+            return Collections.emptyMap();
+        }
+    }
+
+    private Map<Long, List<TopicSimpleVO>> loadTopics(Collection<Long> postIds) {
+        try {
+            List<TopicPostPO> rels = topicPostMapper.selectList(
+                    new QueryWrapper<TopicPostPO>().in("post_id", postIds));
+            if (rels.isEmpty()) {
+                return Collections.emptyMap();
+            }
+            List<Long> topicIds = rels.stream().map(TopicPostPO::getTopicId).distinct().collect(Collectors.toList());
+            Map<Long, TopicPO> topics = topicMapper.selectBatchIds(topicIds).stream()
+                    .collect(Collectors.toMap(TopicPO::getId, Function.identity(), (a, b) -> a));
+
+            Map<Long, List<TopicSimpleVO>> result = new HashMap<>();
+            for (TopicPostPO rel : rels) {
+                TopicPO topic = topics.get(rel.getTopicId());
+                if (topic != null) {
+                    result.computeIfAbsent(rel.getPostId(), k -> new ArrayList<>()).add(toTopicVO(topic));
+                }
+            }
+            return result;
+        } catch (Exception e) {
+            log.error("批量获取动态话题失败: postIds={}, error={}", postIds, e.getMessage());
+            return Collections.emptyMap();
+        }
+    }
+
+    private FileSimpleVO toFileVO(FilePO file) {
+        FileSimpleVO vo = new FileSimpleVO();
+        vo.setId(file.getId());
+        vo.setFileUrl(file.getFileUrl());
+        vo.setThumbnailUrl(file.getThumbUrl());
+        vo.setFeedUrl(file.getFeedUrl());
+        vo.setFullUrl(file.getFullUrl());
+        vo.setWidth(file.getWidth());
+        vo.setHeight(file.getHeight());
+        vo.setFileSize(file.getSize() != null ? file.getSize().longValue() : 0L);
+        vo.setFileType(inferFileType(file.getFileUrl()));
+        return vo;
+    }
+
+    private TopicSimpleVO toTopicVO(TopicPO topic) {
+        TopicSimpleVO vo = new TopicSimpleVO();
+        vo.setId(topic.getId());
+        vo.setName(topic.getName());
+        vo.setDescription(topic.getDescription());
+        vo.setPostCount(topic.getPostCnt());
+        return vo;
+    }
+
+    /**
+     * 根据文件扩展名推断文件类型：IMAGE/VIDEO/AUDIO/DOCUMENT
+     */
+    private String inferFileType(String fileUrl) {
+        if (fileUrl == null) {
+            return "DOCUMENT";
+        }
+        String path = fileUrl;
+        int q = path.indexOf('?');
+        if (q != -1) {
+            path = path.substring(0, q);
+        }
+        int dot = path.lastIndexOf('.');
+        String ext = dot == -1 ? "" : path.substring(dot + 1).toLowerCase();
+        if (IMAGE_EXT.contains(ext)) {
+            return "IMAGE";
+        }
+        if (VIDEO_EXT.contains(ext)) {
+            return "VIDEO";
+        }
+        if (AUDIO_EXT.contains(ext)) {
+            return "AUDIO";
+        }
+        return "DOCUMENT";
+    }
+}
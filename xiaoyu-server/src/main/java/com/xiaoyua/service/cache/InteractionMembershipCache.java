@@ -0,0 +1,389 @@
+package com.xiaoyua.service.cache;
+
+import com.xiaoyua.entity.FavoritePO;
+import com.xiaoyua.entity.LikePO;
+import com.xiaoyua.mapper.FavMapper;
+import com.xiaoyua.mapper.LikeMapper;
+import com.xiaoyua.properties.FeedProperties;
+import com.xiaoyua.utils.BloomFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 点赞/收藏关系缓存
+ * <p>
+ * 回答"用户 U 是否点赞/收藏了内容 I"：
+ * <ol>
+ *     <li>本节点布隆过滤器：记录全部已知关系，判断为不存在时直接返回 false（绝大多数查询）；</li>
+ *     <li>Redis 按内容维护的用户集合 {kind}:members:{itemType}:{itemId}，集合中的哨兵成员 "0" 表示已完整载入；</li>
+ *     <li>集合未载入时从数据库一次查出该内容的全部用户并写入 Redis。</li>
+ * </ol>
+ * 每个集合有一个版本号 {kind}:members:ver:{itemType}:{itemId}，删除关系时加一。载入前记下版本号，
+ * 写入时版本号已变化则放弃写入（下次查询重新载入），避免查询数据库后并发的取消点赞被载入结果覆盖。
+ * 新增关系会通过 Redis 频道广播给其它节点写入各自的布隆过滤器；过滤器只增不删，定期从数据库重建。
+ * 过滤器未就绪或广播订阅失败时跳过过滤器，直接查 Redis，保证不会误判为"未点赞"。
+ * Redis 不可用时由调用方回退到数据库查询。
+ * </p>
+ *
+ * @author xiaoyu
+ */
+@Component
+@Slf4j
+public class InteractionMembershipCache implements MessageListener {
+
+    /**
+     * 关系类型
+     */
+    public enum Kind {
+        LIKE("like"), FAV("fav");
+
+        private final String prefix;
+
+        Kind(String prefix) {
+            this.prefix = prefix;
+        }
+    }
+
+    /**
+     * 新增关系广播频道，消息体为 kind:itemType:itemId:userId
+     */
+    public static final String ADD_CHANNEL = "interaction:member:add";
+
+    private static final String SENTINEL = "0";
+    private static final int SCAN_BATCH = 5000;
+
+    /**
+     * 批量查询脚本：KEYS 为各内容的用户集合，ARGV[1] 为用户ID；
+     * 按顺序返回 1 已存在，0 不存在，-1 集合未完整载入
+     */
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> CHECK_SCRIPT = new DefaultRedisScript<>(
+            "local out = {}\n" +
+            "for i, key in ipairs(KEYS) do\n" +
+            "  if redis.call('SISMEMBER', key, ARGV[1]) == 1 then out[i] = 1\n" +
+            "  elseif redis.call('SISMEMBER', key, '" + SENTINEL + "') == 1 then out[i] = 0\n" +
+            "  else out[i] = -1 end\n" +
+            "end\n" +
+            "return out",
+            List.class);
+
+    /**
+     * 载入脚本：KEYS[1..n] 为用户集合，KEYS[n+1..2n] 为版本号；ARGV[1]=TTL秒，
+     * 之后每个内容依次为 载入前的版本号、成员数 m、m 个成员（含哨兵）。版本号已变化的内容不写入
+     */
+    private static final DefaultRedisScript<Long> LOAD_SCRIPT = new DefaultRedisScript<>(
+            "local n = #KEYS / 2\n" +
+            "local a = 2\n" +
+            "local loaded = 0\n" +
+            "for i = 1, n do\n" +
+            "  local seen = ARGV[a]\n" +
+            "  local m = tonumber(ARGV[a + 1])\n" +
+            "  if (redis.call('GET', KEYS[n + i]) or '0') == seen then\n" +
+            "    for j = a + 2, a + 1 + m do redis.call('SADD', KEYS[i], ARGV[j]) end\n" +
+            "    redis.call('EXPIRE', KEYS[i], ARGV[1])\n" +
+            "    loaded = loaded + 1\n" +
+            "  end\n" +
+            "  a = a + 2 + m\n" +
+            "end\n" +
+            "return loaded",
+            Long.class);
+
+    /**
+     * 删除脚本：移除成员并增加版本号；KEYS[1]=用户集合 KEYS[2]=版本号，ARGV: 用户ID、TTL秒
+     */
+    private static final DefaultRedisScript<Long> REMOVE_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('SREM', KEYS[1], ARGV[1])\n" +
+            "local v = redis.call('INCR', KEYS[2])\n" +
+            "redis.call('EXPIRE', KEYS[2], ARGV[2])\n" +
+            "return v",
+            Long.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Autowired
+    private LikeMapper likeMapper;
+
+    @Autowired
+    private FavMapper favMapper;
+
+    @Autowired
+    private FeedProperties feedProperties;
+
+    private final Map<Kind, Filters> filters = new EnumMap<>(Kind.class);
+
+    private volatile boolean subscribed;
+
+    public InteractionMembershipCache() {
+        for (Kind kind : Kind.values()) {
+            filters.put(kind, new Filters());
+        }
+    }
+
+    /**
+     * 每种关系的布隆过滤器：active 为对外使用的过滤器，building 为重建中的过滤器
+     */
+    private static final class Filters {
+        private volatile BloomFilter active;
+        private volatile BloomFilter building;
+    }
+
+    /**
+     * 用户是否点赞/收藏了内容
+     *
+     * @return true/false；Redis 集合未载入时从数据库载入后回答
+     */
+    public boolean contains(Kind kind, String itemType, Long itemId, Long userId) {
+        return containsAny(kind, itemType, userId, List.of(itemId)).contains(itemId);
+    }
+
+    /**
+     * 批量判断用户点赞/收藏了哪些内容
+     *
+     * @return 已点赞/收藏的内容ID
+     */
+    public Set<Long> containsAny(Kind kind, String itemType, Long userId, Collection<Long> itemIds) {
+        String type = itemType.toUpperCase();
+        List<Long> candidates = new ArrayList<>();
+        BloomFilter bloom = usableFilter(kind);
+        for (Long itemId : itemIds) {
+            if (bloom == null || bloom.mightContain(bloomKey(type, itemId), userId)) {
+                candidates.add(itemId);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        List<String> keys = candidates.stream().map(itemId -> setKey(kind, type, itemId)).toList();
+        List<?> results = stringRedisTemplate.execute(CHECK_SCRIPT, keys, String.valueOf(userId));
+
+        Set<Long> hit = new HashSet<>();
+        List<Long> unloaded = new ArrayList<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            long r = ((Number) results.get(i)).longValue();
+            if (r == 1) {
+                hit.add(candidates.get(i));
+            } else if (r < 0) {
+                unloaded.add(candidates.get(i));
+            }
+        }
+        if (!unloaded.isEmpty()) {
+            Map<Long, Set<Long>> members = load(kind, type, unloaded);
+            for (Long itemId : unloaded) {
+                if (members.getOrDefault(itemId, Collections.emptySet()).contains(userId)) {
+                    hit.add(itemId);
+                }
+            }
+        }
+        return hit;
+    }
+
+    /**
+     * 新增关系后调用：写入 Redis 集合、本节点过滤器并广播给其它节点
+     */
+    public void added(Kind kind, String itemType, Long itemId, Long userId) {
+        String type = itemType.toUpperCase();
+        putFilter(kind, type, itemId, userId);
+        String key = setKey(kind, type, itemId);
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            conn.sAdd(key, String.valueOf(userId));
+            conn.expire(key, ttlSeconds());
+            conn.publish(ADD_CHANNEL, kind.name() + ":" + type + ":" + itemId + ":" + userId);
+            return null;
+        });
+    }
+
+    /**
+     * 删除关系后调用：从 Redis 集合移除（过滤器不支持删除，等待下次重建）
+     */
+    public void removed(Kind kind, String itemType, Long itemId, Long userId) {
+        String type = itemType.toUpperCase();
+        stringRedisTemplate.execute(REMOVE_SCRIPT, List.of(setKey(kind, type, itemId), versionKey(kind, type, itemId)),
+                String.valueOf(userId), String.valueOf(ttlSeconds()));
+    }
+
+    /**
+     * 应用就绪后订阅广播频道并在后台构建过滤器
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        try {
+            listenerContainer.addMessageListener(this, new ChannelTopic(ADD_CHANNEL));
+            subscribed = true;
+        } catch (Exception e) {
+            log.warn("订阅点赞/收藏关系广播失败，布隆过滤器将不启用: {}", e.getMessage());
+            return;
+        }
+        Thread.ofVirtual().name("membership-bloom-init").start(this::rebuildFilters);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(":");
+            putFilter(Kind.valueOf(parts[0]), parts[1], Long.valueOf(parts[2]), Long.valueOf(parts[3]));
+        } catch (Exception e) {
+            log.warn("忽略无效的点赞/收藏关系广播: {}", message);
+        }
+    }
+
+    /**
+     * 从数据库重建全部过滤器（清除已删除关系带来的误判）
+     */
+    public void rebuildFilters() {
+        for (Kind kind : Kind.values()) {
+            try {
+                rebuildFilter(kind);
+            } catch (Exception e) {
+                log.error("重建{}布隆过滤器失败: error={}", kind, e.getMessage());
+            }
+        }
+    }
+
+    private void rebuildFilter(Kind kind) {
+        FeedProperties.Membership config = feedProperties.getMembership();
+        Filters f = filters.get(kind);
+        BloomFilter next = BloomFilter.create(config.getBloomExpectedInsertions(), config.getBloomFpp());
+        // 重建期间新增的关系同时写入新旧过滤器，扫描结束后直接切换
+        f.building = next;
+        long count = 0;
+        try {
+            Long lastUser = 0L;
+            Long lastItem = 0L;
+            String lastType = "";
+            while (true) {
+                List<long[]> page = new ArrayList<>();
+                List<String> types = new ArrayList<>();
+                if (kind == Kind.LIKE) {
+                    for (LikePO row : likeMapper.scanAfter(lastUser, lastItem, lastType, SCAN_BATCH)) {
+                        page.add(new long[]{row.getUserId(), row.getItemId()});
+                        types.add(row.getItemType().name());
+                    }
+                } else {
+                    for (FavoritePO row : favMapper.scanAfter(lastUser, lastItem, lastType, SCAN_BATCH)) {
+                        page.add(new long[]{row.getUserId(), row.getItemId()});
+                        types.add(row.getItemType().name());
+                    }
+                }
+                for (int i = 0; i < page.size(); i++) {
+                    next.put(bloomKey(types.get(i), page.get(i)[1]), page.get(i)[0]);
+                }
+                count += page.size();
+                if (page.size() < SCAN_BATCH) {
+                    break;
+                }
+                long[] last = page.get(page.size() - 1);
+                lastUser = last[0];
+                lastItem = last[1];
+                lastType = types.get(types.size() - 1);
+            }
+            f.active = next;
+            log.info("{}布隆过滤器重建完成: 关系数量={}", kind, count);
+        } finally {
+            f.building = null;
+        }
+    }
+
+    /**
+     * 从数据库载入一批内容的完整用户集合并写入 Redis；载入期间有删除的内容不写入
+     */
+    private Map<Long, Set<Long>> load(Kind kind, String type, List<Long> itemIds) {
+        List<String> versionKeys = itemIds.stream().map(itemId -> versionKey(kind, type, itemId)).toList();
+        List<String> versions = stringRedisTemplate.opsForValue().multiGet(versionKeys);
+        Map<Long, Set<Long>> members = new HashMap<>();
+        if (kind == Kind.LIKE) {
+            for (LikePO row : likeMapper.selectByItems(type, itemIds)) {
+                members.computeIfAbsent(row.getItemId(), k -> new HashSet<>()).add(row.getUserId());
+            }
+        } else {
+            for (FavoritePO row : favMapper.selectByItems(type, itemIds)) {
+                members.computeIfAbsent(row.getItemId(), k -> new HashSet<>()).add(row.getUserId());
+            }
+        }
+        List<String> keys = new ArrayList<>(itemIds.size() * 2);
+        itemIds.forEach(itemId -> keys.add(setKey(kind, type, itemId)));
+        keys.addAll(versionKeys);
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(ttlSeconds()));
+        for (int i = 0; i < itemIds.size(); i++) {
+            String seen = versions == null ? null : versions.get(i);
+            Set<Long> users = members.getOrDefault(itemIds.get(i), Collections.emptySet());
+            args.add(seen == null ? "0" : seen);
+            args.add(String.valueOf(users.size() + 1));
+            args.add(SENTINEL);
+            users.forEach(u -> args.add(String.valueOf(u)));
+        }
+        stringRedisTemplate.execute(LOAD_SCRIPT, keys, args.toArray());
+        return members;
+    }
+
+    private BloomFilter usableFilter(Kind kind) {
+        return subscribed ? filters.get(kind).active : null;
+    }
+
+    private void putFilter(Kind kind, String type, Long itemId, Long userId) {
+        Filters f = filters.get(kind);
+        long key = bloomKey(type, itemId);
+        BloomFilter active = f.active;
+        if (active != null) {
+            active.put(key, userId);
+        }
+        BloomFilter building = f.building;
+        if (building != null) {
+            building.put(key, userId);
+        }
+    }
+
+    private long ttlSeconds() {
+        return TimeUnit.HOURS.toSeconds(feedProperties.getMembership().getSetTtlHours());
+    }
+
+    private static String setKey(Kind kind, String type, Long itemId) {
+        return kind.prefix + ":members:" + type + ":" + itemId;
+    }
+
+    private static String versionKey(Kind kind, String type, Long itemId) {
+        return kind.prefix + ":members:ver:" + type + ":" + itemId;
+    }
+
+    /**
+     * 内容类型编码进低 2 位，与内容ID合成一个 long
+     */
+    private static long bloomKey(String type, Long itemId) {
+        int code = switch (type) {
+            case "POST" -> 0;
+            case "TASK" -> 1;
+            case "COMMENT" -> 2;
+            default -> 3;
+        };
+        return (itemId << 2) | code;
+    }
+}
@@ -0,0 +1,195 @@
+package com.xiaoyua.service.cache;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.xiaoyua.properties.FeedProperties;
+import com.xiaoyua.vo.post.PostVO;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 动态详情两级缓存
+ * <p>
+ * 只缓存与查看者无关的 PostVO（不含 userActions），点赞/收藏状态由调用方按查看者单独填充。
+ * L1 为进程内 Caffeine，按序列化后的字节数加权限制总容量，过期时间较短；
+ * L2 为 Redis 字符串，多节点共享。失效时同时清理两级，并通过 Redis 频道通知其它节点清理 L1。
+ * </p>
+ *
+ * @author xiaoyu
+ */
+@Component
+@Slf4j
+public class PostDetailCache implements MessageListener {
+
+    private static final String KEY_PREFIX = "post:detail:";
+
+    /**
+     * 跨节点 L1 失效通知频道，消息体为动态ID
+     */
+    public static final String INVALIDATE_CHANNEL = "post:detail:invalidate";
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+    private final FeedProperties.DetailCache config;
+    private final Cache<Long, Entry> local;
+
+    private final LongAdder l2Hits = new LongAdder();
+    private final LongAdder l2Misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    @Autowired
+    public PostDetailCache(StringRedisTemplate stringRedisTemplate, RedisMessageListenerContainer listenerContainer,
+                           ObjectMapper objectMapper, FeedProperties feedProperties) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.objectMapper = objectMapper;
+        this.config = feedProperties.getDetailCache();
+        this.local = Caffeine.newBuilder()
+                .maximumWeight(config.getL1MaxWeightBytes())
+                .weigher((Long id, Entry entry) -> entry.getWeight())
+                .expireAfterWrite(Duration.ofSeconds(config.getL1TtlSeconds()))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 缓存条目：作者ID用于权限判断，vo 为与查看者无关的详情
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry {
+        private Long authorId;
+        private PostVO post;
+        /**
+         * 估算的占用字节数（序列化长度），仅用于 L1 加权
+         */
+        @JsonIgnore
+        private int weight;
+    }
+
+    /**
+     * 读取动态详情，L1、L2 均未命中时调用 loader 从数据库组装并回填
+     *
+     * @param postId 动态ID
+     * @param loader 数据库加载逻辑，动态不存在或不可访问时应直接抛出异常
+     * @return 缓存条目（调用方不得修改其中的 PostVO）
+     */
+    public Entry get(Long postId, Supplier<Entry> loader) {
+        Entry cached = local.getIfPresent(postId);
+        if (cached != null) {
+            return cached;
+        }
+        String key = KEY_PREFIX + postId;
+        try {
+            String json = stringRedisTemplate.opsForValue().get(key);
+            if (json != null) {
+                Entry entry = objectMapper.readValue(json, Entry.class);
+                entry.setWeight(json.length());
+                local.put(postId, entry);
+                l2Hits.increment();
+                return entry;
+            }
+        } catch (Exception e) {
+            log.warn("读取动态详情缓存失败: postId={}, error={}", postId, e.getMessage());
+        }
+        l2Misses.increment();
+
+        Entry loaded = loader.get();
+        loads.increment();
+        try {
+            String json = objectMapper.writeValueAsString(loaded);
+            loaded.setWeight(json.length());
+            stringRedisTemplate.opsForValue().set(key, json, Duration.ofSeconds(config.getL2TtlSeconds()));
+        } catch (Exception e) {
+            loaded.setWeight(config.getDefaultWeightBytes());
+            log.warn("写入动态详情缓存失败: postId={}, error={}", postId, e.getMessage());
+        }
+        local.put(postId, loaded);
+        return loaded;
+    }
+
+    /**
+     * 使动态详情缓存失效（内容修改、状态/可见范围变更、统计变化后调用）
+     *
+     * @param postId 动态ID
+     */
+    public void invalidate(Long postId) {
+        if (postId == null) {
+            return;
+        }
+        local.invalidate(postId);
+        invalidations.increment();
+        try {
+            stringRedisTemplate.delete(KEY_PREFIX + postId);
+            stringRedisTemplate.convertAndSend(INVALIDATE_CHANNEL, String.valueOf(postId));
+        } catch (Exception e) {
+            log.warn("清理动态详情缓存失败: postId={}, error={}", postId, e.getMessage());
+        }
+    }
+
+    /**
+     * 应用就绪后订阅失效频道；订阅失败时仅依赖 L1 过期时间兜底
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void subscribe() {
+        try {
+            listenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATE_CHANNEL));
+        } catch (Exception e) {
+            log.warn("订阅动态详情缓存失效频道失败，本地缓存将仅按过期时间刷新: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 收到其它节点的失效通知，只清理本地 L1
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            local.invalidate(Long.valueOf(new String(message.getBody(), StandardCharsets.UTF_8)));
+        } catch (NumberFormatException e) {
+            log.warn("忽略无效的动态缓存失效消息: {}", message);
+        }
+    }
+
+    /**
+     * 缓存命中统计
+     */
+    public Map<String, Object> stats() {
+        CacheStats s = local.stats();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("l1Size", local.estimatedSize());
+        stats.put("l1Hits", s.hitCount());
+        stats.put("l1Misses", s.missCount());
+        stats.put("l1Evictions", s.evictionCount());
+        stats.put("l1EvictionWeight", s.evictionWeight());
+        stats.put("l2Hits", l2Hits.sum());
+        stats.put("l2Misses", l2Misses.sum());
+        stats.put("loads", loads.sum());
+        stats.put("invalidations", invalidations.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,187 @@
+package com.xiaoyua.service.counter;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 动态浏览数写缓冲
+ * <p>
+ * 浏览请求只在内存中累加，由定时任务合并后批量写入 post_stats，避免热门动态的所有读者排队争抢同一行锁。
+ * 计数按动态ID哈希分散到多个分段，每个分段是一张以 long 为键和值的开放寻址表，
+ * 记录浏览时不装箱、不分配对象；每个分段持有两张表，刷写时交换后在锁外读取，读取完毕清空复用。
+ * </p>
+ *
+ * @author xiaoyu
+ */
+@Component
+public class ViewCountBuffer {
+
+    /**
+     * 分段数，必须为 2 的幂
+     */
+    private static final int STRIPES = 16;
+
+    /**
+     * 每个分段表的初始容量，必须为 2 的幂
+     */
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    public ViewCountBuffer() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * 刷写时接收每个动态累计的增量
+     */
+    @FunctionalInterface
+    public interface Sink {
+        void accept(long postId, long delta);
+    }
+
+    /**
+     * 记录一次浏览
+     *
+     * @param postId 动态ID
+     */
+    public void record(long postId) {
+        add(postId, 1);
+    }
+
+    /**
+     * 累加浏览增量（刷写失败时也用于把增量放回缓冲）
+     *
+     * @param postId 动态ID
+     * @param delta  增量，非正数忽略
+     */
+    public void add(long postId, long delta) {
+        if (delta <= 0) {
+            return;
+        }
+        long h = mix(postId);
+        Stripe stripe = stripes[(int) (h >>> 60) & (STRIPES - 1)];
+        stripe.lock.lock();
+        try {
+            stripe.active.add(postId, h, delta);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * 取出所有累计增量并清零（同一时刻只允许一个线程刷写）
+     *
+     * @param sink 增量接收方
+     * @return 取出的动态数量
+     */
+    public synchronized int drain(Sink sink) {
+        int drained = 0;
+        for (Stripe stripe : stripes) {
+            Table full;
+            stripe.lock.lock();
+            try {
+                if (stripe.active.size == 0) {
+                    continue;
+                }
+                full = stripe.active;
+                stripe.active = stripe.spare;
+                stripe.spare = null;
+            } finally {
+                stripe.lock.unlock();
+            }
+            // 交换后该表只被当前线程持有，可在锁外读取
+            drained += full.drainTo(sink);
+            stripe.lock.lock();
+            try {
+                stripe.spare = full;
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return drained;
+    }
+
+    /**
+     * 当前缓冲中的动态数量（近似值）
+     */
+    public int pendingSize() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.active.size;
+        }
+        return size;
+    }
+
+    private static long mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private Table active = new Table(INITIAL_CAPACITY);
+        private Table spare = new Table(INITIAL_CAPACITY);
+    }
+
+    /**
+     * 线性探测的 long → long 哈希表，值为 0 的槽位视为空（增量总为正）
+     */
+    private static final class Table {
+        private long[] keys;
+        private long[] values;
+        private int size;
+
+        private Table(int capacity) {
+            keys = new long[capacity];
+            values = new long[capacity];
+        }
+
+        private void add(long key, long hash, long delta) {
+            int mask = keys.length - 1;
+            int i = (int) hash & mask;
+            while (values[i] != 0) {
+                if (keys[i] == key) {
+                    values[i] += delta;
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = delta;
+            // 负载超过一半时扩容，扩容后的表会随交换复用，稳定后不再分配
+            if (++size > keys.length >>> 1) {
+                resize();
+            }
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            long[] oldValues = values;
+            keys = new long[oldKeys.length << 1];
+            values = new long[oldValues.length << 1];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] != 0) {
+                    add(oldKeys[i], mix(oldKeys[i]), oldValues[i]);
+                }
+            }
+        }
+
+        private int drainTo(Sink sink) {
+            int drained = 0;
+            for (int i = 0; i < keys.length; i++) {
+                if (values[i] != 0) {
+                    sink.accept(keys[i], values[i]);
+                    values[i] = 0;
+                    drained++;
+                }
+            }
+            size = 0;
+            return drained;
+        }
+    }
+}
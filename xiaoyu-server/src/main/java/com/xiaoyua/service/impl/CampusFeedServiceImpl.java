@@ -0,0 +1,195 @@
+package com.xiaoyua.service.impl;
+
+import com.xiaoyua.entity.PostPO;
+import com.xiaoyua.mapper.PostMapper;
+import com.xiaoyua.properties.FeedProperties;
+import com.xiaoyua.service.CampusFeedService;
+import com.xiaoyua.utils.CursorUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * 校区动态流服务实现
+ * <p>
+ * Redis 结构：campus:feed:{campusId} 校区最近动态 ZSET，member 为动态ID，score 为发布时间毫秒，
+ * 保留最新的 ring-capacity 条。与时间线收件箱相同，放一个 score 为 0 的占位成员区分"空"与"未构建"；
+ * 未构建时按 (campus_id, status, visibility, created_at) 索引从数据库载入。
+ * 新动态只写入已构建的环（EXISTS 与 ZADD 在同一脚本中执行）；构建期间提交的动态可能在载入查询之后、
+ * 环写入之前登记而被跳过，因此载入后再补一次自载入开始前 SEED_OVERLAP_SECONDS 秒起发布的动态。
+ * 环中成员数小于容量说明该校区的动态全部在环中，否则环只覆盖最新的一段。
+ * </p>
+ *
+ * @author xiaoyu
+ */
+@Service
+@Slf4j
+public class CampusFeedServiceImpl implements CampusFeedService {
+
+    private static final String RING_KEY = "campus:feed:";
+    private static final String PLACEHOLDER = "0";
+
+    /**
+     * 补齐构建期间发布的动态时向前多查的秒数，覆盖发布时间早于提交时间的事务
+     */
+    private static final long SEED_OVERLAP_SECONDS = 60;
+
+    /**
+     * 环存在时写入动态并截断到容量，环不存在时不写入
+     * KEYS[1]=环；ARGV: 分数、动态ID、容量
+     */
+    private static final DefaultRedisScript<Long> REGISTER_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end\n" +
+            "redis.call('ZADD', KEYS[1], ARGV[1], ARGV[2])\n" +
+            "redis.call('ZREMRANGEBYRANK', KEYS[1], 1, -(tonumber(ARGV[3]) + 1))\n" +
+            "return 1",
+            Long.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private PostMapper postMapper;
+
+    @Autowired
+    private FeedProperties feedProperties;
+
+    @Override
+    public void register(PostPO post) {
+        if (post == null || post.getId() == null || post.getCampusId() == null
+                || post.getStatus() != PostPO.Status.PUBLISHED
+                || post.getVisibility() == PostPO.Visibility.FRIEND) {
+            return;
+        }
+        // 未构建的环不写入，首次读取时会从数据库完整载入；排名 0 为占位成员，保留占位成员和最新的 capacity 条
+        stringRedisTemplate.execute(REGISTER_SCRIPT, List.of(RING_KEY + post.getCampusId()),
+                String.valueOf(toScore(post.getCreatedAt())), String.valueOf(post.getId()),
+                String.valueOf(feedProperties.getCampus().getRingCapacity()));
+    }
+
+    @Override
+    public void remove(Long postId, Long campusId) {
+        if (postId == null || campusId == null) {
+            return;
+        }
+        stringRedisTemplate.opsForZSet().remove(RING_KEY + campusId, String.valueOf(postId));
+    }
+
+    @Override
+    public List<CursorUtil.Cursor> range(Long campusId, CursorUtil.Cursor after, int limit) {
+        if (campusId == null || limit <= 0) {
+            return new ArrayList<>();
+        }
+        String key = RING_KEY + campusId;
+        long ringSize = ensureRing(campusId, key);
+
+        // 发布时间精确到秒，同一秒的动态分数相同，在 ZSET 中按成员字典序而不是ID排列，
+        // 因此游标所在的一秒和本页最后一秒都要整组取出，在内存中按 (时间, ID) 倒序排序后再截取
+        ZSetOperations<String, String> zSet = stringRedisTemplate.opsForZSet();
+        Map<String, Double> candidates = new HashMap<>();
+        double max = Double.POSITIVE_INFINITY;
+        if (after != null) {
+            double cursorScore = toScore(after.getCreatedAt());
+            addAll(candidates, zSet.rangeByScoreWithScores(key, cursorScore, cursorScore),
+                    member -> Long.parseLong(member) < after.getId());
+            max = Math.nextDown(cursorScore);
+        }
+        Set<ZSetOperations.TypedTuple<String>> tuples = zSet.reverseRangeByScoreWithScores(key, 1, max, 0, limit);
+        addAll(candidates, tuples, member -> true);
+        if (tuples != null && tuples.size() >= limit) {
+            double lowest = Collections.min(tuples.stream().map(ZSetOperations.TypedTuple::getScore).toList());
+            addAll(candidates, zSet.rangeByScoreWithScores(key, lowest, lowest), member -> true);
+        }
+        List<CursorUtil.Cursor> positions = candidates.entrySet().stream()
+                .map(e -> new CursorUtil.Cursor(toTime(e.getValue()), Long.valueOf(e.getKey())))
+                .sorted(Comparator.comparing(CursorUtil.Cursor::getCreatedAt)
+                        .thenComparing(CursorUtil.Cursor::getId).reversed())
+                .limit(limit)
+                .collect(Collectors.toCollection(ArrayList::new));
+        // 环已截断说明更早的动态不在环中，交给数据库
+        if (positions.size() < limit && ringSize >= feedProperties.getCampus().getRingCapacity()) {
+            return null;
+        }
+        return positions;
+    }
+
+    private static void addAll(Map<String, Double> candidates, Set<ZSetOperations.TypedTuple<String>> tuples,
+                               Predicate<String> accept) {
+        if (tuples == null) {
+            return;
+        }
+        for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+            if (tuple.getValue() != null && tuple.getScore() != null && !PLACEHOLDER.equals(tuple.getValue())
+                    && accept.test(tuple.getValue())) {
+                candidates.put(tuple.getValue(), tuple.getScore());
+            }
+        }
+    }
+
+    /**
+     * 环不存在（首次访问或闲置过期）时从数据库载入，存在则续期
+     *
+     * @return 环中动态数量（不含占位成员）
+     */
+    private long ensureRing(Long campusId, String key) {
+        FeedProperties.Campus config = feedProperties.getCampus();
+        if (Boolean.TRUE.equals(stringRedisTemplate.hasKey(key))) {
+            stringRedisTemplate.expire(key, config.getRingTtlDays(), TimeUnit.DAYS);
+            Long size = stringRedisTemplate.opsForZSet().zCard(key);
+            return size == null || size <= 0 ? 0 : size - 1;
+        }
+        LocalDateTime seedStart = LocalDateTime.now().minusSeconds(SEED_OVERLAP_SECONDS);
+        List<PostPO> seed = postMapper.selectCampusRecent(campusId, config.getRingCapacity());
+        Set<ZSetOperations.TypedTuple<String>> tuples = new HashSet<>();
+        tuples.add(new DefaultTypedTuple<>(PLACEHOLDER, 0D));
+        addPosts(tuples, seed);
+        stringRedisTemplate.opsForZSet().add(key, tuples);
+        stringRedisTemplate.expire(key, config.getRingTtlDays(), TimeUnit.DAYS);
+
+        // 环写入后再发布的动态由 register 写入；载入查询与环写入之间登记的动态在这里补齐
+        List<PostPO> recent = postMapper.selectCampusSince(campusId, seedStart, config.getRingCapacity());
+        if (!recent.isEmpty()) {
+            Set<ZSetOperations.TypedTuple<String>> missed = new HashSet<>();
+            addPosts(missed, recent);
+            stringRedisTemplate.opsForZSet().add(key, missed);
+            stringRedisTemplate.opsForZSet().removeRange(key, 1, -(config.getRingCapacity() + 1L));
+        }
+        Long size = stringRedisTemplate.opsForZSet().zCard(key);
+        log.info("构建校区最近动态环: campusId={}, size={}", campusId, seed.size());
+        return size == null || size <= 0 ? 0 : size - 1;
+    }
+
+    private void addPosts(Set<ZSetOperations.TypedTuple<String>> tuples, List<PostPO> posts) {
+        for (PostPO post : posts) {
+            tuples.add(new DefaultTypedTuple<>(String.valueOf(post.getId()), toScore(post.getCreatedAt())));
+        }
+    }
+
+    private double toScore(LocalDateTime time) {
+        LocalDateTime t = time != null ? time : LocalDateTime.now();
+        return t.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private LocalDateTime toTime(double score) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli((long) score), ZoneId.systemDefault());
+    }
+}
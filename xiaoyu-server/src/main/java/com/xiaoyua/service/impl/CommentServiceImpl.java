@@ -1,29 +1,28 @@
 package com.xiaoyua.service.impl;
 
-import cn.hutool.core.bean.BeanUtil;
 import cn.hutool.core.collection.CollUtil;
-import cn.hutool.core.util.StrUtil;
-import cn.hutool.json.JSONUtil;
-import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.xiaoyua.common.enums.PostStatField;
 import com.xiaoyua.context.BaseContext;
 import com.xiaoyua.dto.comment.CommentCreateDTO;
 import com.xiaoyua.entity.CommentPO;
-import com.xiaoyua.entity.LikePO;
 import com.xiaoyua.entity.NotificationPO;
 import com.xiaoyua.entity.PostPO;
 import com.xiaoyua.entity.UserPO;
 import com.xiaoyua.mapper.CommentMapper;
-import com.xiaoyua.mapper.LikeMapper;
 import com.xiaoyua.mapper.PostMapper;
-import com.xiaoyua.mapper.PostStatMapper;
 import com.xiaoyua.mapper.UserMapper;
+import com.xiaoyua.properties.FeedProperties;
 import com.xiaoyua.service.CommentService;
+import com.xiaoyua.service.CommentStatService;
+import com.xiaoyua.service.PostCounterService;
 import com.xiaoyua.service.PushService;
+import com.xiaoyua.service.assembler.CommentVOAssembler;
+import com.xiaoyua.utils.CursorUtil;
 import com.xiaoyua.vo.comment.CommentVO;
-import com.xiaoyua.vo.user.UserSimpleVO;
+import com.xiaoyua.vo.common.PageResult;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -40,13 +39,20 @@ public class CommentServiceImpl implements CommentService {
     @Autowired
     UserMapper userMapper;
     @Autowired
-    LikeMapper likeMapper;
+    private CommentVOAssembler commentVOAssembler;
     @Autowired
     private PostMapper postMapper;
     @Autowired
     private PushService pushService;
+
+    @Autowired
+    private PostCounterService postCounterService;
+
+    @Autowired
+    private CommentStatService commentStatService;
+
     @Autowired
-    private PostStatMapper postStatMapper;
+    private FeedProperties feedProperties;
 
     @Override
     public void addComment(CommentCreateDTO comment) {
@@ -66,7 +72,15 @@ public class CommentServiceImpl implements CommentService {
         commentPO.setCreatedAt(LocalDateTime.now());
         commentMapper.insert(commentPO);
         // 更新统计：评论+1（仅对动态）
-        try { if (commentPO.getItemType() == CommentPO.ItemType.POST) postStatMapper.incComment(commentPO.getItemId()); } catch (Exception ignored) {}
+        if (commentPO.getItemType() == CommentPO.ItemType.POST) {
+            postCounterService.increment(commentPO.getItemId(), PostStatField.COMMENT, 1);
+        }
+        // 更新评论统计：回复数+1，或登记新的根评论到热度索引
+        if (commentPO.getParentId() != null && commentPO.getParentId() > 0) {
+            commentStatService.onReply(commentPO.getParentId(), 1);
+        } else {
+            commentStatService.onRootCreated(commentPO);
+        }
 
         // 创建评论通知
         createCommentNotification(commentPO);
@@ -80,7 +94,14 @@ public class CommentServiceImpl implements CommentService {
         }
         commentMapper.deleteById(commentId);
         // 更新统计：评论-1（仅对动态）
-        try { if (existed.getItemType() == CommentPO.ItemType.POST) postStatMapper.decComment(existed.getItemId()); } catch (Exception ignored) {}
+        if (existed.getItemType() == CommentPO.ItemType.POST) {
+            postCounterService.increment(existed.getItemId(), PostStatField.COMMENT, -1);
+        }
+        if (existed.getParentId() != null && existed.getParentId() > 0) {
+            commentStatService.onReply(existed.getParentId(), -1);
+        } else {
+            commentStatService.onRootDeleted(existed);
+        }
 
     }
 
@@ -89,6 +110,13 @@ public class CommentServiceImpl implements CommentService {
      */
     @Override
     public IPage<CommentVO> getComments(Long postId, int page, int size, String sort) {
+        // 热门排序按热度索引分页，索引不可用时回退到按时间排序
+        if ("hot".equals(sort)) {
+            IPage<CommentVO> hotPage = getHotComments(postId, page, size);
+            if (hotPage != null) {
+                return hotPage;
+            }
+        }
         //先查一级评论parent_id = 0
         IPage<CommentPO> poPage = commentMapper.selectPage(
                 new Page<>(page, size),
@@ -96,153 +124,127 @@ public class CommentServiceImpl implements CommentService {
                         .eq("item_id", postId)
                         .eq("item_type", "POST")
                         .eq("parent_id", 0)          // 只查根评论
-                        .orderBy(sort == null || sort.equals("latest"), false, "created_at")
-                        .orderBy("hot".equals(sort), false, "like_cnt", "created_at")
+                        .orderByDesc("created_at")
         );
 
-        //取出本页所有一级评论 id
-        List<Long> rootIds = poPage.getRecords()
-                .stream()
-                .map(CommentPO::getId)
-                .collect(Collectors.toList());
-
-        //一次性查二级评论
-        List<CommentPO> subList = CollUtil.isEmpty(rootIds) ? Collections.emptyList()
-                : commentMapper.selectList(
-                new QueryWrapper<CommentPO>()
-                        .in("parent_id", rootIds)
-                        .orderByAsc("created_at"));
-
-        //把二级按 parent_id 分组
-        Map<Long, List<CommentPO>> subMap = subList.stream()
-                .collect(Collectors.groupingBy(CommentPO::getParentId));
-
-        /*拼Vo（一级 二级 user @用户 点赞信息*/
-        List<CommentVO> voList = poPage.getRecords().stream().map(root -> {
-            CommentVO vo = new CommentVO();
-            BeanUtil.copyProperties(root, vo);          // 同名字段快速拷贝（ Hutool 工具，Spring 的 BeanUtils 也行）
-
-            // 发评论的用户信息
-            vo.setUser(buildUserVo(root.getUserId()));
-
-            /*@用户 JSON 数组  -> List<UserVo>*/
-            vo.setAtUsers(parseAtUsers(root.getAtUsers()));
-
-            // 5.3 当前用户是否点赞（应使用当前登录用户 + 评论自身ID）
-            Long currUserId = null;
-            try {
-                currUserId = BaseContext.getCurrentId();
-            } catch (Exception ignored) {}
-            boolean isLiked = false;
-            if (currUserId != null) {
-                isLiked = likeMapper.selectCount(
-                        new LambdaQueryWrapper<LikePO>()
-                                .eq(LikePO::getUserId, currUserId)
-                                .eq(LikePO::getItemId, root.getId())
-                                .eq(LikePO::getItemType, "COMMENT")
-                ) > 0;
-            }
-
-            vo.setIsLiked(isLiked);
-
-            // 5.4 二级回复
-            List<CommentVO> replies = Optional.ofNullable(subMap.get(root.getId()))
-                    .orElse(Collections.emptyList())
-                    .stream()
-                    .map(sub -> buildSubCommentVo(sub))
-                    .collect(Collectors.toList());
-            vo.setReplies(replies);
-            vo.setReplyCount(subMap.getOrDefault(root.getId(), Collections.emptyList()).size());
-
-            return vo;
-        }).collect(Collectors.toList());
-
         //6. 把 List 重新包成 IPage 返
         IPage<CommentVO> voPage = new Page<>(page, size);
-        voPage.setRecords(voList);
+        voPage.setRecords(buildRootCommentVos(poPage.getRecords()));
         voPage.setTotal(poPage.getTotal());
         return voPage;
     }
 
-    /*工具方*/
+    /**
+     * 按热度索引读取一页根评论
+     *
+     * @return 索引不可用时返回 null
+     */
+    private IPage<CommentVO> getHotComments(Long postId, int page, int size) {
+        CommentStatService.HotPage hot = commentStatService.hotRootIds(postId, (long) (page - 1) * size, size);
+        if (hot == null) {
+            return null;
+        }
+        List<CommentPO> roots = new ArrayList<>();
+        if (!hot.ids().isEmpty()) {
+            Map<Long, CommentPO> byId = commentMapper.selectBatchIds(hot.ids()).stream()
+                    .collect(Collectors.toMap(CommentPO::getId, c -> c, (a, b) -> a));
+            for (Long id : hot.ids()) {
+                CommentPO root = byId.get(id);
+                if (root != null) {
+                    roots.add(root);
+                }
+            }
+        }
+        IPage<CommentVO> voPage = new Page<>(page, size);
+        voPage.setRecords(buildRootCommentVos(roots));
+        voPage.setTotal(hot.total());
+        return voPage;
+    }
 
-    private UserSimpleVO buildUserVo(Long userId) {
-        UserPO user = userMapper.selectById(userId);
-        return user == null ? null : new UserSimpleVO(
-                user.getId(),user.getNickname(),user.getAvatarUrl(),user.getGender(),user.getCampusId(),
-                user.getIsRealName(),user.getCreatedAt()
-        );
+    /**
+     * 游标模式查询根评论（按发布时间倒序，不统计总数）
+     */
+    @Override
+    public PageResult<CommentVO> getCommentsByCursor(Long postId, String cursor, int size) {
+        QueryWrapper<CommentPO> wrapper = new QueryWrapper<CommentPO>()
+                .eq("item_id", postId)
+                .eq("item_type", "POST")
+                .eq("parent_id", 0);
+        int limit = CursorUtil.pageSize(size);
+        CursorUtil.applyKeyset(wrapper, cursor, limit);
+        List<CommentPO> roots = commentMapper.selectList(wrapper);
+        String nextCursor = CursorUtil.nextCursor(roots, limit, CommentPO::getCreatedAt, CommentPO::getId);
+        return PageResult.ofCursor(buildRootCommentVos(roots), limit, nextCursor);
     }
 
-    private List<UserSimpleVO> parseAtUsers(String json) {
-        if (StrUtil.isBlank(json)) return Collections.emptyList();
-        try {
-            // 兼容两种格式：
-            // 1) JSON 数组（[1,2,3] 或 [{...UserSimpleVO}...]）
-            if (StrUtil.startWith(json.trim(), "[")) {
-                try {
-                    // 优先解析为 Long 列表（ID 列表）
-                    List<Long> ids = JSONUtil.toList(JSONUtil.parseArray(json), Long.class);
-                    return buildUsersByIds(ids);
-                } catch (Exception ignore) {
-                    // 如果不是 ID 列表，则尝试直接解析为 UserSimpleVO 列表
-                    return JSONUtil.toList(JSONUtil.parseArray(json), UserSimpleVO.class);
+    /**
+     * 游标模式按热度查询根评论，游标为上一页最后一条的 (热度分, 评论ID)
+     */
+    @Override
+    public PageResult<CommentVO> getHotCommentsByCursor(Long postId, String cursor, int size) {
+        int limit = CursorUtil.pageSize(size);
+        CommentStatService.HotCursorPage hot = commentStatService.hotRootIdsAfter(postId, cursor, limit);
+        if (hot == null) {
+            // 热门游标无法换算为时间位置，回退时从第一页开始
+            return getCommentsByCursor(postId, commentStatService.isHotCursor(cursor) ? "" : cursor, limit);
+        }
+        List<CommentPO> roots = new ArrayList<>();
+        if (!hot.ids().isEmpty()) {
+            Map<Long, CommentPO> byId = commentMapper.selectBatchIds(hot.ids()).stream()
+                    .collect(Collectors.toMap(CommentPO::getId, c -> c, (a, b) -> a));
+            for (Long id : hot.ids()) {
+                CommentPO root = byId.get(id);
+                if (root != null) {
+                    roots.add(root);
                 }
             }
-            // 2) 逗号分隔的 ID 字符串："1,2,3"
-            List<Long> ids = Arrays.stream(json.split(","))
-                    .map(String::trim)
-                    .filter(StrUtil::isNotBlank)
-                    .map(Long::valueOf)
-                    .collect(Collectors.toList());
-            return buildUsersByIds(ids);
-        } catch (Exception e) {
-            log.warn("解析@用户列表失败，原始值: {}，错误: {}", json, e.getMessage());
-            return Collections.emptyList();
         }
+        return PageResult.ofCursor(buildRootCommentVos(roots), limit, hot.nextCursor());
     }
 
-    private CommentVO buildSubCommentVo(CommentPO sub) {
-        CommentVO vo = new CommentVO();
-        BeanUtil.copyProperties(sub, vo);
-        vo.setUser(buildUserVo(sub.getUserId()));
-        vo.setAtUsers(parseAtUsers(sub.getAtUsers()));
-
-
-        Long currUserId = null;
-        try {
-            currUserId = BaseContext.getCurrentId();
-        } catch (Exception ignored) {}
-        boolean isLiked = false;
-        if (currUserId != null) {
-            isLiked = likeMapper.selectCount(
-                    new LambdaQueryWrapper<LikePO>()
-                            .eq(LikePO::getUserId, currUserId)
-                            .eq(LikePO::getItemId, sub.getId())
-                            .eq(LikePO::getItemType, "COMMENT")
-            ) > 0;
+    /**
+     * 游标模式查询一条根评论的二级回复（按发布时间倒序，首页与评论列表中的回复预览一致）
+     */
+    @Override
+    public PageResult<CommentVO> getReplies(Long commentId, String cursor, int size) {
+        CommentPO root = commentMapper.selectById(commentId);
+        if (root == null) {
+            throw new RuntimeException("评论不存在");
         }
-        vo.setIsLiked(isLiked);
-
-        return vo;
+        if (root.getParentId() != null && root.getParentId() > 0) {
+            throw new IllegalArgumentException("只能查询根评论的回复");
+        }
+        int limit = Math.min(CursorUtil.pageSize(size), feedProperties.getCommentThread().getMaxReplyPageSize());
+        QueryWrapper<CommentPO> wrapper = new QueryWrapper<CommentPO>()
+                .eq("parent_id", commentId);
+        CursorUtil.applyKeyset(wrapper, cursor, limit);
+        List<CommentPO> replies = commentMapper.selectList(wrapper);
+        String nextCursor = CursorUtil.nextCursor(replies, limit, CommentPO::getCreatedAt, CommentPO::getId);
+        return PageResult.ofCursor(commentVOAssembler.assembleReplies(replies), limit, nextCursor);
     }
 
     /**
-     * 根据用户ID集合构建 UserSimpleVO 列表
+     * 拼装一页根评论（每条根评论附最新几条回复预览）
      */
-    private List<UserSimpleVO> buildUsersByIds(List<Long> ids) {
-        if (CollUtil.isEmpty(ids)) return Collections.emptyList();
-        try {
-            List<UserPO> users = userMapper.selectBatchIds(ids);
-            if (CollUtil.isEmpty(users)) return Collections.emptyList();
-            return users.stream().map(u -> new UserSimpleVO(
-                    u.getId(), u.getNickname(), u.getAvatarUrl(), u.getGender(), u.getCampusId(),
-                    u.getIsRealName(), u.getCreatedAt()
-            )).collect(Collectors.toList());
-        } catch (Exception e) {
-            log.warn("批量查询@用户信息失败, ids={}, error={}", ids, e.getMessage());
-            return Collections.emptyList();
-        }
+    private List<CommentVO> buildRootCommentVos(List<CommentPO> roots) {
+        //取出本页所有一级评论 id
+        List<Long> rootIds = roots
+                .stream()
+                .map(CommentPO::getId)
+                .collect(Collectors.toList());
+
+        //每条根评论只取最新几条回复，查询量与楼层深度无关
+        int previewSize = feedProperties.getCommentThread().getReplyPreviewSize();
+        List<CommentPO> subList = CollUtil.isEmpty(rootIds) || previewSize <= 0 ? Collections.emptyList()
+                : commentMapper.selectLatestReplies(rootIds, previewSize);
+
+        //把二级按 parent_id 分组，组内最新在前（UNION ALL 不保证整体顺序）
+        Map<Long, List<CommentPO>> subMap = subList.stream()
+                .sorted(Comparator.comparing(CommentPO::getCreatedAt).thenComparing(CommentPO::getId).reversed())
+                .collect(Collectors.groupingBy(CommentPO::getParentId));
+
+        //用户、@用户、点赞状态按页批量查询
+        return commentVOAssembler.assembleRoots(roots, subMap);
     }
 
     /**
@@ -0,0 +1,339 @@
+package com.xiaoyua.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.xiaoyua.entity.CommentPO;
+import com.xiaoyua.entity.CommentStatPO;
+import com.xiaoyua.mapper.CommentMapper;
+import com.xiaoyua.mapper.CommentStatMapper;
+import com.xiaoyua.properties.FeedProperties;
+import com.xiaoyua.service.CommentStatService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * 评论统计与热门排序服务实现
+ * <p>
+ * Redis 结构：comment:hot:{postId} 根评论热度 ZSET，member 为评论ID，score 为
+ * log10(max(点赞*权重 + 回复*权重, 1)) + 评论时间秒 / decaySeconds，与动态热榜同一公式，
+ * 分数只在互动时更新，不需要定时衰减。与校区动态环相同，放一个 score 为 0 的占位成员区分"空"与"未构建"；
+ * 未构建时按 (item_id, item_type, parent_id, created_at) 索引载入最近的 seed-limit 条根评论。
+ * 互动更新与新评论写入用同一个脚本：索引存在才 ZADD，并按 seed-limit 截掉热度最低的成员（保留占位成员）。
+ * </p>
+ * <p>
+ * 游标分页按 (score, 评论ID) 倒序：游标为上一页最后一条的分数与ID，分数变化不会像偏移量分页那样让后续页错位。
+ * 同分成员在 Redis 中按字典序排列，读取时补齐边界分数的全部成员后在本地按数值ID排序。
+ * </p>
+ *
+ * @author xiaoyu
+ */
+@Service
+@Slf4j
+public class CommentStatServiceImpl implements CommentStatService {
+
+    private static final String HOT_KEY = "comment:hot:";
+    private static final String PLACEHOLDER = "0";
+    private static final String HOT_CURSOR_PREFIX = "hot.";
+
+    /**
+     * 索引存在时写入分数并截断到 ARGV[3] 个成员，rank 0 为占位成员不参与截断
+     */
+    private static final DefaultRedisScript<Long> UPDATE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end\n" +
+            "redis.call('ZADD', KEYS[1], ARGV[1], ARGV[2])\n" +
+            "redis.call('ZREMRANGEBYRANK', KEYS[1], 1, -(tonumber(ARGV[3]) + 1))\n" +
+            "return 1",
+            Long.class);
+
+    @Autowired
+    private CommentStatMapper commentStatMapper;
+
+    @Autowired
+    private CommentMapper commentMapper;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private FeedProperties feedProperties;
+
+    @Override
+    public void onLike(Long commentId, int delta) {
+        update(commentId, delta, 0);
+    }
+
+    @Override
+    public void onReply(Long parentId, int delta) {
+        update(parentId, 0, delta);
+    }
+
+    private void update(Long commentId, int likeDelta, int replyDelta) {
+        if (commentId == null || commentId <= 0) {
+            return;
+        }
+        try {
+            commentStatMapper.increment(commentId, likeDelta, replyDelta);
+        } catch (Exception e) {
+            log.error("更新评论统计失败: commentId={}, error={}", commentId, e.getMessage(), e);
+            return;
+        }
+        try {
+            CommentPO comment = commentMapper.selectById(commentId);
+            if (isPostRoot(comment)) {
+                // 未构建的索引不写入，首次读取时会从数据库完整载入
+                addToIndex(comment.getItemId(), commentId,
+                        score(commentStatMapper.selectById(commentId), comment.getCreatedAt()));
+            }
+        } catch (Exception e) {
+            log.error("更新评论热度失败: commentId={}, error={}", commentId, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onRootCreated(CommentPO root) {
+        if (!isPostRoot(root)) {
+            return;
+        }
+        try {
+            addToIndex(root.getItemId(), root.getId(), score(null, root.getCreatedAt()));
+        } catch (Exception e) {
+            log.error("登记评论热度失败: commentId={}, error={}", root.getId(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void onRootDeleted(CommentPO root) {
+        if (!isPostRoot(root)) {
+            return;
+        }
+        try {
+            stringRedisTemplate.opsForZSet().remove(HOT_KEY + root.getItemId(), String.valueOf(root.getId()));
+        } catch (Exception e) {
+            log.error("移除评论热度失败: commentId={}, error={}", root.getId(), e.getMessage());
+        }
+    }
+
+    @Override
+    public Map<Long, CommentStatPO> getStats(Collection<Long> commentIds) {
+        if (commentIds == null || commentIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        try {
+            return commentStatMapper.selectBatchIds(commentIds).stream()
+                    .collect(Collectors.toMap(CommentStatPO::getCommentId, Function.identity(), (a, b) -> a));
+        } catch (Exception e) {
+            log.error("批量获取评论统计失败: commentIds={}, error={}", commentIds, e.getMessage());
+            return Collections.emptyMap();
+        }
+    }
+
+    @Override
+    public HotPage hotRootIds(Long postId, long offset, int limit) {
+        if (postId == null || limit <= 0) {
+            return new HotPage(new ArrayList<>(), 0);
+        }
+        try {
+            String key = HOT_KEY + postId;
+            long size = ensureIndex(postId, key);
+            if (offset >= size) {
+                // 索引截断时更早的评论不在索引中，交给数据库
+                return size >= feedProperties.getCommentHot().getSeedLimit() ? null : new HotPage(new ArrayList<>(), size);
+            }
+            Set<String> members = stringRedisTemplate.opsForZSet().reverseRange(key, offset, offset + limit - 1);
+            List<Long> ids = new ArrayList<>();
+            if (members != null) {
+                for (String member : members) {
+                    if (!PLACEHOLDER.equals(member)) {
+                        ids.add(Long.valueOf(member));
+                    }
+                }
+            }
+            return new HotPage(ids, size);
+        } catch (Exception e) {
+            log.error("读取评论热度索引失败，回退到数据库: postId={}, error={}", postId, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public HotCursorPage hotRootIdsAfter(Long postId, String cursor, int limit) {
+        if (postId == null || limit <= 0) {
+            return new HotCursorPage(new ArrayList<>(), null);
+        }
+        if (cursor != null && !cursor.isEmpty() && !isHotCursor(cursor)) {
+            // 回退到按时间分页后得到的游标，继续按时间分页
+            return null;
+        }
+        HotEntry after = decodeHotCursor(cursor);
+        try {
+            String key = HOT_KEY + postId;
+            ensureIndex(postId, key);
+            ZSetOperations<String, String> zset = stringRedisTemplate.opsForZSet();
+            Map<Long, HotEntry> candidates = new HashMap<>();
+            double max = Double.POSITIVE_INFINITY;
+            if (after != null) {
+                // 与游标同分的成员按ID继续，其余只读更低的分数
+                addAll(candidates, zset.rangeByScoreWithScores(key, after.score(), after.score()),
+                        e -> e.id() < after.id());
+                max = Math.nextDown(after.score());
+            }
+            Set<ZSetOperations.TypedTuple<String>> below =
+                    zset.reverseRangeByScoreWithScores(key, Double.NEGATIVE_INFINITY, max, 0, limit + 1);
+            addAll(candidates, below, e -> true);
+            if (below != null && below.size() > limit) {
+                // 页尾同分的成员可能只取到字典序靠前的一部分，补齐该分数的全部成员
+                double lowest = below.stream().map(ZSetOperations.TypedTuple::getScore)
+                        .filter(Objects::nonNull).min(Double::compare).orElse(0D);
+                addAll(candidates, zset.rangeByScoreWithScores(key, lowest, lowest), e -> true);
+            }
+            List<HotEntry> entries = candidates.values().stream()
+                    .sorted(Comparator.comparingDouble(HotEntry::score).thenComparingLong(HotEntry::id).reversed())
+                    .limit(limit + 1L)
+                    .collect(Collectors.toCollection(ArrayList::new));
+            String nextCursor = null;
+            if (entries.size() > limit) {
+                entries.subList(limit, entries.size()).clear();
+                nextCursor = encodeHotCursor(entries.get(limit - 1));
+            }
+            return new HotCursorPage(entries.stream().map(HotEntry::id).collect(Collectors.toList()), nextCursor);
+        } catch (Exception e) {
+            log.error("读取评论热度索引失败，回退到数据库: postId={}, error={}", postId, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public boolean isHotCursor(String cursor) {
+        return cursor != null && cursor.startsWith(HOT_CURSOR_PREFIX);
+    }
+
+    /**
+     * 索引存在时写入分数并按 seed-limit 截断
+     */
+    private void addToIndex(Long postId, Long commentId, double score) {
+        stringRedisTemplate.execute(UPDATE_SCRIPT, List.of(HOT_KEY + postId), String.valueOf(score),
+                String.valueOf(commentId), String.valueOf(feedProperties.getCommentHot().getSeedLimit()));
+    }
+
+    private static void addAll(Map<Long, HotEntry> candidates, Set<ZSetOperations.TypedTuple<String>> tuples,
+                               Predicate<HotEntry> accept) {
+        if (tuples == null) {
+            return;
+        }
+        for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+            if (tuple.getValue() == null || tuple.getScore() == null || PLACEHOLDER.equals(tuple.getValue())) {
+                continue;
+            }
+            HotEntry entry = new HotEntry(Long.parseLong(tuple.getValue()), tuple.getScore());
+            if (accept.test(entry)) {
+                candidates.put(entry.id(), entry);
+            }
+        }
+    }
+
+    private static String encodeHotCursor(HotEntry entry) {
+        String raw = entry.score() + ":" + entry.id();
+        return HOT_CURSOR_PREFIX + Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解码热门游标，空字符串表示第一页（返回 null）
+     *
+     * @throws IllegalArgumentException 游标格式不正确
+     */
+    private static HotEntry decodeHotCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor.substring(HOT_CURSOR_PREFIX.length())),
+                    StandardCharsets.UTF_8);
+            int idx = raw.indexOf(':');
+            return new HotEntry(Long.parseLong(raw.substring(idx + 1)), Double.parseDouble(raw.substring(0, idx)));
+        } catch (Exception e) {
+            throw new IllegalArgumentException("分页游标无效");
+        }
+    }
+
+    /**
+     * 热度索引中的一条根评论
+     */
+    private record HotEntry(long id, double score) {
+    }
+
+    /**
+     * 索引不存在（首次访问或闲置过期）时从数据库载入，存在则续期
+     *
+     * @return 索引中根评论数量（不含占位成员）
+     */
+    private long ensureIndex(Long postId, String key) {
+        FeedProperties.CommentHot config = feedProperties.getCommentHot();
+        if (Boolean.TRUE.equals(stringRedisTemplate.hasKey(key))) {
+            stringRedisTemplate.expire(key, config.getIndexTtlDays(), TimeUnit.DAYS);
+            Long size = stringRedisTemplate.opsForZSet().zCard(key);
+            return size == null || size <= 0 ? 0 : size - 1;
+        }
+        List<CommentPO> roots = commentMapper.selectList(new QueryWrapper<CommentPO>()
+                .select("id", "created_at")
+                .eq("item_id", postId)
+                .eq("item_type", "POST")
+                .eq("parent_id", 0)
+                .orderByDesc("created_at")
+                .last("LIMIT " + config.getSeedLimit()));
+        Map<Long, CommentStatPO> stats = getStats(roots.stream().map(CommentPO::getId).toList());
+        Set<ZSetOperations.TypedTuple<String>> tuples = new HashSet<>();
+        tuples.add(new DefaultTypedTuple<>(PLACEHOLDER, 0D));
+        for (CommentPO root : roots) {
+            tuples.add(new DefaultTypedTuple<>(String.valueOf(root.getId()),
+                    score(stats.get(root.getId()), root.getCreatedAt())));
+        }
+        stringRedisTemplate.opsForZSet().add(key, tuples);
+        stringRedisTemplate.expire(key, config.getIndexTtlDays(), TimeUnit.DAYS);
+        log.info("构建评论热度索引: postId={}, size={}", postId, roots.size());
+        return roots.size();
+    }
+
+    private double score(CommentStatPO stat, LocalDateTime createdAt) {
+        FeedProperties.CommentHot config = feedProperties.getCommentHot();
+        double pts = 0;
+        if (stat != null) {
+            pts = nz(stat.getLikeCnt()) * config.getLikeWeight() + nz(stat.getReplyCnt()) * config.getReplyWeight();
+        }
+        LocalDateTime t = createdAt != null ? createdAt : LocalDateTime.now();
+        long ts = t.atZone(ZoneId.systemDefault()).toEpochSecond();
+        return Math.log10(Math.max(pts, 1)) + (double) ts / config.getDecaySeconds();
+    }
+
+    private static boolean isPostRoot(CommentPO comment) {
+        return comment != null && comment.getId() != null && comment.getItemId() != null
+                && comment.getItemType() == CommentPO.ItemType.POST
+                && (comment.getParentId() == null || comment.getParentId() == 0);
+    }
+
+    private static int nz(Integer value) {
+        return value == null ? 0 : value;
+    }
+}
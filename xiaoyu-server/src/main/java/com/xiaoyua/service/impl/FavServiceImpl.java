@@ -1,19 +1,24 @@
 package com.xiaoyua.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.xiaoyua.common.enums.PostStatField;
 import com.xiaoyua.entity.FavoritePO;
 import com.xiaoyua.entity.PostPO;
 import com.xiaoyua.mapper.FavMapper;
 import com.xiaoyua.mapper.PostMapper;
-import com.xiaoyua.mapper.PostStatMapper;
 import com.xiaoyua.service.FavService;
+import com.xiaoyua.service.PostCounterService;
 import com.xiaoyua.service.PushService;
+import com.xiaoyua.service.cache.InteractionMembershipCache;
+import com.xiaoyua.service.pipeline.NotificationCoalescer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.dao.DuplicateKeyException;
 
-import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
@@ -28,53 +33,71 @@ public class FavServiceImpl implements FavService {
     private PushService pushService;
     
     @Autowired
-    private PostStatMapper postStatMapper;
+    private PostCounterService postCounterService;
+
+    @Autowired
+    private InteractionMembershipCache membershipCache;
+
+    @Autowired
+    private NotificationCoalescer notificationCoalescer;
 
     @Override
     public void addFavorite(Long itemId, Long userId, String itemType) {
-        // 检查是否已经收藏，避免重复收藏
-        if (isFavorited(itemId, userId, itemType)) {
-            return; // 已经收藏，直接返回
+        // INSERT IGNORE 一次往返：已收藏时影响行数为 0，直接返回
+        String type = FavoritePO.ItemType.valueOf(itemType.toUpperCase()).name();
+        if (favMapper.insertIgnore(userId, itemId, type) == 0) {
+            return;
         }
-        
         try {
-            FavoritePO favorite = new FavoritePO();
-            favorite.setUserId(userId);
-            favorite.setItemId(itemId);
-            favorite.setItemType(FavoritePO.ItemType.valueOf(itemType.toUpperCase()));
-            favorite.setCreatedAt(LocalDateTime.now());
-            favMapper.insert(favorite);
-            
-            // 通过新的推送服务发送收藏通知
-            createFavoriteNotificationViaPushService(itemId, userId, itemType);
-            
-            // 更新统计：仅对动态收藏计数
-            if ("POST".equalsIgnoreCase(itemType)) {
-                postStatMapper.incFav(itemId);
-            }
-            
-        } catch (DuplicateKeyException e) {
-            // 处理并发情况下的重复插入
-            // 由于有唯一约束，重复插入会抛出异常，这里忽略即可
+            membershipCache.added(InteractionMembershipCache.Kind.FAV, type, itemId, userId);
+        } catch (Exception e) {
+            log.error("更新收藏关系缓存失败: itemId={}, userId={}, error={}", itemId, userId, e.getMessage());
+        }
+
+        // 通过新的推送服务发送收藏通知
+        createFavoriteNotificationViaPushService(itemId, userId, itemType);
+
+        // 更新统计：仅对动态收藏计数
+        if ("POST".equalsIgnoreCase(itemType)) {
+            postCounterService.increment(itemId, PostStatField.FAV, 1);
         }
     }
 
     @Override
     public void deleteFavorite(Long itemId, Long userId, String itemType) {
-        favMapper.delete(
+        int deleted = favMapper.delete(
                 new QueryWrapper<FavoritePO>()
                         .eq("user_id", userId)
                         .eq("item_id", itemId)
                         .eq("item_type", itemType.toUpperCase())
         );
-        // 更新统计：仅对动态收藏-1
+        if (deleted == 0) {
+            return;
+        }
+        try {
+            membershipCache.removed(InteractionMembershipCache.Kind.FAV, itemType, itemId, userId);
+        } catch (Exception e) {
+            log.error("更新收藏关系缓存失败: itemId={}, userId={}, error={}", itemId, userId, e.getMessage());
+        }
+        withdrawFavoriteNotification(itemId, userId, itemType);
+        // 更新统计：仅对动态收藏-1（未收藏过则不扣减）
         if ("POST".equalsIgnoreCase(itemType)) {
-            postStatMapper.decFav(itemId);
+            postCounterService.increment(itemId, PostStatField.FAV, -1);
         }
     }
 
     @Override
     public boolean isFaved(Long itemId, Long userId, String itemType) {
+        return isFavorited(itemId, userId, itemType);
+    }
+
+    @Override
+    public boolean isFavorited(Long itemId, Long userId, String itemType) {
+        try {
+            return membershipCache.contains(InteractionMembershipCache.Kind.FAV, itemType, itemId, userId);
+        } catch (Exception e) {
+            log.warn("收藏关系缓存不可用，改为查询数据库: itemId={}, userId={}, error={}", itemId, userId, e.getMessage());
+        }
         Long count = favMapper.selectCount(
                 new QueryWrapper<FavoritePO>()
                         .eq("user_id", userId)
@@ -85,14 +108,22 @@ public class FavServiceImpl implements FavService {
     }
 
     @Override
-    public boolean isFavorited(Long itemId, Long userId, String itemType) {
-        Long count = favMapper.selectCount(
+    public Set<Long> getFavoritedItemIds(Long userId, Collection<Long> itemIds, String itemType) {
+        if (userId == null || itemIds == null || itemIds.isEmpty()) {
+            return Collections.emptySet();
+        }
+        try {
+            return membershipCache.containsAny(InteractionMembershipCache.Kind.FAV, itemType, userId, itemIds);
+        } catch (Exception e) {
+            log.warn("收藏关系缓存不可用，改为查询数据库: userId={}, error={}", userId, e.getMessage());
+        }
+        return favMapper.selectList(
                 new QueryWrapper<FavoritePO>()
+                        .select("item_id")
                         .eq("user_id", userId)
-                        .eq("item_id", itemId)
                         .eq("item_type", itemType.toUpperCase())
-        );
-        return count > 0;
+                        .in("item_id", itemIds)
+        ).stream().map(FavoritePO::getItemId).collect(Collectors.toSet());
     }
 
     @Override
@@ -126,6 +157,24 @@ public class FavServiceImpl implements FavService {
         }
     }
     
+    /**
+     * 取消收藏时从尚未发送的合并通知中撤回该用户
+     */
+    private void withdrawFavoriteNotification(Long itemId, Long fromUserId, String itemType) {
+        // 没有打开的窗口时不必查询作者
+        if (notificationCoalescer.openWindows() == 0) {
+            return;
+        }
+        try {
+            Long toUserId = getContentAuthorId(itemId, itemType);
+            if (toUserId != null) {
+                notificationCoalescer.withdraw(NotificationCoalescer.Key.of(toUserId, "FAVORITE", itemId, itemType), fromUserId);
+            }
+        } catch (Exception e) {
+            log.error("撤回收藏通知失败: itemId={}, fromUserId={}, itemType={}, error={}",
+                itemId, fromUserId, itemType, e.getMessage());
+        }
+    }
     
     /**
      * 获取内容作者ID
@@ -0,0 +1,78 @@
+package com.xiaoyua.service.impl;
+
+import com.xiaoyua.entity.FileBlobPO;
+import com.xiaoyua.mapper.FileBlobMapper;
+import com.xiaoyua.service.FileBlobService;
+import com.xiaoyua.service.storage.StorageBackend;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import java.util.Collection;
+
+/**
+ * 文件内容去重服务实现
+ *
+ * @author xiaoyu
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FileBlobServiceImpl implements FileBlobService {
+
+    private final FileBlobMapper fileBlobMapper;
+
+    private final StorageBackend storageBackend;
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public FileBlobPO acquire(String sha256) {
+        // 正在释放最后引用的事务持有行锁，这里会等待其提交后看到记录已删除
+        if (fileBlobMapper.incrementRef(sha256) == 0) {
+            return null;
+        }
+        return fileBlobMapper.selectById(sha256);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public FileBlobPO register(String sha256, String objectName, String fileUrl, long size) {
+        FileBlobPO blob = new FileBlobPO();
+        blob.setSha256(sha256);
+        blob.setObjectName(objectName);
+        blob.setFileUrl(fileUrl);
+        blob.setSize(size);
+        fileBlobMapper.insertOrIncrementRef(blob);
+        return fileBlobMapper.selectById(sha256);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean release(String sha256, Collection<String> variantUrls) {
+        FileBlobPO blob = fileBlobMapper.selectForUpdate(sha256);
+        if (blob == null) {
+            log.warn("释放引用时内容记录不存在: sha256={}", sha256);
+            return false;
+        }
+        if (blob.getRefCount() != null && blob.getRefCount() > 1) {
+            fileBlobMapper.decrementRef(sha256);
+            return false;
+        }
+        // 最后一个引用：持有行锁删除对象，提交前新的上传无法引用该记录
+        if (!storageBackend.delete(blob.getObjectName())) {
+            log.warn("删除存储对象失败，对象将成为孤儿: {}", blob.getObjectName());
+        }
+        if (variantUrls != null) {
+            for (String url : variantUrls) {
+                if (StringUtils.hasText(url) && !url.equals(blob.getFileUrl())) {
+                    storageBackend.delete(storageBackend.objectNameOf(url));
+                }
+            }
+        }
+        fileBlobMapper.deleteById(sha256);
+        log.info("内容最后一个引用已释放，删除存储对象: {}", blob.getObjectName());
+        return true;
+    }
+}
@@ -1,19 +1,39 @@
 package com.xiaoyua.service.impl;
 
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.xiaoyua.entity.FileBlobPO;
 import com.xiaoyua.entity.FilePO;
 import com.xiaoyua.mapper.FileMapper;
+import com.xiaoyua.properties.FileProperties;
+import com.xiaoyua.service.FileBlobService;
 import com.xiaoyua.service.FileService;
-import com.xiaoyua.utils.OssUtil;
+import com.xiaoyua.service.pipeline.ImageVariantPipeline;
+import com.xiaoyua.service.storage.StorageBackend;
+import com.xiaoyua.utils.MeasuredInputStream;
 import com.xiaoyua.vo.file.FileVO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.util.StringUtils;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * 文件服务实现类
@@ -26,14 +46,24 @@ public class FileServiceImpl implements FileService {
     private final FileMapper fileMapper;
     
     
-    private final OssUtil ossUtil;
+    private final StorageBackend storageBackend;
+
+    private final FileBlobService fileBlobService;
+
+    private final FileProperties fileProperties;
+
+    private final ImageVariantPipeline imageVariantPipeline;
+
+    /**
+     * 多文件上传使用虚拟线程，并发数由信号量限制：全局上限保护存储连接，单次请求上限避免单个请求占满
+     */
+    private final ExecutorService uploadExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private Semaphore uploadPermits;
     
     // 允许的文件类型
     private static final String[] ALLOWED_TYPES = {"jpg", "jpeg", "png", "gif", "bmp", "webp", "mp4", "avi", "mov", "mp3", "wav", "pdf", "doc", "docx", "txt"};
     
-    // 最大文件大小 10MB
-    private static final long MAX_FILE_SIZE = 10 * 1024 * 1024L;
-    
     @Override
     public FileVO uploadFile(MultipartFile file, String bizType, Long userId) {
         log.info("开始上传文件，用户ID: {}, 业务类型: {}, 文件名: {}", userId, bizType, file.getOriginalFilename());
@@ -43,45 +73,241 @@ public class FileServiceImpl implements FileService {
         
         String objectName = null;
         String fileUrl = null;
+        String contentHash = null;
+        boolean referenced = false;
+        FilePO filePO = new FilePO();
         try {
             // 解析并校验业务类型
             FilePO.BizType bizTypeEnum = parseBizType(bizType);
-            // 生成对象名称
-            objectName = generateObjectName(file.getOriginalFilename(), bizTypeEnum.name());
-            // 上传文件到OSS
-            fileUrl = ossUtil.upload(file.getBytes(), objectName);
-            // 生成缩略图URL（如果是图片）
-            String thumbUrl = generateThumbnailUrl(fileUrl);
-            // 保存文件信息到数据库
-            FilePO filePO = new FilePO();
+            // 先对本地暂存的上传内容计算哈希，相同内容已存在时直接引用，不再写存储
+            contentHash = hashOf(file);
             filePO.setUserId(userId);
             filePO.setBizType(bizTypeEnum);
-            filePO.setFileUrl(fileUrl);
-            filePO.setThumbUrl(thumbUrl);
-            filePO.setSize((int) file.getSize());
+            filePO.setContentHash(contentHash);
             filePO.setCreatedAt(LocalDateTime.now());
 
+            boolean newContent = false;
+            FileBlobPO blob = fileBlobService.acquire(contentHash);
+            if (blob != null) {
+                referenced = true;
+                log.info("命中已有内容，跳过存储写入: sha256={}", contentHash);
+            } else {
+                // 生成对象名称
+                objectName = generateObjectName(file.getOriginalFilename(), bizTypeEnum.name());
+                // 流式写入存储后端，不把文件读入内存；大小以实际写入的字节数为准
+                StorageBackend.StoredObject uploaded;
+                try (InputStream in = file.getInputStream()) {
+                    uploaded = storageBackend.put(in, file.getSize(), objectName);
+                }
+                fileUrl = uploaded.url();
+                if (!contentHash.equals(uploaded.sha256())) {
+                    throw new RuntimeException("上传过程中文件内容发生变化");
+                }
+                blob = fileBlobService.register(contentHash, objectName, fileUrl, uploaded.size());
+                referenced = true;
+                newContent = objectName.equals(blob.getObjectName());
+                if (!newContent) {
+                    // 并发上传了相同内容，使用先登记的对象
+                    storageBackend.delete(objectName);
+                }
+                objectName = null;
+                fileUrl = null;
+            }
+            filePO.setFileUrl(blob.getFileUrl());
+            filePO.setSize(blob.getSize().intValue());
+
+            // 保存文件信息到数据库，图片的缩略图等版本由流水线异步生成后回填
             fileMapper.insert(filePO);
 
             log.info("文件上传成功，文件ID: {}", filePO.getId());
 
+            // 命中已有内容时先入库再复制版本：流水线按内容哈希回填要么已能读到，要么会覆盖到这条记录
+            boolean hasVariants = !newContent && copyVariants(contentHash, filePO);
+            if (!hasVariants && ImageVariantPipeline.supports(getFileExtension(blob.getObjectName()))) {
+                // 首次任务可能因队列已满被丢弃，命中时没有版本也重新提交；同一内容进行中的任务由流水线去重
+                imageVariantPipeline.submit(filePO, blob.getObjectName());
+            }
+
             // 转换为VO返回
             return convertToVO(filePO);
         } catch (Exception e) {
-            // 如果OSS已上传但后续失败，执行回滚删除
+            // 如果文件已写入存储但未登记，执行回滚删除；已占用的内容引用需要释放
             if (fileUrl != null && objectName != null) {
                 try {
-                    ossUtil.deleteFile(objectName);
-                    log.warn("已回滚删除OSS文件: {}", objectName);
+                    storageBackend.delete(objectName);
+                    log.warn("已回滚删除存储文件: {}", objectName);
                 } catch (Exception ex) {
-                    log.warn("回滚删除OSS文件失败: {} - {}", objectName, ex.getMessage());
+                    log.warn("回滚删除存储文件失败: {} - {}", objectName, ex.getMessage());
+                }
+            }
+            if (referenced) {
+                try {
+                    fileBlobService.release(contentHash, variantUrls(filePO));
+                } catch (Exception ex) {
+                    log.warn("回滚释放内容引用失败: {} - {}", contentHash, ex.getMessage());
                 }
             }
             log.error("文件上传失败: {}", e.getMessage(), e);
             throw new RuntimeException("文件上传失败: " + e.getMessage());
         }
     }
+
+    /**
+     * 读取上传内容计算 SHA-256；上传内容已暂存在本地磁盘，读取一遍远低于一次存储写入的开销
+     */
+    private String hashOf(MultipartFile file) throws IOException {
+        try (MeasuredInputStream in = new MeasuredInputStream(file.getInputStream())) {
+            in.transferTo(OutputStream.nullOutputStream());
+            return in.getSha256Hex();
+        }
+    }
+
+    /**
+     * 把同内容文件已生成的图片版本复制到刚入库的记录；必须在入库之后读取，
+     * 否则流水线在读取与入库之间按内容哈希回填时会漏掉这条记录
+     *
+     * @return 是否已复制到图片版本；复制失败不影响上传，按没有版本处理
+     */
+    private boolean copyVariants(String contentHash, FilePO target) {
+        try {
+            FilePO source = fileMapper.selectOne(new QueryWrapper<FilePO>()
+                    .eq("content_hash", contentHash)
+                    .ne("id", target.getId())
+                    .isNotNull("thumb_url")
+                    .last("LIMIT 1"));
+            if (source == null) {
+                return false;
+            }
+            FilePO update = new FilePO();
+            update.setId(target.getId());
+            update.setThumbUrl(source.getThumbUrl());
+            update.setFeedUrl(source.getFeedUrl());
+            update.setFullUrl(source.getFullUrl());
+            update.setWidth(source.getWidth());
+            update.setHeight(source.getHeight());
+            fileMapper.updateById(update);
+            target.setThumbUrl(update.getThumbUrl());
+            target.setFeedUrl(update.getFeedUrl());
+            target.setFullUrl(update.getFullUrl());
+            target.setWidth(update.getWidth());
+            target.setHeight(update.getHeight());
+            return true;
+        } catch (Exception e) {
+            log.warn("复制图片版本失败: fileId={}, error={}", target.getId(), e.getMessage());
+            return false;
+        }
+    }
+
+    private List<String> variantUrls(FilePO filePO) {
+        List<String> urls = new ArrayList<>(3);
+        for (String url : new String[]{filePO.getThumbUrl(), filePO.getFeedUrl(), filePO.getFullUrl()}) {
+            // 原图地址及其图片处理地址（?x-oss-process=...）指向原图对象本身，不是单独的版本对象
+            if (StringUtils.hasText(url) && !url.equals(filePO.getFileUrl())
+                    && !url.startsWith(filePO.getFileUrl() + "?")) {
+                urls.add(url);
+            }
+        }
+        return urls;
+    }
     
+    @PostConstruct
+    public void initUploadPermits() {
+        uploadPermits = new Semaphore(fileProperties.getUpload().getMaxConcurrentUploads());
+    }
+
+    @PreDestroy
+    public void shutdownUploadExecutor() {
+        uploadExecutor.shutdown();
+    }
+
+    @Override
+    public List<FileVO> uploadFiles(List<MultipartFile> files, String bizType, Long userId) {
+        if (files == null || files.isEmpty()) {
+            return new ArrayList<>();
+        }
+        FileProperties.Upload config = fileProperties.getUpload();
+        if (files.size() > config.getMaxFilesPerRequest()) {
+            throw new IllegalArgumentException("单次最多上传" + config.getMaxFilesPerRequest() + "个文件");
+        }
+        // 先校验全部文件，避免上传了一部分才发现后面的文件不合法
+        for (MultipartFile file : files) {
+            validateFile(file);
+        }
+        if (files.size() == 1) {
+            return List.of(uploadFile(files.get(0), bizType, userId));
+        }
+
+        Semaphore requestPermits = new Semaphore(config.getPerRequestConcurrency());
+        AtomicBoolean aborted = new AtomicBoolean(false);
+        List<Future<FileVO>> futures = new ArrayList<>(files.size());
+        for (MultipartFile file : files) {
+            futures.add(uploadExecutor.submit(() -> {
+                requestPermits.acquire();
+                try {
+                    uploadPermits.acquire();
+                    try {
+                        // 请求线程已被中断时，尚未开始的上传直接跳过
+                        return aborted.get() ? null : uploadFile(file, bizType, userId);
+                    } finally {
+                        uploadPermits.release();
+                    }
+                } finally {
+                    requestPermits.release();
+                }
+            }));
+        }
+
+        // 中断时不取消任务（进行中的上传取消后结果会丢失），而是跳过未开始的上传并继续等待，
+        // 全部结束后再回滚已完成的文件，最后恢复中断标志
+        List<FileVO> uploaded = new ArrayList<>(files.size());
+        Throwable failure = null;
+        boolean interrupted = false;
+        for (Future<FileVO> future : futures) {
+            while (true) {
+                try {
+                    FileVO vo = future.get();
+                    if (vo != null) {
+                        uploaded.add(vo);
+                    }
+                    break;
+                } catch (ExecutionException e) {
+                    failure = failure == null ? e.getCause() : failure;
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    aborted.set(true);
+                    failure = failure == null ? e : failure;
+                }
+            }
+        }
+        try {
+            if (failure != null) {
+                discardFiles(uploaded.stream().map(FileVO::getId).toList(), userId);
+                log.error("多文件上传失败，已回滚 {} 个已上传文件: {}", uploaded.size(), failure.getMessage());
+                throw failure instanceof RuntimeException re ? re : new RuntimeException("文件上传失败: " + failure.getMessage());
+            }
+            return uploaded;
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public void discardFiles(Collection<Long> fileIds, Long userId) {
+        if (fileIds == null) {
+            return;
+        }
+        for (Long fileId : fileIds) {
+            try {
+                deleteFile(fileId, userId);
+            } catch (Exception e) {
+                log.warn("回滚删除文件失败: fileId={}, error={}", fileId, e.getMessage());
+            }
+        }
+    }
+
     @Override
     public FileVO getFileById(Long fileId) {
         FilePO filePO = fileMapper.selectById(fileId);
@@ -107,12 +333,17 @@ public class FileServiceImpl implements FileService {
         }
         
         try {
-            // 从OSS删除文件
-            String objectName = extractObjectNameFromUrl(filePO.getFileUrl());
-            ossUtil.deleteFile(objectName);
-            
-            // 从数据库删除记录
+            // 先删除数据库记录：之后释放引用若失败只会多留一个对象，不会留下指向已删除对象的记录
             int result = fileMapper.deleteById(fileId);
+
+            if (StringUtils.hasText(filePO.getContentHash())) {
+                // 释放内容引用，最后一个引用时才删除存储对象及图片版本
+                fileBlobService.release(filePO.getContentHash(), variantUrls(filePO));
+            } else {
+                // 去重之前上传的文件：直接删除存储对象及生成的图片版本
+                storageBackend.delete(storageBackend.objectNameOf(filePO.getFileUrl()));
+                variantUrls(filePO).forEach(url -> storageBackend.delete(storageBackend.objectNameOf(url)));
+            }
             
             log.info("文件删除成功，文件ID: {}", fileId);
             return result > 0;
@@ -134,8 +365,9 @@ public class FileServiceImpl implements FileService {
         }
         
         // 验证文件大小
-        if (file.getSize() > MAX_FILE_SIZE) {
-            throw new RuntimeException("文件大小不能超过10MB");
+        long maxFileSize = fileProperties.getUpload().getMaxFileSizeBytes();
+        if (file.getSize() > maxFileSize) {
+            throw new RuntimeException("文件大小不能超过" + maxFileSize / (1024 * 1024) + "MB");
         }
         
         // 验证文件类型
@@ -183,26 +415,6 @@ public class FileServiceImpl implements FileService {
         return String.format("%s/%s/%s.%s", bizTypeEnum.name().toLowerCase(), datePath, uuid, extension);
     }
     
-    /**
-     * 生成缩略图URL
-     * @param fileUrl 文件URL
-     * @return 缩略图URL
-     */
-    private String generateThumbnailUrl(String fileUrl) {
-        if (fileUrl == null || fileUrl.isEmpty()) {
-            return null;
-        }
-        // 判断是否为图片文件
-        String extension = getFileExtension(fileUrl).toLowerCase();
-        String[] imageTypes = {"jpg", "jpeg", "png", "gif", "bmp", "webp"};
-        if (Arrays.asList(imageTypes).contains(extension)) {
-            // 阿里云OSS图片处理参数：缩放到200x200
-            return fileUrl + "?x-oss-process=image/resize,w_200,h_200,m_fill";
-        }
-        
-        return null;
-    }
-    
     /**
      * 获取文件扩展名
      * 
@@ -231,30 +443,6 @@ public class FileServiceImpl implements FileService {
         return filename.substring(lastDotIndex + 1);
     }
     
-    /**
-     * 从URL中提取对象名称
-     * 
-     * @param fileUrl 文件URL
-     * @return 对象名称
-     */
-    private String extractObjectNameFromUrl(String fileUrl) {
-        if (fileUrl == null || fileUrl.isEmpty()) {
-            return "";
-        }
-        
-        // 假设URL格式为: https://bucket.endpoint/objectName
-        // 提取域名后的部分作为objectName
-        try {
-            java.net.URI uri = java.net.URI.create(fileUrl);
-            String path = uri.getPath();
-            // 去掉开头的斜杠
-            return path.startsWith("/") ? path.substring(1) : path;
-        } catch (Exception e) {
-            log.warn("解析文件URL失败: {}", fileUrl, e);
-            return "";
-        }
-    }
-    
     /**
      * 转换为VO
      * 
@@ -268,6 +456,10 @@ public class FileServiceImpl implements FileService {
         fileVO.setBizType(filePO.getBizType().name());
         fileVO.setFileUrl(filePO.getFileUrl());
         fileVO.setThumbUrl(filePO.getThumbUrl());
+        fileVO.setFeedUrl(filePO.getFeedUrl());
+        fileVO.setFullUrl(filePO.getFullUrl());
+        fileVO.setWidth(filePO.getWidth());
+        fileVO.setHeight(filePO.getHeight());
         fileVO.setSize(filePO.getSize().longValue());
         fileVO.setCreatedAt(filePO.getCreatedAt());
         
@@ -0,0 +1,191 @@
+package com.xiaoyua.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.xiaoyua.common.event.UserRelationChangedEvent;
+import com.xiaoyua.entity.FriendPO;
+import com.xiaoyua.mapper.FriendMapper;
+import com.xiaoyua.properties.FeedProperties;
+import com.xiaoyua.service.FriendGraphService;
+import com.xiaoyua.utils.SortedLongArrays;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 好友关系图服务实现
+ * <p>
+ * 好友集合保存在 Caffeine 中，按好友数量加权限制总容量。本节点的关系变化在事务提交后
+ * 直接修改已加载的数组（写时复制），并通过 Redis 频道通知其它节点丢弃对应用户的集合；
+ * 通知丢失时由写入后过期时间兜底。
+ * </p>
+ *
+ * @author xiaoyu
+ */
+@Service
+@Slf4j
+public class FriendGraphServiceImpl implements FriendGraphService, MessageListener {
+
+    /**
+     * 跨节点好友关系变化通知频道，消息体为 节点ID:用户ID:另一方用户ID
+     */
+    public static final String CHANGE_CHANNEL = "friend:graph:change";
+
+    private final FriendMapper friendMapper;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final Cache<Long, long[]> graph;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Autowired
+    public FriendGraphServiceImpl(FriendMapper friendMapper, StringRedisTemplate stringRedisTemplate,
+                                  RedisMessageListenerContainer listenerContainer, FeedProperties feedProperties) {
+        this.friendMapper = friendMapper;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.listenerContainer = listenerContainer;
+        FeedProperties.FriendGraph config = feedProperties.getFriendGraph();
+        this.graph = Caffeine.newBuilder()
+                .maximumWeight(config.getMaxEdges())
+                .weigher((Long id, long[] friends) -> friends.length + 1)
+                .expireAfterWrite(Duration.ofMinutes(config.getTtlMinutes()))
+                .build();
+    }
+
+    @Override
+    public boolean isFriend(Long userId, Long friendId) {
+        if (userId == null || friendId == null || userId.equals(friendId)) {
+            return false;
+        }
+        // 优先在已加载的集合中查找，避免为另一方额外加载
+        long[] friends = graph.getIfPresent(friendId);
+        if (friends != null) {
+            return SortedLongArrays.contains(friends, userId);
+        }
+        return SortedLongArrays.contains(friendsOf(userId), friendId);
+    }
+
+    @Override
+    public long[] friendsOf(Long userId) {
+        if (userId == null) {
+            return SortedLongArrays.EMPTY;
+        }
+        return graph.get(userId, id -> SortedLongArrays.of(friendMapper.selectFriendIds(id)));
+    }
+
+    @Override
+    public Map<Long, long[]> friendsOf(Collection<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return new HashMap<>();
+        }
+        List<Long> ids = userIds.stream().filter(Objects::nonNull).distinct().toList();
+        return graph.getAll(ids, this::loadAll);
+    }
+
+    @Override
+    public long[] mutualFriends(Long userId, Long otherId) {
+        if (userId == null || otherId == null) {
+            return SortedLongArrays.EMPTY;
+        }
+        Map<Long, long[]> friends = friendsOf(List.of(userId, otherId));
+        return SortedLongArrays.intersect(friends.get(userId), friends.get(otherId));
+    }
+
+    @Override
+    public void invalidate(Long userId) {
+        if (userId != null) {
+            graph.invalidate(userId);
+        }
+    }
+
+    /**
+     * 好友关系变化：事务提交后更新本地已加载的集合，再通知其它节点
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRelationChanged(UserRelationChangedEvent event) {
+        if (event.getType() != UserRelationChangedEvent.Type.FRIEND
+                || event.getUserId() == null || event.getTargetId() == null) {
+            return;
+        }
+        long userId = event.getUserId();
+        long targetId = event.getTargetId();
+        if (event.isLinked()) {
+            graph.asMap().computeIfPresent(userId, (id, friends) -> SortedLongArrays.insert(friends, targetId));
+            graph.asMap().computeIfPresent(targetId, (id, friends) -> SortedLongArrays.insert(friends, userId));
+        } else {
+            graph.asMap().computeIfPresent(userId, (id, friends) -> SortedLongArrays.remove(friends, targetId));
+            graph.asMap().computeIfPresent(targetId, (id, friends) -> SortedLongArrays.remove(friends, userId));
+        }
+        try {
+            stringRedisTemplate.convertAndSend(CHANGE_CHANNEL, nodeId + ":" + userId + ":" + targetId);
+        } catch (Exception e) {
+            log.warn("发布好友关系变化通知失败: userId={}, targetId={}, error={}", userId, targetId, e.getMessage());
+        }
+    }
+
+    /**
+     * 应用就绪后订阅变化频道；订阅失败时其它节点的变化仅依赖过期时间生效
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void subscribe() {
+        try {
+            listenerContainer.addMessageListener(this, new ChannelTopic(CHANGE_CHANNEL));
+        } catch (Exception e) {
+            log.warn("订阅好友关系变化频道失败，好友集合将仅按过期时间刷新: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 收到其它节点的变化通知，丢弃双方已加载的集合
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(":");
+        if (parts.length != 3) {
+            log.warn("忽略无效的好友关系变化消息: {}", message);
+            return;
+        }
+        if (nodeId.equals(parts[0])) {
+            return;
+        }
+        try {
+            graph.invalidate(Long.valueOf(parts[1]));
+            graph.invalidate(Long.valueOf(parts[2]));
+        } catch (NumberFormatException e) {
+            log.warn("忽略无效的好友关系变化消息: {}", message);
+        }
+    }
+
+    /**
+     * 一次查询加载多个用户的好友集合，没有好友的用户同样缓存空数组
+     */
+    private Map<Long, long[]> loadAll(Set<? extends Long> userIds) {
+        Map<Long, List<Long>> edges = new HashMap<>();
+        for (FriendPO edge : friendMapper.selectFriendEdges(userIds)) {
+            edges.computeIfAbsent(edge.getUserId(), k -> new ArrayList<>()).add(edge.getFriendId());
+        }
+        Map<Long, long[]> result = new HashMap<>();
+        for (Long userId : userIds) {
+            result.put(userId, SortedLongArrays.of(edges.get(userId)));
+        }
+        return result;
+    }
+}
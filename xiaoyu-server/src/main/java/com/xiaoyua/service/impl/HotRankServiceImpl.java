@@ -0,0 +1,315 @@
+package com.xiaoyua.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.xiaoyua.common.enums.PostStatField;
+import com.xiaoyua.entity.PostPO;
+import com.xiaoyua.entity.PostStatPO;
+import com.xiaoyua.mapper.PostMapper;
+import com.xiaoyua.properties.FeedProperties;
+import com.xiaoyua.service.HotRankService;
+import com.xiaoyua.service.PostCounterService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 动态热度排行服务实现
+ * <p>
+ * Redis 结构：
+ * <ul>
+ *     <li>hot:post:{postId}   热度元数据 HASH：pts 加权计数和、ts 发布时间秒、campus 校区ID、pub 是否进入全站榜</li>
+ *     <li>hot:global          全站热榜 ZSET（公开动态）</li>
+ *     <li>hot:campus:{campusId} 校区热榜 ZSET（公开与校园可见动态）</li>
+ * </ul>
+ * 计数变化时通过 Lua 脚本一次往返完成：累加 pts、重新计算分数、写入热榜并裁剪。
+ * </p>
+ *
+ * @author xiaoyu
+ */
+@Service
+@Slf4j
+public class HotRankServiceImpl implements HotRankService {
+
+    private static final String META_KEY = "hot:post:";
+    private static final String GLOBAL_KEY = "hot:global";
+    private static final String CAMPUS_KEY = "hot:campus:";
+    private static final String REBUILD_LOCK_KEY = "hot:rebuild:lock";
+
+    /**
+     * 冷启动重建时最多载入的动态数
+     */
+    private static final int REBUILD_LIMIT = 5000;
+
+    /**
+     * 增量更新脚本，元数据不存在时返回 -1、元数据中的校区与调用方读到的不一致时返回 -2，由调用方从数据库载入
+     * KEYS[1]=元数据 KEYS[2]=全站榜 KEYS[3]=校区榜（无校区时为占位键，不写入）；
+     * ARGV: 增量、元数据TTL秒、衰减系数、动态ID、榜单容量、调用方读到的校区ID（无校区为空串）
+     */
+    private static final DefaultRedisScript<Long> INCR_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return -1 end\n" +
+            "local campus = redis.call('HGET', KEYS[1], 'campus') or ''\n" +
+            "if campus ~= ARGV[6] then return -2 end\n" +
+            "local pts = tonumber(redis.call('HINCRBYFLOAT', KEYS[1], 'pts', ARGV[1]))\n" +
+            "redis.call('EXPIRE', KEYS[1], ARGV[2])\n" +
+            "local ts = tonumber(redis.call('HGET', KEYS[1], 'ts'))\n" +
+            "local sign = 0\n" +
+            "if pts > 0 then sign = 1 elseif pts < 0 then sign = -1 end\n" +
+            "local score = sign * math.log10(math.max(math.abs(pts), 1)) + ts / tonumber(ARGV[3])\n" +
+            "local cap = tonumber(ARGV[5])\n" +
+            "if redis.call('HGET', KEYS[1], 'pub') == '1' then\n" +
+            "  redis.call('ZADD', KEYS[2], score, ARGV[4])\n" +
+            "  redis.call('ZREMRANGEBYRANK', KEYS[2], 0, -(cap + 1))\n" +
+            "end\n" +
+            "if campus ~= '' then\n" +
+            "  redis.call('ZADD', KEYS[3], score, ARGV[4])\n" +
+            "  redis.call('ZREMRANGEBYRANK', KEYS[3], 0, -(cap + 1))\n" +
+            "end\n" +
+            "return 1",
+            Long.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private PostMapper postMapper;
+
+    @Autowired
+    private PostCounterService postCounterService;
+
+    @Autowired
+    private FeedProperties feedProperties;
+
+    @Override
+    public void register(PostPO post) {
+        if (post == null || post.getId() == null || post.getStatus() != PostPO.Status.PUBLISHED) {
+            return;
+        }
+        writeEntries(List.of(post), Map.of());
+    }
+
+    @Override
+    public void rescore(PostPO post) {
+        if (post == null || post.getId() == null || post.getStatus() != PostPO.Status.PUBLISHED) {
+            return;
+        }
+        writeEntries(List.of(post), postCounterService.getStats(List.of(post.getId())));
+    }
+
+    @Override
+    public void onStatChanged(Long postId, PostStatField field, long delta) {
+        if (postId == null || delta == 0) {
+            return;
+        }
+        FeedProperties.Hot config = feedProperties.getHot();
+        double weighted = weight(field) * delta;
+        if (weighted == 0) {
+            return;
+        }
+        // 校区榜键必须通过 KEYS 传入（Redis Cluster 按 KEYS 路由），先读出元数据中的校区，脚本内再校验
+        Object cached = stringRedisTemplate.opsForHash().get(META_KEY + postId, "campus");
+        String campus = cached == null ? "" : cached.toString();
+        Long result = stringRedisTemplate.execute(INCR_SCRIPT,
+                List.of(META_KEY + postId, GLOBAL_KEY, CAMPUS_KEY + campus),
+                String.valueOf(weighted),
+                String.valueOf(TimeUnit.DAYS.toSeconds(config.getMetaTtlDays())),
+                String.valueOf(config.getDecaySeconds()),
+                String.valueOf(postId),
+                String.valueOf(config.getCapacity()),
+                campus);
+        if (result != null && result < 0) {
+            // 元数据已过期、从未载入或校区刚被修改：从数据库读取最新统计重建（统计已包含本次变化）
+            PostPO post = postMapper.selectById(postId);
+            if (post != null && post.getStatus() == PostPO.Status.PUBLISHED) {
+                writeEntries(List.of(post), postCounterService.getStats(List.of(postId)));
+            }
+        }
+    }
+
+    @Override
+    public void remove(Long postId) {
+        if (postId == null) {
+            return;
+        }
+        String member = String.valueOf(postId);
+        Object campus = stringRedisTemplate.opsForHash().get(META_KEY + postId, "campus");
+        if (campus == null) {
+            PostPO post = postMapper.selectById(postId);
+            campus = post != null && post.getCampusId() != null ? String.valueOf(post.getCampusId()) : null;
+        }
+        stringRedisTemplate.opsForZSet().remove(GLOBAL_KEY, member);
+        if (campus != null && !campus.toString().isEmpty()) {
+            stringRedisTemplate.opsForZSet().remove(CAMPUS_KEY + campus, member);
+        }
+        stringRedisTemplate.delete(META_KEY + postId);
+    }
+
+    @Override
+    public List<Long> rangeGlobal(int offset, int size) {
+        rebuildIfEmpty();
+        return range(GLOBAL_KEY, offset, size);
+    }
+
+    @Override
+    public List<Long> rangeCampus(Long campusId, int offset, int size) {
+        if (campusId == null) {
+            return new ArrayList<>();
+        }
+        rebuildIfEmpty();
+        return range(CAMPUS_KEY + campusId, offset, size);
+    }
+
+    @Override
+    public long countGlobal() {
+        Long count = stringRedisTemplate.opsForZSet().zCard(GLOBAL_KEY);
+        return count == null ? 0 : count;
+    }
+
+    @Override
+    public long countCampus(Long campusId) {
+        if (campusId == null) {
+            return 0;
+        }
+        Long count = stringRedisTemplate.opsForZSet().zCard(CAMPUS_KEY + campusId);
+        return count == null ? 0 : count;
+    }
+
+    private List<Long> range(String key, int offset, int size) {
+        if (size <= 0) {
+            return new ArrayList<>();
+        }
+        Set<String> members = stringRedisTemplate.opsForZSet().reverseRange(key, offset, offset + size - 1L);
+        if (members == null || members.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return members.stream().map(Long::valueOf).collect(Collectors.toList());
+    }
+
+    /**
+     * 全站榜不存在时（首次启动或 Redis 数据丢失）从数据库重建最近的动态，加锁防止并发重建
+     */
+    private void rebuildIfEmpty() {
+        if (Boolean.TRUE.equals(stringRedisTemplate.hasKey(GLOBAL_KEY))) {
+            return;
+        }
+        Boolean locked = stringRedisTemplate.opsForValue().setIfAbsent(REBUILD_LOCK_KEY, "1", 60, TimeUnit.SECONDS);
+        if (!Boolean.TRUE.equals(locked)) {
+            return;
+        }
+        try {
+            LocalDateTime since = LocalDateTime.now().minusDays(feedProperties.getHot().getRebuildDays());
+            List<PostPO> posts = postMapper.selectList(new QueryWrapper<PostPO>()
+                    .eq("status", "PUBLISHED")
+                    .ge("created_at", since)
+                    .orderByDesc("created_at")
+                    .last("LIMIT " + REBUILD_LIMIT));
+            if (posts.isEmpty()) {
+                return;
+            }
+            List<Long> ids = posts.stream().map(PostPO::getId).collect(Collectors.toList());
+            writeEntries(posts, postCounterService.getStats(ids));
+            log.info("热榜重建完成: posts={}", posts.size());
+        } catch (Exception e) {
+            log.error("热榜重建失败: error={}", e.getMessage(), e);
+        } finally {
+            stringRedisTemplate.delete(REBUILD_LOCK_KEY);
+        }
+    }
+
+    /**
+     * 写入热度元数据与榜单分数（管道批量）
+     */
+    private void writeEntries(List<PostPO> posts, Map<Long, PostStatPO> stats) {
+        FeedProperties.Hot config = feedProperties.getHot();
+        long ttlSeconds = TimeUnit.DAYS.toSeconds(config.getMetaTtlDays());
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            for (PostPO post : posts) {
+                String member = String.valueOf(post.getId());
+                double pts = points(stats.get(post.getId()));
+                long ts = toEpochSecond(post.getCreatedAt());
+                boolean pub = post.getVisibility() == PostPO.Visibility.PUBLIC;
+                // 好友可见动态不进入任何公开榜单
+                String campus = post.getVisibility() != PostPO.Visibility.FRIEND && post.getCampusId() != null
+                        ? String.valueOf(post.getCampusId()) : "";
+                String metaKey = META_KEY + post.getId();
+                conn.hMSet(metaKey, Map.of(
+                        "pts", String.valueOf(pts),
+                        "ts", String.valueOf(ts),
+                        "campus", campus,
+                        "pub", pub ? "1" : "0"));
+                conn.expire(metaKey, ttlSeconds);
+
+                double score = score(pts, ts, config.getDecaySeconds());
+                if (pub) {
+                    conn.zAdd(GLOBAL_KEY, score, member);
+                    conn.zRemRange(GLOBAL_KEY, 0, -(config.getCapacity() + 1L));
+                }
+                if (!campus.isEmpty()) {
+                    conn.zAdd(CAMPUS_KEY + campus, score, member);
+                    conn.zRemRange(CAMPUS_KEY + campus, 0, -(config.getCapacity() + 1L));
+                }
+            }
+            return null;
+        });
+    }
+
+    private double points(PostStatPO stat) {
+        if (stat == null) {
+            return 0;
+        }
+        FeedProperties.Hot config = feedProperties.getHot();
+        return nz(stat.getViewCnt()) * config.getViewWeight()
+                + nz(stat.getLikeCnt()) * config.getLikeWeight()
+                + nz(stat.getFavCnt()) * config.getFavWeight()
+                + nz(stat.getCommentCnt()) * config.getCommentWeight()
+                + nz(stat.getShareCnt()) * config.getShareWeight();
+    }
+
+    private double weight(PostStatField field) {
+        FeedProperties.Hot config = feedProperties.getHot();
+        switch (field) {
+            case VIEW:
+                return config.getViewWeight();
+            case LIKE:
+                return config.getLikeWeight();
+            case FAV:
+                return config.getFavWeight();
+            case COMMENT:
+                return config.getCommentWeight();
+            case SHARE:
+                return config.getShareWeight();
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * 与 Lua 脚本一致的分数计算
+     */
+    private static double score(double pts, long ts, long decaySeconds) {
+        double order = Math.log10(Math.max(Math.abs(pts), 1));
+        return Math.signum(pts) * order + (double) ts / decaySeconds;
+    }
+
+    private static long toEpochSecond(LocalDateTime time) {
+        LocalDateTime t = time != null ? time : LocalDateTime.now();
+        return t.atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+
+    private static int nz(Integer value) {
+        return value == null ? 0 : value;
+    }
+}
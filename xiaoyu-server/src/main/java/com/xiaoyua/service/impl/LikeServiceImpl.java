@@ -1,19 +1,27 @@
 package com.xiaoyua.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.xiaoyua.common.enums.PostStatField;
+import com.xiaoyua.entity.CommentPO;
 import com.xiaoyua.entity.LikePO;
 import com.xiaoyua.entity.PostPO;
+import com.xiaoyua.mapper.CommentMapper;
 import com.xiaoyua.mapper.LikeMapper;
 import com.xiaoyua.mapper.PostMapper;
-import com.xiaoyua.mapper.PostStatMapper;
+import com.xiaoyua.service.CommentStatService;
+import com.xiaoyua.service.PostCounterService;
 import com.xiaoyua.service.LikeService;
 import com.xiaoyua.service.PushService;
+import com.xiaoyua.service.cache.InteractionMembershipCache;
+import com.xiaoyua.service.pipeline.NotificationCoalescer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.dao.DuplicateKeyException;
 
-import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
@@ -29,53 +37,76 @@ public class LikeServiceImpl implements LikeService {
     private PushService pushService;
     
     @Autowired
-    private PostStatMapper postStatMapper;
+    private PostCounterService postCounterService;
+
+    @Autowired
+    private InteractionMembershipCache membershipCache;
+
+    @Autowired
+    private CommentMapper commentMapper;
+
+    @Autowired
+    private CommentStatService commentStatService;
+
+    @Autowired
+    private NotificationCoalescer notificationCoalescer;
 
     @Override
     public void addLike(Long itemId, Long userId, String itemType) {
-        // 检查是否已经点赞，避免重复点赞
-        if (isLiked(itemId, userId, itemType)) {
-            return; // 已经点赞，直接返回
+        // INSERT IGNORE 一次往返：已点赞时影响行数为 0，直接返回
+        String type = LikePO.ItemType.valueOf(itemType.toUpperCase()).name();
+        if (likeMapper.insertIgnore(userId, itemId, type) == 0) {
+            return;
         }
-        
         try {
-            LikePO like = new LikePO();
-            like.setUserId(userId);
-            like.setItemId(itemId);
-            like.setItemType(LikePO.ItemType.valueOf(itemType.toUpperCase()));
-            like.setCreatedAt(LocalDateTime.now());
-            likeMapper.insert(like);
-            
-            // 通过新的推送服务发送点赞通知
-            createLikeNotificationViaPushService(itemId, userId, itemType);
-            
-            // 更新统计：仅对动态点赞计数
-            if ("POST".equalsIgnoreCase(itemType)) {
-                postStatMapper.incLike(itemId);
-            }
-            
-        } catch (DuplicateKeyException e) {
-            // 处理并发情况下的重复插入
-            // 由于有唯一约束，重复插入会抛出异常，这里忽略即可
+            membershipCache.added(InteractionMembershipCache.Kind.LIKE, type, itemId, userId);
+        } catch (Exception e) {
+            log.error("更新点赞关系缓存失败: itemId={}, userId={}, error={}", itemId, userId, e.getMessage());
+        }
+
+        // 通过新的推送服务发送点赞通知
+        createLikeNotificationViaPushService(itemId, userId, itemType);
+
+        // 更新统计：动态与评论分别计数
+        if ("POST".equalsIgnoreCase(itemType)) {
+            postCounterService.increment(itemId, PostStatField.LIKE, 1);
+        } else if ("COMMENT".equalsIgnoreCase(itemType)) {
+            commentStatService.onLike(itemId, 1);
         }
     }
 
     @Override
     public void deleteLike(Long itemId, Long userId, String itemType) {
-        likeMapper.delete(
+        int deleted = likeMapper.delete(
                 new QueryWrapper<LikePO>()
                         .eq("user_id", userId)
                         .eq("item_id", itemId)
                         .eq("item_type", itemType.toUpperCase())
         );
-        // 更新统计：仅对动态取消点赞计数
+        if (deleted == 0) {
+            return;
+        }
+        try {
+            membershipCache.removed(InteractionMembershipCache.Kind.LIKE, itemType, itemId, userId);
+        } catch (Exception e) {
+            log.error("更新点赞关系缓存失败: itemId={}, userId={}, error={}", itemId, userId, e.getMessage());
+        }
+        withdrawLikeNotification(itemId, userId, itemType);
+        // 更新统计：取消点赞计数（未点赞过则不扣减）
         if ("POST".equalsIgnoreCase(itemType)) {
-            postStatMapper.decLike(itemId);
+            postCounterService.increment(itemId, PostStatField.LIKE, -1);
+        } else if ("COMMENT".equalsIgnoreCase(itemType)) {
+            commentStatService.onLike(itemId, -1);
         }
     }
 
     @Override
     public boolean isLiked(Long itemId, Long userId, String itemType) {
+        try {
+            return membershipCache.contains(InteractionMembershipCache.Kind.LIKE, itemType, itemId, userId);
+        } catch (Exception e) {
+            log.warn("点赞关系缓存不可用，改为查询数据库: itemId={}, userId={}, error={}", itemId, userId, e.getMessage());
+        }
         Long count = likeMapper.selectCount(
                 new QueryWrapper<LikePO>()
                         .eq("user_id", userId)
@@ -85,6 +116,25 @@ public class LikeServiceImpl implements LikeService {
         return count > 0;
     }
 
+    @Override
+    public Set<Long> getLikedItemIds(Long userId, Collection<Long> itemIds, String itemType) {
+        if (userId == null || itemIds == null || itemIds.isEmpty()) {
+            return Collections.emptySet();
+        }
+        try {
+            return membershipCache.containsAny(InteractionMembershipCache.Kind.LIKE, itemType, userId, itemIds);
+        } catch (Exception e) {
+            log.warn("点赞关系缓存不可用，改为查询数据库: userId={}, error={}", userId, e.getMessage());
+        }
+        return likeMapper.selectList(
+                new QueryWrapper<LikePO>()
+                        .select("item_id")
+                        .eq("user_id", userId)
+                        .eq("item_type", itemType.toUpperCase())
+                        .in("item_id", itemIds)
+        ).stream().map(LikePO::getItemId).collect(Collectors.toSet());
+    }
+
     @Override
     public long getLikeCount(Long itemId, String itemType) {
         return likeMapper.selectCount(
@@ -116,6 +166,25 @@ public class LikeServiceImpl implements LikeService {
         }
     }
     
+    /**
+     * 取消点赞时从尚未发送的合并通知中撤回该用户
+     */
+    private void withdrawLikeNotification(Long itemId, Long fromUserId, String itemType) {
+        // 没有打开的窗口时不必查询作者
+        if (notificationCoalescer.openWindows() == 0) {
+            return;
+        }
+        try {
+            Long toUserId = getContentAuthorId(itemId, itemType);
+            if (toUserId != null) {
+                notificationCoalescer.withdraw(NotificationCoalescer.Key.of(toUserId, "LIKE", itemId, itemType), fromUserId);
+            }
+        } catch (Exception e) {
+            log.error("撤回点赞通知失败: itemId={}, fromUserId={}, itemType={}, error={}",
+                itemId, fromUserId, itemType, e.getMessage());
+        }
+    }
+    
     /**
      * 获取内容作者ID
      */
@@ -125,11 +194,10 @@ public class LikeServiceImpl implements LikeService {
                 PostPO post = postMapper.selectById(itemId);
                 return post != null ? post.getUserId() : null;
             case "COMMENT":
-                // TODO: 如果需要支持评论点赞通知，需要添加CommentMapper
-                return null;
+                CommentPO comment = commentMapper.selectById(itemId);
+                return comment != null ? comment.getUserId() : null;
             default:
                 return null;
         }
     }
-    
 }
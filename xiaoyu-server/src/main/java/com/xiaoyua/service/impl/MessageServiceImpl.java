@@ -1,13 +1,11 @@
 package com.xiaoyua.service.impl;
 
-import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.xiaoyua.dto.message.MessageCreateDTO;
-import com.xiaoyua.entity.FriendPO;
 import com.xiaoyua.entity.MessagePO;
-import com.xiaoyua.mapper.FriendMapper;
 import com.xiaoyua.mapper.MessageMapper;
+import com.xiaoyua.service.FriendGraphService;
 import com.xiaoyua.service.MessageService;
 import com.xiaoyua.service.PushService;
 import com.xiaoyua.vo.message.MessageVO;
@@ -34,7 +32,7 @@ public class MessageServiceImpl implements MessageService {
     private MessageMapper messageMapper;
     
     @Autowired
-    private FriendMapper friendMapper;
+    private FriendGraphService friendGraphService;
     
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
@@ -43,7 +41,6 @@ public class MessageServiceImpl implements MessageService {
     private PushService pushService;
     
     private static final String UNREAD_COUNT_KEY = "message:unread:";
-    private static final String FRIEND_CACHE_KEY = "friend:relation:";
     
     @Override
     @Transactional
@@ -150,30 +147,7 @@ public class MessageServiceImpl implements MessageService {
     
     @Override
     public boolean isFriend(Long userId1, Long userId2) {
-        // 先从Redis缓存中查询
-        String cacheKey = FRIEND_CACHE_KEY + Math.min(userId1, userId2) + ":" + Math.max(userId1, userId2);
-        Boolean cached = (Boolean) redisTemplate.opsForValue().get(cacheKey);
-        
-        if (cached != null) {
-            return cached;
-        }
-        
-        // 缓存中没有，从数据库查询
-        QueryWrapper<FriendPO> queryWrapper = new QueryWrapper<>();
-        queryWrapper.and(wrapper -> 
-            wrapper.eq("user_id", userId1).eq("friend_id", userId2)
-                   .or()
-                   .eq("user_id", userId2).eq("friend_id", userId1)
-        );
-        queryWrapper.eq("status", "ACCEPTED");
-        
-        long count = friendMapper.selectCount(queryWrapper);
-        boolean isFriend = count > 0;
-        
-        // 更新缓存，缓存30分钟
-        redisTemplate.opsForValue().set(cacheKey, isFriend, 30, TimeUnit.MINUTES);
-        
-        return isFriend;
+        return friendGraphService.isFriend(userId1, userId2);
     }
     
     /**
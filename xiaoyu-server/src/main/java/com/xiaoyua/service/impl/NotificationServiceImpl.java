@@ -9,6 +9,9 @@ import com.xiaoyua.entity.UserPO;
 import com.xiaoyua.mapper.NotificationMapper;
 import com.xiaoyua.mapper.UserMapper;
 import com.xiaoyua.service.NotificationService;
+import com.xiaoyua.service.NotificationUnreadService;
+import com.xiaoyua.utils.CursorUtil;
+import com.xiaoyua.vo.common.PageResult;
 import com.xiaoyua.vo.notification.NotificationVO;
 import com.xiaoyua.vo.user.UserSimpleVO;
 import lombok.extern.slf4j.Slf4j;
@@ -17,7 +20,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Locale;
+import java.util.stream.Collectors;
 
 /**
  * 通知服务实现类
@@ -33,12 +38,48 @@ public class NotificationServiceImpl implements NotificationService {
     
     @Autowired
     private UserMapper userMapper;
+    
+    @Autowired
+    private NotificationUnreadService notificationUnreadService;
 
     @Override
     public IPage<NotificationVO> getNotifications(Long userId, String type, String status, Integer page, Integer size) {
         log.info("获取通知列表: userId={}, type={}, status={}, page={}, size={}", userId, type, status, page, size);
         
         // 构建查询条件
+        QueryWrapper<NotificationPO> queryWrapper = buildQueryWrapper(userId, type, status);
+        
+        // 按创建时间倒序排列
+        queryWrapper.orderByDesc("created_at");
+        
+        // 分页查询
+        int p = (page == null || page <= 0) ? 1 : page;
+        int sz = (size == null || size <= 0 || size > 100) ? 20 : size; // 限制单页最大100
+        Page<NotificationPO> pageParam = new Page<>(p, sz);
+        IPage<NotificationPO> notificationPage = notificationMapper.selectPage(pageParam, queryWrapper);
+        
+        // 转换为VO
+        return notificationPage.convert(this::convertToVO);
+    }
+
+    @Override
+    public PageResult<NotificationVO> getNotificationsByCursor(Long userId, String type, String status, String cursor, Integer size) {
+        log.info("游标获取通知列表: userId={}, type={}, status={}, cursor={}, size={}", userId, type, status, cursor, size);
+        
+        int sz = (size == null || size <= 0 || size > 100) ? 20 : size; // 限制单页最大100
+        QueryWrapper<NotificationPO> queryWrapper = buildQueryWrapper(userId, type, status);
+        CursorUtil.applyKeyset(queryWrapper, cursor, sz);
+        
+        List<NotificationPO> rows = notificationMapper.selectList(queryWrapper);
+        String nextCursor = CursorUtil.nextCursor(rows, sz, NotificationPO::getCreatedAt, NotificationPO::getId);
+        List<NotificationVO> list = rows.stream().map(this::convertToVO).collect(Collectors.toList());
+        return PageResult.ofCursor(list, sz, nextCursor);
+    }
+
+    /**
+     * 构建通知列表查询条件（不含排序）
+     */
+    private QueryWrapper<NotificationPO> buildQueryWrapper(Long userId, String type, String status) {
         QueryWrapper<NotificationPO> queryWrapper = new QueryWrapper<>();
         queryWrapper.eq("user_id", userId);
         
@@ -62,17 +103,7 @@ public class NotificationServiceImpl implements NotificationService {
             }
         }
         
-        // 按创建时间倒序排列
-        queryWrapper.orderByDesc("created_at");
-        
-        // 分页查询
-        int p = (page == null || page <= 0) ? 1 : page;
-        int sz = (size == null || size <= 0 || size > 100) ? 20 : size; // 限制单页最大100
-        Page<NotificationPO> pageParam = new Page<>(p, sz);
-        IPage<NotificationPO> notificationPage = notificationMapper.selectPage(pageParam, queryWrapper);
-        
-        // 转换为VO
-        return notificationPage.convert(this::convertToVO);
+        return queryWrapper;
     }
 
     @Override
@@ -82,12 +113,15 @@ public class NotificationServiceImpl implements NotificationService {
         UpdateWrapper<NotificationPO> updateWrapper = new UpdateWrapper<>();
         updateWrapper.eq("id", notificationId)
                     .eq("user_id", userId)
+                    .eq("status", NotificationPO.Status.UNREAD)
                     .set("status", NotificationPO.Status.READ);
         
+        // 只有由未读变为已读时才扣减未读数，重复标记不会多扣
         int updated = notificationMapper.update(null, updateWrapper);
         boolean success = updated > 0;
         
         if (success) {
+            notificationUnreadService.decrement(userId, updated);
             log.info("通知标记已读成功: notificationId={}", notificationId);
             // TODO: 如果需要，接入 PushService 推送未读数更新事件
         } else {
@@ -107,6 +141,10 @@ public class NotificationServiceImpl implements NotificationService {
                     .set("status", NotificationPO.Status.READ);
         
         int updated = notificationMapper.update(null, updateWrapper);
+        // 按实际更新条数扣减而不是清零，期间新到的通知仍计为未读
+        if (updated > 0) {
+            notificationUnreadService.decrement(userId, updated);
+        }
         
         log.info("标记所有通知为已读完成: userId={}, updated={}", userId, updated);
         return updated;
@@ -116,11 +154,7 @@ public class NotificationServiceImpl implements NotificationService {
     public long getUnreadCount(Long userId) {
         log.debug("获取未读通知数量: userId={}", userId);
         
-        QueryWrapper<NotificationPO> queryWrapper = new QueryWrapper<>();
-        queryWrapper.eq("user_id", userId)
-                   .eq("status", NotificationPO.Status.UNREAD);
-        
-        long count = notificationMapper.selectCount(queryWrapper);
+        long count = notificationUnreadService.getUnreadCount(userId);
         log.debug("未读通知数量: userId={}, count={}", userId, count);
         
         return count;
@@ -140,6 +174,9 @@ public class NotificationServiceImpl implements NotificationService {
         
         int inserted = notificationMapper.insert(notification);
         boolean success = inserted > 0;
+        if (success && notification.getStatus() == NotificationPO.Status.UNREAD) {
+            notificationUnreadService.increment(notification.getUserId(), 1);
+        }
         
         return success;
     }
@@ -159,7 +196,7 @@ public class NotificationServiceImpl implements NotificationService {
         vo.setRefType(notification.getRefType() != null ? notification.getRefType().name() : null);
         vo.setStatus(notification.getStatus().name());
         vo.setCreatedAt(notification.getCreatedAt());
-        vo.setCount(1); // 默认数量为1，聚合通知时可以修改
+        vo.setCount(notification.getActorCount() != null ? notification.getActorCount() : 1);
         
         // 根据通知类型和关联ID获取来源用户信息
         UserSimpleVO fromUser = getFromUserByNotification(notification);
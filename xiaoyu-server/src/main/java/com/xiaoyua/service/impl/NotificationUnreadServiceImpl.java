@@ -0,0 +1,172 @@
+package com.xiaoyua.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.xiaoyua.entity.NotificationPO;
+import com.xiaoyua.mapper.NotificationMapper;
+import com.xiaoyua.properties.NotificationProperties;
+import com.xiaoyua.service.NotificationUnreadService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 未读通知计数服务实现
+ * <p>
+ * Redis 结构：
+ * <ul>
+ *     <li>notification:unread:{userId} 未读数 STRING</li>
+ *     <li>notification:unread:dirty    计数变更过、待校正的用户ID SET</li>
+ * </ul>
+ * 增减通过脚本原子完成且不会减到负数；计数不存在时只登记待校正，不凭空创建，读取时从数据库载入。
+ * 载入与并发的新通知之间可能产生偏差，由校正任务以"比较后设置"的方式修正，校正期间计数有变化则留到下一轮。
+ * </p>
+ *
+ * @author xiaoyu
+ */
+@Service
+@Slf4j
+public class NotificationUnreadServiceImpl implements NotificationUnreadService {
+
+    private static final String UNREAD_KEY = "notification:unread:";
+    private static final String DIRTY_KEY = "notification:unread:dirty";
+
+    /**
+     * 增减脚本，计数不存在时返回 -1
+     * KEYS[1]=计数 KEYS[2]=待校正集合；ARGV: 增量、TTL秒、用户ID
+     */
+    private static final DefaultRedisScript<Long> INCR_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('SADD', KEYS[2], ARGV[3])\n" +
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return -1 end\n" +
+            "local cur = tonumber(redis.call('GET', KEYS[1]) or '0')\n" +
+            "local d = tonumber(ARGV[1])\n" +
+            "if cur + d < 0 then d = -cur end\n" +
+            "local v = redis.call('INCRBY', KEYS[1], d)\n" +
+            "redis.call('EXPIRE', KEYS[1], ARGV[2])\n" +
+            "return v",
+            Long.class);
+
+    /**
+     * 比较后设置脚本：计数仍为读取数据库前的值时才覆盖
+     * KEYS[1]=计数；ARGV: 期望值、新值、TTL秒
+     */
+    private static final DefaultRedisScript<Long> CAS_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) ~= ARGV[1] then return 0 end\n" +
+            "redis.call('SET', KEYS[1], ARGV[2], 'EX', ARGV[3])\n" +
+            "return 1",
+            Long.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private NotificationMapper notificationMapper;
+
+    @Autowired
+    private NotificationProperties notificationProperties;
+
+    @Override
+    public void increment(Long userId, long delta) {
+        apply(userId, delta);
+    }
+
+    @Override
+    public void decrement(Long userId, long delta) {
+        apply(userId, -delta);
+    }
+
+    private void apply(Long userId, long delta) {
+        if (userId == null || delta == 0) {
+            return;
+        }
+        try {
+            stringRedisTemplate.execute(INCR_SCRIPT, List.of(UNREAD_KEY + userId, DIRTY_KEY),
+                    String.valueOf(delta), String.valueOf(ttlSeconds()), String.valueOf(userId));
+        } catch (Exception e) {
+            // 计数可能偏差，删除后下次读取从数据库重新载入
+            log.error("更新未读通知数失败: userId={}, delta={}, error={}", userId, delta, e.getMessage());
+            evict(userId);
+        }
+    }
+
+    @Override
+    public long getUnreadCount(Long userId) {
+        String key = UNREAD_KEY + userId;
+        try {
+            String value = stringRedisTemplate.opsForValue().get(key);
+            if (value != null) {
+                return Long.parseLong(value);
+            }
+            long count = countFromDb(userId);
+            // 并发载入时以先写入的为准
+            stringRedisTemplate.opsForValue().setIfAbsent(key, String.valueOf(count), Duration.ofSeconds(ttlSeconds()));
+            return count;
+        } catch (Exception e) {
+            log.error("读取未读通知数失败，改为读取数据库: userId={}, error={}", userId, e.getMessage());
+            return countFromDb(userId);
+        }
+    }
+
+    @Override
+    public int repairDirty() {
+        int batchSize = Math.max(1, notificationProperties.getUnread().getRepairBatchSize());
+        List<String> ids = stringRedisTemplate.opsForSet().pop(DIRTY_KEY, batchSize);
+        if (ids == null || ids.isEmpty()) {
+            return 0;
+        }
+        // 先读 Redis 再查数据库，比较后设置保证期间有新变更的用户不会被旧值覆盖
+        List<String> keys = ids.stream().map(id -> UNREAD_KEY + id).collect(Collectors.toList());
+        List<String> before = stringRedisTemplate.opsForValue().multiGet(keys);
+        List<Long> userIds = ids.stream().map(Long::valueOf).collect(Collectors.toList());
+        Map<Long, Long> counts = new HashMap<>();
+        for (Map<String, Object> row : notificationMapper.countUnreadByUsers(userIds)) {
+            counts.put(((Number) row.get("user_id")).longValue(), ((Number) row.get("cnt")).longValue());
+        }
+        String ttl = String.valueOf(ttlSeconds());
+        int repaired = 0;
+        for (int i = 0; i < ids.size(); i++) {
+            String current = before == null ? null : before.get(i);
+            if (current == null) {
+                continue;
+            }
+            String actual = String.valueOf(counts.getOrDefault(userIds.get(i), 0L));
+            if (!actual.equals(current)) {
+                Long ok = stringRedisTemplate.execute(CAS_SCRIPT, List.of(keys.get(i)), current, actual, ttl);
+                if (ok != null && ok == 1) {
+                    repaired++;
+                    log.info("校正未读通知数: userId={}, {} -> {}", ids.get(i), current, actual);
+                }
+            }
+        }
+        if (repaired > 0) {
+            log.info("未读通知数校正完成: 检查={}, 校正={}", ids.size(), repaired);
+        }
+        return ids.size();
+    }
+
+    private long countFromDb(Long userId) {
+        return notificationMapper.selectCount(new QueryWrapper<NotificationPO>()
+                .eq("user_id", userId)
+                .eq("status", NotificationPO.Status.UNREAD));
+    }
+
+    private void evict(Long userId) {
+        try {
+            stringRedisTemplate.delete(UNREAD_KEY + userId);
+        } catch (Exception e) {
+            log.warn("删除未读通知数失败: userId={}, error={}", userId, e.getMessage());
+        }
+    }
+
+    private long ttlSeconds() {
+        return TimeUnit.DAYS.toSeconds(notificationProperties.getUnread().getTtlDays());
+    }
+}
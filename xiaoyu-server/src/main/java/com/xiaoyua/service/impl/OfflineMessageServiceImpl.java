@@ -11,8 +11,6 @@ import com.xiaoyua.websocket.UnifiedWebSocketHandler;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.web.socket.WebSocketSession;
-import org.springframework.web.socket.TextMessage;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
@@ -61,6 +59,7 @@ public class OfflineMessageServiceImpl implements OfflineMessageService {
             content.put("from_user_id", message.getFromUserId());
             content.put("from_user_nickname", message.getFromUserNickname());
             content.put("from_user_avatar", message.getFromUserAvatar());
+            content.put("count", message.getCount() != null ? message.getCount() : 1);
             content.put("created_at", message.getCreatedAt().toString());
             
             offlineMessage.setMessageContent(objectMapper.writeValueAsString(content));
@@ -176,17 +175,7 @@ public class OfflineMessageServiceImpl implements OfflineMessageService {
                             Map<String, Object> content = objectMapper.readValue(msg.getMessageContent(), Map.class);
                             content.put("timestamp", System.currentTimeMillis());
                             
-                            WebSocketSession session = webSocketHandler.getUserSession(userId);
-                            boolean sent = false;
-                            if (session != null && session.isOpen()) {
-                                try {
-                                    String messageJson = objectMapper.writeValueAsString(content);
-                                    session.sendMessage(new TextMessage(messageJson));
-                                    sent = true;
-                                } catch (Exception e) {
-                                    log.error("WebSocket发送离线消息失败: {}", e.getMessage());
-                                }
-                            }
+                            boolean sent = webSocketHandler.sendMessageToUser(userId, content);
                             if (sent) {
                                 log.debug("推送离线消息成功: userId={}, messageId={}, type={}", 
                                         userId, msg.getId(), msg.getMessageType());
@@ -0,0 +1,481 @@
+package com.xiaoyua.service.impl;
+
+import com.xiaoyua.common.enums.PostStatField;
+import com.xiaoyua.entity.PostStatPO;
+import com.xiaoyua.mapper.PostStatMapper;
+import com.xiaoyua.properties.FeedProperties;
+import com.xiaoyua.service.HotRankService;
+import com.xiaoyua.service.PostCounterService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 动态互动计数服务实现
+ * <p>
+ * Redis 结构：
+ * <ul>
+ *     <li>post:counter:{postId}       计数 HASH：like、fav、comment、share，读写均以此为准</li>
+ *     <li>post:counter:delta:{postId} 尚未写回数据库的增量 HASH，字段同上</li>
+ *     <li>post:counter:dirty          有待写回增量的动态ID SET</li>
+ *     <li>post:counter:epoch:{postId} 写回状态 HASH：gen 每次取出/写回完成加一，inflight 为正在写回的批次数</li>
+ * </ul>
+ * 计数 HASH 不存在时从 post_stats 载入并叠加未写回的增量。增量从 Redis 取出到写入数据库之间，
+ * 数据库值与 Redis 增量都不含这部分，载入前先记下 epoch，载入脚本中 epoch 有变化或正在写回则放弃重试，
+ * 保证载入读到的数据库值与剩余增量属于同一时刻。
+ * Redis 不可用时退化为直接更新 post_stats，并删除该动态的计数 HASH（删除失败则记下，Redis 恢复后先删除再使用），
+ * 避免恢复后继续使用不含这次更新的旧计数。
+ * </p>
+ *
+ * @author xiaoyu
+ */
+@Service
+@Slf4j
+public class PostCounterServiceImpl implements PostCounterService {
+
+    private static final String COUNTER_KEY = "post:counter:";
+    private static final String DELTA_KEY = "post:counter:delta:";
+    private static final String DIRTY_KEY = "post:counter:dirty";
+    private static final String EPOCH_KEY = "post:counter:epoch:";
+
+    /**
+     * 写回中途进程退出时 inflight 无法归零，取出时给 epoch 设置的过期秒数
+     */
+    private static final long FLUSH_GUARD_SECONDS = 300;
+
+    /**
+     * 载入冲突时的最大尝试次数与间隔毫秒
+     */
+    private static final int SEED_ATTEMPTS = 3;
+    private static final long SEED_RETRY_MS = 20;
+
+    /**
+     * 累加脚本，计数 HASH 不存在时返回 -1，由调用方载入后重试
+     * KEYS[1]=计数 KEYS[2]=增量 KEYS[3]=待刷写集合；ARGV: 字段、增量、TTL秒、动态ID
+     */
+    private static final DefaultRedisScript<Long> INCR_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return -1 end\n" +
+            "local cur = tonumber(redis.call('HGET', KEYS[1], ARGV[1]) or '0')\n" +
+            "local d = tonumber(ARGV[2])\n" +
+            "if cur + d < 0 then d = -cur end\n" +
+            "local v = redis.call('HINCRBY', KEYS[1], ARGV[1], d)\n" +
+            "redis.call('EXPIRE', KEYS[1], ARGV[3])\n" +
+            "if d ~= 0 then\n" +
+            "  redis.call('HINCRBY', KEYS[2], ARGV[1], d)\n" +
+            "  redis.call('SADD', KEYS[3], ARGV[4])\n" +
+            "end\n" +
+            "return v",
+            Long.class);
+
+    /**
+     * 载入脚本：以数据库值加上未写回的增量初始化计数 HASH，已存在则不覆盖；
+     * 读取数据库之后 epoch 变化或有写回进行中时返回 -1，不写入
+     * KEYS[1]=计数 KEYS[2]=增量 KEYS[3]=epoch；ARGV: TTL秒、读取数据库前的 gen，之后为 字段、数据库值 成对出现
+     */
+    private static final DefaultRedisScript<Long> SEED_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 1 then return 0 end\n" +
+            "local e = redis.call('HMGET', KEYS[3], 'gen', 'inflight')\n" +
+            "if (e[1] or '0') ~= ARGV[2] or tonumber(e[2] or '0') > 0 then return -1 end\n" +
+            "for i = 3, #ARGV, 2 do\n" +
+            "  local pending = tonumber(redis.call('HGET', KEYS[2], ARGV[i]) or '0')\n" +
+            "  redis.call('HSET', KEYS[1], ARGV[i], math.max(tonumber(ARGV[i + 1]) + pending, 0))\n" +
+            "end\n" +
+            "redis.call('EXPIRE', KEYS[1], ARGV[1])\n" +
+            "return 1",
+            Long.class);
+
+    /**
+     * 取出增量脚本：依次读取并删除各动态的增量 HASH，同时登记写回开始（gen 加一，inflight 加一）
+     * KEYS[1..n]=增量 KEYS[n+1..2n]=epoch；ARGV[1..n]=动态ID，ARGV[n+1]=epoch 保护过期秒数
+     * 返回扁平列表：动态ID、字段数 n、随后 n 组 字段/增量
+     */
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> TAKE_SCRIPT = new DefaultRedisScript<>(
+            "local n = #ARGV - 1\n" +
+            "local out = {}\n" +
+            "for i = 1, n do\n" +
+            "  local h = redis.call('HGETALL', KEYS[i])\n" +
+            "  redis.call('DEL', KEYS[i])\n" +
+            "  redis.call('HINCRBY', KEYS[n + i], 'gen', 1)\n" +
+            "  redis.call('HINCRBY', KEYS[n + i], 'inflight', 1)\n" +
+            "  redis.call('EXPIRE', KEYS[n + i], ARGV[n + 1])\n" +
+            "  table.insert(out, ARGV[i])\n" +
+            "  table.insert(out, tostring(#h / 2))\n" +
+            "  for j = 1, #h do table.insert(out, h[j]) end\n" +
+            "end\n" +
+            "return out",
+            List.class);
+
+    /**
+     * 写回结束脚本（成功写入数据库或增量已放回 Redis 后）：gen 加一，inflight 减一（不小于 0）
+     * KEYS=epoch；ARGV[1]=过期秒数
+     */
+    private static final DefaultRedisScript<Long> DONE_SCRIPT = new DefaultRedisScript<>(
+            "for i, key in ipairs(KEYS) do\n" +
+            "  redis.call('HINCRBY', key, 'gen', 1)\n" +
+            "  if redis.call('HINCRBY', key, 'inflight', -1) < 0 then redis.call('HSET', key, 'inflight', 0) end\n" +
+            "  redis.call('EXPIRE', key, ARGV[1])\n" +
+            "end\n" +
+            "return #KEYS",
+            Long.class);
+
+    /**
+     * 参与 Redis 计数的字段
+     */
+    private static final List<PostStatField> FIELDS =
+            List.of(PostStatField.LIKE, PostStatField.FAV, PostStatField.COMMENT, PostStatField.SHARE);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private PostStatMapper postStatMapper;
+
+    @Autowired
+    private HotRankService hotRankService;
+
+    @Autowired
+    private FeedProperties feedProperties;
+
+    /**
+     * 退化为直接更新数据库、但未能删除 Redis 计数的动态ID，使用前先删除其计数
+     */
+    private final Set<Long> staleCounters = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public long increment(Long postId, PostStatField field, long delta) {
+        checkField(field);
+        long value;
+        try {
+            value = incrementInRedis(postId, field, delta);
+        } catch (Exception e) {
+            log.error("Redis 累加互动计数失败，直接更新数据库: postId={}, field={}, error={}",
+                    postId, field, e.getMessage());
+            incrementInDb(postId, field, delta);
+            evictCounter(postId);
+            value = readFromDb(postId, field);
+        }
+        try {
+            hotRankService.onStatChanged(postId, field, delta);
+        } catch (Exception e) {
+            log.error("更新动态热度失败: postId={}, field={}, error={}", postId, field, e.getMessage());
+        }
+        return value;
+    }
+
+    @Override
+    public long getCount(Long postId, PostStatField field) {
+        checkField(field);
+        try {
+            evictStale(postId);
+            Object value = stringRedisTemplate.opsForHash().get(COUNTER_KEY + postId, hashField(field));
+            if (value == null) {
+                seed(postId);
+                value = stringRedisTemplate.opsForHash().get(COUNTER_KEY + postId, hashField(field));
+            }
+            return value == null ? 0 : Long.parseLong(value.toString());
+        } catch (Exception e) {
+            log.error("读取互动计数失败，改为读取数据库: postId={}, field={}, error={}", postId, field, e.getMessage());
+            return readFromDb(postId, field);
+        }
+    }
+
+    @Override
+    public Map<Long, PostStatPO> getStats(Collection<Long> postIds) {
+        if (postIds == null || postIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<Long, PostStatPO> stats = postStatMapper.selectBatchIds(postIds).stream()
+                .collect(Collectors.toMap(PostStatPO::getPostId, Function.identity(), (a, b) -> a));
+        getLiveCounts(postIds).forEach((postId, counts) -> {
+            PostStatPO stat = stats.computeIfAbsent(postId, id -> {
+                PostStatPO empty = new PostStatPO();
+                empty.setPostId(id);
+                empty.setViewCnt(0);
+                return empty;
+            });
+            counts.forEach((field, count) -> setField(stat, field, count));
+        });
+        return stats;
+    }
+
+    @Override
+    public Map<Long, Map<PostStatField, Long>> getLiveCounts(Collection<Long> postIds) {
+        if (postIds == null || postIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        // 有未删除旧计数的动态不读 Redis，由调用方使用数据库值
+        List<Long> ids = postIds.stream().filter(id -> !staleCounters.contains(id)).collect(Collectors.toList());
+        if (ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<String> hashFields = FIELDS.stream().map(this::hashField).collect(Collectors.toList());
+        try {
+            List<Object> results = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection conn = (StringRedisConnection) connection;
+                for (Long id : ids) {
+                    conn.hMGet(COUNTER_KEY + id, hashFields.toArray(new String[0]));
+                }
+                return null;
+            });
+            Map<Long, Map<PostStatField, Long>> live = new HashMap<>();
+            for (int i = 0; i < ids.size(); i++) {
+                List<?> values = (List<?>) results.get(i);
+                if (values == null || values.stream().allMatch(v -> v == null)) {
+                    continue;
+                }
+                Map<PostStatField, Long> counts = new EnumMap<>(PostStatField.class);
+                for (int j = 0; j < FIELDS.size(); j++) {
+                    Object v = values.get(j);
+                    counts.put(FIELDS.get(j), v == null ? 0L : Long.parseLong(v.toString()));
+                }
+                live.put(ids.get(i), counts);
+            }
+            return live;
+        } catch (Exception e) {
+            log.error("批量读取互动计数失败: postIds={}, error={}", postIds, e.getMessage());
+            return Collections.emptyMap();
+        }
+    }
+
+    @Override
+    public int flushDeltas() {
+        staleCounters.forEach(this::evictStale);
+        int batchSize = Math.max(1, feedProperties.getCounter().getBatchSize());
+        List<String> ids = stringRedisTemplate.opsForSet().pop(DIRTY_KEY, batchSize);
+        if (ids == null || ids.isEmpty()) {
+            return 0;
+        }
+        List<String> keys = new ArrayList<>(ids.size() * 2);
+        ids.forEach(id -> keys.add(DELTA_KEY + id));
+        List<String> epochKeys = ids.stream().map(id -> EPOCH_KEY + id).collect(Collectors.toList());
+        keys.addAll(epochKeys);
+        List<String> args = new ArrayList<>(ids);
+        args.add(String.valueOf(FLUSH_GUARD_SECONDS));
+        List<?> taken = stringRedisTemplate.execute(TAKE_SCRIPT, keys, args.toArray());
+        try {
+            List<PostStatPO> rows = parseDeltas(taken);
+            if (rows.isEmpty()) {
+                return ids.size();
+            }
+            // 固定加锁顺序，避免多个节点同时写回时互相死锁
+            rows.sort(Comparator.comparing(PostStatPO::getPostId));
+            try {
+                postStatMapper.batchAddCounters(rows);
+            } catch (Exception e) {
+                log.error("互动计数写回数据库失败，增量放回 Redis: 数量={}, error={}", rows.size(), e.getMessage());
+                restoreDeltas(rows);
+                throw e;
+            }
+            return ids.size();
+        } finally {
+            finishFlush(epochKeys);
+        }
+    }
+
+    private long incrementInRedis(Long postId, PostStatField field, long delta) {
+        evictStale(postId);
+        List<String> keys = List.of(COUNTER_KEY + postId, DELTA_KEY + postId, DIRTY_KEY);
+        String ttl = String.valueOf(TimeUnit.DAYS.toSeconds(feedProperties.getCounter().getTtlDays()));
+        for (int attempt = 0; attempt < 2; attempt++) {
+            Long value = stringRedisTemplate.execute(INCR_SCRIPT, keys,
+                    hashField(field), String.valueOf(delta), ttl, String.valueOf(postId));
+            if (value != null && value >= 0) {
+                return value;
+            }
+            seed(postId);
+        }
+        throw new IllegalStateException("互动计数初始化失败: postId=" + postId);
+    }
+
+    /**
+     * 从 post_stats 载入计数到 Redis；与写回冲突时稍后重试
+     *
+     * @throws IllegalStateException 多次与写回冲突
+     */
+    private void seed(Long postId) {
+        List<String> keys = List.of(COUNTER_KEY + postId, DELTA_KEY + postId, EPOCH_KEY + postId);
+        String ttl = String.valueOf(TimeUnit.DAYS.toSeconds(feedProperties.getCounter().getTtlDays()));
+        for (int attempt = 1; attempt <= SEED_ATTEMPTS; attempt++) {
+            List<Object> epoch = stringRedisTemplate.opsForHash().multiGet(EPOCH_KEY + postId, List.of("gen", "inflight"));
+            String gen = epoch.get(0) == null ? "0" : epoch.get(0).toString();
+            boolean inflight = epoch.get(1) != null && Long.parseLong(epoch.get(1).toString()) > 0;
+            if (!inflight) {
+                PostStatPO stat = postStatMapper.selectById(postId);
+                List<String> args = new ArrayList<>();
+                args.add(ttl);
+                args.add(gen);
+                for (PostStatField field : FIELDS) {
+                    args.add(hashField(field));
+                    args.add(String.valueOf(stat == null ? 0 : getField(stat, field)));
+                }
+                Long result = stringRedisTemplate.execute(SEED_SCRIPT, keys, args.toArray());
+                if (result != null && result >= 0) {
+                    return;
+                }
+            }
+            if (attempt < SEED_ATTEMPTS) {
+                try {
+                    Thread.sleep(SEED_RETRY_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        throw new IllegalStateException("互动计数正在写回，暂不载入: postId=" + postId);
+    }
+
+    /**
+     * 写回结束，允许再次载入；失败时 epoch 在保护时间后过期
+     */
+    private void finishFlush(List<String> epochKeys) {
+        try {
+            stringRedisTemplate.execute(DONE_SCRIPT, epochKeys,
+                    String.valueOf(TimeUnit.DAYS.toSeconds(feedProperties.getCounter().getTtlDays())));
+        } catch (Exception e) {
+            log.error("登记互动计数写回结束失败: 数量={}, error={}", epochKeys.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * 直接更新数据库后删除 Redis 计数，下次使用时从数据库重新载入；删除失败则记下
+     */
+    private void evictCounter(Long postId) {
+        try {
+            stringRedisTemplate.delete(COUNTER_KEY + postId);
+            staleCounters.remove(postId);
+        } catch (Exception e) {
+            staleCounters.add(postId);
+        }
+    }
+
+    /**
+     * 删除之前未能删除的旧计数
+     */
+    private void evictStale(Long postId) {
+        if (staleCounters.contains(postId)) {
+            stringRedisTemplate.delete(COUNTER_KEY + postId);
+            staleCounters.remove(postId);
+        }
+    }
+
+    private List<PostStatPO> parseDeltas(List<?> taken) {
+        List<PostStatPO> rows = new ArrayList<>();
+        if (taken == null) {
+            return rows;
+        }
+        int i = 0;
+        while (i < taken.size()) {
+            Long postId = Long.valueOf(taken.get(i++).toString());
+            int n = Integer.parseInt(taken.get(i++).toString());
+            PostStatPO row = emptyDelta(postId);
+            boolean changed = false;
+            for (int j = 0; j < n; j++) {
+                String name = taken.get(i++).toString();
+                long delta = Long.parseLong(taken.get(i++).toString());
+                for (PostStatField field : FIELDS) {
+                    if (hashField(field).equals(name) && delta != 0) {
+                        setField(row, field, delta);
+                        changed = true;
+                    }
+                }
+            }
+            if (changed) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    private void restoreDeltas(List<PostStatPO> rows) {
+        try {
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection conn = (StringRedisConnection) connection;
+                for (PostStatPO row : rows) {
+                    for (PostStatField field : FIELDS) {
+                        long delta = getField(row, field);
+                        if (delta != 0) {
+                            conn.hIncrBy(DELTA_KEY + row.getPostId(), hashField(field), delta);
+                        }
+                    }
+                    conn.sAdd(DIRTY_KEY, String.valueOf(row.getPostId()));
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.error("互动计数增量放回 Redis 失败，数据库计数将偏差: rows={}, error={}", rows, e.getMessage());
+        }
+    }
+
+    private void incrementInDb(Long postId, PostStatField field, long delta) {
+        PostStatPO row = emptyDelta(postId);
+        setField(row, field, delta);
+        postStatMapper.batchAddCounters(List.of(row));
+    }
+
+    private long readFromDb(Long postId, PostStatField field) {
+        PostStatPO stat = postStatMapper.selectById(postId);
+        return stat == null ? 0 : getField(stat, field);
+    }
+
+    private PostStatPO emptyDelta(Long postId) {
+        PostStatPO row = new PostStatPO();
+        row.setPostId(postId);
+        row.setLikeCnt(0);
+        row.setFavCnt(0);
+        row.setCommentCnt(0);
+        row.setShareCnt(0);
+        return row;
+    }
+
+    private void checkField(PostStatField field) {
+        if (field == null || field == PostStatField.VIEW) {
+            throw new IllegalArgumentException("不支持的计数字段: " + field);
+        }
+    }
+
+    private String hashField(PostStatField field) {
+        return field.name().toLowerCase();
+    }
+
+    private long getField(PostStatPO stat, PostStatField field) {
+        Integer value = switch (field) {
+            case LIKE -> stat.getLikeCnt();
+            case FAV -> stat.getFavCnt();
+            case COMMENT -> stat.getCommentCnt();
+            case SHARE -> stat.getShareCnt();
+            case VIEW -> stat.getViewCnt();
+        };
+        return value == null ? 0 : value;
+    }
+
+    private void setField(PostStatPO stat, PostStatField field, long value) {
+        int v = (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, value));
+        switch (field) {
+            case LIKE -> stat.setLikeCnt(v);
+            case FAV -> stat.setFavCnt(v);
+            case COMMENT -> stat.setCommentCnt(v);
+            case SHARE -> stat.setShareCnt(v);
+            case VIEW -> stat.setViewCnt(v);
+        }
+    }
+}
@@ -8,33 +8,42 @@ import com.xiaoyua.dto.post.PostCreateDTO;
 import com.xiaoyua.dto.post.PostQueryDTO;
 import com.xiaoyua.dto.post.PostUpdateDTO;
 import com.xiaoyua.entity.PostPO;
-import com.xiaoyua.entity.PostFilePO;
-import com.xiaoyua.entity.PostStatPO;
 import com.xiaoyua.mapper.PostMapper;
 import com.xiaoyua.mapper.PostFileMapper;
-import com.xiaoyua.mapper.PostStatMapper;
 import com.xiaoyua.service.LikeService;
 import com.xiaoyua.service.PostService;
 import com.xiaoyua.service.ShareService;
 import com.xiaoyua.service.FavService;
+import com.xiaoyua.service.HotRankService;
+import com.xiaoyua.service.CampusFeedService;
 import com.xiaoyua.service.CommentService;
-import com.xiaoyua.service.MessageService;
-import com.xiaoyua.mapper.UserMapper;
-import com.xiaoyua.entity.UserPO;
+import com.xiaoyua.service.TimelineService;
+import com.xiaoyua.service.VisibilityResolver;
+import com.xiaoyua.service.assembler.PostVOAssembler;
+import com.xiaoyua.service.cache.PostDetailCache;
+import com.xiaoyua.service.counter.ViewCountBuffer;
+import com.xiaoyua.service.pipeline.PostPublishPipeline;
 import com.xiaoyua.vo.post.PostVO;
-import com.xiaoyua.vo.post.PostStatsVO;
-import com.xiaoyua.vo.post.PostUserActionsVO;
 import com.xiaoyua.vo.common.PageResult;
+import com.xiaoyua.utils.CursorUtil;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
+@Slf4j
 @RequiredArgsConstructor
 public class PostServiceImpl implements PostService {
 
@@ -49,9 +58,14 @@ public class PostServiceImpl implements PostService {
     private final CommentService commentService;
     private final ShareService shareService;
     private final FavService favService;
-    private final MessageService messageService;
-    private final UserMapper userMapper;
-    private final PostStatMapper postStatMapper;
+    private final PostVOAssembler postVOAssembler;
+    private final TimelineService timelineService;
+    private final HotRankService hotRankService;
+    private final PostDetailCache postDetailCache;
+    private final ViewCountBuffer viewCountBuffer;
+    private final VisibilityResolver visibilityResolver;
+    private final CampusFeedService campusFeedService;
+    private final PostPublishPipeline postPublishPipeline;
 
     @Override
     @Transactional(rollbackFor = Exception.class)
@@ -80,27 +94,27 @@ public class PostServiceImpl implements PostService {
         post.setPoiName(postCreateDTO.getPoiName());
         post.setIsTop(0);
         post.setStatus(PostPO.Status.PUBLISHED);
-        post.setCreatedAt(LocalDateTime.now());
-        post.setUpdatedAt(LocalDateTime.now());
+        // DATETIME 只保存到秒，去掉纳秒使内存中的发布时间与库中一致（时间线、校区环的分数依赖它）
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        post.setCreatedAt(now);
+        post.setUpdatedAt(now);
 
         postMapper.insert(post);
-        // 初始化统计记录
-        postStatMapper.initIfAbsent(post.getId());
-
-        // 关联文件（如果有）
-        if (postCreateDTO.getFileIds() != null && !postCreateDTO.getFileIds().isEmpty()) {
-            int sort = 0;
-            for (Long fileId : postCreateDTO.getFileIds()) {
-                PostFilePO rel = new PostFilePO();
-                rel.setPostId(post.getId());
-                rel.setFileId(fileId);
-                rel.setSort(sort++);
-                postFileMapper.insert(rel);
-            }
+
+        // 关联文件（如果有）：去重后一条多行 INSERT 写入
+        List<Long> fileIds = postCreateDTO.getFileIds() == null ? List.of()
+                : postCreateDTO.getFileIds().stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        if (!fileIds.isEmpty()) {
+            postFileMapper.insertBatch(post.getId(), fileIds);
         }
 
-        // 返回详情或概要，这里复用现有转换
-        return getPostDetail(post.getId());
+        // 统计初始化、话题关联、时间线分发、热榜等在事务提交后异步执行，避免读者拿到未提交的动态ID；
+        // 待办与动态同一事务写入，异步任务丢失时由补偿任务重新提交
+        List<String> topics = postPublishPipeline.record(post, postCreateDTO.getTopicNames());
+        runAfterCommit(() -> postPublishPipeline.submit(post, topics));
+
+        // 直接由内存中的数据组装返回值，不回读详情（也不计入浏览数）
+        return postVOAssembler.assembleCreated(post, fileIds);
     }
 
     @Override
@@ -110,33 +124,26 @@ public class PostServiceImpl implements PostService {
         if (pageSize == null || pageSize < 1)
             pageSize = 20;
 
-        QueryWrapper<PostPO> queryWrapper = new QueryWrapper<>();
-        queryWrapper.eq("status", "PUBLISHED");
-
-        Long currentUserId = BaseContext.getCurrentId();
-        if (currentUserId == null) {
-            // 未登录仅公开
-            queryWrapper.eq("visibility", "PUBLIC");
-        } else {
-            // 登录：公开/好友/校园（简化：用 OR 组合；严格权限在详情或后续增强）
-            queryWrapper.and(w -> w.eq("visibility", "PUBLIC")
-                    .or().eq("visibility", "FRIEND")
-                    .or().eq("visibility", "CAMPUS"));
-        }
-
         if ("hot".equalsIgnoreCase(sort)) {
-            queryWrapper.orderByDesc("like_cnt", "comment_cnt", "created_at");
-        } else {
-            queryWrapper.orderByDesc("is_top", "created_at");
+            // 热门：直接读全站热榜区间
+            return pageFromHotRank(hotRankService.rangeGlobal((pageNum - 1) * pageSize, pageSize),
+                    pageNum, pageSize, hotRankService.countGlobal());
         }
 
+        QueryWrapper<PostPO> queryWrapper = buildListAllWrapper();
+        applyLatestOrder(queryWrapper);
+
         Page<PostPO> page = new Page<>(pageNum, pageSize);
         IPage<PostPO> postPage = postMapper.selectPage(page, queryWrapper);
-        List<PostVO> vos = postPage.getRecords().stream().map(this::convertToVO)
-                .collect(java.util.stream.Collectors.toList());
+        List<PostVO> vos = postVOAssembler.assemble(filterVisible(postPage.getRecords()));
         return PageResult.of(vos, pageNum, pageSize, postPage.getTotal());
     }
 
+    @Override
+    public PageResult<PostVO> listAllByCursor(String cursor, Integer pageSize) {
+        return selectByCursor(buildListAllWrapper(), cursor, pageSize);
+    }
+
     @Override
     public PageResult<PostVO> listByUser(Long userId, Integer pageNum, Integer pageSize, String sort) {
         if (userId == null || userId <= 0)
@@ -146,81 +153,120 @@ public class PostServiceImpl implements PostService {
         if (pageSize == null || pageSize < 1)
             pageSize = 20;
 
-        QueryWrapper<PostPO> queryWrapper = new QueryWrapper<>();
-        queryWrapper.eq("status", "PUBLISHED");
-        queryWrapper.eq("user_id", userId);
-
-        Long viewerId = BaseContext.getCurrentId();
-        if (viewerId == null) {
-            queryWrapper.eq("visibility", "PUBLIC");
-        } else if (!userId.equals(viewerId)) {
-            boolean isFriend = false;
-            boolean sameCampus = false;
-            try {
-                isFriend = messageService.isFriend(userId, viewerId);
-            } catch (Exception ignored) {
-            }
-            try {
-                var owner = userMapper.selectById(userId);
-                var viewer = userMapper.selectById(viewerId);
-                sameCampus = owner != null && viewer != null && owner.getCampusId() != null
-                        && owner.getCampusId().equals(viewer.getCampusId());
-            } catch (Exception ignored) {
-            }
-
-            // 仅允许可见范围
-            if (isFriend && sameCampus) {
-                queryWrapper.and(w -> w.eq("visibility", "PUBLIC").or().eq("visibility", "FRIEND").or().eq("visibility",
-                        "CAMPUS"));
-            } else if (isFriend) {
-                queryWrapper.and(w -> w.eq("visibility", "PUBLIC").or().eq("visibility", "FRIEND"));
-            } else if (sameCampus) {
-                queryWrapper.and(w -> w.eq("visibility", "PUBLIC").or().eq("visibility", "CAMPUS"));
-            } else {
-                queryWrapper.eq("visibility", "PUBLIC");
-            }
-        }
-
-        if ("hot".equalsIgnoreCase(sort)) {
-            queryWrapper.orderByDesc("like_cnt", "comment_cnt", "created_at");
-        } else {
-            queryWrapper.orderByDesc("is_top", "created_at");
-        }
+        QueryWrapper<PostPO> queryWrapper = buildListByUserWrapper(userId);
+        applyLatestOrder(queryWrapper);
 
         Page<PostPO> page = new Page<>(pageNum, pageSize);
         IPage<PostPO> postPage = postMapper.selectPage(page, queryWrapper);
-        List<PostVO> vos = postPage.getRecords().stream().map(this::convertToVO)
-                .collect(java.util.stream.Collectors.toList());
+        List<PostVO> vos = postVOAssembler.assemble(postPage.getRecords());
         return PageResult.of(vos, pageNum, pageSize, postPage.getTotal());
     }
 
+    @Override
+    public PageResult<PostVO> listByUserByCursor(Long userId, String cursor, Integer pageSize) {
+        if (userId == null || userId <= 0)
+            throw new IllegalArgumentException("userId 无效");
+        return selectByCursor(buildListByUserWrapper(userId), cursor, pageSize);
+    }
+
     @Override
     public java.util.List<PostVO> listHot(Integer limit) {
         int topN = (limit == null || limit <= 0) ? 10 : limit;
-        java.util.List<PostPO> list = postMapper.selectHotPosts(topN);
-        return list.stream().map(this::convertToVO).collect(java.util.stream.Collectors.toList());
+        return postVOAssembler.assemble(loadPublishedInOrder(hotRankService.rangeGlobal(0, topN)));
+    }
+
+    @Override
+    public PageResult<PostVO> getTimeline(Integer pageNum, Integer pageSize) {
+        if (pageNum == null || pageNum < 1)
+            pageNum = 1;
+        if (pageSize == null || pageSize < 1)
+            pageSize = 20;
+
+        Long viewerId = BaseContext.getCurrentId();
+        if (viewerId == null) {
+            // 未登录没有收件箱，退化为公开动态列表
+            return listAll(pageNum, pageSize, "latest");
+        }
+
+        List<Long> postIds = timelineService.readTimeline(viewerId, (pageNum - 1) * pageSize, pageSize);
+        List<PostVO> vos = postVOAssembler.assemble(loadPublishedInOrder(postIds));
+        return PageResult.of(vos, pageNum, pageSize, timelineService.countTimeline(viewerId));
     }
 
     @Override
     public PageResult<PostVO> getPosts(PostQueryDTO postQueryDTO) {
+        if ("timeline".equals(postQueryDTO.getType()) && BaseContext.getCurrentId() != null) {
+            if (postQueryDTO.getCursor() != null) {
+                return selectTimelineByCursor(BaseContext.getCurrentId(), postQueryDTO.getCursor(),
+                        postQueryDTO.getSize());
+            }
+            return getTimeline(postQueryDTO.getPage(), postQueryDTO.getSize());
+        }
         // 构建查询条件
         QueryWrapper<PostPO> queryWrapper = buildQueryWrapper(postQueryDTO);
+        // 热门：校区查询读校区热榜，指定用户按时间排序，其余读全站热榜
+        if ("hot".equals(postQueryDTO.getSort()) && postQueryDTO.getCursor() == null
+                && !("user".equals(postQueryDTO.getType()) && postQueryDTO.getUserId() != null)) {
+            int offset = (postQueryDTO.getPage() - 1) * postQueryDTO.getSize();
+            if ("campus".equals(postQueryDTO.getType()) && postQueryDTO.getCampusId() != null) {
+                Long campusId = postQueryDTO.getCampusId();
+                return pageFromHotRank(hotRankService.rangeCampus(campusId, offset, postQueryDTO.getSize()),
+                        postQueryDTO.getPage(), postQueryDTO.getSize(), hotRankService.countCampus(campusId));
+            }
+            return pageFromHotRank(hotRankService.rangeGlobal(offset, postQueryDTO.getSize()),
+                    postQueryDTO.getPage(), postQueryDTO.getSize(), hotRankService.countGlobal());
+        }
+        // 游标模式：按 (created_at, id) 取下一页，不统计总数；校区列表优先读校区最近动态环
+        if (postQueryDTO.getCursor() != null) {
+            if ("campus".equals(postQueryDTO.getType()) && postQueryDTO.getCampusId() != null) {
+                PageResult<PostVO> fromRing = selectCampusFromRing(postQueryDTO.getCampusId(),
+                        postQueryDTO.getCursor(), postQueryDTO.getSize());
+                if (fromRing != null) {
+                    return fromRing;
+                }
+            }
+            return selectByCursor(queryWrapper, postQueryDTO.getCursor(), postQueryDTO.getSize());
+        }
+        applyLatestOrder(queryWrapper);
         // 创建分页对象
         Page<PostPO> page = new Page<>(postQueryDTO.getPage(), postQueryDTO.getSize());
 
         // 执行分页查询
         IPage<PostPO> postPage = postMapper.selectPage(page, queryWrapper);
 
-        // 转换为VO并填充用户操作状态
-        List<PostVO> postVOList = postPage.getRecords().stream()
-                .map(this::convertToVO)
-                .collect(Collectors.toList());
+        // 整页批量组装VO并填充用户操作状态
+        List<PostVO> postVOList = postVOAssembler.assemble(filterVisible(postPage.getRecords()));
         // 返回分页结果
         return PageResult.of(postVOList, postQueryDTO.getPage(), postQueryDTO.getSize(), postPage.getTotal());
     }
 
     @Override
     public PostVO getPostDetail(Long postId) {
+        // 两级缓存读取与查看者无关的详情，未命中时从数据库组装
+        PostDetailCache.Entry entry = postDetailCache.get(postId, () -> loadPostDetail(postId));
+        PostVO cached = entry.getPost();
+
+        // 权限检查
+        Long currentUserId = BaseContext.getCurrentId();
+        if (!visibilityResolver.canView(currentUserId, entry.getAuthorId(), cached.getVisibility())) {
+            throw new RuntimeException("无权限查看该动态");
+        }
+
+        // 增加浏览量：先记入内存缓冲，由定时任务批量写库（浏览数变化不使缓存失效，允许短暂滞后）
+        viewCountBuffer.record(postId);
+
+        // 缓存对象是共享的，复制后再叠加实时互动计数和当前用户的点赞/收藏状态
+        PostVO postVO = new PostVO();
+        BeanUtils.copyProperties(cached, postVO);
+        postVOAssembler.overlayLiveCounts(List.of(postVO));
+        postVOAssembler.overlayUserActions(List.of(postVO));
+        return postVO;
+    }
+
+    /**
+     * 从数据库组装动态详情缓存条目（不含查看者相关字段）
+     */
+    private PostDetailCache.Entry loadPostDetail(Long postId) {
         // 根据ID查询动态
         PostPO postPO = postMapper.selectById(postId);
 
@@ -234,17 +280,8 @@ public class PostServiceImpl implements PostService {
             throw new RuntimeException("动态不可访问");
         }
 
-        // 权限检查
-        Long currentUserId = BaseContext.getCurrentId();
-        if (!hasViewPermission(postPO, currentUserId)) {
-            throw new RuntimeException("无权限查看该动态");
-        }
-
-        // 增加浏览量
-        try { postStatMapper.incView(postId); } catch (Exception ignored) {}
-
-        // 转换为VO并返回（包含最新统计）
-        return convertToVO(postPO);
+        PostVO postVO = postVOAssembler.assembleShared(List.of(postPO)).get(0);
+        return new PostDetailCache.Entry(postPO.getUserId(), postVO, 0);
     }
 
     /**
@@ -262,139 +299,165 @@ public class PostServiceImpl implements PostService {
             // 查询指定用户的动态
             queryWrapper.eq("user_id", postQueryDTO.getUserId());
         } else if ("campus".equals(type) && postQueryDTO.getCampusId() != null) {
-            // 查询指定校园的动态
+            // 查询指定校园的公开/校园可见动态，校园可见是否对当前用户开放在组装前过滤
             queryWrapper.eq("campus_id", postQueryDTO.getCampusId());
-        } else if ("timeline".equals(type)) {
-            // 时间线：查询当前用户可见的动态（公开 + 好友 + 校园）
-            Long currentUserId = BaseContext.getCurrentId();
-            if (currentUserId != null) {
-                queryWrapper.and(wrapper -> wrapper
-                        .eq("visibility", "PUBLIC")
-                        .or().eq("visibility", "FRIEND") // 这里应该结合好友关系表查询
-                        .or().eq("visibility", "CAMPUS") // 这里应该结合校园关系查询
-                );
-            } else {
-                // 未登录用户
-                queryWrapper.eq("visibility", "PUBLIC");
-            }
+            queryWrapper.in("visibility", "PUBLIC", "CAMPUS");
         } else {
+            // 登录用户的时间线走 getTimeline，这里只剩公开动态
             queryWrapper.eq("visibility", "PUBLIC");
         }
 
-        // 排序
-        if ("hot".equals(postQueryDTO.getSort())) {
-            // 热门排序：按点赞数、评论数、创建时间综合排序
-            queryWrapper.orderByDesc("like_cnt", "comment_cnt", "created_at");
-        } else {
-            // 最新排序：按创建时间倒序，置顶优先
-            queryWrapper.orderByDesc("is_top", "created_at");
-        }
-
         return queryWrapper;
     }
 
     /**
-     * 检查用户是否有权限查看动态
+     * 全部动态列表的过滤条件（不含排序）
      */
-    private boolean hasViewPermission(PostPO postPO, Long currentUserId) {
-        String visibility = postPO.getVisibility().name();
+    private QueryWrapper<PostPO> buildListAllWrapper() {
+        QueryWrapper<PostPO> queryWrapper = new QueryWrapper<>();
+        queryWrapper.eq("status", "PUBLISHED");
 
-        // 公开动态，所有人可见
-        if ("PUBLIC".equals(visibility)) {
-            return true;
-        }
-        // 未登录用户只能看公开动态
+        Long currentUserId = BaseContext.getCurrentId();
         if (currentUserId == null) {
-            return false;
-        }
-        // 自己的动态总是可见
-        if (postPO.getUserId().equals(currentUserId)) {
-            return true;
-        }
-        // 好友可见：需要检查好友关系
-        if ("FRIEND".equals(visibility)) {
-            try {
-                return messageService.isFriend(postPO.getUserId(), currentUserId);
-            } catch (Exception e) {
-                return false;
-            }
+            // 未登录仅公开
+            queryWrapper.eq("visibility", "PUBLIC");
+        } else {
+            // 登录：公开/好友/校园（简化：用 OR 组合；严格权限在详情或后续增强）
+            queryWrapper.and(w -> w.eq("visibility", "PUBLIC")
+                    .or().eq("visibility", "FRIEND")
+                    .or().eq("visibility", "CAMPUS"));
         }
-        // 校园可见：需要检查是否同校园
-        if ("CAMPUS".equals(visibility)) {
-            try {
-                UserPO owner = userMapper.selectById(postPO.getUserId());
-                UserPO viewer = userMapper.selectById(currentUserId);
-                if (owner == null || viewer == null)
-                    return false;
-                return owner.getCampusId() != null && owner.getCampusId().equals(viewer.getCampusId());
-            } catch (Exception e) {
-                return false;
+        return queryWrapper;
+    }
+
+    /**
+     * 指定用户动态列表的过滤条件（不含排序），按查看者与作者的关系限定可见范围
+     */
+    private QueryWrapper<PostPO> buildListByUserWrapper(Long userId) {
+        QueryWrapper<PostPO> queryWrapper = new QueryWrapper<>();
+        queryWrapper.eq("status", "PUBLISHED");
+        queryWrapper.eq("user_id", userId);
+
+        Long viewerId = BaseContext.getCurrentId();
+        if (viewerId == null) {
+            queryWrapper.eq("visibility", "PUBLIC");
+        } else if (!userId.equals(viewerId)) {
+            // 仅允许可见范围；被拉黑时没有任何可见范围，直接返回空结果
+            List<String> scopes = visibilityResolver.visibleScopes(viewerId, userId);
+            if (scopes.isEmpty()) {
+                queryWrapper.apply("1 = 0");
+            } else {
+                queryWrapper.in("visibility", scopes);
             }
         }
-        return false;
+        return queryWrapper;
     }
 
     /**
-     * 转换为VO对象
+     * 页码模式的排序：按创建时间倒序，置顶优先。
+     * 热门排序走热榜 ZSET，单个用户的动态列表较短，热门时同样按时间排序。
      */
-    private PostVO convertToVO(PostPO postPO) {
-        PostVO postVO = new PostVO();
-        postVO.setId(postPO.getId());
-        postVO.setTitle(postPO.getTitle());
-        postVO.setContent(postPO.getContent());
-        postVO.setCampusId(postPO.getCampusId());
-        postVO.setVisibility(postPO.getVisibility().name());
-        postVO.setPoiName(postPO.getPoiName());
-        postVO.setIsTop(postPO.getIsTop());
-        postVO.setStatus(postPO.getStatus().name());
-        postVO.setCreatedAt(postPO.getCreatedAt());
-        postVO.setUpdatedAt(postPO.getUpdatedAt());
-
-        // 填充用户信息这里需要根据userId查询用户信息
-        // TODO: 实现用户信息查询和转换
-
-        // 填充统计信息（来自 post_stats）
-        PostStatsVO stats = new PostStatsVO();
+    private void applyLatestOrder(QueryWrapper<PostPO> queryWrapper) {
+        queryWrapper.orderByDesc("is_top", "created_at");
+    }
+
+    /**
+     * 由热榜ID区间组装分页结果
+     */
+    private PageResult<PostVO> pageFromHotRank(List<Long> postIds, Integer pageNum, Integer pageSize, long total) {
+        return PageResult.of(postVOAssembler.assemble(loadPublishedInOrder(postIds)), pageNum, pageSize, total);
+    }
+
+    /**
+     * 游标模式查询：按 (created_at, id) 倒序取 size + 1 条，不执行 COUNT
+     */
+    private PageResult<PostVO> selectByCursor(QueryWrapper<PostPO> queryWrapper, String cursor, Integer pageSize) {
+        int size = CursorUtil.pageSize(pageSize);
+        CursorUtil.applyKeyset(queryWrapper, cursor, size);
+        List<PostPO> rows = postMapper.selectList(queryWrapper);
+        String nextCursor = CursorUtil.nextCursor(rows, size, PostPO::getCreatedAt, PostPO::getId);
+        return PageResult.ofCursor(postVOAssembler.assemble(filterVisible(rows)), size, nextCursor);
+    }
+
+    /**
+     * 时间线游标分页：游标为上一页最后一条的 (发布时间, 动态ID)，多取一条判断是否还有下一页
+     */
+    private PageResult<PostVO> selectTimelineByCursor(Long viewerId, String cursor, Integer pageSize) {
+        int size = CursorUtil.pageSize(pageSize);
+        CursorUtil.Cursor after = CursorUtil.decode(cursor);
+        List<CursorUtil.Cursor> positions = timelineService.readTimelineAfter(viewerId, after, size + 1);
+        String nextCursor = CursorUtil.nextCursor(positions, size, CursorUtil.Cursor::getCreatedAt,
+                CursorUtil.Cursor::getId);
+        List<Long> ids = positions.stream().map(CursorUtil.Cursor::getId).collect(Collectors.toList());
+        return PageResult.ofCursor(postVOAssembler.assemble(loadPublishedInOrder(ids)), size, nextCursor);
+    }
+
+    /**
+     * 从校区最近动态环读取游标页；环覆盖不到时返回 null，由调用方回退数据库
+     */
+    private PageResult<PostVO> selectCampusFromRing(Long campusId, String cursor, Integer pageSize) {
+        int size = CursorUtil.pageSize(pageSize);
+        CursorUtil.Cursor after = CursorUtil.decode(cursor);
+        List<CursorUtil.Cursor> positions;
         try {
-            PostStatPO statPO = postStatMapper.selectById(postPO.getId());
-            if (statPO != null) {
-                stats.setViewCnt(statPO.getViewCnt());
-                stats.setLikeCnt(statPO.getLikeCnt());
-                stats.setFavCnt(statPO.getFavCnt());
-                stats.setCommentCnt(statPO.getCommentCnt());
-                stats.setShareCnt(statPO.getShareCnt());
-            } else {
-                stats.setViewCnt(0);
-                stats.setLikeCnt(0);
-                stats.setFavCnt(0);
-                stats.setCommentCnt(0);
-                stats.setShareCnt(0);
-            }
+            positions = campusFeedService.range(campusId, after, size + 1);
         } catch (Exception e) {
-            stats.setViewCnt(0);
-            stats.setLikeCnt(0);
-            stats.setFavCnt(0);
-            stats.setCommentCnt(0);
-            stats.setShareCnt(0);
+            log.warn("读取校区最近动态环失败，回退数据库: campusId={}, error={}", campusId, e.getMessage());
+            return null;
         }
-        postVO.setStats(stats);
-
-        // 填充当前用户的操作状态
-        Long currentUserId = BaseContext.getCurrentId();
-        if (currentUserId != null) {
-            PostUserActionsVO userActions = new PostUserActionsVO();
-            // // 暂时设置默认值，等待服务接口方法确认
-            // userActions.setIsLiked(false);
-            // userActions.setIsFavorited(false);
-            // TODO: 实现用户操作状态查询
-            userActions.setIsLiked(likeService.isLiked(postPO.getId(), currentUserId, "POST"));
-            userActions.setIsFavorited(favService.isFavorited(postPO.getId(), currentUserId, "POST"));
-            postVO.setUserActions(userActions);
+        if (positions == null) {
+            return null;
         }
+        String nextCursor = CursorUtil.nextCursor(positions, size, CursorUtil.Cursor::getCreatedAt,
+                CursorUtil.Cursor::getId);
+        List<Long> postIds = positions.stream().map(CursorUtil.Cursor::getId).collect(Collectors.toList());
+        return PageResult.ofCursor(postVOAssembler.assemble(loadPublishedInOrder(postIds)), size, nextCursor);
+    }
 
-        // TODO: 填充文件列表、话题等关联数据
+    /**
+     * 过滤掉当前用户无权查看的动态（好友可见、校园可见），保持原有顺序
+     */
+    private List<PostPO> filterVisible(List<PostPO> rows) {
+        return visibilityResolver.filterVisible(BaseContext.getCurrentId(), rows, PostPO::getUserId,
+                p -> p.getVisibility() == null ? null : p.getVisibility().name());
+    }
 
-        return postVO;
+    /**
+     * 按ID批量加载动态，保持入参顺序并过滤掉已删除/非发布状态以及当前用户不可见的动态
+     */
+    private List<PostPO> loadPublishedInOrder(List<Long> postIds) {
+        if (postIds == null || postIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, PostPO> postMap = postMapper.selectBatchIds(postIds).stream()
+                .collect(Collectors.toMap(PostPO::getId, Function.identity()));
+        return filterVisible(postIds.stream()
+                .map(postMap::get)
+                .filter(p -> p != null && p.getStatus() == PostPO.Status.PUBLISHED)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * 当前存在事务时在提交后执行，否则立即执行；异常只记录日志不影响主流程
+     */
+    private void runAfterCommit(Runnable action) {
+        Runnable safe = () -> {
+            try {
+                action.run();
+            } catch (Exception e) {
+                log.error("动态发布后置处理失败: error={}", e.getMessage(), e);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    safe.run();
+                }
+            });
+        } else {
+            safe.run();
+        }
     }
 
     /**
@@ -408,6 +471,8 @@ public class PostServiceImpl implements PostService {
         if (postPO == null) {
             return;
         }
+        PostPO.Visibility oldVisibility = postPO.getVisibility();
+        Long oldCampusId = postPO.getCampusId();
         if (postUpdateDTO.getTitle() != null) {
             postPO.setTitle(postUpdateDTO.getTitle());
         }
@@ -424,5 +489,18 @@ public class PostServiceImpl implements PostService {
             postPO.setIsTop(postUpdateDTO.getIsTop());
         }
         postMapper.updateById(postPO);
+        postDetailCache.invalidate(postId);
+
+        // 可见范围或校区变化后重新登记热榜和校区动态环，保证全站榜只含公开动态
+        if (oldVisibility != postPO.getVisibility() || !Objects.equals(oldCampusId, postPO.getCampusId())) {
+            try {
+                hotRankService.remove(postId);
+                hotRankService.rescore(postPO);
+                campusFeedService.remove(postId, oldCampusId);
+                campusFeedService.register(postPO);
+            } catch (Exception e) {
+                log.error("更新动态热榜/校区动态环登记失败: postId={}, error={}", postId, e.getMessage());
+            }
+        }
     }
 }
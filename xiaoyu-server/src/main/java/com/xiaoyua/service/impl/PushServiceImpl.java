@@ -7,10 +7,18 @@ import com.xiaoyua.mq.message.PrivateMessage;
 import com.xiaoyua.mq.producer.MessageProducer;
 import com.xiaoyua.mq.producer.NotificationProducer;
 import com.xiaoyua.service.PushService;
+import com.xiaoyua.service.pipeline.NotificationCoalescer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * 独立推送服务实现类
  * 
@@ -29,6 +37,9 @@ public class PushServiceImpl implements PushService {
     @Autowired
     private UserMapper userMapper;
     
+    @Autowired
+    private NotificationCoalescer notificationCoalescer;
+    
     @Override
     public void pushNotification(Long userId, String type, String title, String content, 
                                 Long refId, String refType, Long fromUserId) {
@@ -53,11 +64,11 @@ public class PushServiceImpl implements PushService {
             
             notificationProducer.sendNotificationPush(message);
             
-            log.info("推送通知消息成功: userId={}, type={}, fromUserId={}", 
+            log.info("推送通知消息已提交: userId={}, type={}, fromUserId={}", 
                     userId, type, fromUserId);
             
         } catch (Exception e) {
-            log.error("推送通知消息失败: userId={}, type={}, error={}", 
+            log.error("提交推送通知消息失败: userId={}, type={}, error={}", 
                     userId, type, e.getMessage(), e);
         }
     }
@@ -84,17 +95,20 @@ public class PushServiceImpl implements PushService {
             
             messageProducer.sendMessagePush(message);
             
-            log.info("推送私信消息成功: originalMessageId={}, fromUserId={}, toUserId={}", 
+            log.info("推送私信消息已提交: originalMessageId={}, fromUserId={}, toUserId={}", 
                     originalMessageId, fromUserId, toUserId);
             
         } catch (Exception e) {
-            log.error("推送私信消息失败: originalMessageId={}, fromUserId={}, toUserId={}, error={}", 
+            log.error("提交推送私信消息失败: originalMessageId={}, fromUserId={}, toUserId={}, error={}", 
                     originalMessageId, fromUserId, toUserId, e.getMessage(), e);
         }
     }
     
     @Override
     public void pushLikeNotification(Long toUserId, Long fromUserId, Long itemId, String itemType) {
+        if (coalesce(toUserId, "LIKE", itemId, itemType, fromUserId)) {
+            return;
+        }
         UserPO fromUser = userMapper.selectById(fromUserId);
         String fromUserNickname = fromUser != null ? fromUser.getNickname() : "某用户";
         
@@ -106,6 +120,9 @@ public class PushServiceImpl implements PushService {
     
     @Override
     public void pushFavoriteNotification(Long toUserId, Long fromUserId, Long itemId, String itemType) {
+        if (coalesce(toUserId, "FAVORITE", itemId, itemType, fromUserId)) {
+            return;
+        }
         UserPO fromUser = userMapper.selectById(fromUserId);
         String fromUserNickname = fromUser != null ? fromUser.getNickname() : "某用户";
         
@@ -115,6 +132,54 @@ public class PushServiceImpl implements PushService {
         pushNotification(toUserId, "FAVORITE", title, content, itemId, itemType, fromUserId);
     }
     
+    @Override
+    public void pushCoalescedNotifications(List<NotificationCoalescer.Batch> batches) {
+        // 所有窗口展示的互动用户一次批量查询
+        Set<Long> actorIds = new HashSet<>();
+        batches.forEach(batch -> actorIds.addAll(batch.recentActorIds()));
+        Map<Long, UserPO> users = new HashMap<>();
+        if (!actorIds.isEmpty()) {
+            try {
+                userMapper.selectBatchIds(actorIds).forEach(u -> users.put(u.getId(), u));
+            } catch (Exception e) {
+                log.error("批量查询合并通知用户失败: userIds={}, error={}", actorIds, e.getMessage());
+            }
+        }
+        
+        List<NotificationMessage> messages = new ArrayList<>(batches.size());
+        for (NotificationCoalescer.Batch batch : batches) {
+            NotificationCoalescer.Key key = batch.key();
+            List<String> names = new ArrayList<>();
+            for (Long actorId : batch.recentActorIds()) {
+                UserPO user = users.get(actorId);
+                names.add(user != null ? user.getNickname() : "某用户");
+            }
+            boolean like = "LIKE".equals(key.type());
+            String title = like ? "收到新的点赞" : "收到新的收藏";
+            String content = String.format("%s %s了你的%s", describeActors(names, batch.count()),
+                    like ? "点赞" : "收藏", getContentTypeName(key.refType()));
+            
+            Long fromUserId = batch.recentActorIds().isEmpty() ? null : batch.recentActorIds().get(0);
+            NotificationMessage message = new NotificationMessage(
+                key.userId(), key.type(), title, content, key.refId(), key.refType(), fromUserId
+            );
+            message.setCount(batch.count());
+            UserPO fromUser = fromUserId != null ? users.get(fromUserId) : null;
+            if (fromUser != null) {
+                message.setFromUserNickname(fromUser.getNickname());
+                message.setFromUserAvatar(fromUser.getAvatarUrl());
+            }
+            messages.add(message);
+        }
+        
+        try {
+            notificationProducer.sendNotificationPushBatch(messages.toArray(new NotificationMessage[0]));
+            log.info("推送合并通知已提交: 通知数量={}", messages.size());
+        } catch (Exception e) {
+            log.error("提交推送合并通知失败: 通知数量={}, error={}", messages.size(), e.getMessage(), e);
+        }
+    }
+    
     @Override
     public void pushCommentNotification(Long toUserId, Long fromUserId, Long itemId, 
                                        String itemType, String commentContent) {
@@ -145,10 +210,38 @@ public class PushServiceImpl implements PushService {
         pushNotification(userId, "SYSTEM", title, content);
     }
     
+    /**
+     * 放入合并窗口
+     * 
+     * @return 已处理（进入窗口，或是给自己的互动无需通知）时返回 true；否则由调用方直接发送
+     */
+    private boolean coalesce(Long toUserId, String type, Long itemId, String itemType, Long fromUserId) {
+        // 不给自己发通知
+        if (toUserId == null || toUserId.equals(fromUserId)) {
+            return true;
+        }
+        NotificationCoalescer.Key key = NotificationCoalescer.Key.of(toUserId, type, itemId, itemType);
+        return notificationCoalescer.offer(key, fromUserId, System.currentTimeMillis());
+    }
+    
+    /**
+     * 合并通知的用户描述：A / A、B / A、B 等 N 人
+     */
+    static String describeActors(List<String> names, int count) {
+        if (names.isEmpty()) {
+            return count > 1 ? count + " 人" : "某用户";
+        }
+        String joined = String.join("、", names);
+        return count > names.size() ? joined + " 等 " + count + " 人" : joined;
+    }
+    
     /**
      * 获取内容类型中文名称
      */
     private String getContentTypeName(String itemType) {
+        if (itemType == null) {
+            return "内容";
+        }
         switch (itemType.toUpperCase()) {
             case "POST":
                 return "动态";
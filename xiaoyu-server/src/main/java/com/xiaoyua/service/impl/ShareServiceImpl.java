@@ -1,14 +1,15 @@
 package com.xiaoyua.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.xiaoyua.common.enums.PostStatField;
 import com.xiaoyua.entity.NotificationPO;
 import com.xiaoyua.entity.PostPO;
 import com.xiaoyua.entity.SharePO;
 import com.xiaoyua.entity.UserPO;
 import com.xiaoyua.mapper.PostMapper;
-import com.xiaoyua.mapper.PostStatMapper;
 import com.xiaoyua.mapper.ShareMapper;
 import com.xiaoyua.mapper.UserMapper;
+import com.xiaoyua.service.PostCounterService;
 import com.xiaoyua.service.PushService;
 import com.xiaoyua.service.ShareService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -27,11 +28,12 @@ public class ShareServiceImpl implements ShareService {
     @Autowired
     private UserMapper userMapper;
     
-    @Autowired
-    private PostStatMapper postStatMapper;
     
     @Autowired
     private PushService pushService;
+
+    @Autowired
+    private PostCounterService postCounterService;
     
     @Override
     public void addShare(Long postId, Long userId) {
@@ -42,7 +44,7 @@ public class ShareServiceImpl implements ShareService {
         share.setCreatedAt(LocalDateTime.now());
         shareMapper.insert(share);
         // 更新统计：分享+1
-        try { postStatMapper.incShare(postId); } catch (Exception ignored) {}
+        postCounterService.increment(postId, PostStatField.SHARE, 1);
         
         // 创建分享通知
         createShareNotification(postId, userId);
@@ -0,0 +1,356 @@
+package com.xiaoyua.service.impl;
+
+import com.xiaoyua.entity.PostPO;
+import com.xiaoyua.entity.UserPO;
+import com.xiaoyua.mapper.PostMapper;
+import com.xiaoyua.mapper.UserMapper;
+import com.xiaoyua.properties.FeedProperties;
+import com.xiaoyua.service.FriendGraphService;
+import com.xiaoyua.service.TimelineService;
+import com.xiaoyua.utils.CursorUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 首页时间线服务实现
+ * <p>
+ * Redis 结构：
+ * <ul>
+ *     <li>timeline:inbox:{userId}   用户收件箱 ZSET，member 为动态ID，score 为发布时间毫秒</li>
+ *     <li>timeline:outbox:{userId}  作者发件箱 ZSET，仅含公开/好友可见动态，供拉模式读取</li>
+ *     <li>timeline:campus:{campusId} 校区校园可见动态 ZSET，供拉模式读取</li>
+ *     <li>timeline:pull:authors / timeline:pull:campus 已切换为拉模式的作者/校区集合，受众回落到阈值以内时移出</li>
+ * </ul>
+ * 收件箱中放一个 score 为 0 的占位成员，用于区分"空收件箱"与"未构建"。
+ * </p>
+ *
+ * @author xiaoyu
+ */
+@Service
+@Slf4j
+public class TimelineServiceImpl implements TimelineService {
+
+    private static final String INBOX_KEY = "timeline:inbox:";
+    private static final String OUTBOX_KEY = "timeline:outbox:";
+    private static final String CAMPUS_KEY = "timeline:campus:";
+    private static final String PULL_AUTHORS_KEY = "timeline:pull:authors";
+    private static final String PULL_CAMPUS_KEY = "timeline:pull:campus";
+    private static final String PLACEHOLDER = "0";
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private PostMapper postMapper;
+
+    @Autowired
+    private FriendGraphService friendGraphService;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private FeedProperties feedProperties;
+
+    @Override
+    public void fanOut(PostPO post) {
+        if (post == null || post.getId() == null || post.getUserId() == null) {
+            return;
+        }
+        FeedProperties.Timeline config = feedProperties.getTimeline();
+        String member = String.valueOf(post.getId());
+        double score = toScore(post.getCreatedAt());
+        Long authorId = post.getUserId();
+
+        Collection<Long> audience = Collections.emptyList();
+        if (post.getVisibility() == PostPO.Visibility.CAMPUS) {
+            // 校园可见：受众为作者所在校区的用户
+            Long campusId = resolveCampusId(authorId);
+            if (campusId != null) {
+                addAndTrim(CAMPUS_KEY + campusId, member, score, config.getOutboxCapacity());
+                if (userMapper.countByCampusId(campusId) > config.getPushThreshold()) {
+                    stringRedisTemplate.opsForSet().add(PULL_CAMPUS_KEY, String.valueOf(campusId));
+                } else {
+                    audience = userMapper.selectIdsByCampusId(campusId);
+                    leavePullMode(PULL_CAMPUS_KEY, String.valueOf(campusId), audience);
+                }
+            }
+        } else {
+            // 公开/好友可见：受众为作者的好友
+            addAndTrim(OUTBOX_KEY + authorId, member, score, config.getOutboxCapacity());
+            long[] friendIds = friendGraphService.friendsOf(authorId);
+            if (friendIds.length > config.getPushThreshold()) {
+                stringRedisTemplate.opsForSet().add(PULL_AUTHORS_KEY, String.valueOf(authorId));
+            } else {
+                audience = Arrays.stream(friendIds).boxed().toList();
+                leavePullMode(PULL_AUTHORS_KEY, String.valueOf(authorId), audience);
+            }
+        }
+
+        Set<Long> recipients = new LinkedHashSet<>(audience);
+        recipients.add(authorId);
+        int pushed = pushToInboxes(recipients, member, score, config.getInboxCapacity());
+        log.debug("动态分发完成: postId={}, audience={}, pushed={}", post.getId(), recipients.size(), pushed);
+    }
+
+    @Override
+    public List<Long> readTimeline(Long userId, int offset, int size) {
+        if (userId == null || size <= 0) {
+            return new ArrayList<>();
+        }
+        String inboxKey = INBOX_KEY + userId;
+        ensureInbox(userId, inboxKey);
+
+        List<String> pullKeys = resolvePullSources(userId);
+        if (pullKeys.isEmpty()) {
+            // 纯推模式：一次 ZREVRANGEBYSCORE，min=1 跳过占位成员
+            Set<String> members = stringRedisTemplate.opsForZSet()
+                    .reverseRangeByScore(inboxKey, 1, Double.POSITIVE_INFINITY, offset, size);
+            return toIds(members);
+        }
+
+        // 推拉结合：各来源取前 offset+size 条按时间合并
+        int window = offset + size;
+        Map<String, Double> merged = new HashMap<>();
+        collect(inboxKey, window, merged);
+        for (String key : pullKeys) {
+            collect(key, window, merged);
+        }
+        return merged.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+                .skip(offset)
+                .limit(size)
+                .map(e -> Long.valueOf(e.getKey()))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<CursorUtil.Cursor> readTimelineAfter(Long userId, CursorUtil.Cursor after, int limit) {
+        if (userId == null || limit <= 0) {
+            return new ArrayList<>();
+        }
+        String inboxKey = INBOX_KEY + userId;
+        ensureInbox(userId, inboxKey);
+
+        // 游标之后的条目：分数严格小于游标时间的取前 limit 条，与游标同分的按动态ID过滤
+        Map<String, Double> merged = new HashMap<>();
+        collectAfter(inboxKey, after, limit, merged);
+        for (String key : resolvePullSources(userId)) {
+            collectAfter(key, after, limit, merged);
+        }
+        return merged.entrySet().stream()
+                .map(e -> new CursorUtil.Cursor(toTime(e.getValue()), Long.valueOf(e.getKey())))
+                .sorted(Comparator.comparing(CursorUtil.Cursor::getCreatedAt)
+                        .thenComparing(CursorUtil.Cursor::getId).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public long countTimeline(Long userId) {
+        Long count = stringRedisTemplate.opsForZSet().zCard(INBOX_KEY + userId);
+        return count == null || count <= 0 ? 0 : count - 1;
+    }
+
+    /**
+     * 收件箱不存在（首次访问或闲置过期）时从数据库重建，存在则续期
+     */
+    private void ensureInbox(Long userId, String inboxKey) {
+        FeedProperties.Timeline config = feedProperties.getTimeline();
+        if (Boolean.TRUE.equals(stringRedisTemplate.hasKey(inboxKey))) {
+            stringRedisTemplate.expire(inboxKey, config.getInboxTtlDays(), TimeUnit.DAYS);
+            return;
+        }
+        List<PostPO> seed = postMapper.selectTimelineSeed(userId, resolveCampusId(userId), config.getInboxCapacity());
+        Set<ZSetOperations.TypedTuple<String>> tuples = new HashSet<>();
+        tuples.add(new DefaultTypedTuple<>(PLACEHOLDER, 0D));
+        for (PostPO post : seed) {
+            tuples.add(new DefaultTypedTuple<>(String.valueOf(post.getId()), toScore(post.getCreatedAt())));
+        }
+        stringRedisTemplate.opsForZSet().add(inboxKey, tuples);
+        stringRedisTemplate.expire(inboxKey, config.getInboxTtlDays(), TimeUnit.DAYS);
+        log.info("重建时间线收件箱: userId={}, size={}", userId, seed.size());
+    }
+
+    /**
+     * 受众回落到推送阈值以内时退出拉模式。退出前的动态只在发件箱中，
+     * 因此删除受众的收件箱，下次读取时从数据库重建（重建包含这些动态）
+     */
+    private void leavePullMode(String pullKey, String source, Collection<Long> audience) {
+        Long removed = stringRedisTemplate.opsForSet().remove(pullKey, source);
+        if (removed == null || removed == 0 || audience.isEmpty()) {
+            return;
+        }
+        stringRedisTemplate.delete(audience.stream().map(id -> INBOX_KEY + id).toList());
+        log.info("动态来源退出拉模式，重建受众收件箱: key={}, source={}, audience={}", pullKey, source, audience.size());
+    }
+
+    /**
+     * 计算需要读时合并的拉模式来源：拉模式好友的发件箱、拉模式校区的动态集合。
+     * 只用 SMISMEMBER 判断查看者的好友是否在拉模式集合中，不读取整个集合
+     */
+    private List<String> resolvePullSources(Long userId) {
+        List<String> keys = new ArrayList<>();
+        long[] friendIds = friendGraphService.friendsOf(userId);
+        if (friendIds.length > 0) {
+            Object[] members = Arrays.stream(friendIds).mapToObj(String::valueOf).toArray();
+            Map<Object, Boolean> pulled = stringRedisTemplate.opsForSet().isMember(PULL_AUTHORS_KEY, members);
+            if (pulled != null) {
+                for (Object member : members) {
+                    if (Boolean.TRUE.equals(pulled.get(member))) {
+                        keys.add(OUTBOX_KEY + member);
+                    }
+                }
+            }
+        }
+        Long pullCampusCount = stringRedisTemplate.opsForSet().size(PULL_CAMPUS_KEY);
+        if (pullCampusCount != null && pullCampusCount > 0) {
+            Long campusId = resolveCampusId(userId);
+            if (campusId != null && Boolean.TRUE.equals(
+                    stringRedisTemplate.opsForSet().isMember(PULL_CAMPUS_KEY, String.valueOf(campusId)))) {
+                keys.add(CAMPUS_KEY + campusId);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * 批量推送到已存在的收件箱（两次管道往返：先判断存在，再写入并裁剪）；
+     * 不存在的收件箱跳过，由下次读取时重建
+     */
+    private int pushToInboxes(Collection<Long> recipients, String member, double score, int capacity) {
+        List<String> keys = recipients.stream().map(id -> INBOX_KEY + id).collect(Collectors.toList());
+        List<Object> exists = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            for (String key : keys) {
+                conn.exists(key);
+            }
+            return null;
+        });
+        List<String> targets = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            if (Boolean.TRUE.equals(exists.get(i))) {
+                targets.add(keys.get(i));
+            }
+        }
+        if (targets.isEmpty()) {
+            return 0;
+        }
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            for (String key : targets) {
+                conn.zAdd(key, score, member);
+                // 排名 0 为占位成员（分数 0 总在最低位），保留占位成员和最新的 capacity 条
+                conn.zRemRange(key, 1, -(capacity + 1L));
+            }
+            return null;
+        });
+        return targets.size();
+    }
+
+    private void addAndTrim(String key, String member, double score, int capacity) {
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            conn.zAdd(key, score, member);
+            conn.zRemRange(key, 0, -(capacity + 1L));
+            return null;
+        });
+    }
+
+    private void collect(String key, int window, Map<String, Double> merged) {
+        Set<ZSetOperations.TypedTuple<String>> tuples = stringRedisTemplate.opsForZSet()
+                .reverseRangeByScoreWithScores(key, 1, Double.POSITIVE_INFINITY, 0, window);
+        if (tuples == null) {
+            return;
+        }
+        for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+            if (tuple.getValue() != null && tuple.getScore() != null) {
+                merged.putIfAbsent(tuple.getValue(), tuple.getScore());
+            }
+        }
+    }
+
+    private void collectAfter(String key, CursorUtil.Cursor after, int limit, Map<String, Double> merged) {
+        ZSetOperations<String, String> zSet = stringRedisTemplate.opsForZSet();
+        double max = Double.POSITIVE_INFINITY;
+        if (after != null) {
+            double cursorScore = toScore(after.getCreatedAt());
+            // 发布时间精确到秒，同分成员在 ZSET 中按字典序排列，游标所在的一秒整组取出后按动态ID过滤
+            Set<ZSetOperations.TypedTuple<String>> ties = zSet.rangeByScoreWithScores(key, cursorScore, cursorScore);
+            if (ties != null) {
+                for (ZSetOperations.TypedTuple<String> tuple : ties) {
+                    if (tuple.getValue() != null && Long.parseLong(tuple.getValue()) < after.getId()) {
+                        merged.putIfAbsent(tuple.getValue(), cursorScore);
+                    }
+                }
+            }
+            max = Math.nextDown(cursorScore);
+        }
+        Set<ZSetOperations.TypedTuple<String>> tuples = zSet.reverseRangeByScoreWithScores(key, 1, max, 0, limit);
+        if (tuples == null) {
+            return;
+        }
+        double lowest = Double.POSITIVE_INFINITY;
+        for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+            if (tuple.getValue() != null && tuple.getScore() != null) {
+                merged.putIfAbsent(tuple.getValue(), tuple.getScore());
+                lowest = Math.min(lowest, tuple.getScore());
+            }
+        }
+        if (tuples.size() >= limit) {
+            // 取满时最后一秒可能被截断，补齐同分的成员再由调用方按动态ID排序
+            Set<ZSetOperations.TypedTuple<String>> tail = zSet.rangeByScoreWithScores(key, lowest, lowest);
+            if (tail != null) {
+                for (ZSetOperations.TypedTuple<String> tuple : tail) {
+                    if (tuple.getValue() != null) {
+                        merged.putIfAbsent(tuple.getValue(), lowest);
+                    }
+                }
+            }
+        }
+    }
+
+    private Long resolveCampusId(Long userId) {
+        UserPO user = userMapper.selectById(userId);
+        return user != null ? user.getCampusId() : null;
+    }
+
+    private List<Long> toIds(Set<String> members) {
+        if (members == null || members.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return members.stream().map(Long::valueOf).collect(Collectors.toList());
+    }
+
+    private LocalDateTime toTime(double score) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli((long) score), ZoneId.systemDefault());
+    }
+
+    private double toScore(LocalDateTime time) {
+        LocalDateTime t = time != null ? time : LocalDateTime.now();
+        return t.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
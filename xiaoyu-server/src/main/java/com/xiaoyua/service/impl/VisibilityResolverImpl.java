@@ -0,0 +1,167 @@
+package com.xiaoyua.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.xiaoyua.common.event.UserRelationChangedEvent;
+import com.xiaoyua.mapper.UserMapper;
+import com.xiaoyua.properties.FeedProperties;
+import com.xiaoyua.service.FriendGraphService;
+import com.xiaoyua.service.VisibilityResolver;
+import com.xiaoyua.utils.SortedLongArrays;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * 动态可见性判断实现
+ * <p>
+ * 校区与黑名单关系掩码缓存在本地 Caffeine 中，键为 (查看者, 作者)。未命中的作者通过
+ * {@link UserMapper#selectRelations} 一条 SQL 同时取回双方校区和黑名单。
+ * 好友位不进入缓存，每次从 {@link FriendGraphService} 读取，好友关系变化立即生效。
+ * 收到 {@link UserRelationChangedEvent} 时清除相关用户的全部缓存；其它节点依赖过期时间刷新。
+ * </p>
+ *
+ * @author xiaoyu
+ */
+@Service
+@Slf4j
+public class VisibilityResolverImpl implements VisibilityResolver {
+
+    private record Pair(long viewer, long author) {
+    }
+
+    private final UserMapper userMapper;
+    private final FriendGraphService friendGraphService;
+    private final Cache<Pair, Integer> cache;
+
+    @Autowired
+    public VisibilityResolverImpl(UserMapper userMapper, FriendGraphService friendGraphService,
+                                  FeedProperties feedProperties) {
+        this.userMapper = userMapper;
+        this.friendGraphService = friendGraphService;
+        FeedProperties.Visibility config = feedProperties.getVisibility();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(config.getMaxEntries())
+                .expireAfterWrite(Duration.ofSeconds(config.getTtlSeconds()))
+                .build();
+    }
+
+    @Override
+    public int relation(Long viewerId, Long authorId) {
+        if (viewerId == null || authorId == null) {
+            return 0;
+        }
+        return relations(viewerId, List.of(authorId)).getOrDefault(authorId, 0);
+    }
+
+    @Override
+    public Map<Long, Integer> relations(Long viewerId, Collection<Long> authorIds) {
+        Map<Long, Integer> result = new HashMap<>();
+        if (viewerId == null || authorIds == null || authorIds.isEmpty()) {
+            return result;
+        }
+        long[] friends = friendGraphService.friendsOf(viewerId);
+        List<Long> missing = new ArrayList<>();
+        for (Long authorId : new LinkedHashSet<>(authorIds)) {
+            if (authorId == null) {
+                continue;
+            }
+            if (authorId.equals(viewerId)) {
+                result.put(authorId, SELF);
+                continue;
+            }
+            Integer cached = cache.getIfPresent(new Pair(viewerId, authorId));
+            if (cached != null) {
+                result.put(authorId, withFriend(cached, friends, authorId));
+            } else {
+                missing.add(authorId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        for (Map<String, Object> row : userMapper.selectRelations(viewerId, missing)) {
+            Long authorId = toLong(row.get("author_id"));
+            Long authorCampus = toLong(row.get("author_campus"));
+            Long viewerCampus = toLong(row.get("viewer_campus"));
+            int mask = 0;
+            if (authorCampus != null && Objects.equals(authorCampus, viewerCampus)) {
+                mask |= SAME_CAMPUS;
+            }
+            if (toLong(row.get("blocked")) != null && toLong(row.get("blocked")) != 0) {
+                mask |= BLOCKED;
+            }
+            cache.put(new Pair(viewerId, authorId), mask);
+            result.put(authorId, withFriend(mask, friends, authorId));
+        }
+        // 作者不存在时按无关系处理，同样缓存避免重复查询
+        for (Long authorId : missing) {
+            if (!result.containsKey(authorId)) {
+                cache.put(new Pair(viewerId, authorId), 0);
+                result.put(authorId, withFriend(0, friends, authorId));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public <T> List<T> filterVisible(Long viewerId, List<T> items, Function<T, Long> author,
+                                     Function<T, String> visibility) {
+        if (items == null || items.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Set<Long> authorIds = new LinkedHashSet<>();
+        for (T item : items) {
+            authorIds.add(author.apply(item));
+        }
+        Map<Long, Integer> masks = relations(viewerId, authorIds);
+        List<T> visible = new ArrayList<>(items.size());
+        for (T item : items) {
+            int mask = masks.getOrDefault(author.apply(item), 0);
+            if (VisibilityResolver.canView(mask, visibility.apply(item))) {
+                visible.add(item);
+            }
+        }
+        return visible;
+    }
+
+    @Override
+    public void invalidate(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        long id = userId;
+        cache.asMap().keySet().removeIf(p -> p.viewer() == id || p.author() == id);
+    }
+
+    /**
+     * 好友、黑名单、校区变化后（事务提交后）清除双方的关系缓存
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRelationChanged(UserRelationChangedEvent event) {
+        log.debug("用户关系变化，清除可见性缓存: {}", event);
+        invalidate(event.getUserId());
+        invalidate(event.getTargetId());
+    }
+
+    private static int withFriend(int mask, long[] friends, Long authorId) {
+        return SortedLongArrays.contains(friends, authorId) ? mask | FRIEND : mask;
+    }
+
+    private static Long toLong(Object value) {
+        return value instanceof Number n ? n.longValue() : null;
+    }
+}
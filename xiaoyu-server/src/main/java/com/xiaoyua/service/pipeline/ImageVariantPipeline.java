@@ -0,0 +1,449 @@
+package com.xiaoyua.service.pipeline;
+
+import com.xiaoyua.entity.FilePO;
+import com.xiaoyua.mapper.FileMapper;
+import com.xiaoyua.properties.FileProperties;
+import com.xiaoyua.service.storage.StorageBackend;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 图片多尺寸版本生成流水线
+ * <p>
+ * 图片上传完成后提交到本流水线的有界线程池：从存储后端读回原图只解码一次，
+ * 生成缩略图（正方形居中裁剪）、信息流、大图三个版本写回存储，并把地址与原图尺寸记录到引用同一内容的所有文件记录。
+ * 原图长边不超过目标尺寸时直接复用原图地址。解码前先读取尺寸，超过像素上限的图片不处理；
+ * 大图按目标尺寸做解码降采样，避免把整张原图展开到内存。队列满时跳过，客户端回退到原图。
+ * </p>
+ * <p>
+ * ImageIO 不处理 EXIF 方向，手机竖拍的 JPEG 解码前先读取 Orientation 标签，解码后旋转/翻转为显示方向，
+ * 记录的宽高也是显示方向的宽高。webp 没有内置解码器、动图 GIF 缩放后会变成静态图，这两类不生成版本：
+ * 信息流与大图使用原图，缩略图使用存储后端的图片处理地址（不支持时用原图）。
+ * </p>
+ *
+ * @author xiaoyu
+ */
+@Component
+@Slf4j
+public class ImageVariantPipeline {
+
+    /**
+     * 图片扩展名；其中 webp 无内置解码器，只回填缩略图地址
+     */
+    private static final Set<String> IMAGE_EXT = Set.of("jpg", "jpeg", "png", "gif", "bmp", "webp");
+
+    /**
+     * 读取 EXIF 方向时最多扫描的字节数（APP1 段位于文件头部，单段不超过 64KB）
+     */
+    private static final int EXIF_SCAN_LIMIT = 256 * 1024;
+
+    private final FileMapper fileMapper;
+    private final StorageBackend storageBackend;
+    private final FileProperties.Image config;
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * 排队或处理中的内容哈希；相同内容的任务按哈希回填全部记录，进行中时不再重复提交
+     */
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public ImageVariantPipeline(FileMapper fileMapper, StorageBackend storageBackend, FileProperties fileProperties) {
+        this.fileMapper = fileMapper;
+        this.storageBackend = storageBackend;
+        this.config = fileProperties.getImage();
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(config.getWorkers(), config.getWorkers(), 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(config.getQueueCapacity()),
+                r -> {
+                    Thread t = new Thread(r, "image-variant-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 是否可以为该扩展名的文件生成图片版本
+     */
+    public static boolean supports(String extension) {
+        return extension != null && IMAGE_EXT.contains(extension.toLowerCase());
+    }
+
+    /**
+     * 提交一张已入库的图片
+     *
+     * @param file       文件记录
+     * @param objectName 原图对象名称
+     */
+    public void submit(FilePO file, String objectName) {
+        String contentHash = file.getContentHash();
+        if (contentHash != null && !inFlight.add(contentHash)) {
+            log.debug("相同内容的图片版本正在生成，跳过: fileId={}", file.getId());
+            return;
+        }
+        try {
+            executor.execute(() -> process(file, objectName));
+        } catch (RejectedExecutionException e) {
+            if (contentHash != null) {
+                inFlight.remove(contentHash);
+            }
+            log.warn("图片版本生成队列已满，跳过: fileId={}", file.getId());
+        }
+    }
+
+    private void process(FilePO file, String objectName) {
+        long start = System.currentTimeMillis();
+        List<String> written = new ArrayList<>();
+        try {
+            FilePO update = generate(file, objectName, written);
+            if (update == null) {
+                return;
+            }
+            // 相同内容的文件共用图片版本，按内容哈希一并回填
+            int updated = update.getContentHash() != null
+                    ? fileMapper.updateVariantsByContentHash(update) : fileMapper.updateById(update);
+            if (updated == 0) {
+                // 处理期间文件已被删除，清理刚生成的版本
+                written.forEach(storageBackend::delete);
+                return;
+            }
+            log.debug("图片版本生成完成: fileId={}, cost={}ms", file.getId(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            written.forEach(storageBackend::delete);
+            log.error("图片版本生成失败: fileId={}, error={}", file.getId(), e.getMessage(), e);
+        } finally {
+            if (file.getContentHash() != null) {
+                inFlight.remove(file.getContentHash());
+            }
+        }
+    }
+
+    private FilePO generate(FilePO file, String objectName, List<String> written) throws IOException {
+        if (objectName.toLowerCase().endsWith(".webp")) {
+            return passthrough(file, null);
+        }
+        Decoded decoded;
+        try (InputStream in = storageBackend.open(objectName)) {
+            decoded = decode(in, config.getFullMaxEdge(), config.getMaxPixels());
+        }
+        if (decoded == null) {
+            log.info("图片无法解码或尺寸超限，保持原图: fileId={}", file.getId());
+            return null;
+        }
+        if (decoded.image() == null) {
+            // 动图保持原图，避免缩放后只剩第一帧
+            return passthrough(file, decoded);
+        }
+        FilePO update = new FilePO();
+        update.setId(file.getId());
+        update.setContentHash(file.getContentHash());
+        update.setWidth(decoded.width());
+        update.setHeight(decoded.height());
+        update.setThumbUrl(store(cropSquare(decoded.image(), config.getThumbSize()), objectName, "thumb", written));
+        int longEdge = Math.max(decoded.width(), decoded.height());
+        update.setFeedUrl(longEdge <= config.getFeedMaxEdge() ? file.getFileUrl()
+                : store(fit(decoded.image(), config.getFeedMaxEdge()), objectName, "feed", written));
+        update.setFullUrl(longEdge <= config.getFullMaxEdge() ? file.getFileUrl()
+                : store(fit(decoded.image(), config.getFullMaxEdge()), objectName, "full", written));
+        return update;
+    }
+
+    /**
+     * 不生成版本的图片：信息流与大图使用原图，缩略图使用存储后端的图片处理地址
+     */
+    private FilePO passthrough(FilePO file, Decoded decoded) {
+        String thumb = storageBackend.resizedUrl(file.getFileUrl(), config.getThumbSize());
+        FilePO update = new FilePO();
+        update.setId(file.getId());
+        update.setContentHash(file.getContentHash());
+        update.setThumbUrl(thumb != null ? thumb : file.getFileUrl());
+        update.setFeedUrl(file.getFileUrl());
+        update.setFullUrl(file.getFileUrl());
+        if (decoded != null) {
+            update.setWidth(decoded.width());
+            update.setHeight(decoded.height());
+        }
+        return update;
+    }
+
+    private String store(BufferedImage image, String objectName, String variant, List<String> written) throws IOException {
+        boolean alpha = image.getColorModel().hasAlpha();
+        byte[] bytes = encode(image, alpha ? "png" : "jpg", config.getJpegQuality());
+        String name = variantName(objectName, variant, alpha ? "png" : "jpg");
+        StorageBackend.StoredObject stored = storageBackend.put(new ByteArrayInputStream(bytes), bytes.length, name);
+        written.add(name);
+        return stored.url();
+    }
+
+    /**
+     * 解码结果：原图显示方向的尺寸与（可能经降采样、已按 EXIF 方向旋转的）像素；动图的像素为 null
+     */
+    record Decoded(int width, int height, BufferedImage image) {
+    }
+
+    /**
+     * 只解码一次：先读 EXIF 方向和尺寸判断像素上限，再按 maxEdge 计算降采样步长解码，最后旋转为显示方向
+     *
+     * @return 无法识别或超过像素上限时返回 null
+     */
+    static Decoded decode(InputStream in, int maxEdge, long maxPixels) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in, 8192);
+        buffered.mark(EXIF_SCAN_LIMIT);
+        int orientation = readExifOrientation(buffered);
+        buffered.reset();
+        try (ImageInputStream iis = ImageIO.createImageInputStream(buffered)) {
+            if (iis == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                // GIF 需要回看帧数判断是否为动图，其余格式只向前读取
+                boolean gif = "gif".equalsIgnoreCase(reader.getFormatName());
+                reader.setInput(iis, !gif, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if (width <= 0 || height <= 0 || (long) width * height > maxPixels) {
+                    return null;
+                }
+                if (gif && reader.getNumImages(true) > 1) {
+                    return new Decoded(width, height, null);
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, Math.max(width, height) / maxEdge);
+                if (step > 1) {
+                    param.setSourceSubsampling(step, step, 0, 0);
+                }
+                BufferedImage image = orient(reader.read(0, param), orientation);
+                return orientation >= 5 ? new Decoded(height, width, image) : new Decoded(width, height, image);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * 读取 JPEG 的 EXIF Orientation 标签（1-8），非 JPEG、没有标签或格式异常时返回 1；
+     * 最多读取 EXIF_SCAN_LIMIT 字节
+     */
+    static int readExifOrientation(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        try {
+            if (data.readUnsignedShort() != 0xFFD8) {
+                return 1;
+            }
+            int scanned = 2;
+            while (scanned + 4 <= EXIF_SCAN_LIMIT) {
+                int marker = data.readUnsignedShort();
+                // 到达图像数据（SOS）或不是段标记时停止
+                if ((marker & 0xFF00) != 0xFF00 || marker == 0xFFDA || marker == 0xFFD9) {
+                    return 1;
+                }
+                int length = data.readUnsignedShort();
+                if (length < 2 || scanned + 2 + length > EXIF_SCAN_LIMIT) {
+                    return 1;
+                }
+                scanned += 2 + length;
+                if (marker == 0xFFE1) {
+                    int orientation = orientationOf(data.readNBytes(length - 2));
+                    if (orientation > 0) {
+                        return orientation;
+                    }
+                } else {
+                    data.skipNBytes(length - 2);
+                }
+            }
+            return 1;
+        } catch (EOFException e) {
+            return 1;
+        }
+    }
+
+    /**
+     * 从 APP1 段内容（"Exif\0\0" + TIFF）的 IFD0 中读取 Orientation，不是 EXIF 段或没有该标签时返回 0
+     */
+    private static int orientationOf(byte[] s) {
+        if (s.length < 14 || s[0] != 'E' || s[1] != 'x' || s[2] != 'i' || s[3] != 'f' || s[4] != 0 || s[5] != 0) {
+            return 0;
+        }
+        int tiff = 6;
+        boolean little = s[tiff] == 'I' && s[tiff + 1] == 'I';
+        if (!little && !(s[tiff] == 'M' && s[tiff + 1] == 'M')) {
+            return 0;
+        }
+        long ifd = tiff + readUnsigned(s, tiff + 4, 4, little);
+        if (ifd + 2 > s.length) {
+            return 0;
+        }
+        int count = (int) readUnsigned(s, (int) ifd, 2, little);
+        for (int i = 0; i < count; i++) {
+            int entry = (int) ifd + 2 + i * 12;
+            if (entry + 12 > s.length) {
+                return 0;
+            }
+            if (readUnsigned(s, entry, 2, little) == 0x0112) {
+                int value = (int) readUnsigned(s, entry + 8, 2, little);
+                return value >= 1 && value <= 8 ? value : 0;
+            }
+        }
+        return 0;
+    }
+
+    private static long readUnsigned(byte[] s, int offset, int bytes, boolean little) {
+        long value = 0;
+        for (int i = 0; i < bytes; i++) {
+            int b = s[little ? offset + bytes - 1 - i : offset + i] & 0xFF;
+            value = (value << 8) | b;
+        }
+        return value;
+    }
+
+    /**
+     * 按 EXIF 方向旋转/翻转为显示方向：2 水平翻转，3 旋转 180°，4 垂直翻转，5 转置，
+     * 6 顺时针 90°，7 反转置，8 逆时针 90°
+     */
+    static BufferedImage orient(BufferedImage src, int orientation) {
+        if (orientation <= 1 || orientation > 8) {
+            return src;
+        }
+        int w = src.getWidth();
+        int h = src.getHeight();
+        boolean swap = orientation >= 5;
+        int type = src.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage out = new BufferedImage(swap ? h : w, swap ? w : h, type);
+        int[] row = new int[w];
+        for (int y = 0; y < h; y++) {
+            src.getRGB(0, y, w, 1, row, 0, w);
+            for (int x = 0; x < w; x++) {
+                int dx;
+                int dy;
+                switch (orientation) {
+                    case 2 -> { dx = w - 1 - x; dy = y; }
+                    case 3 -> { dx = w - 1 - x; dy = h - 1 - y; }
+                    case 4 -> { dx = x; dy = h - 1 - y; }
+                    case 5 -> { dx = y; dy = x; }
+                    case 6 -> { dx = h - 1 - y; dy = x; }
+                    case 7 -> { dx = h - 1 - y; dy = w - 1 - x; }
+                    default -> { dx = y; dy = w - 1 - x; }
+                }
+                out.setRGB(dx, dy, row[x]);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * 等比缩放到长边不超过 maxEdge
+     */
+    static BufferedImage fit(BufferedImage src, int maxEdge) {
+        int w = src.getWidth();
+        int h = src.getHeight();
+        if (Math.max(w, h) <= maxEdge) {
+            return src;
+        }
+        double scale = (double) maxEdge / Math.max(w, h);
+        return scale(src, 0, 0, w, h, Math.max(1, (int) Math.round(w * scale)), Math.max(1, (int) Math.round(h * scale)));
+    }
+
+    /**
+     * 居中裁剪为正方形后缩放到 size
+     */
+    static BufferedImage cropSquare(BufferedImage src, int size) {
+        int side = Math.min(src.getWidth(), src.getHeight());
+        int x = (src.getWidth() - side) / 2;
+        int y = (src.getHeight() - side) / 2;
+        int target = Math.min(size, side);
+        return scale(src, x, y, side, side, target, target);
+    }
+
+    private static BufferedImage scale(BufferedImage src, int x, int y, int w, int h, int targetW, int targetH) {
+        int type = src.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage out = new BufferedImage(targetW, targetH, type);
+        Graphics2D g = out.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(src, 0, 0, targetW, targetH, x, y, x + w, y + h, null);
+        } finally {
+            g.dispose();
+        }
+        return out;
+    }
+
+    private static byte[] encode(BufferedImage image, String format, float quality) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(format).next();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if ("jpg".equals(format)) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(quality);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 版本对象名称：post/2025/10/18/abc.png -> post/2025/10/18/abc_thumb.jpg
+     */
+    static String variantName(String objectName, String variant, String extension) {
+        int dot = objectName.lastIndexOf('.');
+        int slash = objectName.lastIndexOf('/');
+        String base = dot > slash ? objectName.substring(0, dot) : objectName;
+        return base + "_" + variant + "." + extension;
+    }
+
+    /**
+     * 停机时等待处理中的图片完成
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("图片版本生成未在停机前完成，剩余任务数: {}", executor.getQueue().size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
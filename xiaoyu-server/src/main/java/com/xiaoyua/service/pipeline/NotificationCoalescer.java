@@ -0,0 +1,180 @@
+package com.xiaoyua.service.pipeline;
+
+import com.xiaoyua.properties.NotificationProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 点赞/收藏通知合并器
+ * <p>
+ * 互动先按 (接收者, 通知类型, 关联对象) 放入内存窗口，窗口在静默 quiet-ms 或打开满 max-delay-ms 后
+ * 由定时任务取出，合并为一条"A、B 等 N 人点赞了你的动态"通知，热门内容的一波互动只产生一次用户查询、
+ * 一次消息发送、一条通知记录和一次推送。窗口内按用户去重，取消后再次点赞不重复计数；
+ * 窗口到期前取消点赞/收藏会撤回该用户，窗口撤空时整个丢弃，不发送通知。
+ * 窗口只在本节点内存中，进程异常退出时最多丢失一个窗口期内的通知。
+ * </p>
+ *
+ * @author xiaoyu
+ */
+@Component
+public class NotificationCoalescer {
+
+    /**
+     * 合并后的通知展示的最近互动用户数
+     */
+    private static final int RECENT_ACTORS = 2;
+
+    private final NotificationProperties.Coalesce config;
+    private final Map<Key, Window> windows = new ConcurrentHashMap<>();
+
+    @Autowired
+    public NotificationCoalescer(NotificationProperties notificationProperties) {
+        this.config = notificationProperties.getCoalesce();
+    }
+
+    /**
+     * 合并窗口的键
+     */
+    public record Key(Long userId, String type, Long refId, String refType) {
+
+        /**
+         * 关联对象类型统一为大写，点赞/收藏与取消时得到相同的键
+         */
+        public static Key of(Long userId, String type, Long refId, String refType) {
+            return new Key(userId, type, refId, refType != null ? refType.toUpperCase() : null);
+        }
+    }
+
+    /**
+     * 一个到期窗口的合并结果
+     *
+     * @param recentActorIds 最近互动的用户，最新在前，最多 2 个
+     * @param count          窗口内互动的用户数
+     */
+    public record Batch(Key key, List<Long> recentActorIds, int count) {
+    }
+
+    /**
+     * 放入一次互动
+     *
+     * @return 是否已进入窗口；未启用或窗口数达到上限时返回 false，调用方应直接发送
+     */
+    public boolean offer(Key key, Long actorId, long nowMs) {
+        if (!config.isEnabled() || key.userId() == null || actorId == null) {
+            return false;
+        }
+        boolean[] accepted = {true};
+        windows.compute(key, (k, window) -> {
+            if (window == null) {
+                if (windows.size() >= config.getMaxOpenWindows()) {
+                    accepted[0] = false;
+                    return null;
+                }
+                window = new Window(nowMs);
+            }
+            window.add(actorId, nowMs, config.getMaxTrackedActors());
+            return window;
+        });
+        return accepted[0];
+    }
+
+    /**
+     * 撤回一次互动（取消点赞/收藏），窗口中没有剩余互动时丢弃窗口
+     * <p>
+     * 只能撤回窗口记录的用户；超过 max-tracked-actors 只计数的用户无法区分，计数保持不变。
+     * </p>
+     *
+     * @return 是否从窗口中撤回了该用户
+     */
+    public boolean withdraw(Key key, Long actorId) {
+        if (key.userId() == null || actorId == null) {
+            return false;
+        }
+        boolean[] removed = {false};
+        windows.computeIfPresent(key, (k, window) -> {
+            removed[0] = window.actors.remove(actorId);
+            return window.isEmpty() ? null : window;
+        });
+        return removed[0];
+    }
+
+    /**
+     * 取出静默或打开时间已到的窗口
+     */
+    public List<Batch> drainDue(long nowMs) {
+        return drain(nowMs, false);
+    }
+
+    /**
+     * 取出全部窗口（停机时使用）
+     */
+    public List<Batch> drainAll() {
+        return drain(0, true);
+    }
+
+    /**
+     * 当前打开的窗口数
+     */
+    public int openWindows() {
+        return windows.size();
+    }
+
+    private List<Batch> drain(long nowMs, boolean all) {
+        List<Batch> batches = new ArrayList<>();
+        for (Key key : windows.keySet()) {
+            // 判断与移除在同一个原子操作内，避免与并发的 offer 丢失互动
+            windows.computeIfPresent(key, (k, window) -> {
+                if (all || nowMs - window.lastMs >= config.getQuietMs() || nowMs - window.firstMs >= config.getMaxDelayMs()) {
+                    batches.add(window.toBatch(k));
+                    return null;
+                }
+                return window;
+            });
+        }
+        return batches;
+    }
+
+    /**
+     * 窗口状态，只在 ConcurrentHashMap 的原子操作内访问
+     */
+    private static final class Window {
+        private final long firstMs;
+        private long lastMs;
+        private final LinkedHashSet<Long> actors = new LinkedHashSet<>();
+        private int untracked;
+
+        private Window(long nowMs) {
+            this.firstMs = nowMs;
+            this.lastMs = nowMs;
+        }
+
+        private void add(Long actorId, long nowMs, int maxTracked) {
+            lastMs = nowMs;
+            if (actors.remove(actorId) || actors.size() < maxTracked) {
+                // 重新插入到末尾，末尾即最近互动的用户
+                actors.add(actorId);
+            } else {
+                untracked++;
+            }
+        }
+
+        private boolean isEmpty() {
+            return actors.isEmpty() && untracked == 0;
+        }
+
+        private Batch toBatch(Key key) {
+            List<Long> ordered = new ArrayList<>(actors);
+            List<Long> recent = new ArrayList<>(RECENT_ACTORS);
+            for (int i = ordered.size() - 1; i >= 0 && recent.size() < RECENT_ACTORS; i--) {
+                recent.add(ordered.get(i));
+            }
+            return new Batch(key, recent, actors.size() + untracked);
+        }
+    }
+}
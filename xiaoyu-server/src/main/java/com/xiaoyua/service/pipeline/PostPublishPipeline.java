@@ -0,0 +1,256 @@
+package com.xiaoyua.service.pipeline;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import cn.hutool.json.JSONUtil;
+import com.xiaoyua.entity.PostPO;
+import com.xiaoyua.entity.PostPublishOutboxPO;
+import com.xiaoyua.entity.TopicPO;
+import com.xiaoyua.mapper.PostMapper;
+import com.xiaoyua.mapper.PostPublishOutboxMapper;
+import com.xiaoyua.mapper.PostStatMapper;
+import com.xiaoyua.mapper.TopicMapper;
+import com.xiaoyua.mapper.TopicPostMapper;
+import com.xiaoyua.properties.FeedProperties;
+import com.xiaoyua.service.CampusFeedService;
+import com.xiaoyua.service.HotRankService;
+import com.xiaoyua.service.TimelineService;
+import com.xiaoyua.utils.BusinessValidationUtils;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 动态发布异步处理流水线
+ * <p>
+ * 发布接口只同步写入动态和文件关联，其余步骤在事务提交后交给本流水线的有界线程池执行：
+ * 初始化统计行、话题关联、时间线分发、热榜登记、校区动态环登记。各步骤相互独立，
+ * 某一步失败只记录日志，不影响其它步骤。队列满时由提交线程直接执行。
+ * </p>
+ * <p>
+ * 线程池只在内存中，进程崩溃或重启会丢失未执行的任务，因此发布事务内同时写入 post_publish_outbox，
+ * 全部步骤成功后才删除；遗留的待办由 {@link #recoverStale()} 定期重新提交。各步骤都是幂等的，
+ * 重复执行不会重复计数。
+ * </p>
+ *
+ * @author xiaoyu
+ */
+@Component
+@Slf4j
+public class PostPublishPipeline {
+
+    /**
+     * 正文中的话题标签：与话题表一致为 #名称# 形式，名称 1-48 个字符且不含 # 和空白
+     */
+    private static final Pattern HASHTAG = Pattern.compile("#([^#\\s]{1,48})#");
+
+    /**
+     * 单条动态最多关联的话题数
+     */
+    private static final int MAX_TOPICS = 10;
+
+    private final PostStatMapper postStatMapper;
+    private final TopicMapper topicMapper;
+    private final TopicPostMapper topicPostMapper;
+    private final TimelineService timelineService;
+    private final HotRankService hotRankService;
+    private final CampusFeedService campusFeedService;
+    private final PostMapper postMapper;
+    private final PostPublishOutboxMapper outboxMapper;
+    private final FeedProperties.Publish config;
+    private final ThreadPoolExecutor executor;
+
+    @Autowired
+    public PostPublishPipeline(PostStatMapper postStatMapper, TopicMapper topicMapper, TopicPostMapper topicPostMapper,
+                               TimelineService timelineService, HotRankService hotRankService,
+                               CampusFeedService campusFeedService, PostMapper postMapper,
+                               PostPublishOutboxMapper outboxMapper, FeedProperties feedProperties) {
+        this.postStatMapper = postStatMapper;
+        this.topicMapper = topicMapper;
+        this.topicPostMapper = topicPostMapper;
+        this.timelineService = timelineService;
+        this.hotRankService = hotRankService;
+        this.campusFeedService = campusFeedService;
+        this.postMapper = postMapper;
+        this.outboxMapper = outboxMapper;
+        this.config = feedProperties.getPublish();
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(config.getWorkers(), config.getWorkers(), 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(config.getQueueCapacity()),
+                r -> {
+                    Thread t = new Thread(r, "post-publish-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * 在发布事务内登记后置处理待办，事务回滚时待办一并回滚
+     *
+     * @param post       已插入的动态
+     * @param topicNames 发布时指定的话题名称，可为空
+     * @return 提取出的话题名称，交给 {@link #submit(PostPO, List)}
+     */
+    public List<String> record(PostPO post, Collection<String> topicNames) {
+        List<String> topics = extractTopics(post.getContent(), topicNames);
+        PostPublishOutboxPO outbox = new PostPublishOutboxPO();
+        outbox.setPostId(post.getId());
+        outbox.setTopicNames(JSONUtil.toJsonStr(topics));
+        outbox.setAttempts(0);
+        outbox.setCreatedAt(LocalDateTime.now());
+        outbox.setUpdatedAt(outbox.getCreatedAt());
+        outboxMapper.insert(outbox);
+        return topics;
+    }
+
+    /**
+     * 提交一条已提交事务的动态的后置处理
+     *
+     * @param post   动态
+     * @param topics {@link #record(PostPO, Collection)} 返回的话题名称
+     */
+    public void submit(PostPO post, List<String> topics) {
+        executor.execute(() -> process(post, topics));
+    }
+
+    /**
+     * 重新提交超过 outbox-grace-seconds 仍未完成的待办，超过最大次数的记录错误后放弃
+     *
+     * @return 本次处理的待办数
+     */
+    public int recoverStale() {
+        LocalDateTime before = LocalDateTime.now().minusSeconds(config.getOutboxGraceSeconds());
+        List<PostPublishOutboxPO> stale = outboxMapper.selectStale(before, config.getOutboxBatchSize());
+        for (PostPublishOutboxPO outbox : stale) {
+            Long postId = outbox.getPostId();
+            if (outbox.getAttempts() != null && outbox.getAttempts() >= config.getOutboxMaxAttempts()) {
+                log.error("动态发布后置处理多次补偿仍失败，放弃: postId={}, attempts={}", postId, outbox.getAttempts());
+                outboxMapper.deleteById(postId);
+                continue;
+            }
+            PostPO post = postMapper.selectById(postId);
+            if (post == null || post.getStatus() != PostPO.Status.PUBLISHED) {
+                outboxMapper.deleteById(postId);
+                continue;
+            }
+            outboxMapper.markRetry(postId);
+            log.warn("补偿动态发布后置处理: postId={}, attempts={}", postId, outbox.getAttempts());
+            submit(post, JSONUtil.toList(outbox.getTopicNames(), String.class));
+        }
+        return stale.size();
+    }
+
+    private void process(PostPO post, List<String> topics) {
+        long start = System.currentTimeMillis();
+        boolean ok = step("初始化统计", post, () -> postStatMapper.initIfAbsent(post.getId()));
+        ok &= step("关联话题", post, () -> linkTopics(post.getId(), topics));
+        ok &= step("时间线分发", post, () -> timelineService.fanOut(post));
+        ok &= step("热榜登记", post, () -> hotRankService.register(post));
+        ok &= step("校区动态环登记", post, () -> campusFeedService.register(post));
+        // 有步骤失败时保留待办，由补偿任务重试
+        if (ok) {
+            step("删除待办", post, () -> outboxMapper.deleteById(post.getId()));
+        }
+        log.debug("动态发布后置处理完成: postId={}, ok={}, cost={}ms", post.getId(), ok, System.currentTimeMillis() - start);
+    }
+
+    private boolean step(String name, PostPO post, Runnable action) {
+        try {
+            action.run();
+            return true;
+        } catch (Exception e) {
+            log.error("动态发布后置处理失败: step={}, postId={}, error={}", name, post.getId(), e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * 创建缺失的话题并批量关联，新关联的话题动态数加一
+     */
+    private void linkTopics(Long postId, List<String> names) {
+        if (names.isEmpty()) {
+            return;
+        }
+        topicMapper.insertIgnoreNames(names);
+        List<Long> topicIds = topicMapper.selectList(new QueryWrapper<TopicPO>().select("id").in("name", names))
+                .stream().map(TopicPO::getId).toList();
+        if (topicIds.isEmpty()) {
+            return;
+        }
+        // 新发布的动态没有旧关联，插入的都是新关联
+        if (topicPostMapper.insertIgnoreBatch(postId, topicIds) > 0) {
+            topicMapper.incrementPostCnt(topicIds);
+        }
+    }
+
+    /**
+     * 合并正文中的 #话题# 与显式指定的话题，统一为 #名称# 形式并去重
+     */
+    static List<String> extractTopics(String content, Collection<String> topicNames) {
+        Set<String> names = new LinkedHashSet<>();
+        if (topicNames != null) {
+            for (String name : topicNames) {
+                String normalized = normalize(name);
+                if (normalized != null) {
+                    names.add(normalized);
+                }
+            }
+        }
+        if (content != null) {
+            Matcher matcher = HASHTAG.matcher(content);
+            while (matcher.find()) {
+                names.add("#" + matcher.group(1) + "#");
+            }
+        }
+        List<String> result = new ArrayList<>(names);
+        return result.size() > MAX_TOPICS ? result.subList(0, MAX_TOPICS) : result;
+    }
+
+    private static String normalize(String name) {
+        if (name == null) {
+            return null;
+        }
+        String trimmed = name.trim();
+        while (trimmed.startsWith("#")) {
+            trimmed = trimmed.substring(1);
+        }
+        while (trimmed.endsWith("#")) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1);
+        }
+        trimmed = trimmed.trim();
+        if (trimmed.contains("#")) {
+            return null;
+        }
+        String topic = "#" + trimmed + "#";
+        return BusinessValidationUtils.isValidTopicName(topic) ? topic : null;
+    }
+
+    /**
+     * 停机时处理完队列中剩余的任务
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("动态发布后置处理未在停机前完成，剩余任务数: {}", executor.getQueue().size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package com.xiaoyua.service.storage;
+
+import com.xiaoyua.properties.FileProperties;
+import com.xiaoyua.utils.MeasuredInputStream;
+import com.xiaoyua.utils.StorageMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * 本地磁盘存储后端
+ * <p>
+ * 用于校园网边缘节点与离线压测，不依赖云端。对象按名称的 SHA-256 前两字节分到两级目录
+ * （base-dir/ab/cd/...），避免单个目录文件过多；写入先落到同目录的临时文件并 fsync，
+ * 校验长度后原子重命名，读者不会看到写了一半的文件。下载由 {@link #serve} 处理，
+ * 支持单段 Range；Tomcat 支持 sendfile 时交给容器零拷贝发送，否则用 {@link FileChannel#transferTo}。
+ * </p>
+ *
+ * @author xiaoyu
+ */
+@Component
+@ConditionalOnProperty(prefix = "xiaoyu.file.storage", name = "type", havingValue = "local")
+@Slf4j
+public class LocalStorageBackend implements StorageBackend {
+
+    /**
+     * 本地文件的访问路径前缀，与 LocalFileController 的映射保持一致
+     */
+    public static final String RAW_PATH = "/files/raw/";
+
+    /**
+     * 合法对象名称：字母数字开头，只含字母数字与 . _ - /
+     */
+    private static final Pattern OBJECT_NAME = Pattern.compile("[A-Za-z0-9][A-Za-z0-9._/-]*");
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    @Autowired
+    private FileProperties fileProperties;
+
+    @Autowired
+    private StorageMetrics storageMetrics;
+
+    private Path baseDir;
+
+    @PostConstruct
+    public void init() throws IOException {
+        baseDir = Paths.get(fileProperties.getStorage().getLocalBaseDir()).toAbsolutePath().normalize();
+        Files.createDirectories(baseDir);
+        log.info("使用本地磁盘存储: {}", baseDir);
+    }
+
+    @Override
+    public StoredObject put(InputStream in, long size, String objectName) {
+        Path target = pathOf(objectName);
+        long start = System.nanoTime();
+        long written = 0;
+        boolean success = false;
+        Path temp = null;
+        try {
+            Files.createDirectories(target.getParent());
+            temp = Files.createTempFile(target.getParent(), ".upload-", ".tmp");
+            MeasuredInputStream measured = new MeasuredInputStream(in);
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE);
+                 OutputStream out = Channels.newOutputStream(channel)) {
+                measured.transferTo(out);
+                channel.force(true);
+            }
+            written = measured.getBytesRead();
+            if (written != size) {
+                throw new RuntimeException("上传内容长度不一致: 声明 " + size + "，实际 " + written);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            success = true;
+            return new StoredObject(urlOf(objectName), written, measured.getSha256Hex());
+        } catch (IOException e) {
+            throw new UncheckedIOException("本地文件写入失败: " + objectName, e);
+        } finally {
+            if (!success && temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    log.warn("清理临时文件失败: {}", temp);
+                }
+            }
+            storageMetrics.record("local-put", System.nanoTime() - start, written, success);
+        }
+    }
+
+    @Override
+    public InputStream open(String objectName) {
+        try {
+            return Files.newInputStream(pathOf(objectName));
+        } catch (IOException e) {
+            throw new UncheckedIOException("本地文件读取失败: " + objectName, e);
+        }
+    }
+
+    @Override
+    public boolean delete(String objectName) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            Files.deleteIfExists(pathOf(objectName));
+            success = true;
+            log.info("文件删除成功: {}", objectName);
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            log.error("本地文件删除失败: {} - {}", objectName, e.getMessage());
+            return false;
+        } finally {
+            storageMetrics.record("local-delete", System.nanoTime() - start, 0, success);
+        }
+    }
+
+    @Override
+    public String objectNameOf(String url) {
+        if (url == null) {
+            return "";
+        }
+        int idx = url.indexOf(RAW_PATH);
+        if (idx < 0) {
+            return "";
+        }
+        String name = url.substring(idx + RAW_PATH.length());
+        int q = name.indexOf('?');
+        return q < 0 ? name : name.substring(0, q);
+    }
+
+    /**
+     * 输出对象内容，支持单段 Range（bytes=a-b / a- / -n），多段或格式错误的 Range 按整个文件返回
+     *
+     * @param objectName 对象名称
+     * @param request    请求
+     * @param response   响应
+     */
+    public void serve(String objectName, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Path path;
+        try {
+            path = pathOf(objectName);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        if (!Files.isRegularFile(path)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        long length = Files.size(path);
+        response.setHeader("Accept-Ranges", "bytes");
+        // 对象名称含随机部分，内容不会变化
+        response.setHeader("Cache-Control", "public, max-age=31536000, immutable");
+        response.setContentType(MediaTypeFactory.getMediaType(objectName)
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+
+        ByteRange range = parseRange(request.getHeader("Range"), length);
+        if (range == ByteRange.UNSATISFIABLE) {
+            response.setHeader("Content-Range", "bytes */" + length);
+            response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+        }
+        long start = range == null ? 0 : range.start();
+        long count = range == null ? length : range.end() - range.start() + 1;
+        if (range != null) {
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader("Content-Range", "bytes " + range.start() + "-" + range.end() + "/" + length);
+        }
+        response.setContentLengthLong(count);
+        if ("HEAD".equalsIgnoreCase(request.getMethod()) || count == 0) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // 由 Tomcat 在请求结束后用 sendfile 发送，结束位置不含
+            request.setAttribute(SENDFILE_FILENAME, path.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    /**
+     * 解析 Range 请求头
+     *
+     * @param header Range 请求头
+     * @param length 文件长度
+     * @return 请求的区间（含两端）；未指定、多段或格式错误时返回 null，无法满足时返回 {@link ByteRange#UNSATISFIABLE}
+     */
+    static ByteRange parseRange(String header, long length) {
+        if (header == null || !header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                // 后缀区间：最后 n 个字节
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || length == 0) {
+                    return ByteRange.UNSATISFIABLE;
+                }
+                return new ByteRange(Math.max(0, length - suffix), length - 1);
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+            if (start >= length || start > end) {
+                return ByteRange.UNSATISFIABLE;
+            }
+            return new ByteRange(start, end);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 字节区间，两端都包含
+     */
+    record ByteRange(long start, long end) {
+        static final ByteRange UNSATISFIABLE = new ByteRange(-1, -1);
+    }
+
+    private String urlOf(String objectName) {
+        return fileProperties.getStorage().getLocalBaseUrl() + RAW_PATH + objectName;
+    }
+
+    /**
+     * 对象在磁盘上的位置：base-dir/名称哈希前两字节两级目录/对象名称（/ 替换为 _）
+     */
+    private Path pathOf(String objectName) {
+        if (objectName == null || !OBJECT_NAME.matcher(objectName).matches() || objectName.contains("..")) {
+            throw new IllegalArgumentException("非法的对象名称: " + objectName);
+        }
+        String hash = sha256Hex(objectName);
+        return baseDir.resolve(hash.substring(0, 2))
+                .resolve(hash.substring(2, 4))
+                .resolve(objectName.replace('/', '_'));
+    }
+
+    private static String sha256Hex(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("当前环境不支持 SHA-256", e);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.xiaoyua.service.storage;
+
+import com.xiaoyua.utils.OssUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.net.URI;
+
+/**
+ * 阿里云 OSS 存储后端（默认）
+ *
+ * @author xiaoyu
+ */
+@Component
+@ConditionalOnProperty(prefix = "xiaoyu.file.storage", name = "type", havingValue = "oss", matchIfMissing = true)
+@Slf4j
+public class OssStorageBackend implements StorageBackend {
+
+    @Autowired
+    private OssUtil ossUtil;
+
+    @Override
+    public StoredObject put(InputStream in, long size, String objectName) {
+        OssUtil.UploadResult result = ossUtil.upload(in, size, objectName);
+        return new StoredObject(result.getUrl(), result.getSize(), result.getSha256());
+    }
+
+    @Override
+    public InputStream open(String objectName) {
+        return ossUtil.download(objectName);
+    }
+
+    @Override
+    public boolean delete(String objectName) {
+        return ossUtil.deleteFile(objectName);
+    }
+
+    @Override
+    public String resizedUrl(String url, int size) {
+        // 阿里云 OSS 图片处理参数：缩放并裁剪到 size x size
+        return url + "?x-oss-process=image/resize,w_" + size + ",h_" + size + ",m_fill";
+    }
+
+    @Override
+    public String objectNameOf(String url) {
+        if (url == null || url.isEmpty()) {
+            return "";
+        }
+        // URL格式为: https://bucket.endpoint/objectName
+        try {
+            String path = URI.create(url).getPath();
+            return path.startsWith("/") ? path.substring(1) : path;
+        } catch (Exception e) {
+            log.warn("解析文件URL失败: {}", url, e);
+            return "";
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.xiaoyua.service.storage;
+
+import java.io.InputStream;
+
+/**
+ * 文件存储后端
+ * <p>
+ * 屏蔽具体存储介质（阿里云 OSS、本地磁盘），由 xiaoyu.file.storage.type 选择实现。
+ * 对象名称形如 post/2025/10/18/xxxx.jpg，访问地址由各实现生成。
+ * </p>
+ *
+ * @author xiaoyu
+ */
+public interface StorageBackend {
+
+    /**
+     * 流式写入对象，写入失败或实际字节数与声明不符时抛出异常，不会留下不完整的对象
+     *
+     * @param in         输入流（由调用方关闭）
+     * @param size       声明的大小
+     * @param objectName 对象名称
+     * @return 写入结果
+     */
+    StoredObject put(InputStream in, long size, String objectName);
+
+    /**
+     * 打开对象内容用于读取，调用方负责关闭
+     *
+     * @param objectName 对象名称
+     * @return 输入流
+     */
+    InputStream open(String objectName);
+
+    /**
+     * 删除对象
+     *
+     * @param objectName 对象名称
+     * @return 是否删除成功
+     */
+    boolean delete(String objectName);
+
+    /**
+     * 从访问地址解析对象名称
+     *
+     * @param url 访问地址
+     * @return 对象名称，无法解析时返回空字符串
+     */
+    String objectNameOf(String url);
+
+    /**
+     * 由存储服务按需缩放（居中裁剪为正方形）的图片地址，用于无法在本地生成缩略图的格式
+     *
+     * @param url  原图访问地址
+     * @param size 边长（像素）
+     * @return 缩放地址，不支持图片处理时返回 null
+     */
+    default String resizedUrl(String url, int size) {
+        return null;
+    }
+
+    /**
+     * 写入结果
+     *
+     * @param url    访问地址
+     * @param size   实际写入字节数
+     * @param sha256 内容 SHA-256
+     */
+    record StoredObject(String url, long size, String sha256) {
+    }
+}
@@ -0,0 +1,33 @@
+package com.xiaoyua.task;
+
+import com.xiaoyua.service.cache.InteractionMembershipCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 点赞/收藏布隆过滤器重建定时任务
+ * <p>
+ * 布隆过滤器只增不删，取消点赞/收藏后残留的位会让过滤器误判为"可能存在"，
+ * 每天低峰期从数据库重建一次，恢复过滤效果。
+ * </p>
+ *
+ * @author xiaoyu
+ */
+@Component
+@Slf4j
+public class InteractionBloomRebuildTask {
+
+    @Autowired
+    private InteractionMembershipCache membershipCache;
+
+    /**
+     * 每天凌晨 4:30 重建
+     */
+    @Scheduled(cron = "0 30 4 * * ?")
+    public void rebuild() {
+        log.info("开始重建点赞/收藏布隆过滤器");
+        membershipCache.rebuildFilters();
+    }
+}
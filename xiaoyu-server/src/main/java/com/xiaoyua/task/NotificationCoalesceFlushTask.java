@@ -0,0 +1,61 @@
+package com.xiaoyua.task;
+
+import com.xiaoyua.service.PushService;
+import com.xiaoyua.service.pipeline.NotificationCoalescer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 合并通知发送定时任务
+ * <p>
+ * 定期取出 {@link NotificationCoalescer} 中已到期的窗口并发送合并通知；应用关闭时发送剩余窗口。
+ * </p>
+ *
+ * @author xiaoyu
+ */
+@Component
+@Slf4j
+public class NotificationCoalesceFlushTask {
+
+    @Autowired
+    private NotificationCoalescer notificationCoalescer;
+
+    @Autowired
+    private PushService pushService;
+
+    /**
+     * 按配置间隔发送到期的合并通知
+     */
+    @Scheduled(fixedDelayString = "${xiaoyu.notification.coalesce.flush-interval-ms:1000}")
+    public void flushDue() {
+        try {
+            List<NotificationCoalescer.Batch> batches = notificationCoalescer.drainDue(System.currentTimeMillis());
+            if (!batches.isEmpty()) {
+                pushService.pushCoalescedNotifications(batches);
+            }
+        } catch (Exception e) {
+            log.error("发送合并通知失败: error={}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 应用关闭前发送剩余窗口
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        try {
+            List<NotificationCoalescer.Batch> batches = notificationCoalescer.drainAll();
+            if (!batches.isEmpty()) {
+                pushService.pushCoalescedNotifications(batches);
+            }
+            log.info("应用关闭前发送合并通知完成: 窗口数量={}", batches.size());
+        } catch (Exception e) {
+            log.error("应用关闭前发送合并通知失败: error={}", e.getMessage(), e);
+        }
+    }
+}
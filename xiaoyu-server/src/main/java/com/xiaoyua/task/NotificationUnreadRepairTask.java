@@ -0,0 +1,50 @@
+package com.xiaoyua.task;
+
+import com.xiaoyua.service.NotificationUnreadService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 未读通知数校正定时任务
+ * <p>
+ * 定期把计数变更过的用户的 Redis 未读数与数据库比对，修正载入与并发写入之间产生的偏差。
+ * </p>
+ *
+ * @author xiaoyu
+ */
+@Component
+@Slf4j
+public class NotificationUnreadRepairTask {
+
+    /**
+     * 单次执行最多校正的批数，避免积压时长时间占用调度线程
+     */
+    private static final int MAX_BATCHES_PER_RUN = 20;
+
+    @Autowired
+    private NotificationUnreadService notificationUnreadService;
+
+    /**
+     * 按配置间隔校正未读通知数
+     */
+    @Scheduled(fixedDelayString = "${xiaoyu.notification.unread.repair-interval-ms:300000}")
+    public void repair() {
+        try {
+            int checked = 0;
+            for (int i = 0; i < MAX_BATCHES_PER_RUN; i++) {
+                int n = notificationUnreadService.repairDirty();
+                if (n == 0) {
+                    break;
+                }
+                checked += n;
+            }
+            if (checked > 0) {
+                log.debug("未读通知数校正检查完成: 用户数量={}", checked);
+            }
+        } catch (Exception e) {
+            log.error("未读通知数校正失败: error={}", e.getMessage());
+        }
+    }
+}
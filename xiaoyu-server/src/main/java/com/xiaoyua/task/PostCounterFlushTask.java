@@ -0,0 +1,70 @@
+package com.xiaoyua.task;
+
+import com.xiaoyua.service.PostCounterService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 互动计数写回定时任务
+ * <p>
+ * 点赞、收藏、评论、转发计数以 Redis 为准，本任务定期把累计的增量批量写回 post_stats。
+ * 每次执行循环写回直到没有待写回的动态或达到单次上限，应用关闭时再写回一次。
+ * </p>
+ *
+ * @author xiaoyu
+ */
+@Component
+@Slf4j
+public class PostCounterFlushTask {
+
+    /**
+     * 单次执行最多写回的批数，避免积压时长时间占用调度线程
+     */
+    private static final int MAX_BATCHES_PER_RUN = 20;
+
+    @Autowired
+    private PostCounterService postCounterService;
+
+    /**
+     * 按配置间隔写回互动计数
+     */
+    @Scheduled(fixedDelayString = "${xiaoyu.feed.counter.flush-interval-ms:2000}")
+    public void flushCounters() {
+        try {
+            int total = flush();
+            if (total > 0) {
+                log.debug("互动计数写回完成: 动态数量={}", total);
+            }
+        } catch (Exception e) {
+            log.error("互动计数写回失败: error={}", e.getMessage());
+        }
+    }
+
+    /**
+     * 应用关闭前写回剩余增量
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        try {
+            int total = flush();
+            log.info("应用关闭前互动计数写回完成: 动态数量={}", total);
+        } catch (Exception e) {
+            log.error("应用关闭前互动计数写回失败: error={}", e.getMessage());
+        }
+    }
+
+    private int flush() {
+        int total = 0;
+        for (int i = 0; i < MAX_BATCHES_PER_RUN; i++) {
+            int flushed = postCounterService.flushDeltas();
+            if (flushed == 0) {
+                break;
+            }
+            total += flushed;
+        }
+        return total;
+    }
+}
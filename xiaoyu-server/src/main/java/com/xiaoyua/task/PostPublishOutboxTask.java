@@ -0,0 +1,38 @@
+package com.xiaoyua.task;
+
+import com.xiaoyua.service.pipeline.PostPublishPipeline;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 动态发布后置处理补偿定时任务
+ * <p>
+ * 后置处理在内存线程池中执行，进程崩溃、重启或某一步失败时遗留的待办由本任务重新提交。
+ * </p>
+ *
+ * @author xiaoyu
+ */
+@Component
+@Slf4j
+public class PostPublishOutboxTask {
+
+    @Autowired
+    private PostPublishPipeline postPublishPipeline;
+
+    /**
+     * 按配置间隔重新提交遗留的待办
+     */
+    @Scheduled(fixedDelayString = "${xiaoyu.feed.publish.outbox-scan-interval-ms:60000}")
+    public void recover() {
+        try {
+            int n = postPublishPipeline.recoverStale();
+            if (n > 0) {
+                log.info("动态发布后置处理补偿完成: 待办数量={}", n);
+            }
+        } catch (Exception e) {
+            log.error("动态发布后置处理补偿失败: error={}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.xiaoyua.task;
+
+import com.xiaoyua.common.enums.PostStatField;
+import com.xiaoyua.entity.PostStatPO;
+import com.xiaoyua.mapper.PostStatMapper;
+import com.xiaoyua.properties.FeedProperties;
+import com.xiaoyua.service.HotRankService;
+import com.xiaoyua.service.counter.ViewCountBuffer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 浏览数刷写定时任务
+ * <p>
+ * 定期取出 {@link ViewCountBuffer} 中累计的浏览增量，按 post_id 排序后分批执行多行 UPSERT，
+ * 并同步更新热榜分数。写库失败的增量放回缓冲等待下一轮；应用关闭时再刷写一次。
+ * </p>
+ *
+ * @author xiaoyu
+ */
+@Component
+@Slf4j
+public class PostViewFlushTask {
+
+    @Autowired
+    private ViewCountBuffer viewCountBuffer;
+
+    @Autowired
+    private PostStatMapper postStatMapper;
+
+    @Autowired
+    private HotRankService hotRankService;
+
+    @Autowired
+    private FeedProperties feedProperties;
+
+    /**
+     * 按配置间隔刷写浏览数
+     */
+    @Scheduled(fixedDelayString = "${xiaoyu.feed.view-buffer.flush-interval-ms:5000}")
+    public void flushViews() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("刷写浏览数失败: error={}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 应用关闭前刷写剩余浏览数
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        try {
+            int flushed = flush();
+            log.info("应用关闭前刷写浏览数完成: 动态数量={}", flushed);
+        } catch (Exception e) {
+            log.error("应用关闭前刷写浏览数失败: error={}", e.getMessage(), e);
+        }
+    }
+
+    private int flush() {
+        List<PostStatPO> rows = new ArrayList<>();
+        viewCountBuffer.drain((postId, delta) -> {
+            PostStatPO row = new PostStatPO();
+            row.setPostId(postId);
+            row.setViewCnt((int) Math.min(delta, Integer.MAX_VALUE));
+            rows.add(row);
+        });
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        // 固定加锁顺序，避免多个节点同时刷写时互相死锁
+        rows.sort(Comparator.comparing(PostStatPO::getPostId));
+
+        int batchSize = Math.max(1, feedProperties.getViewBuffer().getBatchSize());
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            List<PostStatPO> batch = rows.subList(from, Math.min(from + batchSize, rows.size()));
+            try {
+                postStatMapper.batchIncView(batch);
+            } catch (Exception e) {
+                log.error("批量写入浏览数失败，增量放回缓冲: 数量={}, error={}", batch.size(), e.getMessage());
+                for (PostStatPO row : batch) {
+                    viewCountBuffer.add(row.getPostId(), row.getViewCnt());
+                }
+                continue;
+            }
+            for (PostStatPO row : batch) {
+                try {
+                    hotRankService.onStatChanged(row.getPostId(), PostStatField.VIEW, row.getViewCnt());
+                } catch (Exception e) {
+                    log.warn("更新动态浏览热度失败: postId={}, error={}", row.getPostId(), e.getMessage());
+                }
+            }
+        }
+        log.debug("刷写浏览数完成: 动态数量={}", rows.size());
+        return rows.size();
+    }
+}
@@ -0,0 +1,34 @@
+package com.xiaoyua.task;
+
+import com.xiaoyua.utils.StorageMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * 对象存储操作统计输出定时任务
+ * <p>
+ * 每个周期输出一次各操作的次数、失败数、字节数与耗时分布，并清零统计。
+ * </p>
+ *
+ * @author xiaoyu
+ */
+@Component
+@Slf4j
+public class StorageMetricsLogTask {
+
+    @Autowired
+    private StorageMetrics storageMetrics;
+
+    @Scheduled(fixedDelayString = "${xiaoyu.file.metrics-log-interval-ms:60000}")
+    public void logMetrics() {
+        Map<String, StorageMetrics.Snapshot> snapshots = storageMetrics.snapshotAndReset();
+        snapshots.forEach((operation, s) -> log.info(
+                "对象存储统计: op={}, count={}, errors={}, bytes={}, avg={}ms, p50<={}ms, p99<={}ms",
+                operation, s.count(), s.errors(), s.bytes(), s.totalMs() / s.count(), s.p50Ms(),
+                s.p99Ms() < 0 ? "10000+" : s.p99Ms()));
+    }
+}
@@ -0,0 +1,90 @@
+package com.xiaoyua.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 以两个 long 为键的布隆过滤器（线程安全，只增不删）
+ * <p>
+ * 判断"不存在"时一定准确，判断"可能存在"时有一定误判率。
+ * 采用双重哈希 h1 + i * h2 生成各个位下标，位数组基于 AtomicLongArray，写入无锁。
+ * </p>
+ *
+ * @author xiaoyu
+ * @since 1.0.0
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitSize;
+    private final int hashCount;
+
+    private BloomFilter(long bitSize, int hashCount) {
+        int words = (int) Math.min(Integer.MAX_VALUE, (bitSize + 63) >>> 6);
+        this.bits = new AtomicLongArray(words);
+        this.bitSize = (long) words << 6;
+        this.hashCount = hashCount;
+    }
+
+    /**
+     * 按预期元素数量和误判率创建过滤器
+     *
+     * @param expectedInsertions 预期元素数量
+     * @param fpp                期望误判率，取值 (0, 1)
+     * @return 布隆过滤器
+     */
+    public static BloomFilter create(long expectedInsertions, double fpp) {
+        if (expectedInsertions <= 0 || fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("布隆过滤器参数无效");
+        }
+        long m = (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        int k = Math.max(1, (int) Math.round((double) m / expectedInsertions * Math.log(2)));
+        return new BloomFilter(Math.max(64, m), k);
+    }
+
+    /**
+     * 加入元素
+     */
+    public void put(long a, long b) {
+        long h1 = mix(a * 0x9E3779B97F4A7C15L + b);
+        long h2 = mix(b * 0xC2B2AE3D27D4EB4FL ^ a) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long index = Math.floorMod(h1 + i * h2, bitSize);
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            long current;
+            do {
+                current = bits.get(word);
+                if ((current & mask) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    /**
+     * 元素是否可能存在，返回 false 时一定不存在
+     */
+    public boolean mightContain(long a, long b) {
+        long h1 = mix(a * 0x9E3779B97F4A7C15L + b);
+        long h2 = mix(b * 0xC2B2AE3D27D4EB4FL ^ a) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long index = Math.floorMod(h1 + i * h2, bitSize);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 64 位哈希混淆（MurmurHash3 finalizer）
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
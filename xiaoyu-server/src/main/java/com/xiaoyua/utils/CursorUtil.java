@@ -0,0 +1,140 @@
+package com.xiaoyua.utils;
+
+import cn.hutool.core.util.StrUtil;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 游标（keyset）分页工具类
+ * <p>
+ * 游标对客户端不透明，内容为最后一条记录的 (created_at, id)，Base64 编码。
+ * 查询条件为 {@code created_at < ? OR (created_at = ? AND id < ?)}，按 created_at、id 倒序，
+ * 多取一条用于判断是否还有下一页，不执行 COUNT。
+ * </p>
+ *
+ * @author xiaoyu
+ * @since 1.0.0
+ */
+public class CursorUtil {
+
+    /**
+     * 游标分页默认每页数量
+     */
+    public static final int DEFAULT_PAGE_SIZE = 20;
+
+    /**
+     * 游标分页单页最大数量（与通知列表一致）
+     */
+    public static final int MAX_PAGE_SIZE = 100;
+
+    /**
+     * 私有构造函数，防止实例化
+     */
+    private CursorUtil() {
+        throw new UnsupportedOperationException("Utility class cannot be instantiated");
+    }
+
+    /**
+     * 解码后的游标位置
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Cursor {
+        private final LocalDateTime createdAt;
+        private final Long id;
+    }
+
+    /**
+     * 编码游标
+     *
+     * @param createdAt 创建时间
+     * @param id        记录ID
+     * @return 不透明游标字符串
+     */
+    public static String encode(LocalDateTime createdAt, Long id) {
+        long millis = createdAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        String raw = millis + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解码游标，空字符串表示第一页（返回 null）
+     *
+     * @param cursor 游标字符串
+     * @return 游标位置，第一页为 null
+     * @throws IllegalArgumentException 游标格式不正确
+     */
+    public static Cursor decode(String cursor) {
+        if (StrUtil.isBlank(cursor)) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int idx = raw.indexOf(':');
+            long millis = Long.parseLong(raw.substring(0, idx));
+            long id = Long.parseLong(raw.substring(idx + 1));
+            LocalDateTime createdAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+            return new Cursor(createdAt, id);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("分页游标无效");
+        }
+    }
+
+    /**
+     * 修正每页数量：为空或小于 1 时取默认值，超过上限时取上限
+     *
+     * @param size 请求的每页数量
+     * @return 修正后的每页数量
+     */
+    public static int pageSize(Integer size) {
+        if (size == null || size < 1) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
+
+    /**
+     * 为查询追加游标条件、排序和 LIMIT（size + 1）
+     *
+     * @param wrapper 查询条件
+     * @param cursor  游标字符串，空表示第一页
+     * @param size    每页数量
+     */
+    public static <T> void applyKeyset(QueryWrapper<T> wrapper, String cursor, int size) {
+        Cursor position = decode(cursor);
+        if (position != null) {
+            wrapper.and(w -> w.lt("created_at", position.getCreatedAt())
+                    .or(o -> o.eq("created_at", position.getCreatedAt()).lt("id", position.getId())));
+        }
+        wrapper.orderByDesc("created_at", "id");
+        wrapper.last("LIMIT " + (size + 1));
+    }
+
+    /**
+     * 截掉多取的一条并生成下一页游标
+     *
+     * @param rows      查询结果（最多 size + 1 条，会被原地截断）
+     * @param size      每页数量
+     * @param createdAt 创建时间取值函数
+     * @param id        ID取值函数
+     * @return 下一页游标，没有下一页时为 null
+     */
+    public static <T> String nextCursor(List<T> rows, int size,
+                                        Function<T, LocalDateTime> createdAt, Function<T, Long> id) {
+        if (rows.size() <= size) {
+            return null;
+        }
+        rows.subList(size, rows.size()).clear();
+        T last = rows.get(size - 1);
+        return encode(createdAt.apply(last), id.apply(last));
+    }
+}
@@ -0,0 +1,96 @@
+package com.xiaoyua.utils;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * 边读边统计的输入流：累计读取字节数并计算 SHA-256
+ * <p>
+ * 上传时包在原始流外层，数据只流过一次，不需要先把整个文件读入内存。
+ * 不支持 mark/reset，读完后通过 {@link #getBytesRead()} 与 {@link #getSha256Hex()} 取结果。
+ * </p>
+ *
+ * @author xiaoyu
+ * @since 1.0.0
+ */
+public class MeasuredInputStream extends FilterInputStream {
+
+    private final MessageDigest digest;
+    private long bytesRead;
+
+    public MeasuredInputStream(InputStream in) {
+        super(in);
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("当前环境不支持 SHA-256", e);
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b != -1) {
+            digest.update((byte) b);
+            bytesRead++;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            digest.update(b, off, n);
+            bytesRead += n;
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        // 跳过的数据同样要计入摘要，逐块读取
+        byte[] buffer = new byte[8192];
+        long skipped = 0;
+        while (skipped < n) {
+            int r = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (r == -1) {
+                break;
+            }
+            skipped += r;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("MeasuredInputStream 不支持 reset");
+    }
+
+    /**
+     * 已读取的字节数
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * 已读取内容的 SHA-256（小写十六进制），应在读完后调用，且只能调用一次
+     */
+    public String getSha256Hex() {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
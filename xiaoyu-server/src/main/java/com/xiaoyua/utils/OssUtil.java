@@ -1,69 +1,226 @@
 package com.xiaoyua.utils;
 
+import com.aliyun.oss.ClientBuilderConfiguration;
 import com.aliyun.oss.ClientException;
 import com.aliyun.oss.OSS;
 import com.aliyun.oss.OSSClientBuilder;
 import com.aliyun.oss.OSSException;
+import com.aliyun.oss.model.AbortMultipartUploadRequest;
+import com.aliyun.oss.model.CompleteMultipartUploadRequest;
+import com.aliyun.oss.model.InitiateMultipartUploadRequest;
+import com.aliyun.oss.model.ObjectMetadata;
+import com.aliyun.oss.model.PartETag;
+import com.aliyun.oss.model.UploadPartRequest;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 
-@Data
-@AllArgsConstructor
+/**
+ * 阿里云 OSS 工具类
+ * <p>
+ * 整个应用共用一个线程安全的 OSS 客户端，连接池、超时与重试由 {@link ClientBuilderConfiguration} 配置，
+ * 首次使用时创建（未配置密钥的环境也能正常启动），应用关闭时调用 {@link #shutdown()} 释放。每次操作的耗时、字节数与失败情况记录到 {@link StorageMetrics}。
+ * 上传失败抛出异常，删除失败返回 false。
+ * </p>
+ *
+ * @author xiaoyu
+ */
+@Getter
 @Slf4j
 public class OssUtil {
 
-    private String endpoint;
-    private String accessKeyId;
-    private String accessKeySecret;
-    private String bucketName;
+    private final String endpoint;
+    private final String bucketName;
 
     /**
-     * 文件上传
-     * @param bytes
-     * @param objectName
-     * @return
+     * 超过该大小（字节）改用分片上传
      */
-    public String upload(byte[] bytes, String objectName) {
+    private final long multipartThreshold;
+
+    /**
+     * 分片上传的分片大小（字节）
+     */
+    private final long partSize;
 
-        // 创建OSSClient实例。
-        OSS ossClient = new OSSClientBuilder().build(endpoint, accessKeyId, accessKeySecret);
+    @Getter(AccessLevel.NONE)
+    private final String accessKeyId;
+    @Getter(AccessLevel.NONE)
+    private final String accessKeySecret;
+    @Getter(AccessLevel.NONE)
+    private final ClientBuilderConfiguration clientConfiguration;
+    @Getter(AccessLevel.NONE)
+    private volatile OSS client;
+
+    private final StorageMetrics metrics;
+
+    public OssUtil(String endpoint, String accessKeyId, String accessKeySecret, String bucketName,
+                   long multipartThreshold, long partSize,
+                   ClientBuilderConfiguration clientConfiguration, StorageMetrics metrics) {
+        this.endpoint = endpoint;
+        this.bucketName = bucketName;
+        this.multipartThreshold = multipartThreshold;
+        this.partSize = partSize;
+        this.metrics = metrics;
+        this.accessKeyId = accessKeyId;
+        this.accessKeySecret = accessKeySecret;
+        this.clientConfiguration = clientConfiguration;
+    }
 
+    private OSS client() {
+        OSS current = client;
+        if (current == null) {
+            synchronized (this) {
+                current = client;
+                if (current == null) {
+                    current = new OSSClientBuilder().build(endpoint, accessKeyId, accessKeySecret, clientConfiguration);
+                    client = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 流式上传结果：访问地址、实际字节数、内容 SHA-256
+     */
+    @Data
+    @AllArgsConstructor
+    public static class UploadResult {
+        private String url;
+        private long size;
+        private String sha256;
+    }
+
+    /**
+     * 流式上传：超过阈值时按分片上传，边读边统计字节数与 SHA-256。每个请求体（不超过阈值的整个文件，
+     * 或一个分片）先读入内存再以 ByteArrayInputStream 发送，SDK 可以 mark/reset 重放请求体，
+     * 网络错误与 5xx 时按重试策略重发；内存占用不超过 max(阈值, 分片大小)，不缓存整个大文件。
+     * 上传失败或实际字节数与声明不符时抛出异常（分片上传会先中止）。
+     *
+     * @param in         输入流（由调用方关闭）
+     * @param size       声明的文件大小
+     * @param objectName 对象名称
+     * @return 上传结果
+     */
+    public UploadResult upload(InputStream in, long size, String objectName) {
+        MeasuredInputStream measured = new MeasuredInputStream(in);
+        boolean multipart = size > multipartThreshold && partSize > 0;
+        String operation = multipart ? "multipart-upload" : "upload";
+        long start = System.nanoTime();
+        boolean success = false;
         try {
-            // 创建PutObject请求。
-            ossClient.putObject(bucketName, objectName, new ByteArrayInputStream(bytes));
+            if (multipart) {
+                uploadMultipart(measured, size, objectName);
+            } else {
+                byte[] body = measured.readNBytes((int) size);
+                ObjectMetadata metadata = new ObjectMetadata();
+                metadata.setContentLength(body.length);
+                client().putObject(bucketName, objectName, new ByteArrayInputStream(body), metadata);
+            }
+            if (measured.getBytesRead() != size) {
+                deleteFile(objectName);
+                throw new RuntimeException("上传内容长度不一致: 声明 " + size + "，实际 " + measured.getBytesRead());
+            }
+            success = true;
         } catch (OSSException oe) {
-            System.out.println("Caught an OSSException, which means your request made it to OSS, "
-                    + "but was rejected with an error response for some reason.");
-            System.out.println("Error Message:" + oe.getErrorMessage());
-            System.out.println("Error Code:" + oe.getErrorCode());
-            System.out.println("Request ID:" + oe.getRequestId());
-            System.out.println("Host ID:" + oe.getHostId());
+            log.error("OSS上传失败: {}, code={}, requestId={}, message={}",
+                    objectName, oe.getErrorCode(), oe.getRequestId(), oe.getErrorMessage());
+            throw new RuntimeException("OSS上传失败: " + oe.getErrorCode() + " " + oe.getErrorMessage(), oe);
         } catch (ClientException ce) {
-            System.out.println("Caught an ClientException, which means the client encountered "
-                    + "a serious internal problem while trying to communicate with OSS, "
-                    + "such as not being able to access the network.");
-            System.out.println("Error Message:" + ce.getMessage());
+            log.error("OSS客户端上传失败: {}, code={}, message={}", objectName, ce.getErrorCode(), ce.getMessage());
+            throw new RuntimeException("OSS上传失败: " + ce.getMessage(), ce);
+        } catch (IOException e) {
+            log.error("读取上传内容失败: {}, error={}", objectName, e.getMessage());
+            throw new RuntimeException("读取上传内容失败: " + e.getMessage(), e);
         } finally {
-            if (ossClient != null) {
-                ossClient.shutdown();
+            metrics.record(operation, System.nanoTime() - start, measured.getBytesRead(), success);
+        }
+        String url = buildUrl(objectName);
+        log.info("文件上传到:{}，大小:{}", url, size);
+        return new UploadResult(url, size, measured.getSha256Hex());
+    }
+
+    /**
+     * 分片上传：按 partSize 依次从同一个流中读出分片，缓冲后上传（可重试），任一分片失败则中止整个上传
+     */
+    private void uploadMultipart(InputStream in, long size, String objectName) throws IOException {
+        OSS ossClient = client();
+        String uploadId = ossClient.initiateMultipartUpload(
+                new InitiateMultipartUploadRequest(bucketName, objectName)).getUploadId();
+        try {
+            List<PartETag> partETags = new ArrayList<>();
+            long remaining = size;
+            int partNumber = 1;
+            while (remaining > 0) {
+                byte[] part = in.readNBytes((int) Math.min(partSize, remaining));
+                if (part.length == 0) {
+                    // 内容比声明的短，由调用方按长度不一致处理
+                    break;
+                }
+                UploadPartRequest request = new UploadPartRequest(bucketName, objectName, uploadId, partNumber,
+                        new ByteArrayInputStream(part), part.length);
+                partETags.add(ossClient.uploadPart(request).getPartETag());
+                remaining -= part.length;
+                partNumber++;
+            }
+            ossClient.completeMultipartUpload(
+                    new CompleteMultipartUploadRequest(bucketName, objectName, uploadId, partETags));
+            log.info("分片上传完成: {}，分片数:{}", objectName, partETags.size());
+        } catch (RuntimeException | IOException e) {
+            try {
+                ossClient.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, objectName, uploadId));
+            } catch (Exception ex) {
+                log.warn("中止分片上传失败: {} - {}", objectName, ex.getMessage());
             }
+            throw e;
         }
+    }
 
+    private String buildUrl(String objectName) {
         //文件访问路径规则 https://BucketName.Endpoint/ObjectName
-        StringBuilder stringBuilder = new StringBuilder("https://");
-        stringBuilder
-                .append(bucketName)
-                .append(".")
-                .append(endpoint)
-                .append("/")
-                .append(objectName);
+        return "https://" + bucketName + "." + endpoint + "/" + objectName;
+    }
 
-        log.info("文件上传到:{}", stringBuilder.toString());
+    /**
+     * 文件上传，失败时抛出异常
+     * @param bytes 文件内容
+     * @param objectName 对象名称
+     * @return 访问地址
+     */
+    public String upload(byte[] bytes, String objectName) {
+        return upload(new ByteArrayInputStream(bytes), bytes.length, objectName).getUrl();
+    }
 
-        return stringBuilder.toString();
+    /**
+     * 下载文件，返回对象内容流，调用方负责关闭
+     * @param objectName 对象名称
+     * @return 输入流
+     */
+    public InputStream download(String objectName) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            InputStream content = client().getObject(bucketName, objectName).getObjectContent();
+            success = true;
+            return content;
+        } catch (OSSException oe) {
+            log.error("OSS下载失败: {}, code={}, requestId={}, message={}",
+                    objectName, oe.getErrorCode(), oe.getRequestId(), oe.getErrorMessage());
+            throw new RuntimeException("OSS下载失败: " + oe.getErrorCode() + " " + oe.getErrorMessage(), oe);
+        } catch (ClientException ce) {
+            log.error("OSS客户端下载失败: {}, code={}, message={}", objectName, ce.getErrorCode(), ce.getMessage());
+            throw new RuntimeException("OSS下载失败: " + ce.getMessage(), ce);
+        } finally {
+            metrics.record("download", System.nanoTime() - start, 0, success);
+        }
     }
 
     /**
@@ -72,34 +229,32 @@ public class OssUtil {
      * @return 是否删除成功
      */
     public boolean deleteFile(String objectName) {
-        // 创建OSSClient实例
-        OSS ossClient = new OSSClientBuilder().build(endpoint, accessKeyId, accessKeySecret);
-
+        long start = System.nanoTime();
+        boolean success = false;
         try {
-            // 删除文件
-            ossClient.deleteObject(bucketName, objectName);
+            client().deleteObject(bucketName, objectName);
             log.info("文件删除成功: {}", objectName);
+            success = true;
             return true;
         } catch (OSSException oe) {
-            log.error("OSS删除文件失败: {}", oe.getErrorMessage());
-            System.out.println("Caught an OSSException, which means your request made it to OSS, "
-                    + "but was rejected with an error response for some reason.");
-            System.out.println("Error Message:" + oe.getErrorMessage());
-            System.out.println("Error Code:" + oe.getErrorCode());
-            System.out.println("Request ID:" + oe.getRequestId());
-            System.out.println("Host ID:" + oe.getHostId());
+            log.error("OSS删除文件失败: {}, code={}, requestId={}, message={}",
+                    objectName, oe.getErrorCode(), oe.getRequestId(), oe.getErrorMessage());
             return false;
         } catch (ClientException ce) {
-            log.error("OSS客户端删除文件失败: {}", ce.getMessage());
-            System.out.println("Caught an ClientException, which means the client encountered "
-                    + "a serious internal problem while trying to communicate with OSS, "
-                    + "such as not being able to access the network.");
-            System.out.println("Error Message:" + ce.getMessage());
+            log.error("OSS客户端删除文件失败: {}, code={}, message={}", objectName, ce.getErrorCode(), ce.getMessage());
             return false;
         } finally {
-            if (ossClient != null) {
-                ossClient.shutdown();
-            }
+            metrics.record("delete", System.nanoTime() - start, 0, success);
+        }
+    }
+
+    /**
+     * 关闭客户端并释放连接池，应用关闭时调用
+     */
+    public synchronized void shutdown() {
+        if (client != null) {
+            client.shutdown();
+            client = null;
         }
     }
 }
@@ -0,0 +1,117 @@
+package com.xiaoyua.utils;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * 有序 long 数组工具（升序、无重复）
+ * <p>
+ * 用于以紧凑的基本类型数组保存ID集合：查找用二分，增删返回新数组（写时复制），
+ * 求交集时按两边大小在归并和二分之间选择。
+ * </p>
+ *
+ * @author xiaoyu
+ * @since 1.0.0
+ */
+public final class SortedLongArrays {
+
+    public static final long[] EMPTY = new long[0];
+
+    private SortedLongArrays() {
+    }
+
+    /**
+     * 由任意ID集合构建有序去重数组，忽略 null
+     */
+    public static long[] of(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return EMPTY;
+        }
+        long[] values = ids.stream().filter(id -> id != null).mapToLong(Long::longValue).sorted().distinct().toArray();
+        return values.length == 0 ? EMPTY : values;
+    }
+
+    /**
+     * 是否包含某值
+     */
+    public static boolean contains(long[] sorted, long value) {
+        return Arrays.binarySearch(sorted, value) >= 0;
+    }
+
+    /**
+     * 插入一个值，已存在时返回原数组
+     */
+    public static long[] insert(long[] sorted, long value) {
+        int index = Arrays.binarySearch(sorted, value);
+        if (index >= 0) {
+            return sorted;
+        }
+        int at = -index - 1;
+        long[] result = new long[sorted.length + 1];
+        System.arraycopy(sorted, 0, result, 0, at);
+        result[at] = value;
+        System.arraycopy(sorted, at, result, at + 1, sorted.length - at);
+        return result;
+    }
+
+    /**
+     * 删除一个值，不存在时返回原数组
+     */
+    public static long[] remove(long[] sorted, long value) {
+        int at = Arrays.binarySearch(sorted, value);
+        if (at < 0) {
+            return sorted;
+        }
+        if (sorted.length == 1) {
+            return EMPTY;
+        }
+        long[] result = new long[sorted.length - 1];
+        System.arraycopy(sorted, 0, result, 0, at);
+        System.arraycopy(sorted, at + 1, result, at, sorted.length - at - 1);
+        return result;
+    }
+
+    /**
+     * 求两个有序数组的交集，结果同样有序
+     */
+    public static long[] intersect(long[] a, long[] b) {
+        if (a.length == 0 || b.length == 0) {
+            return EMPTY;
+        }
+        long[] small = a.length <= b.length ? a : b;
+        long[] large = small == a ? b : a;
+        long[] buffer = new long[small.length];
+        int size = 0;
+        // 大小悬殊时逐个二分查找更快，否则线性归并
+        if ((long) small.length * (64 - Long.numberOfLeadingZeros(large.length)) < small.length + large.length) {
+            int from = 0;
+            for (long value : small) {
+                int index = Arrays.binarySearch(large, from, large.length, value);
+                if (index >= 0) {
+                    buffer[size++] = value;
+                    from = index + 1;
+                } else {
+                    from = -index - 1;
+                }
+                if (from >= large.length) {
+                    break;
+                }
+            }
+        } else {
+            int i = 0;
+            int j = 0;
+            while (i < small.length && j < large.length) {
+                if (small[i] < large[j]) {
+                    i++;
+                } else if (small[i] > large[j]) {
+                    j++;
+                } else {
+                    buffer[size++] = small[i];
+                    i++;
+                    j++;
+                }
+            }
+        }
+        return size == 0 ? EMPTY : Arrays.copyOf(buffer, size);
+    }
+}
@@ -0,0 +1,124 @@
+package com.xiaoyua.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 对象存储操作统计
+ * <p>
+ * 按操作名（upload、delete 等）分别累计次数、失败数、传输字节数和耗时分布。
+ * 耗时分布使用固定边界的桶，记录无锁，{@link #snapshotAndReset()} 取出一个统计周期的数据并清零，
+ * 由定时任务输出到日志。
+ * </p>
+ *
+ * @author xiaoyu
+ */
+public class StorageMetrics {
+
+    /**
+     * 耗时桶上界（毫秒），最后一个桶收纳超过最大边界的请求
+     */
+    private static final long[] BUCKET_BOUNDS_MS = {10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+
+    private final Map<String, OperationStats> operations = new ConcurrentHashMap<>();
+
+    /**
+     * 记录一次操作
+     *
+     * @param operation   操作名
+     * @param elapsedNanos 耗时（纳秒）
+     * @param bytes       传输字节数
+     * @param success     是否成功
+     */
+    public void record(String operation, long elapsedNanos, long bytes, boolean success) {
+        operations.computeIfAbsent(operation, k -> new OperationStats())
+                .record(TimeUnit.NANOSECONDS.toMillis(elapsedNanos), bytes, success);
+    }
+
+    /**
+     * 取出当前周期的统计并清零，没有操作的条目不返回
+     */
+    public Map<String, Snapshot> snapshotAndReset() {
+        Map<String, Snapshot> result = new LinkedHashMap<>();
+        operations.forEach((name, stats) -> {
+            Snapshot snapshot = stats.snapshotAndReset();
+            if (snapshot.count() > 0) {
+                result.put(name, snapshot);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 一个统计周期的结果
+     *
+     * @param count   次数
+     * @param errors  失败次数
+     * @param bytes   传输字节数
+     * @param totalMs 总耗时（毫秒）
+     * @param p50Ms   中位耗时上界（毫秒）
+     * @param p99Ms   P99 耗时上界（毫秒），超过最大桶边界时为 -1
+     */
+    public record Snapshot(long count, long errors, long bytes, long totalMs, long p50Ms, long p99Ms) {
+    }
+
+    private static final class OperationStats {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder totalMs = new LongAdder();
+        private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS_MS.length + 1];
+
+        OperationStats() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        void record(long elapsedMs, long transferred, boolean success) {
+            count.increment();
+            if (!success) {
+                errors.increment();
+            }
+            if (transferred > 0) {
+                bytes.add(transferred);
+            }
+            totalMs.add(elapsedMs);
+            int i = 0;
+            while (i < BUCKET_BOUNDS_MS.length && elapsedMs > BUCKET_BOUNDS_MS[i]) {
+                i++;
+            }
+            buckets[i].increment();
+        }
+
+        Snapshot snapshotAndReset() {
+            long[] counts = new long[buckets.length];
+            long total = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                counts[i] = buckets[i].sumThenReset();
+                total += counts[i];
+            }
+            return new Snapshot(count.sumThenReset(), errors.sumThenReset(), bytes.sumThenReset(),
+                    totalMs.sumThenReset(), percentile(counts, total, 0.5), percentile(counts, total, 0.99));
+        }
+
+        private static long percentile(long[] counts, long total, double quantile) {
+            if (total == 0) {
+                return 0;
+            }
+            long target = (long) Math.ceil(total * quantile);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= target) {
+                    return i < BUCKET_BOUNDS_MS.length ? BUCKET_BOUNDS_MS[i] : -1;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -53,7 +53,7 @@ public class CommentVO {
     private Boolean isLiked;
     
     /**
-     * 回复数量
+     * 回复数量（全部回复，不是预览条数）
      * 仅对一级评论有效
      */
     private Integer replyCount;
@@ -66,7 +66,7 @@ public class CommentVO {
     
     /**
      * 二级评论列表
-     * 仅对一级评论有效，包含该评论下的回复
+     * 仅对一级评论有效，为该评论下最新的几条回复预览，更多回复通过 /comments/{comment_id}/replies 分页获取
      */
     private List<CommentVO> replies;
 }
\ No newline at end of file
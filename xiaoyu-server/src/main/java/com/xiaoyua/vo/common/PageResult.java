@@ -67,4 +67,17 @@ public class PageResult<T> {
     public static <T> PageResult<T> of(List<T> list, Integer page, Integer size, Long total) {
         return new PageResult<>(list, page, size, total);
     }
-}
\ No newline at end of file
+    
+    /**
+     * 创建游标模式的分页结果（不含总数）
+     * 
+     * @param list 数据列表
+     * @param size 每页数量
+     * @param nextCursor 下一页游标，没有下一页时为 null
+     * @param <T> 数据类型
+     * @return 分页结果
+     */
+    public static <T> PageResult<T> ofCursor(List<T> list, Integer size, String nextCursor) {
+        return new PageResult<>(list, PaginationVO.cursor(size, nextCursor));
+    }
+}
@@ -1,5 +1,6 @@
 package com.xiaoyua.vo.common;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -24,6 +25,12 @@ import lombok.NoArgsConstructor;
  *   <li>是否有下一页(hasNext)：当前页码小于总页数时为true</li>
  * </ul>
  * 
+ * <h3>游标模式：</h3>
+ * <p>
+ * 游标分页时不统计总数，page/total/pages 为空，客户端使用 nextCursor 请求下一页，
+ * nextCursor 为空表示已到末尾。
+ * </p>
+ * 
  * <h3>分页规则：</h3>
  * <ul>
  *   <li>页码从1开始计数</li>
@@ -72,6 +79,12 @@ public class PaginationVO {
      */
     private Boolean hasNext;
     
+    /**
+     * 下一页游标（仅游标模式返回）
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+    
     /**
      * 构造分页信息
      * 
@@ -87,4 +100,19 @@ public class PaginationVO {
         this.hasPrevious = page > 1;
         this.hasNext = page < pages;
     }
-}
\ No newline at end of file
+    
+    /**
+     * 构造游标模式的分页信息
+     * 
+     * @param size 每页数量
+     * @param nextCursor 下一页游标，没有下一页时为 null
+     * @return 分页信息
+     */
+    public static PaginationVO cursor(Integer size, String nextCursor) {
+        PaginationVO pagination = new PaginationVO();
+        pagination.setSize(size);
+        pagination.setHasNext(nextCursor != null);
+        pagination.setNextCursor(nextCursor);
+        return pagination;
+    }
+}
@@ -26,6 +26,26 @@ public class FileSimpleVO {
      * 缩略图URL
      */
     private String thumbnailUrl;
+
+    /**
+     * 信息流尺寸图片URL，图片版本未生成时为空
+     */
+    private String feedUrl;
+
+    /**
+     * 大图尺寸图片URL，图片版本未生成时为空
+     */
+    private String fullUrl;
+
+    /**
+     * 图片宽度（像素）
+     */
+    private Integer width;
+
+    /**
+     * 图片高度（像素）
+     */
+    private Integer height;
     
     /**
      * 文件类型：IMAGE图片 VIDEO视频 AUDIO音频 DOCUMENT文档
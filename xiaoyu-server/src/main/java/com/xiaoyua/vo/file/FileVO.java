@@ -43,6 +43,28 @@ public class FileVO {
      */
     @JsonProperty("thumb_url")
     private String thumbUrl;
+
+    /**
+     * 信息流尺寸图片URL
+     */
+    @JsonProperty("feed_url")
+    private String feedUrl;
+
+    /**
+     * 大图尺寸图片URL
+     */
+    @JsonProperty("full_url")
+    private String fullUrl;
+
+    /**
+     * 图片宽度（像素）
+     */
+    private Integer width;
+
+    /**
+     * 图片高度（像素）
+     */
+    private Integer height;
     
     /**
      * 文件大小（字节）
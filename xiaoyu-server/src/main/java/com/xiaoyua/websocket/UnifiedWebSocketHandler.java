@@ -9,13 +9,21 @@ import com.xiaoyua.service.MessageService;
 import com.xiaoyua.vo.message.MessageVO;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.*;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -224,15 +232,16 @@ public class UnifiedWebSocketHandler extends TextWebSocketHandler {
     }
     
     /**
-     * 向指定用户发送消息（线程安全的try-send模式）
+     * 向指定用户发送消息，供处理器、MQ 消费者和离线消息推送共用
+     * 
+     * @return 是否发送成功（用户不在本节点或发送失败时为 false）
      */
-    private boolean sendMessageToUser(Long userId, Object payload) {
+    public boolean sendMessageToUser(Long userId, Object payload) {
         WebSocketSession session = USER_SESSIONS.get(userId);
-        if (session == null) return false;
+        if (session == null || !session.isOpen()) return false;
         
         try {
-            String messageJson = objectMapper.writeValueAsString(payload);
-            session.sendMessage(new TextMessage(messageJson));
+            send(session, objectMapper.writeValueAsString(payload));
             return true;
         } catch (Exception e) {
             log.warn("WebSocket发送失败: userId={}, error={}", userId, e.getMessage());
@@ -250,24 +259,84 @@ public class UnifiedWebSocketHandler extends TextWebSocketHandler {
                 "message", errorMsg,
                 "timestamp", System.currentTimeMillis()
             ));
-            session.sendMessage(new TextMessage(errorJson));
+            send(session, errorJson);
         } catch (IOException e) {
             log.error("发送错误消息失败: {}", e.getMessage());
         }
     }
     
     /**
-     * 检查用户是否在线
+     * 所有发送的唯一出口：WebSocketSession 不允许并发发送，
+     * 处理器线程、MQ 消费者和离线消息推送可能同时写同一会话，按会话加锁串行
      */
-    public boolean isUserOnline(Long userId) {
-        return USER_SESSIONS.containsKey(userId) && 
-               Boolean.TRUE.equals(redisTemplate.hasKey("user:online:" + userId));
+    private static void send(WebSocketSession session, String json) throws IOException {
+        synchronized (session) {
+            session.sendMessage(new TextMessage(json));
+        }
+    }
+    
+    /**
+     * 批量筛选在线用户：先按本节点会话过滤，再用一次管道请求检查在线标记
+     * 
+     * @param userIds 用户ID
+     * @return 在线的用户ID
+     */
+    public Set<Long> filterOnline(Collection<Long> userIds) {
+        List<Long> candidates = new ArrayList<>();
+        for (Long userId : new LinkedHashSet<>(userIds)) {
+            if (USER_SESSIONS.containsKey(userId)) {
+                candidates.add(userId);
+            }
+        }
+        Set<Long> online = new HashSet<>();
+        if (candidates.isEmpty()) {
+            return online;
+        }
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Long userId : candidates) {
+                connection.keyCommands().exists(("user:online:" + userId).getBytes(StandardCharsets.UTF_8));
+            }
+            return null;
+        });
+        for (int i = 0; i < candidates.size(); i++) {
+            if (Boolean.TRUE.equals(results.get(i))) {
+                online.add(candidates.get(i));
+            }
+        }
+        return online;
+    }
+    
+    /**
+     * 向用户依次发送多条消息，同一会话的发送串行进行
+     * 
+     * @return 发送成功的条数
+     */
+    public int sendToUser(Long userId, List<?> payloads) {
+        WebSocketSession session = USER_SESSIONS.get(userId);
+        if (session == null || !session.isOpen()) {
+            return 0;
+        }
+        int sent = 0;
+        // 整批持有会话锁，批内消息不会与其他发送交错
+        synchronized (session) {
+            for (Object payload : payloads) {
+                try {
+                    send(session, objectMapper.writeValueAsString(payload));
+                    sent++;
+                } catch (Exception e) {
+                    log.warn("WebSocket发送失败: userId={}, error={}", userId, e.getMessage());
+                    break;
+                }
+            }
+        }
+        return sent;
     }
     
     /**
-     * 获取用户会话
+     * 检查用户是否在线
      */
-    public WebSocketSession getUserSession(Long userId) {
-        return USER_SESSIONS.get(userId);
+    public boolean isUserOnline(Long userId) {
+        return USER_SESSIONS.containsKey(userId) && 
+               Boolean.TRUE.equals(redisTemplate.hasKey("user:online:" + userId));
     }
 }
@@ -0,0 +1,244 @@
+package com.xiaoyua.mq.producer;
+
+import com.xiaoyua.properties.MqProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.MessageConversionException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AsyncPublisher 异步发送器测试
+ *
+ * @author xiaoyu
+ */
+@DisplayName("RabbitMQ 异步发送器测试")
+class AsyncPublisherTest {
+
+    private AsyncPublisher publisher;
+
+    @AfterEach
+    void tearDown() {
+        if (publisher != null) {
+            publisher.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("确认成功的消息只发送一次")
+    void testAckedMessageSentOnce() {
+        // Given
+        StubRabbitTemplate template = new StubRabbitTemplate((payload, attempt) -> Outcome.ACK);
+        publisher = start(new AsyncPublisher(template, properties(3, 10)));
+
+        // When
+        publisher.publish("ex", "rk", "a", "a");
+        publisher.publish("ex", "rk", "b", "b");
+        awaitIdle(template, 2, 0);
+
+        // Then
+        assertEquals(List.of("a#1", "b#1"), template.sortedSends());
+    }
+
+    @Test
+    @DisplayName("被拒绝或确认超时的消息应重发，之后确认成功即停止")
+    void testNackAndTimeoutAreRetried() {
+        // Given
+        StubRabbitTemplate template = new StubRabbitTemplate((payload, attempt) -> {
+            if (attempt > 1) {
+                return Outcome.ACK;
+            }
+            return "nack".equals(payload) ? Outcome.NACK : Outcome.NO_CONFIRM;
+        });
+        publisher = start(new AsyncPublisher(template, properties(3, 10)));
+
+        // When
+        publisher.publish("ex", "rk", "nack", "nack");
+        publisher.publish("ex", "rk", "timeout", "timeout");
+        awaitIdle(template, 4, 0);
+
+        // Then
+        assertEquals(List.of("nack#1", "nack#2", "timeout#1", "timeout#2"), template.sortedSends());
+    }
+
+    @Test
+    @DisplayName("始终失败的消息达到最大发送次数后丢弃")
+    void testDroppedAfterMaxAttempts() {
+        // Given
+        StubRabbitTemplate template = new StubRabbitTemplate((payload, attempt) -> Outcome.NACK);
+        publisher = start(new AsyncPublisher(template, properties(3, 10)));
+
+        // When
+        publisher.publish("ex", "rk", "a", "a");
+        awaitIdle(template, 3, 0);
+        sleep(100);
+
+        // Then
+        assertEquals(List.of("a#1", "a#2", "a#3"), template.sortedSends());
+        assertEquals(0, publisher.pendingSize());
+    }
+
+    @Test
+    @DisplayName("连接异常可以重发，消息转换异常直接丢弃")
+    void testNonRetryableSendFailureDropped() {
+        // Given
+        StubRabbitTemplate template = new StubRabbitTemplate((payload, attempt) -> {
+            if ("bad".equals(payload)) {
+                throw new MessageConversionException("无法序列化");
+            }
+            if (attempt == 1) {
+                throw new AmqpConnectException(new RuntimeException("连接断开"));
+            }
+            return Outcome.ACK;
+        });
+        publisher = start(new AsyncPublisher(template, properties(3, 10)));
+
+        // When
+        publisher.publish("ex", "rk", "bad", "bad");
+        publisher.publish("ex", "rk", "good", "good");
+        awaitIdle(template, 3, 0);
+        sleep(100);
+
+        // Then
+        assertEquals(List.of("bad#1", "good#1", "good#2"), template.sortedSends());
+        assertTrue(AsyncPublisher.isRetryable(new AmqpConnectException(new RuntimeException())));
+        assertFalse(AsyncPublisher.isRetryable(new MessageConversionException("x")));
+        assertFalse(AsyncPublisher.isRetryable(new IllegalArgumentException("x")));
+    }
+
+    @Test
+    @DisplayName("停机时发完队列中的消息，等待退避的重发也立即发送")
+    void testShutdownDrainsQueueAndRetries() {
+        // Given：首次发送被拒绝，退避时间远大于停机等待时间
+        StubRabbitTemplate template = new StubRabbitTemplate(
+                (payload, attempt) -> "retry".equals(payload) && attempt == 1 ? Outcome.NACK : Outcome.ACK);
+        publisher = start(new AsyncPublisher(template, properties(3, 60_000)));
+        publisher.publish("ex", "rk", "retry", "retry");
+        awaitIdle(template, 1, 1);
+        for (int i = 0; i < 50; i++) {
+            publisher.publish("ex", "rk", "m" + i, "m" + i);
+        }
+
+        // When
+        publisher.shutdown();
+
+        // Then
+        assertEquals(0, publisher.pendingSize());
+        assertEquals(52, template.sends.size());
+        assertTrue(template.sends.contains("retry#2"));
+        assertThrows(IllegalStateException.class, () -> publisher.publish("ex", "rk", "late", "late"));
+    }
+
+    @Test
+    @DisplayName("启动前不接收消息，停机超时后中断发送线程并丢弃剩余消息")
+    void testLifecycle() {
+        // Given：确认一直不返回
+        StubRabbitTemplate template = new StubRabbitTemplate((payload, attempt) -> Outcome.NO_CONFIRM);
+        MqProperties properties = properties(5, 60_000);
+        properties.getPublisher().setConfirmTimeoutMs(60_000);
+        properties.getPublisher().setShutdownTimeoutMs(100);
+        publisher = new AsyncPublisher(template, properties);
+        assertThrows(IllegalStateException.class, () -> publisher.publish("ex", "rk", "early", "early"));
+        publisher.start();
+        publisher.publish("ex", "rk", "a", "a");
+        awaitIdle(template, 1, 0);
+        for (int i = 0; i < 5; i++) {
+            publisher.publish("ex", "rk", "m" + i, "m" + i);
+        }
+
+        // When
+        long begin = System.currentTimeMillis();
+        publisher.shutdown();
+
+        // Then
+        assertTrue(System.currentTimeMillis() - begin < 5000);
+        assertEquals(List.of("a#1"), template.sortedSends());
+        assertEquals(0, publisher.pendingSize());
+    }
+
+    private static AsyncPublisher start(AsyncPublisher publisher) {
+        publisher.start();
+        return publisher;
+    }
+
+    private MqProperties properties(int maxAttempts, long retryDelayMs) {
+        MqProperties properties = new MqProperties();
+        MqProperties.Publisher config = properties.getPublisher();
+        config.setQueueCapacity(100);
+        config.setWorkers(1);
+        config.setBatchSize(10);
+        config.setConfirmTimeoutMs(200);
+        config.setMaxAttempts(maxAttempts);
+        config.setRetryBaseDelayMs(retryDelayMs);
+        config.setRetryMaxDelayMs(retryDelayMs);
+        return properties;
+    }
+
+    /**
+     * 等待发送次数和待发送数达到预期
+     */
+    private void awaitIdle(StubRabbitTemplate template, int expectedSends, int expectedPending) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            if (template.sends.size() >= expectedSends && publisher.pendingSize() == expectedPending) {
+                return;
+            }
+            sleep(10);
+        }
+        fail("等待发送超时: sends=" + template.sends);
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private enum Outcome {
+        ACK, NACK, NO_CONFIRM
+    }
+
+    /**
+     * 按消息体和发送次数决定确认结果的 RabbitTemplate，记录每次发送的 "消息体#次数"
+     */
+    private static class StubRabbitTemplate extends RabbitTemplate {
+
+        private final BiFunction<String, Integer, Outcome> behavior;
+        private final List<String> sends = new CopyOnWriteArrayList<>();
+
+        StubRabbitTemplate(BiFunction<String, Integer, Outcome> behavior) {
+            this.behavior = behavior;
+        }
+
+        @Override
+        public void convertAndSend(String exchange, String routingKey, Object object, CorrelationData correlationData) {
+            String payload = (String) object;
+            int attempt = Integer.parseInt(correlationData.getId().substring(correlationData.getId().indexOf('#') + 1));
+            sends.add(payload + "#" + attempt);
+            switch (behavior.apply(payload, attempt)) {
+                case ACK -> correlationData.getFuture().complete(new CorrelationData.Confirm(true, null));
+                case NACK -> correlationData.getFuture().complete(new CorrelationData.Confirm(false, "rejected"));
+                case NO_CONFIRM -> {
+                }
+            }
+        }
+
+        List<String> sortedSends() {
+            List<String> sorted = new ArrayList<>(sends);
+            Collections.sort(sorted);
+            return sorted;
+        }
+    }
+}
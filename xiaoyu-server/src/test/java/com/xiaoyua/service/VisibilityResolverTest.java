@@ -0,0 +1,51 @@
+package com.xiaoyua.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * VisibilityResolver 关系掩码判断测试
+ *
+ * @author xiaoyu
+ */
+@DisplayName("动态可见性判断测试")
+class VisibilityResolverTest {
+
+    @Test
+    @DisplayName("未登录或无关系时只能看公开动态")
+    void testNoRelation() {
+        assertTrue(VisibilityResolver.canView(0, "PUBLIC"));
+        assertFalse(VisibilityResolver.canView(0, "FRIEND"));
+        assertFalse(VisibilityResolver.canView(0, "CAMPUS"));
+    }
+
+    @Test
+    @DisplayName("好友与同校区分别放开对应范围")
+    void testFriendAndCampus() {
+        // Given
+        int friend = VisibilityResolver.FRIEND;
+        int campus = VisibilityResolver.SAME_CAMPUS;
+
+        // Then
+        assertTrue(VisibilityResolver.canView(friend, "FRIEND"));
+        assertFalse(VisibilityResolver.canView(friend, "CAMPUS"));
+        assertTrue(VisibilityResolver.canView(campus, "CAMPUS"));
+        assertFalse(VisibilityResolver.canView(campus, "FRIEND"));
+        assertTrue(VisibilityResolver.canView(friend | campus, "CAMPUS"));
+    }
+
+    @Test
+    @DisplayName("拉黑后任何范围都不可见，本人始终可见")
+    void testBlockedAndSelf() {
+        // Given
+        int blocked = VisibilityResolver.BLOCKED | VisibilityResolver.FRIEND | VisibilityResolver.SAME_CAMPUS;
+
+        // Then
+        assertFalse(VisibilityResolver.canView(blocked, "PUBLIC"));
+        assertFalse(VisibilityResolver.canView(blocked, "FRIEND"));
+        assertTrue(VisibilityResolver.canView(VisibilityResolver.SELF, "FRIEND"));
+        assertTrue(VisibilityResolver.canView(VisibilityResolver.SELF, "CAMPUS"));
+    }
+}
@@ -0,0 +1,57 @@
+package com.xiaoyua.service.counter;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ViewCountBuffer 浏览数写缓冲测试
+ *
+ * @author xiaoyu
+ */
+@DisplayName("浏览数写缓冲测试")
+class ViewCountBufferTest {
+
+    @Test
+    @DisplayName("同一动态的多次浏览应合并为一个增量")
+    void testRecordMergesPerPost() {
+        // Given
+        ViewCountBuffer buffer = new ViewCountBuffer();
+        buffer.record(1L);
+        buffer.record(1L);
+        buffer.record(2L);
+
+        // When
+        Map<Long, Long> drained = new HashMap<>();
+        int count = buffer.drain(drained::put);
+
+        // Then
+        assertEquals(2, count);
+        assertEquals(2L, drained.get(1L));
+        assertEquals(1L, drained.get(2L));
+    }
+
+    @Test
+    @DisplayName("取出后缓冲清零，扩容后数据不丢失")
+    void testDrainClearsAndSurvivesResize() {
+        // Given
+        ViewCountBuffer buffer = new ViewCountBuffer();
+        for (long id = 1; id <= 10000; id++) {
+            buffer.add(id, id);
+        }
+
+        // When
+        Map<Long, Long> drained = new HashMap<>();
+        buffer.drain(drained::put);
+
+        // Then
+        assertEquals(10000, drained.size());
+        assertEquals(5000L, drained.get(5000L));
+        assertEquals(0, buffer.pendingSize());
+        assertEquals(0, buffer.drain((postId, delta) -> fail("缓冲应已清空")));
+    }
+}
@@ -0,0 +1,268 @@
+package com.xiaoyua.service.impl;
+
+import com.xiaoyua.entity.CommentPO;
+import com.xiaoyua.entity.CommentStatPO;
+import com.xiaoyua.mapper.CommentMapper;
+import com.xiaoyua.mapper.CommentStatMapper;
+import com.xiaoyua.properties.FeedProperties;
+import com.xiaoyua.service.CommentStatService;
+import com.xiaoyua.utils.CursorUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * CommentStatServiceImpl 评论统计与热度索引测试
+ *
+ * @author xiaoyu
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("评论统计与热度索引测试")
+class CommentStatServiceImplTest {
+
+    private static final long POST_ID = 100L;
+    private static final String KEY = "comment:hot:" + POST_ID;
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 1, 1, 12, 0, 0);
+
+    @Mock
+    private CommentStatMapper commentStatMapper;
+
+    @Mock
+    private CommentMapper commentMapper;
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private ZSetOperations<String, String> zSetOperations;
+
+    @Spy
+    private FeedProperties feedProperties = new FeedProperties();
+
+    @InjectMocks
+    private CommentStatServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(stringRedisTemplate.opsForZSet()).thenReturn(zSetOperations);
+    }
+
+    @Test
+    @DisplayName("首次读取时从数据库构建索引，占位成员不计入总数也不返回")
+    void testSeedIndexWithPlaceholder() {
+        // Given
+        when(stringRedisTemplate.hasKey(KEY)).thenReturn(false);
+        when(commentMapper.selectList(any())).thenReturn(List.of(
+                root(3L, NOW), root(2L, NOW.minusHours(1)), root(1L, NOW.minusHours(2))));
+        when(commentStatMapper.selectBatchIds(anyCollection())).thenReturn(List.of(stat(1L, 50, 0)));
+        when(zSetOperations.reverseRange(KEY, 0, 9)).thenReturn(new LinkedHashSet<>(List.of("1", "3", "2", "0")));
+
+        // When
+        CommentStatService.HotPage page = service.hotRootIds(POST_ID, 0, 10);
+
+        // Then
+        assertEquals(List.of(1L, 3L, 2L), page.ids());
+        assertEquals(3, page.total());
+        Map<String, Double> seeded = captureSeed();
+        assertEquals(Set.of("0", "1", "2", "3"), seeded.keySet());
+        assertEquals(0D, seeded.get("0"));
+        assertTrue(seeded.get("1") > seeded.get("3"));
+        verify(stringRedisTemplate).expire(KEY, 3, TimeUnit.DAYS);
+    }
+
+    @Test
+    @DisplayName("没有根评论的动态只写入占位成员，再次读取不重复载入")
+    void testEmptyIndexNotReseeded() {
+        // Given
+        when(stringRedisTemplate.hasKey(KEY)).thenReturn(false, true);
+        when(commentMapper.selectList(any())).thenReturn(List.of());
+        when(zSetOperations.zCard(KEY)).thenReturn(1L);
+
+        // When
+        CommentStatService.HotPage first = service.hotRootIds(POST_ID, 0, 10);
+        CommentStatService.HotPage second = service.hotRootIds(POST_ID, 0, 10);
+
+        // Then
+        assertTrue(first.ids().isEmpty());
+        assertEquals(0, second.total());
+        assertEquals(Set.of("0"), captureSeed().keySet());
+        verify(commentMapper, times(1)).selectList(any());
+        verify(zSetOperations, never()).reverseRange(anyString(), anyLong(), anyLong());
+    }
+
+    @Test
+    @DisplayName("索引按 seed-limit 截断时，超出范围的分页交给数据库")
+    void testTruncatedIndexFallsBack() {
+        // Given
+        feedProperties.getCommentHot().setSeedLimit(2);
+        when(stringRedisTemplate.hasKey(KEY)).thenReturn(true);
+        when(zSetOperations.zCard(KEY)).thenReturn(3L);
+
+        // When
+        CommentStatService.HotPage beyond = service.hotRootIds(POST_ID, 2, 10);
+
+        // Then
+        assertNull(beyond);
+        verify(zSetOperations, never()).reverseRange(anyString(), anyLong(), anyLong());
+    }
+
+    @Test
+    @DisplayName("互动更新统计后用脚本写入热度，并按 seed-limit 截断索引")
+    @SuppressWarnings("unchecked")
+    void testUpdateWritesThroughScript() {
+        // Given
+        when(commentMapper.selectById(1L)).thenReturn(root(1L, NOW));
+        when(commentStatMapper.selectById(1L)).thenReturn(stat(1L, 1, 0));
+
+        // When
+        service.onLike(1L, 1);
+
+        // Then
+        verify(commentStatMapper).increment(1L, 1, 0);
+        ArgumentCaptor<String> score = ArgumentCaptor.forClass(String.class);
+        verify(stringRedisTemplate).execute(any(RedisScript.class), eq(List.of(KEY)),
+                score.capture(), eq("1"), eq("5000"));
+        assertEquals(score(1, 0, NOW), Double.parseDouble(score.getValue()));
+        // 是否存在由脚本判断，不再单独 EXISTS
+        verify(stringRedisTemplate, never()).hasKey(anyString());
+    }
+
+    @Test
+    @DisplayName("二级回复的互动只更新统计，不写入热度索引")
+    @SuppressWarnings("unchecked")
+    void testReplyNotIndexed() {
+        // Given
+        CommentPO reply = root(5L, NOW);
+        reply.setParentId(1L);
+        when(commentMapper.selectById(5L)).thenReturn(reply);
+
+        // When
+        service.onLike(5L, -1);
+
+        // Then
+        verify(commentStatMapper).increment(5L, -1, 0);
+        verify(stringRedisTemplate, never()).execute(any(RedisScript.class), anyList(), any(Object[].class));
+    }
+
+    @Test
+    @DisplayName("计数为负的历史数据按 0 计分")
+    void testNegativeStatScoredAsZero() {
+        // Given
+        when(stringRedisTemplate.hasKey(KEY)).thenReturn(false);
+        when(commentMapper.selectList(any())).thenReturn(List.of(root(1L, NOW), root(2L, NOW)));
+        when(commentStatMapper.selectBatchIds(anyCollection())).thenReturn(List.of(stat(1L, -5, -1)));
+
+        // When
+        service.hotRootIds(POST_ID, 0, 10);
+
+        // Then
+        Map<String, Double> seeded = captureSeed();
+        assertEquals(seeded.get("2"), seeded.get("1"));
+    }
+
+    @Test
+    @DisplayName("热门游标按 (分数, 评论ID) 倒序翻页，页尾同分成员补齐后按数值ID排序")
+    void testHotCursorPaging() {
+        // Given：10、11、2 同分，Redis 对同分成员按字典序返回，首次只读到其中两个
+        when(stringRedisTemplate.hasKey(KEY)).thenReturn(true);
+        when(zSetOperations.zCard(KEY)).thenReturn(6L);
+        when(zSetOperations.reverseRangeByScoreWithScores(KEY, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 0, 3))
+                .thenReturn(tuples("9", 3D, "2", 2D, "11", 2D));
+        when(zSetOperations.rangeByScoreWithScores(KEY, 2D, 2D)).thenReturn(tuples("10", 2D, "11", 2D, "2", 2D));
+        when(zSetOperations.reverseRangeByScoreWithScores(KEY, Double.NEGATIVE_INFINITY, Math.nextDown(2D), 0, 3))
+                .thenReturn(tuples("1", 1D, "0", 0D));
+
+        // When
+        CommentStatService.HotCursorPage first = service.hotRootIdsAfter(POST_ID, "", 2);
+        CommentStatService.HotCursorPage second = service.hotRootIdsAfter(POST_ID, first.nextCursor(), 2);
+        CommentStatService.HotCursorPage third = service.hotRootIdsAfter(POST_ID, second.nextCursor(), 2);
+
+        // Then
+        assertEquals(List.of(9L, 11L), first.ids());
+        assertTrue(service.isHotCursor(first.nextCursor()));
+        assertEquals(List.of(10L, 2L), second.ids());
+        assertEquals(List.of(1L), third.ids());
+        assertNull(third.nextCursor());
+    }
+
+    @Test
+    @DisplayName("按时间分页的游标交给调用方，损坏的热门游标报错")
+    void testForeignOrInvalidCursor() {
+        assertNull(service.hotRootIdsAfter(POST_ID, CursorUtil.encode(NOW, 1L), 10));
+        assertThrows(IllegalArgumentException.class, () -> service.hotRootIdsAfter(POST_ID, "hot.!!", 10));
+        verify(zSetOperations, never()).reverseRangeByScoreWithScores(anyString(), anyDouble(), anyDouble(),
+                anyLong(), anyLong());
+    }
+
+    /**
+     * 取构建索引时一次写入的成员与分数
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Double> captureSeed() {
+        ArgumentCaptor<Set<ZSetOperations.TypedTuple<String>>> captor = ArgumentCaptor.forClass(Set.class);
+        verify(zSetOperations).add(eq(KEY), captor.capture());
+        return captor.getValue().stream()
+                .collect(Collectors.toMap(ZSetOperations.TypedTuple::getValue, ZSetOperations.TypedTuple::getScore));
+    }
+
+    private double score(int likeCnt, int replyCnt, LocalDateTime createdAt) {
+        FeedProperties.CommentHot config = feedProperties.getCommentHot();
+        double pts = likeCnt * config.getLikeWeight() + replyCnt * config.getReplyWeight();
+        long ts = createdAt.atZone(ZoneId.systemDefault()).toEpochSecond();
+        return Math.log10(Math.max(pts, 1)) + (double) ts / config.getDecaySeconds();
+    }
+
+    private static Set<ZSetOperations.TypedTuple<String>> tuples(Object... memberScores) {
+        Set<ZSetOperations.TypedTuple<String>> tuples = new LinkedHashSet<>();
+        for (int i = 0; i < memberScores.length; i += 2) {
+            tuples.add(new DefaultTypedTuple<>((String) memberScores[i], (Double) memberScores[i + 1]));
+        }
+        return tuples;
+    }
+
+    private static CommentPO root(Long id, LocalDateTime createdAt) {
+        CommentPO comment = new CommentPO();
+        comment.setId(id);
+        comment.setItemId(POST_ID);
+        comment.setItemType(CommentPO.ItemType.POST);
+        comment.setParentId(0L);
+        comment.setCreatedAt(createdAt);
+        return comment;
+    }
+
+    private static CommentStatPO stat(Long commentId, int likeCnt, int replyCnt) {
+        CommentStatPO stat = new CommentStatPO();
+        stat.setCommentId(commentId);
+        stat.setLikeCnt(likeCnt);
+        stat.setReplyCnt(replyCnt);
+        return stat;
+    }
+}
@@ -0,0 +1,168 @@
+package com.xiaoyua.service.pipeline;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ImageVariantPipeline 图片版本生成测试
+ *
+ * @author xiaoyu
+ */
+@DisplayName("图片多尺寸版本生成测试")
+class ImageVariantPipelineTest {
+
+    private static byte[] png(int width, int height) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", out);
+        return out.toByteArray();
+    }
+
+    /**
+     * 在 JPEG 的 SOI 之后插入只含 Orientation 标签的 EXIF APP1 段
+     */
+    private static byte[] jpegWithOrientation(int width, int height, int orientation, boolean bigEndian) throws IOException {
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "jpg", jpeg);
+        byte[] image = jpeg.toByteArray();
+
+        ByteBuffer tiff = ByteBuffer.allocate(26).order(bigEndian ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+        tiff.put(bigEndian ? (byte) 'M' : (byte) 'I').put(bigEndian ? (byte) 'M' : (byte) 'I')
+                .putShort((short) 42).putInt(8)
+                .putShort((short) 1)
+                .putShort((short) 0x0112).putShort((short) 3).putInt(1).putShort((short) orientation).putShort((short) 0)
+                .putInt(0);
+        byte[] exif = "Exif\0\0".getBytes(StandardCharsets.ISO_8859_1);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(image, 0, 2);
+        int length = 2 + exif.length + tiff.capacity();
+        out.write(new byte[]{(byte) 0xFF, (byte) 0xE1, (byte) (length >> 8), (byte) length});
+        out.write(exif);
+        out.write(tiff.array());
+        out.write(image, 2, image.length - 2);
+        return out.toByteArray();
+    }
+
+    private static byte[] animatedGif(int width, int height) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("gif").next();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+            writer.prepareWriteSequence(null);
+            for (int i = 0; i < 2; i++) {
+                writer.writeToSequence(new IIOImage(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), null, null), null);
+            }
+            writer.endWriteSequence();
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    @DisplayName("降采样解码后生成各尺寸版本，并保留原图尺寸")
+    void testDecodeAndVariants() throws IOException {
+        // Given
+        byte[] data = png(4000, 1000);
+
+        // When
+        ImageVariantPipeline.Decoded decoded = ImageVariantPipeline.decode(new ByteArrayInputStream(data), 1920, 50_000_000L);
+        BufferedImage full = ImageVariantPipeline.fit(decoded.image(), 1920);
+        BufferedImage feed = ImageVariantPipeline.fit(decoded.image(), 720);
+        BufferedImage thumb = ImageVariantPipeline.cropSquare(decoded.image(), 200);
+
+        // Then
+        assertEquals(4000, decoded.width());
+        assertEquals(1000, decoded.height());
+        assertEquals(2000, decoded.image().getWidth());
+        assertEquals(1920, full.getWidth());
+        assertEquals(480, full.getHeight());
+        assertEquals(720, feed.getWidth());
+        assertEquals(200, thumb.getWidth());
+        assertEquals(200, thumb.getHeight());
+    }
+
+    @Test
+    @DisplayName("超过像素上限或无法识别时不解码")
+    void testDecodeRejected() throws IOException {
+        assertNull(ImageVariantPipeline.decode(new ByteArrayInputStream(png(100, 100)), 1920, 5_000L));
+        assertNull(ImageVariantPipeline.decode(new ByteArrayInputStream("not an image".getBytes()), 1920, 5_000L));
+    }
+
+    @Test
+    @DisplayName("带 EXIF 方向的 JPEG 解码后旋转为显示方向，宽高按显示方向记录")
+    void testExifOrientationApplied() throws IOException {
+        // Given：横向存储的 400x300 像素，EXIF 标记为顺时针旋转 90° 显示
+        byte[] data = jpegWithOrientation(400, 300, 6, false);
+
+        // When
+        ImageVariantPipeline.Decoded decoded = ImageVariantPipeline.decode(new ByteArrayInputStream(data), 1920, 50_000_000L);
+
+        // Then
+        assertEquals(6, ImageVariantPipeline.readExifOrientation(new ByteArrayInputStream(data)));
+        assertEquals(8, ImageVariantPipeline.readExifOrientation(
+                new ByteArrayInputStream(jpegWithOrientation(10, 10, 8, true))));
+        assertEquals(1, ImageVariantPipeline.readExifOrientation(new ByteArrayInputStream(png(10, 10))));
+        assertEquals(300, decoded.width());
+        assertEquals(400, decoded.height());
+        assertEquals(300, decoded.image().getWidth());
+        assertEquals(400, decoded.image().getHeight());
+    }
+
+    @Test
+    @DisplayName("按方向值旋转或翻转像素")
+    void testOrient() {
+        // Given：3x2，左上角为红色
+        BufferedImage src = new BufferedImage(3, 2, BufferedImage.TYPE_INT_RGB);
+        src.setRGB(0, 0, 0xFF0000);
+
+        // When
+        BufferedImage mirrored = ImageVariantPipeline.orient(src, 2);
+        BufferedImage rotated180 = ImageVariantPipeline.orient(src, 3);
+        BufferedImage clockwise = ImageVariantPipeline.orient(src, 6);
+        BufferedImage counterClockwise = ImageVariantPipeline.orient(src, 8);
+
+        // Then
+        assertSame(src, ImageVariantPipeline.orient(src, 1));
+        assertEquals(0xFF0000, mirrored.getRGB(2, 0) & 0xFFFFFF);
+        assertEquals(0xFF0000, rotated180.getRGB(2, 1) & 0xFFFFFF);
+        assertEquals(2, clockwise.getWidth());
+        assertEquals(3, clockwise.getHeight());
+        assertEquals(0xFF0000, clockwise.getRGB(1, 0) & 0xFFFFFF);
+        assertEquals(0xFF0000, counterClockwise.getRGB(0, 2) & 0xFFFFFF);
+    }
+
+    @Test
+    @DisplayName("动图 GIF 只读取尺寸，不解码像素")
+    void testAnimatedGifNotDecoded() throws IOException {
+        // When
+        ImageVariantPipeline.Decoded decoded = ImageVariantPipeline.decode(
+                new ByteArrayInputStream(animatedGif(120, 80)), 1920, 50_000_000L);
+
+        // Then
+        assertEquals(120, decoded.width());
+        assertEquals(80, decoded.height());
+        assertNull(decoded.image());
+    }
+
+    @Test
+    @DisplayName("版本对象名称替换扩展名并追加后缀")
+    void testVariantName() {
+        assertEquals("post/2025/10/18/abc_thumb.jpg", ImageVariantPipeline.variantName("post/2025/10/18/abc.png", "thumb", "jpg"));
+        assertEquals("post/a.b/abc_feed.jpg", ImageVariantPipeline.variantName("post/a.b/abc", "feed", "jpg"));
+    }
+}
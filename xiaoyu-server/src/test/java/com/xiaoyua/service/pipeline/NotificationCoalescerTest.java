@@ -0,0 +1,110 @@
+package com.xiaoyua.service.pipeline;
+
+import com.xiaoyua.properties.NotificationProperties;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * NotificationCoalescer 通知合并测试
+ *
+ * @author xiaoyu
+ */
+@DisplayName("点赞/收藏通知合并测试")
+class NotificationCoalescerTest {
+
+    private static final NotificationCoalescer.Key KEY = new NotificationCoalescer.Key(1L, "LIKE", 100L, "POST");
+
+    private static NotificationCoalescer coalescer(int maxOpenWindows) {
+        NotificationProperties properties = new NotificationProperties();
+        properties.getCoalesce().setQuietMs(1000);
+        properties.getCoalesce().setMaxDelayMs(5000);
+        properties.getCoalesce().setMaxOpenWindows(maxOpenWindows);
+        return new NotificationCoalescer(properties);
+    }
+
+    @Test
+    @DisplayName("窗口内按用户去重合并，静默后取出并按最近互动排序")
+    void testCoalesceWithinQuietWindow() {
+        // Given
+        NotificationCoalescer coalescer = coalescer(10);
+        coalescer.offer(KEY, 11L, 0);
+        coalescer.offer(KEY, 12L, 200);
+        coalescer.offer(KEY, 13L, 400);
+        coalescer.offer(KEY, 11L, 600);
+
+        // When
+        List<NotificationCoalescer.Batch> early = coalescer.drainDue(1500);
+        List<NotificationCoalescer.Batch> due = coalescer.drainDue(1600);
+
+        // Then
+        assertTrue(early.isEmpty());
+        assertEquals(1, due.size());
+        assertEquals(3, due.get(0).count());
+        assertEquals(List.of(11L, 13L), due.get(0).recentActorIds());
+        assertEquals(0, coalescer.openWindows());
+    }
+
+    @Test
+    @DisplayName("持续互动时窗口在最长等待时间后取出")
+    void testMaxDelay() {
+        // Given
+        NotificationCoalescer coalescer = coalescer(10);
+        for (long t = 0; t <= 5000; t += 500) {
+            coalescer.offer(KEY, t, t);
+        }
+
+        // When
+        List<NotificationCoalescer.Batch> due = coalescer.drainDue(5000);
+
+        // Then
+        assertEquals(1, due.size());
+        assertEquals(11, due.get(0).count());
+    }
+
+    @Test
+    @DisplayName("窗口数达到上限时拒绝合并，由调用方直接发送")
+    void testMaxOpenWindows() {
+        // Given
+        NotificationCoalescer coalescer = coalescer(1);
+
+        // When
+        boolean first = coalescer.offer(KEY, 11L, 0);
+        boolean sameKey = coalescer.offer(KEY, 12L, 10);
+        boolean otherKey = coalescer.offer(new NotificationCoalescer.Key(2L, "LIKE", 100L, "POST"), 11L, 20);
+
+        // Then
+        assertTrue(first);
+        assertTrue(sameKey);
+        assertFalse(otherKey);
+        assertEquals(1, coalescer.drainAll().size());
+    }
+
+    @Test
+    @DisplayName("取消互动从窗口撤回用户，撤空的窗口直接丢弃")
+    void testWithdraw() {
+        // Given
+        NotificationCoalescer coalescer = coalescer(10);
+        NotificationCoalescer.Key other = NotificationCoalescer.Key.of(2L, "LIKE", 100L, "post");
+        coalescer.offer(KEY, 11L, 0);
+        coalescer.offer(KEY, 12L, 100);
+        coalescer.offer(other, 11L, 0);
+
+        // When
+        boolean withdrawn = coalescer.withdraw(KEY, 12L);
+        boolean unknown = coalescer.withdraw(KEY, 99L);
+        coalescer.withdraw(NotificationCoalescer.Key.of(2L, "LIKE", 100L, "POST"), 11L);
+        List<NotificationCoalescer.Batch> due = coalescer.drainDue(2000);
+
+        // Then
+        assertTrue(withdrawn);
+        assertFalse(unknown);
+        assertEquals(1, due.size());
+        assertEquals(KEY, due.get(0).key());
+        assertEquals(1, due.get(0).count());
+        assertEquals(List.of(11L), due.get(0).recentActorIds());
+    }
+}
@@ -0,0 +1,52 @@
+package com.xiaoyua.service.pipeline;
+
+import com.xiaoyua.utils.BusinessValidationUtils;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PostPublishPipeline 话题提取测试
+ *
+ * @author xiaoyu
+ */
+@DisplayName("动态发布话题提取测试")
+class PostPublishPipelineTest {
+
+    @Test
+    @DisplayName("合并显式话题与正文话题并统一为 #名称# 去重")
+    void testExtractTopics() {
+        // Given
+        String content = "今天天气真好！#美好生活# 去图书馆 #校园日常#，#美好生活# #没有结尾 C# 和 F#";
+        List<String> topicNames = Arrays.asList("美好生活", "##考试周#", "#社团#", " ", "##", null);
+
+        // When
+        List<String> topics = PostPublishPipeline.extractTopics(content, topicNames);
+
+        // Then
+        assertEquals(List.of("#美好生活#", "#考试周#", "#社团#", "#校园日常#"), topics);
+        assertTrue(topics.stream().allMatch(BusinessValidationUtils::isValidTopicName));
+    }
+
+    @Test
+    @DisplayName("话题数量超过上限时截断")
+    void testExtractTopicsLimit() {
+        // Given
+        List<String> topicNames = new ArrayList<>();
+        for (int i = 0; i < 15; i++) {
+            topicNames.add("话题" + i);
+        }
+
+        // When
+        List<String> topics = PostPublishPipeline.extractTopics(null, topicNames);
+
+        // Then
+        assertEquals(10, topics.size());
+        assertEquals("#话题0#", topics.get(0));
+    }
+}
@@ -0,0 +1,91 @@
+package com.xiaoyua.service.storage;
+
+import com.xiaoyua.properties.FileProperties;
+import com.xiaoyua.utils.StorageMetrics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * LocalStorageBackend 本地存储测试
+ *
+ * @author xiaoyu
+ */
+@DisplayName("本地磁盘存储测试")
+class LocalStorageBackendTest {
+
+    @TempDir
+    Path tempDir;
+
+    private LocalStorageBackend newBackend() throws Exception {
+        FileProperties properties = new FileProperties();
+        properties.getStorage().setLocalBaseDir(tempDir.toString());
+        LocalStorageBackend backend = new LocalStorageBackend();
+        ReflectionTestUtils.setField(backend, "fileProperties", properties);
+        ReflectionTestUtils.setField(backend, "storageMetrics", new StorageMetrics());
+        backend.init();
+        return backend;
+    }
+
+    @Test
+    @DisplayName("解析单段Range请求头")
+    void testParseRange() {
+        assertEquals(new LocalStorageBackend.ByteRange(0, 9), LocalStorageBackend.parseRange("bytes=0-9", 100));
+        assertEquals(new LocalStorageBackend.ByteRange(90, 99), LocalStorageBackend.parseRange("bytes=90-", 100));
+        assertEquals(new LocalStorageBackend.ByteRange(80, 99), LocalStorageBackend.parseRange("bytes=-20", 100));
+        assertEquals(new LocalStorageBackend.ByteRange(50, 99), LocalStorageBackend.parseRange("bytes=50-500", 100));
+        assertSame(LocalStorageBackend.ByteRange.UNSATISFIABLE, LocalStorageBackend.parseRange("bytes=100-", 100));
+        assertNull(LocalStorageBackend.parseRange("bytes=0-1,5-6", 100));
+        assertNull(LocalStorageBackend.parseRange(null, 100));
+    }
+
+    @Test
+    @DisplayName("写入后按Range读取，且不残留临时文件")
+    void testPutAndServeRange() throws Exception {
+        // Given
+        LocalStorageBackend backend = newBackend();
+        byte[] data = "hello, campus".getBytes(StandardCharsets.UTF_8);
+
+        // When
+        StorageBackend.StoredObject stored = backend.put(new ByteArrayInputStream(data), data.length, "post/2025/10/18/a.txt");
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", stored.url());
+        request.addHeader("Range", "bytes=7-");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        backend.serve(backend.objectNameOf(stored.url()), request, response);
+
+        // Then
+        assertEquals(data.length, stored.size());
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 7-12/13", response.getHeader("Content-Range"));
+        assertEquals("campus", response.getContentAsString());
+        try (Stream<Path> files = Files.walk(tempDir)) {
+            assertEquals(1, files.filter(Files::isRegularFile).count());
+        }
+    }
+
+    @Test
+    @DisplayName("长度不一致时写入失败且不留下文件")
+    void testPutLengthMismatch() throws Exception {
+        // Given
+        LocalStorageBackend backend = newBackend();
+        byte[] data = "abc".getBytes(StandardCharsets.UTF_8);
+
+        // When & Then
+        assertThrows(RuntimeException.class,
+                () -> backend.put(new ByteArrayInputStream(data), 10, "post/2025/10/18/b.txt"));
+        try (Stream<Path> files = Files.walk(tempDir)) {
+            assertEquals(0, files.filter(Files::isRegularFile).count());
+        }
+    }
+}
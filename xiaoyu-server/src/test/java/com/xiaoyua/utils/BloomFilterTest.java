@@ -0,0 +1,58 @@
+package com.xiaoyua.utils;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BloomFilter 布隆过滤器测试
+ *
+ * @author xiaoyu
+ */
+@DisplayName("布隆过滤器测试")
+class BloomFilterTest {
+
+    @Test
+    @DisplayName("已加入的元素一定判断为可能存在")
+    void testNoFalseNegatives() {
+        // Given
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+        for (long i = 1; i <= 10_000; i++) {
+            filter.put(i, i * 7);
+        }
+
+        // Then
+        for (long i = 1; i <= 10_000; i++) {
+            assertTrue(filter.mightContain(i, i * 7));
+        }
+    }
+
+    @Test
+    @DisplayName("未加入元素的误判率应接近配置值")
+    void testFalsePositiveRate() {
+        // Given
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+        for (long i = 1; i <= 10_000; i++) {
+            filter.put(i, 1L);
+        }
+
+        // When
+        int falsePositives = 0;
+        for (long i = 1; i <= 10_000; i++) {
+            if (filter.mightContain(i, 2L)) {
+                falsePositives++;
+            }
+        }
+
+        // Then
+        assertTrue(falsePositives < 300, "误判数量过多: " + falsePositives);
+    }
+
+    @Test
+    @DisplayName("非法参数应该抛出异常")
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> BloomFilter.create(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> BloomFilter.create(100, 1.5));
+    }
+}
@@ -0,0 +1,82 @@
+package com.xiaoyua.utils;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CursorUtil 游标分页工具测试
+ *
+ * @author xiaoyu
+ */
+@DisplayName("游标分页工具测试")
+class CursorUtilTest {
+
+    @Test
+    @DisplayName("编码后再解码应还原时间与ID")
+    void testEncodeDecodeRoundTrip() {
+        // Given
+        LocalDateTime createdAt = LocalDateTime.of(2025, 9, 18, 12, 30, 45);
+
+        // When
+        String cursor = CursorUtil.encode(createdAt, 12345L);
+        CursorUtil.Cursor decoded = CursorUtil.decode(cursor);
+
+        // Then
+        assertNotNull(decoded);
+        assertEquals(createdAt, decoded.getCreatedAt());
+        assertEquals(12345L, decoded.getId());
+    }
+
+    @Test
+    @DisplayName("空游标表示第一页")
+    void testBlankCursorIsFirstPage() {
+        assertNull(CursorUtil.decode(""));
+        assertNull(CursorUtil.decode(null));
+    }
+
+    @Test
+    @DisplayName("非法游标应该抛出参数异常")
+    void testInvalidCursor() {
+        assertThrows(IllegalArgumentException.class, () -> CursorUtil.decode("not-a-cursor"));
+    }
+
+    @Test
+    @DisplayName("多取一条时截断结果并返回下一页游标")
+    void testNextCursorWhenMoreRows() {
+        // Given
+        LocalDateTime base = LocalDateTime.of(2025, 9, 18, 12, 0);
+        List<long[]> rows = new ArrayList<>(List.of(new long[]{3, 30}, new long[]{2, 20}, new long[]{1, 10}));
+
+        // When
+        String next = CursorUtil.nextCursor(rows, 2, r -> base.plusMinutes(r[1]), r -> r[0]);
+
+        // Then
+        assertEquals(2, rows.size());
+        CursorUtil.Cursor decoded = CursorUtil.decode(next);
+        assertEquals(2L, decoded.getId());
+        assertEquals(base.plusMinutes(20), decoded.getCreatedAt());
+    }
+
+    @Test
+    @DisplayName("不足一页时没有下一页游标")
+    void testNoNextCursorOnLastPage() {
+        List<long[]> rows = new ArrayList<>(List.of(new long[]{1, 10}));
+        assertNull(CursorUtil.nextCursor(rows, 2, r -> LocalDateTime.now(), r -> r[0]));
+        assertEquals(1, rows.size());
+    }
+
+    @Test
+    @DisplayName("每页数量为空时取默认值，超过上限时取上限")
+    void testPageSizeClamped() {
+        assertEquals(20, CursorUtil.pageSize(null));
+        assertEquals(20, CursorUtil.pageSize(0));
+        assertEquals(30, CursorUtil.pageSize(30));
+        assertEquals(100, CursorUtil.pageSize(100_000));
+    }
+}
@@ -0,0 +1,53 @@
+package com.xiaoyua.utils;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * MeasuredInputStream 边读边统计测试
+ *
+ * @author xiaoyu
+ */
+@DisplayName("边读边统计输入流测试")
+class MeasuredInputStreamTest {
+
+    @Test
+    @DisplayName("读完后得到正确的字节数与SHA-256")
+    void testSizeAndDigest() throws IOException {
+        // Given
+        byte[] data = "abc".getBytes(StandardCharsets.UTF_8);
+        MeasuredInputStream in = new MeasuredInputStream(new ByteArrayInputStream(data));
+
+        // When
+        assertEquals('a', in.read());
+        byte[] buffer = new byte[8];
+        assertEquals(2, in.read(buffer, 0, buffer.length));
+        assertEquals(-1, in.read());
+
+        // Then
+        assertEquals(3, in.getBytesRead());
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", in.getSha256Hex());
+    }
+
+    @Test
+    @DisplayName("跳过的数据同样计入摘要")
+    void testSkipCountsBytes() throws IOException {
+        // Given
+        MeasuredInputStream in = new MeasuredInputStream(
+                new ByteArrayInputStream("abc".getBytes(StandardCharsets.UTF_8)));
+
+        // When
+        long skipped = in.skip(10);
+
+        // Then
+        assertEquals(3, skipped);
+        assertEquals(3, in.getBytesRead());
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", in.getSha256Hex());
+    }
+}
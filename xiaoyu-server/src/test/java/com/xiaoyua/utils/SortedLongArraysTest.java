@@ -0,0 +1,62 @@
+package com.xiaoyua.utils;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SortedLongArrays 有序数组工具测试
+ *
+ * @author xiaoyu
+ */
+@DisplayName("有序long数组工具测试")
+class SortedLongArraysTest {
+
+    @Test
+    @DisplayName("构建时排序去重并忽略null")
+    void testOf() {
+        long[] values = SortedLongArrays.of(Arrays.asList(5L, 1L, null, 5L, 3L));
+
+        assertArrayEquals(new long[]{1, 3, 5}, values);
+        assertSame(SortedLongArrays.EMPTY, SortedLongArrays.of(List.of()));
+    }
+
+    @Test
+    @DisplayName("插入和删除保持有序且不修改原数组")
+    void testInsertAndRemove() {
+        // Given
+        long[] origin = {1, 3, 5};
+
+        // When
+        long[] inserted = SortedLongArrays.insert(origin, 4);
+        long[] removed = SortedLongArrays.remove(inserted, 1);
+
+        // Then
+        assertArrayEquals(new long[]{1, 3, 5}, origin);
+        assertArrayEquals(new long[]{1, 3, 4, 5}, inserted);
+        assertArrayEquals(new long[]{3, 4, 5}, removed);
+        assertSame(origin, SortedLongArrays.insert(origin, 3));
+        assertSame(origin, SortedLongArrays.remove(origin, 2));
+        assertTrue(SortedLongArrays.contains(removed, 4));
+        assertFalse(SortedLongArrays.contains(removed, 1));
+    }
+
+    @Test
+    @DisplayName("交集在大小相近与悬殊时结果一致")
+    void testIntersect() {
+        // Given
+        long[] evens = new long[1000];
+        for (int i = 0; i < evens.length; i++) {
+            evens[i] = i * 2L;
+        }
+
+        // Then
+        assertArrayEquals(new long[]{2, 4}, SortedLongArrays.intersect(new long[]{1, 2, 3, 4}, new long[]{2, 4, 6, 8}));
+        assertArrayEquals(new long[]{10, 1998}, SortedLongArrays.intersect(new long[]{7, 10, 1998, 3001}, evens));
+        assertEquals(0, SortedLongArrays.intersect(new long[]{1, 3}, evens).length);
+    }
+}
@@ -0,0 +1,43 @@
+package com.xiaoyua.utils;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * StorageMetrics 统计测试
+ *
+ * @author xiaoyu
+ */
+@DisplayName("对象存储操作统计测试")
+class StorageMetricsTest {
+
+    @Test
+    @DisplayName("按操作累计次数、失败数、字节数与耗时分位，取出后清零")
+    void testSnapshotAndReset() {
+        // Given
+        StorageMetrics metrics = new StorageMetrics();
+        for (int i = 0; i < 99; i++) {
+            metrics.record("upload", TimeUnit.MILLISECONDS.toNanos(20), 100, true);
+        }
+        metrics.record("upload", TimeUnit.MILLISECONDS.toNanos(3000), 0, false);
+        metrics.record("delete", TimeUnit.MILLISECONDS.toNanos(5), 0, true);
+
+        // When
+        Map<String, StorageMetrics.Snapshot> snapshots = metrics.snapshotAndReset();
+
+        // Then
+        StorageMetrics.Snapshot upload = snapshots.get("upload");
+        assertEquals(100, upload.count());
+        assertEquals(1, upload.errors());
+        assertEquals(9900, upload.bytes());
+        assertEquals(25, upload.p50Ms());
+        assertEquals(25, upload.p99Ms());
+        assertEquals(10, snapshots.get("delete").p50Ms());
+        assertTrue(metrics.snapshotAndReset().isEmpty());
+    }
+}